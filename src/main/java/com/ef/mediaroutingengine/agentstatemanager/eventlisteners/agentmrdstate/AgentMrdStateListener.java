@@ -159,21 +159,22 @@ public class AgentMrdStateListener {
      */
     void updateState(Agent agent, AgentMrdState agentMrdState, Enums.AgentMrdStateName state) {
         agentMrdState.setState(state);
+        agent.refreshAvailability(agentMrdState.getMrd().getId());
         logger.debug("agent {} MRDs state after updating in memory agent object {} ",
                 agent.getKeycloakUser().getUsername(),
                 agent.getAgentMrdStates());
 
-        this.agentPresenceRepository.updateAgentMrdStateList(agent.getId(), agent.getAgentMrdStates());
+        this.agentPresenceRepository.updateAgentMrdStates(agent, List.of(agentMrdState.getMrd().getId()));
     }
 
     /**
-     * Publishes updated Agent-Presence on JMS-topic.
+     * Publishes updated Agent-Presence on JMS-topic, built from the in-memory agent.
      *
      * @param agent the agent
      */
     void publish(Agent agent, Enums.JmsEventName eventName, List<String> mrdStateChanges) {
         try {
-            AgentPresence agentPresence = this.agentPresenceRepository.find(agent.getId());
+            AgentPresence agentPresence = agent.toAgentPresence();
             AgentStateChangedResponse res = new AgentStateChangedResponse(agentPresence, false, mrdStateChanges);
             jmsCommunicator.publish(res, eventName);
         } catch (Exception e) {
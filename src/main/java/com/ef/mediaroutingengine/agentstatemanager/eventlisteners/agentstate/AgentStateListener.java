@@ -1,10 +1,8 @@
 package com.ef.mediaroutingengine.agentstatemanager.eventlisteners.agentstate;
 
-import com.ef.cim.objectmodel.AgentPresence;
 import com.ef.cim.objectmodel.AgentState;
 import com.ef.cim.objectmodel.Enums;
 import com.ef.cim.objectmodel.dto.AgentStateChangedResponse;
-import com.ef.mediaroutingengine.agentstatemanager.repository.AgentPresenceRepository;
 import com.ef.mediaroutingengine.global.commons.Constants;
 import com.ef.mediaroutingengine.global.jms.JmsCommunicator;
 import com.ef.mediaroutingengine.routing.model.Agent;
@@ -27,10 +25,6 @@ public class AgentStateListener {
      * The constant LOGGER.
      */
     private static final Logger logger = LoggerFactory.getLogger(AgentStateListener.class);
-    /**
-     * The Agent presence repository.
-     */
-    private final AgentPresenceRepository agentPresenceRepository;
     /**
      * The Jms communicator.
      */
@@ -43,14 +37,11 @@ public class AgentStateListener {
     /**
      * Constructor. Load the required beans
      *
-     * @param agentPresenceRepository agent presence repository DAO
-     * @param jmsCommunicator         the jms communicator
-     * @param factory                 the factory
+     * @param jmsCommunicator the jms communicator
+     * @param factory         the factory
      */
     @Autowired
-    public AgentStateListener(AgentPresenceRepository agentPresenceRepository,
-                              JmsCommunicator jmsCommunicator, AgentStateDelegateFactory factory) {
-        this.agentPresenceRepository = agentPresenceRepository;
+    public AgentStateListener(JmsCommunicator jmsCommunicator, AgentStateDelegateFactory factory) {
         this.jmsCommunicator = jmsCommunicator;
         this.factory = factory;
     }
@@ -110,8 +101,7 @@ public class AgentStateListener {
      * @param response  the Agent state changed response
      */
     private void publish(Agent agent, Enums.JmsEventName eventName, AgentStateChangedResponse response) {
-        AgentPresence agentPresence = this.agentPresenceRepository.find(agent.getId());
-        response.setAgentPresence(agentPresence);
+        response.setAgentPresence(agent.toAgentPresence());
         try {
             jmsCommunicator.publish(response, eventName);
         } catch (Exception e) {
@@ -73,9 +73,7 @@ public class AgentStateLogin implements AgentStateDelegate {
         agent.setState(state);
         List<String> mrdStateChanges = new ArrayList<>();
 
-        AgentPresence agentPresence = this.agentPresenceRepository.find(agent.getId());
-        agentPresence.setAgentLoginTime(new Timestamp(System.currentTimeMillis()));
-        agentPresence.setState(agent.getState());
+        agent.setLoginTime(new Timestamp(System.currentTimeMillis()));
 
         for (AgentMrdState agentMrdState : agent.getAgentMrdStates()) {
             if (!agentMrdState.getState().equals(Enums.AgentMrdStateName.LOGIN)) {
@@ -84,9 +82,8 @@ public class AgentStateLogin implements AgentStateDelegate {
             }
         }
 
-        agentPresence.setAgentMrdStates(agent.getAgentMrdStates());
-        this.agentPresenceRepository.updateAgentLoginTime(agent.getId(), agentPresence.getAgentLoginTime());
-        this.publish(agentPresence, mrdStateChanges);
+        this.agentPresenceRepository.updateAgentLoginTime(agent.getId(), agent.getLoginTime());
+        this.publish(agent.toAgentPresence(), mrdStateChanges);
 
     }
 
@@ -106,7 +103,7 @@ public class AgentStateLogin implements AgentStateDelegate {
                 mrdStateChanges.add(agentMrdState.getMrd().getId());
             }
         }
-        this.agentPresenceRepository.updateAgentState(agent.getId(), agent.getState());
+        this.agentPresenceRepository.updateAgentState(agent);
         this.agentPresenceRepository.updateAgentMrdStateList(agent.getId(), agent.getAgentMrdStates());
         return mrdStateChanges;
     }
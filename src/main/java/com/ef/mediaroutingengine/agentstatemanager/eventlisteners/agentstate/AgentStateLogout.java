@@ -5,6 +5,8 @@ import com.ef.cim.objectmodel.AgentState;
 import com.ef.cim.objectmodel.Enums;
 import com.ef.cim.objectmodel.dto.AgentStateChangedResponse;
 import com.ef.cim.objectmodel.task.Task;
+import com.ef.cim.objectmodel.task.TaskMedia;
+import com.ef.cim.objectmodel.task.TaskMediaState;
 import com.ef.cim.objectmodel.task.TaskState;
 import com.ef.mediaroutingengine.agentstatemanager.repository.AgentPresenceRepository;
 import com.ef.mediaroutingengine.global.locks.ConversationLock;
@@ -38,7 +40,7 @@ public class AgentStateLogout implements AgentStateDelegate {
      * The Tasks repository.
      */
     private final TasksRepository tasksRepository;
-    private final ConversationLock conversationLock = new ConversationLock();
+    private final ConversationLock conversationLock = new ConversationLock("agent-state-logout");
 
     /**
      * Instantiates a new Agent state logout.
@@ -68,7 +70,7 @@ public class AgentStateLogout implements AgentStateDelegate {
                 mrdStateChanges.add(agentMrdState.getMrd().getId());
             }
         }
-        this.agentPresenceRepository.updateAgentState(agent.getId(), agent.getState());
+        this.agentPresenceRepository.updateAgentState(agent);
         this.agentPresenceRepository.updateAgentMrdStateList(agent.getId(), agent.getAgentMrdStates());
         return new AgentStateChangedResponse(null, true, mrdStateChanges);
     }
@@ -85,7 +87,8 @@ public class AgentStateLogout implements AgentStateDelegate {
     }
 
     /**
-     * Handle reserved tasks.
+     * Handle reserved tasks. A reservation that is not persisted yet is left to the task router offering it, which
+     * puts the task back in queue once the reservation is cleared with the agent's tasks.
      *
      * @param agent the agent
      */
@@ -95,9 +98,13 @@ public class AgentStateLogout implements AgentStateDelegate {
             try {
                 conversationLock.lock(reservedTask.getConversationId());
 
-                agent.removeReservedTask();
-
                 Task task = this.tasksRepository.find(reservedTask.getTaskId());
+                TaskMedia media = task != null ? task.findMediaBy(reservedTask.getTaskMediaId()) : null;
+                if (media == null || media.getState() != TaskMediaState.RESERVED) {
+                    return;
+                }
+
+                agent.removeReservedTask();
                 TaskState taskState = new TaskState(Enums.TaskStateName.CLOSED, Enums.TaskStateReasonCode.AGENT_LOGOUT);
 
                 this.taskManager.rerouteReserved(task, taskState);
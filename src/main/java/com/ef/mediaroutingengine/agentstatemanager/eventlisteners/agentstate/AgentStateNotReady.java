@@ -42,7 +42,7 @@ public class AgentStateNotReady implements AgentStateDelegate {
 
         if (currentState.equals(Enums.AgentStateName.NOT_READY)) {
             agent.setState(newState);
-            this.agentPresenceRepository.updateAgentState(agent.getId(), agent.getState());
+            this.agentPresenceRepository.updateAgentState(agent);
             return new AgentStateChangedResponse(null, true, new ArrayList<>());
         }
 
@@ -60,7 +60,7 @@ public class AgentStateNotReady implements AgentStateDelegate {
             }
 
             agent.setState(newState);
-            this.agentPresenceRepository.updateAgentState(agent.getId(), agent.getState());
+            this.agentPresenceRepository.updateAgentState(agent);
             return new AgentStateChangedResponse(null, true, mrdStateChanges);
         }
 
@@ -100,7 +100,8 @@ public class AgentStateNotReady implements AgentStateDelegate {
                 mrdStateChanges.add(mrdId);
             }
         }
-        this.agentPresenceRepository.updateAgentMrdStateList(agent.getId(), agent.getAgentMrdStates());
+        agent.refreshAvailability();
+        this.agentPresenceRepository.updateAgentMrdStates(agent, mrdStateChanges);
         return mrdStateChanges;
     }
 }
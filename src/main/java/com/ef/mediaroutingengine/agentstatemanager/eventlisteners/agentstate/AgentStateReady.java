@@ -37,7 +37,7 @@ public class AgentStateReady implements AgentStateDelegate {
         Enums.AgentStateName currentState = agent.getState().getName();
         if (currentState.equals(Enums.AgentStateName.NOT_READY)) {
             agent.setState(newState);
-            this.agentPresenceRepository.updateAgentState(agent.getId(), newState);
+            this.agentPresenceRepository.updateAgentState(agent);
             return new AgentStateChangedResponse(null, true, new ArrayList<>());
         }
         return new AgentStateChangedResponse(null, false, new ArrayList<>());
@@ -2,52 +2,149 @@ package com.ef.mediaroutingengine.agentstatemanager.repository;
 
 import com.ef.cim.objectmodel.AgentMrdState;
 import com.ef.cim.objectmodel.AgentPresence;
-import com.ef.cim.objectmodel.AgentState;
 import com.ef.cim.objectmodel.CCUser;
+import com.ef.mediaroutingengine.global.redis.AsyncRedisClient;
 import com.ef.mediaroutingengine.global.redis.RedisClient;
 import com.ef.mediaroutingengine.global.redis.RedisJsonDao;
+import com.ef.mediaroutingengine.routing.model.Agent;
 import java.sql.Timestamp;
+import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import org.apache.commons.lang3.exception.ExceptionUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
 /**
  * The type Agent presence repository.
+ *
+ * <p>The agent and MRD state writes of the state listeners, and the reads of single agent presences, go through
+ * the {@link AsyncRedisClient}: the listeners do not wait for the writes, and a read is sent after the writes
+ * before it, so it sees them.
+ *
+ * <p>An MRD state change is written at the paths of the changed agent MRD state instead of rewriting the whole
+ * agentMrdStates array. The index of each MRD in the stored array is recorded whenever this repository writes
+ * the array; an MRD without a recorded index falls back to the whole-array write.
  */
 @Component
 public class AgentPresenceRepository extends RedisJsonDao<AgentPresence> {
+    /**
+     * The constant logger.
+     */
+    private static final Logger logger = LoggerFactory.getLogger(AgentPresenceRepository.class);
+    /**
+     * The Async redis client.
+     */
+    private final AsyncRedisClient asyncRedisClient;
+    /**
+     * Agent id -> the ids of the MRDs in the order of the agent's stored agentMrdStates array.
+     */
+    private final Map<String, List<String>> mrdOrders = new ConcurrentHashMap<>();
 
     /**
      * Instantiates a new Agent presence repository.
      *
-     * @param redisClient the redis client
+     * @param redisClient      the redis client
+     * @param asyncRedisClient the async redis client
      */
     @Autowired
-    public AgentPresenceRepository(RedisClient redisClient) {
+    public AgentPresenceRepository(RedisClient redisClient, AsyncRedisClient asyncRedisClient) {
         super(redisClient, "agentPresence");
+        this.asyncRedisClient = asyncRedisClient;
+    }
+
+    @Override
+    public boolean save(String id, AgentPresence value) {
+        boolean saved = super.save(id, value);
+        this.recordMrdOrder(id, saved ? value.getAgentMrdStates() : null);
+        return saved;
+    }
+
+    @Override
+    public boolean saveAllByKeyValueMap(Map<String, AgentPresence> keyValueMap, int pageSize) {
+        boolean saved = super.saveAllByKeyValueMap(keyValueMap, pageSize);
+        keyValueMap.forEach((id, value) -> this.recordMrdOrder(id, saved ? value.getAgentMrdStates() : null));
+        return saved;
+    }
+
+    @Override
+    public boolean deleteById(String id) {
+        this.mrdOrders.remove(id);
+        return super.deleteById(id);
+    }
+
+    @Override
+    public boolean deleteAll() {
+        this.mrdOrders.clear();
+        return super.deleteAll();
+    }
+
+    @Override
+    public AgentPresence find(String id) {
+        return this.asyncRedisClient.getJson(this.getKey(id), ".", AgentPresence.class)
+                .toCompletableFuture()
+                .join();
     }
 
     /**
-     * Updates the Agent state in the Repository.
+     * Updates the Agent state in the Repository, with the time the agent's state was changed.
      *
-     * @param agentId    id of the agent.
-     * @param agentState Agent-state to be updated
-     * @return true if state change successful, false otherwise
+     * @param agent the agent
+     * @return completes with true if state change successful, false otherwise
      */
-    public boolean updateAgentState(String agentId, AgentState agentState) {
-        this.updateField(agentId, ".state", agentState);
-        return this.updateField(agentId, ".stateChangeTime", new Timestamp(System.currentTimeMillis()));
+    public CompletionStage<Boolean> updateAgentState(Agent agent) {
+        Map<String, Object> values = new LinkedHashMap<>();
+        values.put(".state", agent.getState());
+        values.put(".stateChangeTime", agent.getStateChangeTime());
+        return this.logFailure(agent.getId(), this.asyncRedisClient.setJson(this.getKey(agent.getId()), values));
     }
 
     /**
-     * Update agent mrd state list boolean.
+     * Update agent mrd state list.
      *
      * @param agentId        the agent id
      * @param agentMrdStates the agent mrd states
-     * @return the boolean
+     * @return completes with true if the update is successful, false otherwise
      */
-    public boolean updateAgentMrdStateList(String agentId, List<AgentMrdState> agentMrdStates) {
-        return this.updateField(agentId, ".agentMrdStates", agentMrdStates);
+    public CompletionStage<Boolean> updateAgentMrdStateList(String agentId, List<AgentMrdState> agentMrdStates) {
+        this.recordMrdOrder(agentId, agentMrdStates);
+        return this.logFailure(agentId,
+                this.asyncRedisClient.setJson(this.getKey(agentId), ".agentMrdStates", agentMrdStates));
+    }
+
+    /**
+     * Writes the state and state change time of the agent's MRD states that changed, at their paths in the
+     * stored agentMrdStates array. The whole array is written instead if an MRD's index in it is not known.
+     *
+     * @param agent  the agent
+     * @param mrdIds the ids of the MRDs whose states changed
+     * @return completes with true if the update is successful, false otherwise
+     */
+    public CompletionStage<Boolean> updateAgentMrdStates(Agent agent, Collection<String> mrdIds) {
+        List<String> mrdOrder = this.mrdOrders.get(agent.getId());
+        Map<String, Object> values = new LinkedHashMap<>();
+
+        for (String mrdId : mrdIds) {
+            AgentMrdState agentMrdState = agent.getAgentMrdState(mrdId);
+            int index = mrdOrder != null ? mrdOrder.indexOf(mrdId) : -1;
+            if (agentMrdState == null || index < 0) {
+                return this.updateAgentMrdStateList(agent.getId(), agent.getAgentMrdStates());
+            }
+            String path = ".agentMrdStates[" + index + "]";
+            values.put(path + ".state", agentMrdState.getState());
+            values.put(path + ".stateChangeTime", agentMrdState.getStateChangeTime());
+        }
+
+        if (values.isEmpty()) {
+            return CompletableFuture.completedFuture(true);
+        }
+        return this.logFailure(agent.getId(), this.asyncRedisClient.setJson(this.getKey(agent.getId()), values));
     }
 
     /**
@@ -65,9 +162,47 @@ public class AgentPresenceRepository extends RedisJsonDao<AgentPresence> {
      *
      * @param agentId the agent id
      * @param agentLoginTime the agent login time.
-     * @return the boolean
+     * @return completes with true if the update is successful, false otherwise
+     */
+    public CompletionStage<Boolean> updateAgentLoginTime(String agentId, Timestamp agentLoginTime) {
+        return this.logFailure(agentId,
+                this.asyncRedisClient.setJson(this.getKey(agentId), ".agentLoginTime", agentLoginTime));
+    }
+
+    /**
+     * Logs the write if it fails or is not applied.
+     *
+     * @param agentId the agent id
+     * @param write   the write
+     * @return the write
+     */
+    private CompletionStage<Boolean> logFailure(String agentId, CompletionStage<Boolean> write) {
+        return write.whenComplete((updated, e) -> {
+            if (e != null || !Boolean.TRUE.equals(updated)) {
+                // The stored array is no longer known, the next MRD state change rewrites it.
+                this.mrdOrders.remove(agentId);
+            }
+            if (e != null) {
+                logger.error("Failed to update AgentPresence of agent: {}", agentId);
+                logger.error(ExceptionUtils.getMessage(e));
+                logger.error(ExceptionUtils.getStackTrace(e));
+            } else if (!Boolean.TRUE.equals(updated)) {
+                logger.warn("AgentPresence of agent: {} was not updated", agentId);
+            }
+        });
+    }
+
+    /**
+     * Records the order of the MRDs in the agent's stored agentMrdStates array.
+     *
+     * @param agentId        the agent id
+     * @param agentMrdStates the stored agent mrd states, null if the stored array is not known
      */
-    public boolean updateAgentLoginTime(String agentId, Timestamp agentLoginTime) {
-        return this.updateField(agentId, ".agentLoginTime", agentLoginTime);
+    private void recordMrdOrder(String agentId, List<AgentMrdState> agentMrdStates) {
+        if (agentMrdStates == null) {
+            this.mrdOrders.remove(agentId);
+            return;
+        }
+        this.mrdOrders.put(agentId, agentMrdStates.stream().map(s -> s.getMrd().getId()).toList());
     }
-}
\ No newline at end of file
+}
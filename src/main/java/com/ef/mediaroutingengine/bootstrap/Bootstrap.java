@@ -186,6 +186,7 @@ public class Bootstrap {
 
         // Load tasks from Tasks Repository
         List<Task> tasks = this.tasksRepository.findAll();
+        this.tasksRepository.rebuildIndexes(tasks);
         this.taskManager.loadTasksOnStartup(tasks);
 
         logger.info("Routing Attributes: {}", this.routingAttributesPool.size());
@@ -325,12 +326,10 @@ public class Bootstrap {
      * @return Map of AgentPresence Objects with agentId as the key.
      */
     private Map<String, AgentPresence> getCurrentAgentPresenceMap() {
-        List<AgentPresence> currentAgentPresenceList = this.agentPresenceRepository.findAll(2500);
-        logger.debug("Fetched List of all AgentPresence objects from Redis Collection successfully");
         Map<String, AgentPresence> currentAgentPresenceMap = new HashMap<>();
-        for (AgentPresence agentPresence : currentAgentPresenceList) {
-            currentAgentPresenceMap.put(agentPresence.getAgent().getId(), agentPresence);
-        }
+        this.agentPresenceRepository.forEach(2500, agentPresence ->
+                currentAgentPresenceMap.put(agentPresence.getAgent().getId(), agentPresence));
+        logger.debug("Fetched all AgentPresence objects from Redis Collection successfully");
         return currentAgentPresenceMap;
     }
 
@@ -387,6 +386,11 @@ public class Bootstrap {
                 agentPresence = new AgentPresence(agent.toCcUser(), agentState, agentMrdStates);
             }
             agent.setState(agentState);
+            if (agentPresence.getStateChangeTime() != null) {
+                agent.setStateChangeTime(agentPresence.getStateChangeTime());
+            }
+            agent.setLoginTime(agentPresence.getAgentLoginTime());
+            agent.setTopics(agentPresence.getTopics());
             agent.setAgentMrdStates(agentMrdStates);
             updatedAgentPresenceMap.put(agentPresence.getAgent().getId(), agentPresence);
         }
@@ -0,0 +1,225 @@
+package com.ef.mediaroutingengine.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Properties of the circuit breakers and adaptive concurrency limits of the external service endpoints.
+ */
+@Configuration
+@ConfigurationProperties(prefix = "external.service.circuit-breaker")
+public class CircuitBreakerProperties {
+    /**
+     * Percentage of failed calls in the sliding window at which a circuit opens.
+     */
+    private int failureRateThreshold = 50;
+    /**
+     * Number of the latest calls the failure rate of a closed circuit is computed over.
+     */
+    private int slidingWindowSize = 20;
+    /**
+     * Minimum number of calls in the sliding window before the failure rate can open a circuit.
+     */
+    private int minimumCalls = 10;
+    /**
+     * Time an open circuit fails calls fast before it lets trial calls through, in ms.
+     */
+    private long openDurationMs = 10000;
+    /**
+     * Number of trial calls of a half-open circuit, it closes when all succeed and opens on a failure.
+     */
+    private int halfOpenCalls = 3;
+    /**
+     * Number of concurrent calls an endpoint is allowed at start-up.
+     */
+    private int initialConcurrencyLimit = 20;
+    /**
+     * Lowest number of concurrent calls the limit of an endpoint is decreased to.
+     */
+    private int minConcurrencyLimit = 1;
+    /**
+     * Highest number of concurrent calls the limit of an endpoint is increased to.
+     */
+    private int maxConcurrencyLimit = 64;
+    /**
+     * A successful call slower than this decreases the concurrency limit like a failure, in ms.
+     */
+    private long slowCallThresholdMs = 2000;
+
+    /**
+     * Gets failure rate threshold.
+     *
+     * @return the failure rate threshold
+     */
+    public int getFailureRateThreshold() {
+        return failureRateThreshold;
+    }
+
+    /**
+     * Sets failure rate threshold.
+     *
+     * @param failureRateThreshold the failure rate threshold
+     */
+    public void setFailureRateThreshold(int failureRateThreshold) {
+        this.failureRateThreshold = failureRateThreshold;
+    }
+
+    /**
+     * Gets sliding window size.
+     *
+     * @return the sliding window size
+     */
+    public int getSlidingWindowSize() {
+        return slidingWindowSize;
+    }
+
+    /**
+     * Sets sliding window size.
+     *
+     * @param slidingWindowSize the sliding window size
+     */
+    public void setSlidingWindowSize(int slidingWindowSize) {
+        this.slidingWindowSize = slidingWindowSize;
+    }
+
+    /**
+     * Gets minimum calls.
+     *
+     * @return the minimum calls
+     */
+    public int getMinimumCalls() {
+        return minimumCalls;
+    }
+
+    /**
+     * Sets minimum calls.
+     *
+     * @param minimumCalls the minimum calls
+     */
+    public void setMinimumCalls(int minimumCalls) {
+        this.minimumCalls = minimumCalls;
+    }
+
+    /**
+     * Gets open duration ms.
+     *
+     * @return the open duration ms
+     */
+    public long getOpenDurationMs() {
+        return openDurationMs;
+    }
+
+    /**
+     * Sets open duration ms.
+     *
+     * @param openDurationMs the open duration ms
+     */
+    public void setOpenDurationMs(long openDurationMs) {
+        this.openDurationMs = openDurationMs;
+    }
+
+    /**
+     * Gets half open calls.
+     *
+     * @return the half open calls
+     */
+    public int getHalfOpenCalls() {
+        return halfOpenCalls;
+    }
+
+    /**
+     * Sets half open calls.
+     *
+     * @param halfOpenCalls the half open calls
+     */
+    public void setHalfOpenCalls(int halfOpenCalls) {
+        this.halfOpenCalls = halfOpenCalls;
+    }
+
+    /**
+     * Gets initial concurrency limit.
+     *
+     * @return the initial concurrency limit
+     */
+    public int getInitialConcurrencyLimit() {
+        return initialConcurrencyLimit;
+    }
+
+    /**
+     * Sets initial concurrency limit.
+     *
+     * @param initialConcurrencyLimit the initial concurrency limit
+     */
+    public void setInitialConcurrencyLimit(int initialConcurrencyLimit) {
+        this.initialConcurrencyLimit = initialConcurrencyLimit;
+    }
+
+    /**
+     * Gets min concurrency limit.
+     *
+     * @return the min concurrency limit
+     */
+    public int getMinConcurrencyLimit() {
+        return minConcurrencyLimit;
+    }
+
+    /**
+     * Sets min concurrency limit.
+     *
+     * @param minConcurrencyLimit the min concurrency limit
+     */
+    public void setMinConcurrencyLimit(int minConcurrencyLimit) {
+        this.minConcurrencyLimit = minConcurrencyLimit;
+    }
+
+    /**
+     * Gets max concurrency limit.
+     *
+     * @return the max concurrency limit
+     */
+    public int getMaxConcurrencyLimit() {
+        return maxConcurrencyLimit;
+    }
+
+    /**
+     * Sets max concurrency limit.
+     *
+     * @param maxConcurrencyLimit the max concurrency limit
+     */
+    public void setMaxConcurrencyLimit(int maxConcurrencyLimit) {
+        this.maxConcurrencyLimit = maxConcurrencyLimit;
+    }
+
+    /**
+     * Gets slow call threshold ms.
+     *
+     * @return the slow call threshold ms
+     */
+    public long getSlowCallThresholdMs() {
+        return slowCallThresholdMs;
+    }
+
+    /**
+     * Sets slow call threshold ms.
+     *
+     * @param slowCallThresholdMs the slow call threshold ms
+     */
+    public void setSlowCallThresholdMs(long slowCallThresholdMs) {
+        this.slowCallThresholdMs = slowCallThresholdMs;
+    }
+
+    @Override
+    public String toString() {
+        return "CircuitBreakerProperties{"
+                + "failureRateThreshold=" + failureRateThreshold
+                + ", slidingWindowSize=" + slidingWindowSize
+                + ", minimumCalls=" + minimumCalls
+                + ", openDurationMs=" + openDurationMs
+                + ", halfOpenCalls=" + halfOpenCalls
+                + ", initialConcurrencyLimit=" + initialConcurrencyLimit
+                + ", minConcurrencyLimit=" + minConcurrencyLimit
+                + ", maxConcurrencyLimit=" + maxConcurrencyLimit
+                + ", slowCallThresholdMs=" + slowCallThresholdMs
+                + '}';
+    }
+}
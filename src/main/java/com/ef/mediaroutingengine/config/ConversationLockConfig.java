@@ -0,0 +1,30 @@
+package com.ef.mediaroutingengine.config;
+
+import com.ef.mediaroutingengine.global.locks.ConversationLock;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * This class configures the lock table shared by all conversation locks.
+ */
+@Configuration
+public class ConversationLockConfig {
+    /**
+     * Logger.
+     */
+    private static final Logger logger = LoggerFactory.getLogger(ConversationLockConfig.class);
+
+    /**
+     * Default Constructor. Configures the conversation locks from the application properties.
+     *
+     * @param conversationLockProperties contains the conversation lock application properties
+     */
+    @Autowired
+    public ConversationLockConfig(ConversationLockProperties conversationLockProperties) {
+        logger.info("Initializing conversation locks, config: {}", conversationLockProperties);
+        ConversationLock.configure(conversationLockProperties.getMode(), conversationLockProperties.getStripes(),
+                conversationLockProperties.getTryLockTimeoutMs());
+    }
+}
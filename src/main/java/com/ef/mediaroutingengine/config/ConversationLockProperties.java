@@ -0,0 +1,88 @@
+package com.ef.mediaroutingengine.config;
+
+import com.ef.mediaroutingengine.global.locks.ConversationLock;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Properties for the conversation locks.
+ */
+@Configuration
+@ConfigurationProperties(prefix = "conversation-lock")
+public class ConversationLockProperties {
+    /**
+     * A lock per conversation or a fixed number of lock stripes.
+     */
+    private ConversationLock.Mode mode = ConversationLock.Mode.STRIPED;
+    /**
+     * Number of lock stripes, rounded up to a power of two.
+     */
+    private int stripes = 4096;
+    /**
+     * Maximum time a tryLock waits for a conversation lock in milliseconds.
+     */
+    private long tryLockTimeoutMs = 5000;
+
+    /**
+     * Gets mode.
+     *
+     * @return the mode
+     */
+    public ConversationLock.Mode getMode() {
+        return mode;
+    }
+
+    /**
+     * Sets mode.
+     *
+     * @param mode the mode
+     */
+    public void setMode(ConversationLock.Mode mode) {
+        this.mode = mode;
+    }
+
+    /**
+     * Gets stripes.
+     *
+     * @return the stripes
+     */
+    public int getStripes() {
+        return stripes;
+    }
+
+    /**
+     * Sets stripes.
+     *
+     * @param stripes the stripes
+     */
+    public void setStripes(int stripes) {
+        this.stripes = stripes;
+    }
+
+    /**
+     * Gets try lock timeout ms.
+     *
+     * @return the try lock timeout ms
+     */
+    public long getTryLockTimeoutMs() {
+        return tryLockTimeoutMs;
+    }
+
+    /**
+     * Sets try lock timeout ms.
+     *
+     * @param tryLockTimeoutMs the try lock timeout ms
+     */
+    public void setTryLockTimeoutMs(long tryLockTimeoutMs) {
+        this.tryLockTimeoutMs = tryLockTimeoutMs;
+    }
+
+    @Override
+    public String toString() {
+        return "ConversationLockProperties{"
+                + "mode=" + mode
+                + ", stripes=" + stripes
+                + ", tryLockTimeoutMs=" + tryLockTimeoutMs
+                + '}';
+    }
+}
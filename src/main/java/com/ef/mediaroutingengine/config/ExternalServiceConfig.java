@@ -30,6 +30,42 @@ public class ExternalServiceConfig {
      *  The real-time reports uri.
      */
     private String realTimeReportsUri;
+    /**
+     * Connect timeout of the calls to the other external services, in ms.
+     */
+    private long connectTimeoutMs = 5000;
+    /**
+     * Read timeout of the calls to the other external services, in ms.
+     */
+    private long readTimeoutMs = 10000;
+    /**
+     * Connect timeout of the calls to Agent-Manager's Assign-Task API, in ms.
+     */
+    private long assignTaskConnectTimeoutMs = 2000;
+    /**
+     * Read timeout of the calls to Agent-Manager's Assign-Task API, in ms.
+     */
+    private long assignTaskReadTimeoutMs = 5000;
+    /**
+     * Connect timeout of the calls to Agent-Manager's Revoke-Task API, in ms.
+     */
+    private long revokeTaskConnectTimeoutMs = 2000;
+    /**
+     * Read timeout of the calls to Agent-Manager's Revoke-Task API, in ms.
+     */
+    private long revokeTaskReadTimeoutMs = 5000;
+    /**
+     * Maximum number of Agent-Manager calls in flight, the calls that follow wait for a free slot.
+     */
+    private int maxInFlightRequests = 64;
+    /**
+     * Maximum number of idle keep-alive connections to Agent-Manager.
+     */
+    private int maxIdleConnections = 16;
+    /**
+     * Time an idle connection to Agent-Manager is kept alive, in ms.
+     */
+    private long keepAliveMs = 300000;
 
     /**
      * Gets retries.
@@ -104,4 +140,166 @@ public class ExternalServiceConfig {
     public String getRevokeTaskUri() {
         return this.revokeTaskUri;
     }
+
+    /**
+     * Gets connect timeout ms.
+     *
+     * @return the connect timeout ms
+     */
+    public long getConnectTimeoutMs() {
+        return connectTimeoutMs;
+    }
+
+    /**
+     * Sets connect timeout ms.
+     *
+     * @param connectTimeoutMs the connect timeout ms
+     */
+    public void setConnectTimeoutMs(long connectTimeoutMs) {
+        this.connectTimeoutMs = connectTimeoutMs;
+    }
+
+    /**
+     * Gets read timeout ms.
+     *
+     * @return the read timeout ms
+     */
+    public long getReadTimeoutMs() {
+        return readTimeoutMs;
+    }
+
+    /**
+     * Sets read timeout ms.
+     *
+     * @param readTimeoutMs the read timeout ms
+     */
+    public void setReadTimeoutMs(long readTimeoutMs) {
+        this.readTimeoutMs = readTimeoutMs;
+    }
+
+    /**
+     * Gets assign task connect timeout ms.
+     *
+     * @return the assign task connect timeout ms
+     */
+    public long getAssignTaskConnectTimeoutMs() {
+        return assignTaskConnectTimeoutMs;
+    }
+
+    /**
+     * Sets assign task connect timeout ms.
+     *
+     * @param assignTaskConnectTimeoutMs the assign task connect timeout ms
+     */
+    public void setAssignTaskConnectTimeoutMs(long assignTaskConnectTimeoutMs) {
+        this.assignTaskConnectTimeoutMs = assignTaskConnectTimeoutMs;
+    }
+
+    /**
+     * Gets assign task read timeout ms.
+     *
+     * @return the assign task read timeout ms
+     */
+    public long getAssignTaskReadTimeoutMs() {
+        return assignTaskReadTimeoutMs;
+    }
+
+    /**
+     * Sets assign task read timeout ms.
+     *
+     * @param assignTaskReadTimeoutMs the assign task read timeout ms
+     */
+    public void setAssignTaskReadTimeoutMs(long assignTaskReadTimeoutMs) {
+        this.assignTaskReadTimeoutMs = assignTaskReadTimeoutMs;
+    }
+
+    /**
+     * Gets revoke task connect timeout ms.
+     *
+     * @return the revoke task connect timeout ms
+     */
+    public long getRevokeTaskConnectTimeoutMs() {
+        return revokeTaskConnectTimeoutMs;
+    }
+
+    /**
+     * Sets revoke task connect timeout ms.
+     *
+     * @param revokeTaskConnectTimeoutMs the revoke task connect timeout ms
+     */
+    public void setRevokeTaskConnectTimeoutMs(long revokeTaskConnectTimeoutMs) {
+        this.revokeTaskConnectTimeoutMs = revokeTaskConnectTimeoutMs;
+    }
+
+    /**
+     * Gets revoke task read timeout ms.
+     *
+     * @return the revoke task read timeout ms
+     */
+    public long getRevokeTaskReadTimeoutMs() {
+        return revokeTaskReadTimeoutMs;
+    }
+
+    /**
+     * Sets revoke task read timeout ms.
+     *
+     * @param revokeTaskReadTimeoutMs the revoke task read timeout ms
+     */
+    public void setRevokeTaskReadTimeoutMs(long revokeTaskReadTimeoutMs) {
+        this.revokeTaskReadTimeoutMs = revokeTaskReadTimeoutMs;
+    }
+
+    /**
+     * Gets max in flight requests.
+     *
+     * @return the max in flight requests
+     */
+    public int getMaxInFlightRequests() {
+        return maxInFlightRequests;
+    }
+
+    /**
+     * Sets max in flight requests.
+     *
+     * @param maxInFlightRequests the max in flight requests
+     */
+    public void setMaxInFlightRequests(int maxInFlightRequests) {
+        this.maxInFlightRequests = maxInFlightRequests;
+    }
+
+    /**
+     * Gets max idle connections.
+     *
+     * @return the max idle connections
+     */
+    public int getMaxIdleConnections() {
+        return maxIdleConnections;
+    }
+
+    /**
+     * Sets max idle connections.
+     *
+     * @param maxIdleConnections the max idle connections
+     */
+    public void setMaxIdleConnections(int maxIdleConnections) {
+        this.maxIdleConnections = maxIdleConnections;
+    }
+
+    /**
+     * Gets keep alive ms.
+     *
+     * @return the keep alive ms
+     */
+    public long getKeepAliveMs() {
+        return keepAliveMs;
+    }
+
+    /**
+     * Sets keep alive ms.
+     *
+     * @param keepAliveMs the keep alive ms
+     */
+    public void setKeepAliveMs(long keepAliveMs) {
+        this.keepAliveMs = keepAliveMs;
+    }
 }
@@ -1,5 +1,11 @@
 package com.ef.mediaroutingengine.config;
 
+import com.ef.mediaroutingengine.global.redis.AsyncRedisClient;
+import com.ef.mediaroutingengine.global.redis.MultiplexedAsyncRedisClient;
+import com.ef.mediaroutingengine.global.redis.PooledAsyncRedisClient;
+import com.ef.mediaroutingengine.global.redis.RedisClient;
+import io.lettuce.core.RedisURI;
+import java.time.Duration;
 import java.util.Arrays;
 import java.util.HashSet;
 import java.util.Set;
@@ -8,6 +14,7 @@ import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import redis.clients.jedis.HostAndPort;
 import redis.clients.jedis.Jedis;
 import redis.clients.jedis.JedisPool;
 import redis.clients.jedis.JedisPoolConfig;
@@ -15,7 +22,8 @@ import redis.clients.jedis.JedisSentinelPool;
 import redis.clients.jedis.util.Pool;
 
 /**
- * This class creates a singleton bean of JedisPool which is used to communicate with the Redis instance.
+ * This class creates the singleton beans of JedisPool and AsyncRedisClient which are used to communicate with the
+ * Redis instance.
  */
 @Configuration
 public class RedisConfig {
@@ -81,6 +89,55 @@ public class RedisConfig {
         return jedisPool;
     }
 
+    /**
+     * Creates and returns a singleton bean of the AsyncRedisClient implementation selected by the
+     * {@code spring.redis.async-client} property.
+     *
+     * @param redisClient the redis client the pooled implementation runs its commands through
+     * @return AsyncRedisClient bean
+     */
+    @Bean
+    public AsyncRedisClient asyncRedisClient(RedisClient redisClient) {
+        if (redisProperties.getAsyncClient() != AsyncRedisClient.Mode.MULTIPLEXED) {
+            logger.info("Async redis client runs on the redis pool");
+            return new PooledAsyncRedisClient(redisClient);
+        }
+
+        MultiplexedAsyncRedisClient asyncRedisClient = new MultiplexedAsyncRedisClient(this.getRedisUri(),
+                Duration.ofMillis(redisProperties.getTimeout()));
+        logger.info("Async redis client connected, commands are multiplexed on one connection");
+        return asyncRedisClient;
+    }
+
+    /**
+     * Creates the Lettuce RedisURI of the Redis instance, or of its sentinels if sentinel is enabled.
+     *
+     * @return RedisURI instance.
+     */
+    private RedisURI getRedisUri() {
+        RedisURI.Builder builder;
+        String password;
+        if (Boolean.parseBoolean(redisProperties.getEnableSentinel())) {
+            builder = RedisURI.builder().withSentinelMasterId(redisProperties.getSentinelMaster());
+            for (String node : redisProperties.getSentinelNodes().split(",")) {
+                HostAndPort sentinel = HostAndPort.parseString(node.trim());
+                builder.withSentinel(sentinel.getHost(), sentinel.getPort());
+            }
+            password = redisProperties.getSentinelPassword();
+        } else {
+            builder = RedisURI.builder()
+                    .withHost(redisProperties.getHost())
+                    .withPort(redisProperties.getPort())
+                    .withSsl(redisProperties.isSsl());
+            password = redisProperties.getPassword();
+        }
+
+        if (password != null && !password.isEmpty()) {
+            builder.withPassword(password.toCharArray());
+        }
+        return builder.withTimeout(Duration.ofMillis(redisProperties.getTimeout())).build();
+    }
+
     /**
      * Creates and returns an instance of JedisPoolConfig from the application's Redis properties.
      *
@@ -1,6 +1,6 @@
 package com.ef.mediaroutingengine.config;
 
-
+import com.ef.mediaroutingengine.global.redis.AsyncRedisClient;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.context.annotation.Configuration;
@@ -35,6 +35,8 @@ public class RedisProperties {
     @Value("$spring.redis.sentinelPassword")
     private String sentinelPassword;
 
+    private AsyncRedisClient.Mode asyncClient = AsyncRedisClient.Mode.POOLED;
+
     /**
      * Gets host.
      *
@@ -231,6 +233,24 @@ public class RedisProperties {
         this.sentinelPassword = sentinelPassword;
     }
 
+    /**
+     * Gets the async redis client implementation.
+     *
+     * @return the async client mode
+     */
+    public AsyncRedisClient.Mode getAsyncClient() {
+        return asyncClient;
+    }
+
+    /**
+     * Sets the async redis client implementation.
+     *
+     * @param asyncClient the async client mode
+     */
+    public void setAsyncClient(AsyncRedisClient.Mode asyncClient) {
+        this.asyncClient = asyncClient;
+    }
+
 
     @Override
     public String toString() {
@@ -248,6 +268,7 @@ public class RedisProperties {
                 + ", sentinelMaster='" + sentinelMaster + '\''
                 + ", sentinelNodes='" + sentinelNodes + '\''
                 + ", sentinelPassword='" + sentinelPassword + '\''
+                + ", asyncClient=" + asyncClient
                 + '}';
     }
 }
@@ -0,0 +1,85 @@
+package com.ef.mediaroutingengine.config;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * This class creates the executors shared by the task routers.
+ */
+@Configuration
+public class RoutingConfig {
+    /**
+     * Logger.
+     */
+    private static final Logger logger = LoggerFactory.getLogger(RoutingConfig.class);
+    /**
+     * Contains the routing properties set at the application level.
+     */
+    private final RoutingProperties routingProperties;
+
+    /**
+     * Default Constructor. Loads the required beans.
+     *
+     * @param routingProperties contains the routing application properties
+     */
+    @Autowired
+    public RoutingConfig(RoutingProperties routingProperties) {
+        this.routingProperties = routingProperties;
+    }
+
+    /**
+     * Creates and returns the executor that runs the mailboxes of the task routers.
+     *
+     * @return the routing executor bean
+     */
+    @Bean(destroyMethod = "shutdown")
+    public ExecutorService routingExecutor() {
+        logger.info("Initializing routing executor, config: {}", routingProperties);
+        return Executors.newFixedThreadPool(routingProperties.getExecutorThreads(), threadFactory("task-routing"));
+    }
+
+    /**
+     * Creates and returns the scheduler that holds back the task routers' wake-ups to coalesce them.
+     *
+     * @return the routing ticker bean
+     */
+    @Bean(destroyMethod = "shutdown")
+    public ScheduledExecutorService routingTicker() {
+        return Executors.newSingleThreadScheduledExecutor(threadFactory("task-routing-ticker"));
+    }
+
+    /**
+     * Creates and returns the executor that runs the offer stage of the reservations made by the task routers.
+     *
+     * @return the reservation executor bean
+     */
+    @Bean(destroyMethod = "shutdown")
+    public ExecutorService reservationExecutor() {
+        logger.info("Initializing reservation executor, config: {}", routingProperties);
+        return Executors.newFixedThreadPool(routingProperties.getReservationThreads(),
+                threadFactory("task-reservation"));
+    }
+
+    /**
+     * Thread factory for the routing threads.
+     *
+     * @param prefix the thread name prefix
+     * @return the thread factory
+     */
+    private static ThreadFactory threadFactory(String prefix) {
+        AtomicInteger counter = new AtomicInteger();
+        return r -> {
+            Thread thread = new Thread(r, prefix + "-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
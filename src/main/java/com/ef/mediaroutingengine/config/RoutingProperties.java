@@ -0,0 +1,134 @@
+package com.ef.mediaroutingengine.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Properties for the task routers of the precision queues.
+ */
+@Configuration
+@ConfigurationProperties(prefix = "routing")
+public class RoutingProperties {
+    /**
+     * Number of threads that offer reserved tasks to agents, off the precision queues' locks.
+     */
+    private int reservationThreads = 16;
+    /**
+     * Maximum number of queued tasks a task router reserves agents for in one pass over its queue.
+     */
+    private int maxReservationsPerWakeup = 64;
+    /**
+     * Number of threads that run the mailboxes of the task routers.
+     */
+    private int executorThreads = 8;
+    /**
+     * Maximum number of events pending in the mailbox of a task router.
+     */
+    private int mailboxCapacity = 1000;
+    /**
+     * Maximum time a task router's wake-up is held back to coalesce the ones that follow, in ms. 0 to route on
+     * every wake-up right away.
+     */
+    private long wakeupMaxLatencyMs = 50;
+
+    /**
+     * Gets reservation threads.
+     *
+     * @return the reservation threads
+     */
+    public int getReservationThreads() {
+        return reservationThreads;
+    }
+
+    /**
+     * Sets reservation threads.
+     *
+     * @param reservationThreads the reservation threads
+     */
+    public void setReservationThreads(int reservationThreads) {
+        this.reservationThreads = reservationThreads;
+    }
+
+    /**
+     * Gets max reservations per wakeup.
+     *
+     * @return the max reservations per wakeup
+     */
+    public int getMaxReservationsPerWakeup() {
+        return maxReservationsPerWakeup;
+    }
+
+    /**
+     * Sets max reservations per wakeup.
+     *
+     * @param maxReservationsPerWakeup the max reservations per wakeup
+     */
+    public void setMaxReservationsPerWakeup(int maxReservationsPerWakeup) {
+        this.maxReservationsPerWakeup = maxReservationsPerWakeup;
+    }
+
+    /**
+     * Gets executor threads.
+     *
+     * @return the executor threads
+     */
+    public int getExecutorThreads() {
+        return executorThreads;
+    }
+
+    /**
+     * Sets executor threads.
+     *
+     * @param executorThreads the executor threads
+     */
+    public void setExecutorThreads(int executorThreads) {
+        this.executorThreads = executorThreads;
+    }
+
+    /**
+     * Gets mailbox capacity.
+     *
+     * @return the mailbox capacity
+     */
+    public int getMailboxCapacity() {
+        return mailboxCapacity;
+    }
+
+    /**
+     * Sets mailbox capacity.
+     *
+     * @param mailboxCapacity the mailbox capacity
+     */
+    public void setMailboxCapacity(int mailboxCapacity) {
+        this.mailboxCapacity = mailboxCapacity;
+    }
+
+    /**
+     * Gets wakeup max latency ms.
+     *
+     * @return the wakeup max latency ms
+     */
+    public long getWakeupMaxLatencyMs() {
+        return wakeupMaxLatencyMs;
+    }
+
+    /**
+     * Sets wakeup max latency ms.
+     *
+     * @param wakeupMaxLatencyMs the wakeup max latency ms
+     */
+    public void setWakeupMaxLatencyMs(long wakeupMaxLatencyMs) {
+        this.wakeupMaxLatencyMs = wakeupMaxLatencyMs;
+    }
+
+    @Override
+    public String toString() {
+        return "RoutingProperties{"
+                + "reservationThreads=" + reservationThreads
+                + ", maxReservationsPerWakeup=" + maxReservationsPerWakeup
+                + ", executorThreads=" + executorThreads
+                + ", mailboxCapacity=" + mailboxCapacity
+                + ", wakeupMaxLatencyMs=" + wakeupMaxLatencyMs
+                + '}';
+    }
+}
@@ -0,0 +1,88 @@
+package com.ef.mediaroutingengine.config;
+
+import com.ef.mediaroutingengine.taskmanager.repository.TaskCache;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Properties for the in-process task cache in front of Redis.
+ */
+@Configuration
+@ConfigurationProperties(prefix = "task-cache")
+public class TaskCacheProperties {
+    /**
+     * Write tasks to Redis before returning, or in the background.
+     */
+    private TaskCache.Mode mode = TaskCache.Mode.WRITE_THROUGH;
+    /**
+     * Interval of the background flush to Redis in write-behind mode, in milliseconds.
+     */
+    private long flushIntervalMs = 50;
+    /**
+     * Maximum number of task writes sent to Redis in one pipeline.
+     */
+    private int maxBatchSize = 500;
+
+    /**
+     * Gets mode.
+     *
+     * @return the mode
+     */
+    public TaskCache.Mode getMode() {
+        return mode;
+    }
+
+    /**
+     * Sets mode.
+     *
+     * @param mode the mode
+     */
+    public void setMode(TaskCache.Mode mode) {
+        this.mode = mode;
+    }
+
+    /**
+     * Gets flush interval ms.
+     *
+     * @return the flush interval ms
+     */
+    public long getFlushIntervalMs() {
+        return flushIntervalMs;
+    }
+
+    /**
+     * Sets flush interval ms.
+     *
+     * @param flushIntervalMs the flush interval ms
+     */
+    public void setFlushIntervalMs(long flushIntervalMs) {
+        this.flushIntervalMs = flushIntervalMs;
+    }
+
+    /**
+     * Gets max batch size.
+     *
+     * @return the max batch size
+     */
+    public int getMaxBatchSize() {
+        return maxBatchSize;
+    }
+
+    /**
+     * Sets max batch size.
+     *
+     * @param maxBatchSize the max batch size
+     */
+    public void setMaxBatchSize(int maxBatchSize) {
+        this.maxBatchSize = maxBatchSize;
+    }
+
+    @Override
+    public String toString() {
+        return "TaskCacheProperties{"
+                + "mode=" + mode
+                + ", flushIntervalMs=" + flushIntervalMs
+                + ", maxBatchSize=" + maxBatchSize
+                + '}';
+    }
+}
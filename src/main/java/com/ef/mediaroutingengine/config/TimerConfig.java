@@ -0,0 +1,45 @@
+package com.ef.mediaroutingengine.config;
+
+import com.ef.mediaroutingengine.global.timer.TimingWheel;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * This class creates the singleton TimingWheel bean shared by all routing timers.
+ */
+@Configuration
+public class TimerConfig {
+    /**
+     * Logger.
+     */
+    private static final Logger logger = LoggerFactory.getLogger(TimerConfig.class);
+    /**
+     * Contains the timer properties set at the application level.
+     */
+    private final TimerProperties timerProperties;
+
+    /**
+     * Default Constructor. Loads the required beans.
+     *
+     * @param timerProperties contains the timer application properties
+     */
+    @Autowired
+    public TimerConfig(TimerProperties timerProperties) {
+        this.timerProperties = timerProperties;
+    }
+
+    /**
+     * Creates and returns the singleton TimingWheel bean.
+     *
+     * @return TimingWheel bean
+     */
+    @Bean(destroyMethod = "stop")
+    public TimingWheel timingWheel() {
+        logger.info("Initializing timing wheel, config: {}", timerProperties);
+        return new TimingWheel("routing-timer", timerProperties.getTickMs(), timerProperties.getWheelSize(),
+                timerProperties.getDispatcherThreads());
+    }
+}
@@ -0,0 +1,87 @@
+package com.ef.mediaroutingengine.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Properties for the timing wheel that drives the routing timers.
+ */
+@Configuration
+@ConfigurationProperties(prefix = "timer")
+public class TimerProperties {
+    /**
+     * Duration of one tick of the lowest wheel in milliseconds.
+     */
+    private long tickMs = 100;
+    /**
+     * Number of buckets in each wheel level.
+     */
+    private int wheelSize = 512;
+    /**
+     * Number of threads that run the expired timer tasks.
+     */
+    private int dispatcherThreads = 4;
+
+    /**
+     * Gets tick ms.
+     *
+     * @return the tick ms
+     */
+    public long getTickMs() {
+        return tickMs;
+    }
+
+    /**
+     * Sets tick ms.
+     *
+     * @param tickMs the tick ms
+     */
+    public void setTickMs(long tickMs) {
+        this.tickMs = tickMs;
+    }
+
+    /**
+     * Gets wheel size.
+     *
+     * @return the wheel size
+     */
+    public int getWheelSize() {
+        return wheelSize;
+    }
+
+    /**
+     * Sets wheel size.
+     *
+     * @param wheelSize the wheel size
+     */
+    public void setWheelSize(int wheelSize) {
+        this.wheelSize = wheelSize;
+    }
+
+    /**
+     * Gets dispatcher threads.
+     *
+     * @return the dispatcher threads
+     */
+    public int getDispatcherThreads() {
+        return dispatcherThreads;
+    }
+
+    /**
+     * Sets dispatcher threads.
+     *
+     * @param dispatcherThreads the dispatcher threads
+     */
+    public void setDispatcherThreads(int dispatcherThreads) {
+        this.dispatcherThreads = dispatcherThreads;
+    }
+
+    @Override
+    public String toString() {
+        return "TimerProperties{"
+                + "tickMs=" + tickMs
+                + ", wheelSize=" + wheelSize
+                + ", dispatcherThreads=" + dispatcherThreads
+                + '}';
+    }
+}
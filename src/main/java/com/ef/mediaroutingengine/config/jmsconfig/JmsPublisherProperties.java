@@ -0,0 +1,248 @@
+package com.ef.mediaroutingengine.config.jmsconfig;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Properties for the publishers of the JMS events.
+ */
+@Configuration
+@ConfigurationProperties(prefix = "jms.publisher")
+public class JmsPublisherProperties {
+    /**
+     * Number of publisher sessions the publishing threads share, a session is used by one thread at a time.
+     */
+    private int sessions = 4;
+    /**
+     * If true, sends return without waiting for the broker and their outcome is reported by a callback.
+     */
+    private boolean asyncSend = true;
+    /**
+     * If true, the events of one batch, or of one send of the outbox, are sent in one transaction.
+     */
+    private boolean transactedBatches = false;
+    /**
+     * If true, events are sent by the publisher thread of a bounded outbox, otherwise by the publishing threads.
+     */
+    private boolean outboxEnabled = true;
+    /**
+     * Maximum number of event entries the outbox holds in memory.
+     */
+    private int outboxCapacity = 10000;
+    /**
+     * Append-only file the events that do not fit in the outbox are spilled to, if empty they are dropped.
+     */
+    private String outboxSpillFile = "";
+    /**
+     * Time the outbox waits before it retries a failed send, doubled on each failure, in ms.
+     */
+    private long outboxRetryInitialBackoffMs = 100;
+    /**
+     * Maximum time the outbox waits before it retries a failed send, in ms.
+     */
+    private long outboxRetryMaxBackoffMs = 5000;
+    /**
+     * Maximum number of attempts to send the same events, they are logged and dropped after the last one.
+     */
+    private int outboxRetryMaxAttempts = 20;
+    /**
+     * The payload of one in this many published events is logged at debug level, 0 to never log payloads.
+     */
+    private int payloadLogSampling = 100;
+
+    /**
+     * Gets sessions.
+     *
+     * @return the sessions
+     */
+    public int getSessions() {
+        return sessions;
+    }
+
+    /**
+     * Sets sessions.
+     *
+     * @param sessions the sessions
+     */
+    public void setSessions(int sessions) {
+        this.sessions = sessions;
+    }
+
+    /**
+     * Is async send boolean.
+     *
+     * @return the boolean
+     */
+    public boolean isAsyncSend() {
+        return asyncSend;
+    }
+
+    /**
+     * Sets async send.
+     *
+     * @param asyncSend the async send
+     */
+    public void setAsyncSend(boolean asyncSend) {
+        this.asyncSend = asyncSend;
+    }
+
+    /**
+     * Is transacted batches boolean.
+     *
+     * @return the boolean
+     */
+    public boolean isTransactedBatches() {
+        return transactedBatches;
+    }
+
+    /**
+     * Sets transacted batches.
+     *
+     * @param transactedBatches the transacted batches
+     */
+    public void setTransactedBatches(boolean transactedBatches) {
+        this.transactedBatches = transactedBatches;
+    }
+
+    /**
+     * Is outbox enabled boolean.
+     *
+     * @return the boolean
+     */
+    public boolean isOutboxEnabled() {
+        return outboxEnabled;
+    }
+
+    /**
+     * Sets outbox enabled.
+     *
+     * @param outboxEnabled the outbox enabled
+     */
+    public void setOutboxEnabled(boolean outboxEnabled) {
+        this.outboxEnabled = outboxEnabled;
+    }
+
+    /**
+     * Gets outbox capacity.
+     *
+     * @return the outbox capacity
+     */
+    public int getOutboxCapacity() {
+        return outboxCapacity;
+    }
+
+    /**
+     * Sets outbox capacity.
+     *
+     * @param outboxCapacity the outbox capacity
+     */
+    public void setOutboxCapacity(int outboxCapacity) {
+        this.outboxCapacity = outboxCapacity;
+    }
+
+    /**
+     * Gets outbox spill file.
+     *
+     * @return the outbox spill file
+     */
+    public String getOutboxSpillFile() {
+        return outboxSpillFile;
+    }
+
+    /**
+     * Sets outbox spill file.
+     *
+     * @param outboxSpillFile the outbox spill file
+     */
+    public void setOutboxSpillFile(String outboxSpillFile) {
+        this.outboxSpillFile = outboxSpillFile;
+    }
+
+    /**
+     * Gets outbox retry initial backoff ms.
+     *
+     * @return the outbox retry initial backoff ms
+     */
+    public long getOutboxRetryInitialBackoffMs() {
+        return outboxRetryInitialBackoffMs;
+    }
+
+    /**
+     * Sets outbox retry initial backoff ms.
+     *
+     * @param outboxRetryInitialBackoffMs the outbox retry initial backoff ms
+     */
+    public void setOutboxRetryInitialBackoffMs(long outboxRetryInitialBackoffMs) {
+        this.outboxRetryInitialBackoffMs = outboxRetryInitialBackoffMs;
+    }
+
+    /**
+     * Gets outbox retry max backoff ms.
+     *
+     * @return the outbox retry max backoff ms
+     */
+    public long getOutboxRetryMaxBackoffMs() {
+        return outboxRetryMaxBackoffMs;
+    }
+
+    /**
+     * Sets outbox retry max backoff ms.
+     *
+     * @param outboxRetryMaxBackoffMs the outbox retry max backoff ms
+     */
+    public void setOutboxRetryMaxBackoffMs(long outboxRetryMaxBackoffMs) {
+        this.outboxRetryMaxBackoffMs = outboxRetryMaxBackoffMs;
+    }
+
+    /**
+     * Gets outbox retry max attempts.
+     *
+     * @return the outbox retry max attempts
+     */
+    public int getOutboxRetryMaxAttempts() {
+        return outboxRetryMaxAttempts;
+    }
+
+    /**
+     * Sets outbox retry max attempts.
+     *
+     * @param outboxRetryMaxAttempts the outbox retry max attempts
+     */
+    public void setOutboxRetryMaxAttempts(int outboxRetryMaxAttempts) {
+        this.outboxRetryMaxAttempts = outboxRetryMaxAttempts;
+    }
+
+    /**
+     * Gets payload log sampling.
+     *
+     * @return the payload log sampling
+     */
+    public int getPayloadLogSampling() {
+        return payloadLogSampling;
+    }
+
+    /**
+     * Sets payload log sampling.
+     *
+     * @param payloadLogSampling the payload log sampling
+     */
+    public void setPayloadLogSampling(int payloadLogSampling) {
+        this.payloadLogSampling = payloadLogSampling;
+    }
+
+    @Override
+    public String toString() {
+        return "JmsPublisherProperties{"
+                + "sessions=" + sessions
+                + ", asyncSend=" + asyncSend
+                + ", transactedBatches=" + transactedBatches
+                + ", outboxEnabled=" + outboxEnabled
+                + ", outboxCapacity=" + outboxCapacity
+                + ", outboxSpillFile='" + outboxSpillFile + '\''
+                + ", outboxRetryInitialBackoffMs=" + outboxRetryInitialBackoffMs
+                + ", outboxRetryMaxBackoffMs=" + outboxRetryMaxBackoffMs
+                + ", outboxRetryMaxAttempts=" + outboxRetryMaxAttempts
+                + ", payloadLogSampling=" + payloadLogSampling
+                + '}';
+    }
+}
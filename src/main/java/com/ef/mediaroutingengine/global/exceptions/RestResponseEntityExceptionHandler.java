@@ -1,5 +1,6 @@
 package com.ef.mediaroutingengine.global.exceptions;
 
+import com.ef.mediaroutingengine.global.resilience.CallNotPermittedException;
 import java.net.MalformedURLException;
 import java.nio.file.AccessDeniedException;
 import java.util.List;
@@ -182,6 +183,20 @@ public class RestResponseEntityExceptionHandler extends BaseExceptionHandler {
         return new ResponseEntity<>(responseBody, HttpStatus.FORBIDDEN);
     }
 
+    /**
+     * Handles call not permitted exception, an external service the request depends on is unavailable.
+     *
+     * @param ex the ex
+     * @return the response entity
+     */
+    @ExceptionHandler({CallNotPermittedException.class})
+    public ResponseEntity<Object> handleCallNotPermittedException(final CallNotPermittedException ex) {
+        logger.warn(ex.getMessage());
+        String error = "error.service-unavailable";
+        ErrorResponseBody responseBody = new ErrorResponseBody(error, ex.getMessage());
+        return new ResponseEntity<>(responseBody, HttpStatus.SERVICE_UNAVAILABLE);
+    }
+
     /**
      * Handles Malformed url exception.
      *
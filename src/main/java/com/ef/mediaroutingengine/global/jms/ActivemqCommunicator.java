@@ -14,21 +14,36 @@ import com.ef.cim.objectmodel.task.TaskEnqueuedDto;
 import com.ef.cim.objectmodel.task.TaskMedia;
 import com.ef.cim.objectmodel.task.TaskQueue;
 import com.ef.cim.objectmodel.task.TaskStateChangedDto;
+import com.ef.mediaroutingengine.config.jmsconfig.JmsPublisherProperties;
 import com.ef.mediaroutingengine.global.commons.Constants;
 import com.ef.mediaroutingengine.global.utilities.AdapterUtility;
 import com.ef.mediaroutingengine.routing.model.PrecisionQueue;
 import com.fasterxml.jackson.annotation.JsonAutoDetect;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.io.IOException;
 import java.io.Serializable;
+import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
 import javax.jms.Connection;
 import javax.jms.JMSException;
 import javax.jms.MessageProducer;
-import javax.jms.Session;
 import javax.jms.TextMessage;
-import javax.jms.Topic;
+import org.apache.activemq.ActiveMQMessageProducer;
+import org.apache.activemq.AsyncCallback;
 import org.apache.commons.lang3.exception.ExceptionUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -40,6 +55,11 @@ import org.springframework.stereotype.Service;
  * An implementation of the JmsCommunicator interface. Handles message communication
  * for a particular customer between other CIM microservices and bot framework over
  * an activemq broker.
+ *
+ * <p>Events are published on a ring of publisher sessions, each used by one thread at a time. A thread
+ * prefers the same session, so the events it publishes are sent in order on one session. If the outbox is
+ * enabled the events are serialized by the publishing thread and sent by the outbox's publisher thread,
+ * which retries them until the broker accepts them.
  */
 @Service
 @JsonAutoDetect(fieldVisibility = JsonAutoDetect.Visibility.ANY)
@@ -48,31 +68,67 @@ public class ActivemqCommunicator implements JmsCommunicator {
      * The constant LOGGER.
      */
     private static final Logger logger = LoggerFactory.getLogger(ActivemqCommunicator.class);
+    /**
+     * Maximum number of events the outbox takes for one send.
+     */
+    private static final int OUTBOX_MAX_EVENTS_PER_SEND = 100;
+    /**
+     * Time the outbox waits for the broker to acknowledge its events before it retries them, in ms.
+     */
+    private static final long OUTBOX_ACK_TIMEOUT_MS = 30_000;
     /**
      * The Topics.
      */
     private final List<String> topics = new ArrayList<>();
     private final ObjectMapper objectMapper = new ObjectMapper();
     /**
-     * The Connection.
+     * The writer of the CIM events.
      */
-    Connection connection;
+    private final ObjectWriter cimEventWriter;
+    /**
+     * The writer of the state change events.
+     */
+    private final ObjectWriter stateChangeEventWriter;
     /**
-     * The State Change Event Publisher.
+     * Number of published events, the payload of one in {@code payload-log-sampling} of them is logged.
      */
-    MessageProducer stateChangeEventPublisher;
+    private final AtomicLong publishedEvents = new AtomicLong();
     /**
-     * The Conversation event publisher.
+     * The publisher properties.
      */
-    MessageProducer conversationEventPublisher;
+    private final JmsPublisherProperties properties;
     /**
-     * The State Change Event Publisher Session.
+     * The Meter registry.
      */
-    private Session stateChangeEventPublisherSession;
+    private final MeterRegistry meterRegistry;
     /**
-     * The Conversation Event Publisher Session.
+     * Event name -> the timer of its sends, from the send to the broker's acknowledgement.
      */
-    private Session conversationEventPublisherSession;
+    private final Map<String, Timer> publishTimers = new ConcurrentHashMap<>();
+    /**
+     * Event name -> the counter of its failed sends.
+     */
+    private final Map<String, Counter> failureCounters = new ConcurrentHashMap<>();
+    /**
+     * The open batch of the thread.
+     */
+    private final ThreadLocal<OpenBatch> openBatch = new ThreadLocal<>();
+    /**
+     * The outbox the events are sent from, null if the outbox is disabled.
+     */
+    private volatile JmsOutbox outbox;
+    /**
+     * The Connection.
+     */
+    Connection connection;
+    /**
+     * The publisher sessions.
+     */
+    private volatile List<PublisherSession> sessions = List.of();
+    /**
+     * The transacted publisher sessions of the batches, empty if transacted batches are disabled.
+     */
+    private volatile List<PublisherSession> transactedSessions = List.of();
 
     /**
      * Constructor
@@ -83,14 +139,22 @@ public class ActivemqCommunicator implements JmsCommunicator {
      * 'failover' transport
      * //* @param amqProperties carries all the system defined activemq properties.
      *
-     * @param connection the connection
+     * @param connection    the connection
+     * @param properties    the publisher properties
+     * @param meterRegistry the meter registry
      * @throws JMSException the jms exception
      */
     @Autowired
-    public ActivemqCommunicator(Connection connection) throws JMSException {
+    public ActivemqCommunicator(Connection connection, JmsPublisherProperties properties,
+                                MeterRegistry meterRegistry) throws JMSException {
         this.connection = connection;
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
         this.connection.setExceptionListener(this);
         this.objectMapper.findAndRegisterModules();
+        this.objectMapper.registerModule(new TaskJsonModule(this.objectMapper.getFactory(), this::serializedTasks));
+        this.cimEventWriter = this.objectMapper.writerFor(CimEvent.class);
+        this.stateChangeEventWriter = this.objectMapper.writerFor(StateChangeEvent.class);
     }
 
     @Override
@@ -101,14 +165,16 @@ public class ActivemqCommunicator implements JmsCommunicator {
         this.topics.add(conversationTopic);
 
         try {
-            this.stateChangeEventPublisherSession = createPublisherSession();
-            this.stateChangeEventPublisher = createPublisher(stateChangeEventPublisherSession, stateChangeTopic);
-
-            this.conversationEventPublisherSession = createPublisherSession();
-            this.conversationEventPublisher = createPublisher(conversationEventPublisherSession, conversationTopic);
-
-            logger.info("Publisher successfully initialized for topics: '{}' and '{}'",
-                    stateChangeTopic, conversationTopic);
+            this.sessions = this.createPublisherSessions(false, stateChangeTopic, conversationTopic);
+            if (this.properties.isTransactedBatches()) {
+                this.transactedSessions = this.createPublisherSessions(true, stateChangeTopic, conversationTopic);
+            }
+            if (this.properties.isOutboxEnabled()) {
+                this.outbox = this.createOutbox();
+            }
+
+            logger.info("Publisher successfully initialized for topics: '{}' and '{}', config: {}",
+                    stateChangeTopic, conversationTopic, this.properties);
         } catch (JMSException jmsException) {
             logger.error(ExceptionUtils.getMessage(jmsException));
             logger.error(ExceptionUtils.getStackTrace(jmsException));
@@ -126,17 +192,10 @@ public class ActivemqCommunicator implements JmsCommunicator {
 
         StateChangeEvent stateChangeEvent = new StateChangeEvent(eventName, message, this.topics.get(0));
 
-        String messageStr = this.objectMapper.writeValueAsString(stateChangeEvent);
+        String messageStr = this.stateChangeEventWriter.writeValueAsString(stateChangeEvent);
+        this.send(eventName.name(), messageStr, false);
 
-        TextMessage messageToSend = this.stateChangeEventPublisherSession.createTextMessage();
-        messageToSend.setText(messageStr);
-        messageToSend.setJMSType(eventName.name());
-        messageToSend.setJMSCorrelationID(MDC.get(Constants.MDC_CORRELATION_ID));
-
-        this.stateChangeEventPublisher.send(messageToSend);
-
-        logger.info("Jms event: '{}' with payload: '{}' published on topic: '{}'",
-                eventName, messageStr, topics.get(0));
+        this.logPublished(eventName, messageStr, topics.get(0));
         logger.debug(Constants.METHOD_ENDED);
     }
 
@@ -172,24 +231,234 @@ public class ActivemqCommunicator implements JmsCommunicator {
         this.publishConversationEvent(event, data, task.getConversationId(), media.getRequestSession());
     }
 
+    @Override
+    public Batch beginBatch() {
+        if (this.openBatch.get() != null) {
+            return () -> { };
+        }
+
+        OpenBatch batch = new OpenBatch();
+        this.openBatch.set(batch);
+        return batch;
+    }
+
     private void publishConversationEvent(CimEventName event, Object data, String conversationId,
                                           ChannelSession channelSession) {
         try {
             String message = this.getSerializedCimEvent(data, event, conversationId, channelSession);
-            TextMessage messageToSend = this.conversationEventPublisherSession.createTextMessage();
+            this.send(event.name(), message, true);
 
-            messageToSend.setText(message);
-            messageToSend.setJMSType(event.name());
-            messageToSend.setJMSCorrelationID(MDC.get(Constants.MDC_CORRELATION_ID));
+            this.logPublished(event, message, topics.get(1));
+        } catch (JMSException | JsonProcessingException e) {
+            logger.error("Jms event: '{}' of conversation: {} could not be published", event, conversationId);
+            logger.error(ExceptionUtils.getMessage(e));
+            logger.error(ExceptionUtils.getStackTrace(e));
+        }
+    }
 
-            conversationEventPublisher.send(messageToSend);
+    /**
+     * Adds an event to the open batch of the thread if there is one, otherwise to the outbox, or sends it on one
+     * of the publisher sessions if the outbox is disabled.
+     *
+     * @param eventName         the event name
+     * @param text              the serialized event
+     * @param conversationEvent true for the conversation topic, false for the state change topic
+     * @throws JMSException the jms exception
+     */
+    private void send(String eventName, String text, boolean conversationEvent) throws JMSException {
+        OutboxEvent event = new OutboxEvent(eventName, text, conversationEvent, MDC.get(Constants.MDC_CORRELATION_ID));
 
-            logger.info("Jms event: '{}' with payload: '{}' published on topic: '{}'", event, message, topics.get(1));
-        } catch (JMSException | JsonProcessingException e) {
-            e.printStackTrace();
+        OpenBatch batch = this.openBatch.get();
+        if (batch != null) {
+            batch.events.add(event);
+            return;
+        }
+
+        JmsOutbox jmsOutbox = this.outbox;
+        if (jmsOutbox != null) {
+            jmsOutbox.add(List.of(event));
+            return;
+        }
+
+        PublisherSession publisherSession = PublisherSession.lockOne(this.sessions, preferredSession());
+        try {
+            this.send(publisherSession, event);
+        } finally {
+            publisherSession.unlock();
         }
     }
 
+    /**
+     * Sends the events taken from the outbox and waits for the broker to acknowledge them. Several events are
+     * sent in one transaction if transacted batches are enabled.
+     *
+     * @param events the events
+     * @throws JMSException if any of the events could not be sent
+     */
+    private void deliver(List<OutboxEvent> events) throws JMSException {
+        if (events.size() > 1 && !this.transactedSessions.isEmpty()) {
+            this.sendTransacted(events);
+            return;
+        }
+
+        List<CompletableFuture<Void>> acks = new ArrayList<>(events.size());
+        PublisherSession publisherSession = PublisherSession.lockOne(this.sessions, preferredSession());
+        try {
+            for (OutboxEvent event : events) {
+                acks.add(this.send(publisherSession, event));
+            }
+        } finally {
+            publisherSession.unlock();
+        }
+
+        try {
+            for (CompletableFuture<Void> ack : acks) {
+                ack.get(OUTBOX_ACK_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+            }
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof JMSException jmsException ? jmsException : toJmsException(e.getCause());
+        } catch (TimeoutException e) {
+            throw toJmsException(e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw toJmsException(e);
+        }
+    }
+
+    /**
+     * Sends an event on a locked publisher session.
+     *
+     * @param publisherSession the locked publisher session
+     * @param event            the event
+     * @return completed when the broker acknowledges the event
+     * @throws JMSException the jms exception
+     */
+    private CompletableFuture<Void> send(PublisherSession publisherSession, OutboxEvent event) throws JMSException {
+        String eventName = event.eventName();
+        try {
+            TextMessage message = createMessage(publisherSession, event);
+            MessageProducer publisher = publisherSession.getPublisher(event.conversationEvent());
+            long start = System.nanoTime();
+
+            if (this.properties.isAsyncSend() && publisher instanceof ActiveMQMessageProducer activemqPublisher) {
+                CompletableFuture<Void> ack = new CompletableFuture<>();
+                activemqPublisher.send(message, new AsyncCallback() {
+                    @Override
+                    public void onSuccess() {
+                        recordSent(eventName, start);
+                        ack.complete(null);
+                    }
+
+                    @Override
+                    public void onException(JMSException e) {
+                        recordFailed(eventName, e);
+                        ack.completeExceptionally(e);
+                    }
+                });
+                return ack;
+            }
+
+            publisher.send(message);
+            this.recordSent(eventName, start);
+            return CompletableFuture.completedFuture(null);
+        } catch (JMSException e) {
+            this.failureCounter(eventName).increment();
+            throw e;
+        }
+    }
+
+    /**
+     * Sends the events in one transaction on one of the transacted publisher sessions.
+     *
+     * @param events the events
+     * @throws JMSException if the transaction could not be committed, none of the events is delivered
+     */
+    private void sendTransacted(List<OutboxEvent> events) throws JMSException {
+        PublisherSession publisherSession = PublisherSession.lockOne(this.transactedSessions, preferredSession());
+        try {
+            long start = System.nanoTime();
+            for (OutboxEvent event : events) {
+                publisherSession.getPublisher(event.conversationEvent()).send(createMessage(publisherSession, event));
+            }
+            publisherSession.commit();
+            events.forEach(event -> this.recordSent(event.eventName(), start));
+        } catch (JMSException e) {
+            events.forEach(event -> this.failureCounter(event.eventName()).increment());
+            rollback(publisherSession);
+            throw e;
+        } finally {
+            publisherSession.unlock();
+        }
+    }
+
+    private static TextMessage createMessage(PublisherSession publisherSession, OutboxEvent event)
+            throws JMSException {
+        TextMessage message = publisherSession.createTextMessage(event.text());
+        message.setJMSType(event.eventName());
+        message.setJMSCorrelationID(event.correlationId());
+        return message;
+    }
+
+    private static void rollback(PublisherSession publisherSession) {
+        try {
+            publisherSession.rollback();
+        } catch (JMSException e) {
+            logger.error(ExceptionUtils.getMessage(e));
+            logger.error(ExceptionUtils.getStackTrace(e));
+        }
+    }
+
+    private static JMSException toJmsException(Throwable cause) {
+        JMSException jmsException = new JMSException(ExceptionUtils.getMessage(cause));
+        if (cause instanceof Exception exception) {
+            jmsException.setLinkedException(exception);
+        }
+        jmsException.initCause(cause);
+        return jmsException;
+    }
+
+    /**
+     * Logs a published event, its payload is logged at debug level for one in {@code payload-log-sampling}
+     * events.
+     *
+     * @param eventName the event name
+     * @param payload   the serialized event
+     * @param topic     the topic
+     */
+    private void logPublished(Object eventName, String payload, String topic) {
+        logger.info("Jms event: '{}' published on topic: '{}'", eventName, topic);
+
+        int sampling = this.properties.getPayloadLogSampling();
+        if (sampling > 0 && logger.isDebugEnabled() && this.publishedEvents.getAndIncrement() % sampling == 0) {
+            logger.debug("Jms event: '{}' with payload: '{}' published on topic: '{}'", eventName, payload, topic);
+        }
+    }
+
+    private void recordSent(String eventName, long start) {
+        this.publishTimer(eventName).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    }
+
+    private void recordFailed(String eventName, JMSException e) {
+        this.failureCounter(eventName).increment();
+        logger.error("Jms event: '{}' could not be published", eventName);
+        logger.error(ExceptionUtils.getMessage(e));
+        logger.error(ExceptionUtils.getStackTrace(e));
+    }
+
+    private Timer publishTimer(String eventName) {
+        return this.publishTimers.computeIfAbsent(eventName, name -> Timer.builder("jms.publish")
+                .description("Time from the send of a JMS event to its acknowledgement by the broker")
+                .tag("event", name)
+                .register(this.meterRegistry));
+    }
+
+    private Counter failureCounter(String eventName) {
+        return this.failureCounters.computeIfAbsent(eventName, name -> Counter.builder("jms.publish.failures")
+                .description("Number of JMS events that could not be published")
+                .tag("event", name)
+                .register(this.meterRegistry));
+    }
+
     /**
      * Gets serialized cim event.
      *
@@ -202,59 +471,135 @@ public class ActivemqCommunicator implements JmsCommunicator {
             throws JsonProcessingException {
         CimEvent cimEvent = new CimEvent(message, eventName, CimEventType.NOTIFICATION,
                 conversationId, AdapterUtility.getSender(), channelSession, channelSession.getRoomInfo());
-        return this.objectMapper.writeValueAsString(cimEvent);
+        return this.cimEventWriter.writeValueAsString(cimEvent);
     }
 
     @Override
     public void stop() throws JMSException {
         logger.debug(Constants.METHOD_STARTED);
 
-        this.stopPublisher(stateChangeEventPublisher);
-        this.stopPublisherSession(stateChangeEventPublisherSession);
+        JmsOutbox jmsOutbox = this.outbox;
+        this.outbox = null;
+        if (jmsOutbox != null) {
+            jmsOutbox.close();
+        }
+
+        List<PublisherSession> toClose = new ArrayList<>(this.sessions);
+        toClose.addAll(this.transactedSessions);
+        this.sessions = List.of();
+        this.transactedSessions = List.of();
 
-        this.stopPublisher(conversationEventPublisher);
-        this.stopPublisherSession(conversationEventPublisherSession);
+        for (PublisherSession publisherSession : toClose) {
+            publisherSession.close();
+        }
 
         logger.info("Communication stopped successfully on all topics");
 
         logger.debug(Constants.METHOD_ENDED);
     }
 
-    private void stopPublisher(MessageProducer publisher) throws JMSException {
-        if (publisher != null) {
-            publisher.close();
-        }
-    }
-
-    private void stopPublisherSession(Session publisherSession) throws JMSException {
-        if (publisherSession != null) {
-            publisherSession.close();
-        }
-    }
-
     @Override
     public synchronized void onException(JMSException ex) {
         logger.error(ExceptionUtils.getMessage(ex));
         logger.error(ExceptionUtils.getStackTrace(ex));
     }
 
-    private Session createPublisherSession() throws JMSException {
-        return this.connection.createSession(false, Session.AUTO_ACKNOWLEDGE);
+    /**
+     * Used by the init() method to create the publisher sessions on the connection.
+     *
+     * @throws JMSException exception
+     */
+    private List<PublisherSession> createPublisherSessions(boolean transacted, String stateChangeTopic,
+                                                           String conversationTopic) throws JMSException {
+        int count = Math.max(1, this.properties.getSessions());
+        List<PublisherSession> created = new ArrayList<>(count);
+        try {
+            for (int i = 0; i < count; i++) {
+                created.add(new PublisherSession(this.connection, transacted, stateChangeTopic, conversationTopic));
+            }
+        } catch (JMSException e) {
+            for (PublisherSession publisherSession : created) {
+                publisherSession.close();
+            }
+            throw e;
+        }
+
+        logger.debug("{} publisher sessions created, transacted: {}", count, transacted);
+        return List.copyOf(created);
+    }
+
+    private JmsOutbox createOutbox() throws JMSException {
+        String spillFile = this.properties.getOutboxSpillFile();
+        try {
+            return new JmsOutbox(this.properties.getOutboxCapacity(),
+                    spillFile == null || spillFile.isBlank() ? null : Path.of(spillFile), this::deliver,
+                    OUTBOX_MAX_EVENTS_PER_SEND, this.properties.getOutboxRetryInitialBackoffMs(),
+                    this.properties.getOutboxRetryMaxBackoffMs(), this.properties.getOutboxRetryMaxAttempts(),
+                    this.meterRegistry);
+        } catch (IOException e) {
+            throw toJmsException(e);
+        }
     }
 
     /**
-     * Used by the init() method to create a new topic publisher on the connection.
+     * Gets the tasks serialized in the open batch of the thread.
      *
-     * @throws JMSException exception
+     * @return task -> its JSON, null if the thread has no open batch
      */
-    private MessageProducer createPublisher(Session publisherSession, String topicName) throws JMSException {
-        logger.debug("Method started for Topic: '{}'", topicName);
+    private Map<Task, String> serializedTasks() {
+        OpenBatch batch = this.openBatch.get();
+        return batch != null ? batch.serializedTasks : null;
+    }
 
-        Topic destination = publisherSession.createTopic(topicName);
-        MessageProducer publisher = this.stateChangeEventPublisherSession.createProducer(destination);
-        logger.debug("Publisher created successfully");
+    private static int preferredSession() {
+        return (int) Thread.currentThread().getId();
+    }
 
-        logger.debug("Method ended for Topic: '{}'", topicName);
-        return publisher;
+    /**
+     * A batch open on a thread, its events are added to the outbox or sent when it is closed.
+     */
+    private final class OpenBatch implements Batch {
+        /**
+         * The events of the batch.
+         */
+        private final List<OutboxEvent> events = new ArrayList<>();
+        /**
+         * Task -> its JSON, a task is serialized once per batch.
+         */
+        private final Map<Task, String> serializedTasks = new IdentityHashMap<>();
+
+        @Override
+        public void close() {
+            openBatch.remove();
+            if (this.events.isEmpty()) {
+                return;
+            }
+
+            JmsOutbox jmsOutbox = outbox;
+            if (jmsOutbox != null) {
+                jmsOutbox.add(this.events);
+                return;
+            }
+
+            try {
+                if (!transactedSessions.isEmpty()) {
+                    sendTransacted(this.events);
+                    return;
+                }
+                PublisherSession publisherSession = PublisherSession.lockOne(sessions, preferredSession());
+                try {
+                    for (OutboxEvent event : this.events) {
+                        send(publisherSession, event);
+                    }
+                } finally {
+                    publisherSession.unlock();
+                }
+            } catch (JMSException e) {
+                logger.error("Jms events: {} could not be published",
+                        this.events.stream().map(OutboxEvent::eventName).toList());
+                logger.error(ExceptionUtils.getMessage(e));
+                logger.error(ExceptionUtils.getStackTrace(e));
+            }
+        }
     }
-}
\ No newline at end of file
+}
@@ -25,6 +25,17 @@ import javax.jms.JMSException;
  * <p>It also provides a stop() method to stop the connection gracefully.
  */
 public interface JmsCommunicator extends ExceptionListener {
+    /**
+     * A batch of the events a thread publishes, see {@link #beginBatch()}.
+     */
+    interface Batch extends AutoCloseable {
+        /**
+         * Ends the batch and commits its events.
+         */
+        @Override
+        void close();
+    }
+
     /**
      * To initialize a connection and a topic subscriber and publisher
      * on that connection.
@@ -88,4 +99,14 @@ public interface JmsCommunicator extends ExceptionListener {
      * @param agent the agent
      */
     void publishAgentReserved(Task task, TaskMedia media, CCUser agent);
+
+    /**
+     * Begins a batch of the events the calling thread publishes until the batch is closed, e.g. the events of
+     * one routing decision. The events are delivered when the batch is closed, in one transaction if transacted
+     * batches are enabled. A task embedded in several events of the batch is serialized once, so it must not
+     * change until the batch is closed. A batch begun while the thread has an open batch joins it.
+     *
+     * @return the batch
+     */
+    Batch beginBatch();
 }
@@ -0,0 +1,464 @@
+package com.ef.mediaroutingengine.global.jms;
+
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import javax.jms.JMSException;
+import javax.jms.MessageFormatException;
+import javax.jms.MessageNotWriteableException;
+import org.apache.commons.lang3.exception.ExceptionUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A bounded outbox of JMS events, drained by a dedicated publisher thread so that the threads that publish
+ * the events do not wait for the broker.
+ *
+ * <p>The publisher thread sends the events in the order they were added, so the events of a conversation are
+ * sent in order. A send that fails is retried with an exponential backoff; events of a failed send that had
+ * reached the broker are sent again, delivery is at least once. The events of a send that still fails after the
+ * maximum number of attempts, or that fails because an event can not be sent at all, are logged with their
+ * payload and dropped, so that they do not hold back the events behind them.
+ *
+ * <p>When the outbox is full the events are appended to a spill file if one is configured, and events added
+ * after them are spilled too until the file is drained. A spill file left by a previous run is drained first.
+ * Without a spill file the events that do not fit are dropped. When the outbox is closed the events not sent yet
+ * are kept in the spill file, in order, for the next run.
+ */
+class JmsOutbox implements AutoCloseable {
+    /**
+     * Logger.
+     */
+    private static final Logger logger = LoggerFactory.getLogger(JmsOutbox.class);
+    /**
+     * The constant objectMapper.
+     */
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+    /**
+     * The type of a spilled entry.
+     */
+    private static final JavaType ENTRY_TYPE = objectMapper.getTypeFactory()
+            .constructCollectionType(List.class, OutboxEvent.class);
+    /**
+     * Time the publisher thread waits for an entry before it checks whether the outbox is closed, in ms.
+     */
+    private static final long POLL_TIMEOUT_MS = 100;
+
+    /**
+     * Sends the events taken from the outbox.
+     */
+    interface Sender {
+        /**
+         * Sends the events in order and waits for the broker to acknowledge them.
+         *
+         * @param events the events
+         * @throws JMSException if any of the events could not be sent
+         */
+        void send(List<OutboxEvent> events) throws JMSException;
+    }
+
+    /**
+     * The entries in memory, an entry is a list of events sent together.
+     */
+    private final BlockingQueue<List<OutboxEvent>> entries;
+    /**
+     * Guards the spill file.
+     */
+    private final Object spillLock = new Object();
+    /**
+     * The spill file, null if spilling is disabled.
+     */
+    private final Path spillFile;
+    /**
+     * The sender.
+     */
+    private final Sender sender;
+    /**
+     * Maximum number of events taken from the outbox for one send.
+     */
+    private final int maxEventsPerSend;
+    /**
+     * The backoff after the first failed send, in ms.
+     */
+    private final long initialBackoffMs;
+    /**
+     * The maximum backoff between failed sends, in ms.
+     */
+    private final long maxBackoffMs;
+    /**
+     * The maximum number of attempts to send the same events.
+     */
+    private final int maxSendAttempts;
+    /**
+     * The publisher thread.
+     */
+    private final Thread publisher;
+    /**
+     * Counter of the events dropped because the outbox was full.
+     */
+    private final Counter dropped;
+    /**
+     * Counter of the failed sends.
+     */
+    private final Counter failedSends;
+    /**
+     * Counter of the events dropped because they could not be sent.
+     */
+    private final Counter deadLetters;
+    /**
+     * Number of entries in the spill file that are not read yet, guarded by the spill lock.
+     */
+    private long spilled;
+    /**
+     * Appends to the spill file, guarded by the spill lock.
+     */
+    private BufferedWriter spillWriter;
+    /**
+     * Reads the spill file, guarded by the spill lock.
+     */
+    private BufferedReader spillReader;
+    /**
+     * The events the publisher thread is sending, null between sends.
+     */
+    private volatile List<OutboxEvent> sending;
+    /**
+     * True once the outbox is closed.
+     */
+    private volatile boolean closed;
+
+    /**
+     * Instantiates a new Jms outbox and starts its publisher thread.
+     *
+     * @param capacity         the maximum number of entries in memory
+     * @param spillFile        the spill file, null to drop the events that do not fit
+     * @param sender           the sender
+     * @param maxEventsPerSend the maximum number of events taken from the outbox for one send
+     * @param initialBackoffMs the backoff after the first failed send, in ms
+     * @param maxBackoffMs     the maximum backoff between failed sends, in ms
+     * @param maxSendAttempts  the maximum number of attempts to send the same events
+     * @param meterRegistry    the meter registry
+     * @throws IOException if the spill file of a previous run could not be read
+     */
+    JmsOutbox(int capacity, Path spillFile, Sender sender, int maxEventsPerSend, long initialBackoffMs,
+              long maxBackoffMs, int maxSendAttempts, MeterRegistry meterRegistry) throws IOException {
+        this.entries = new LinkedBlockingQueue<>(Math.max(1, capacity));
+        this.spillFile = spillFile;
+        this.sender = sender;
+        this.maxEventsPerSend = Math.max(1, maxEventsPerSend);
+        this.initialBackoffMs = Math.max(1, initialBackoffMs);
+        this.maxBackoffMs = Math.max(this.initialBackoffMs, maxBackoffMs);
+        this.maxSendAttempts = Math.max(1, maxSendAttempts);
+
+        if (spillFile != null && Files.exists(spillFile)) {
+            try (BufferedReader reader = Files.newBufferedReader(spillFile, StandardCharsets.UTF_8)) {
+                this.spilled = reader.lines().count();
+            }
+            logger.info("{} event entries spilled by a previous run will be published first", this.spilled);
+        }
+
+        this.dropped = Counter.builder("jms.outbox.dropped")
+                .description("Number of JMS events dropped because the outbox was full")
+                .register(meterRegistry);
+        this.failedSends = Counter.builder("jms.outbox.failed.sends")
+                .description("Number of failed sends of the JMS outbox")
+                .register(meterRegistry);
+        this.deadLetters = Counter.builder("jms.outbox.dead.letters")
+                .description("Number of JMS events dropped because they could not be sent")
+                .register(meterRegistry);
+        Gauge.builder("jms.outbox.size", this, JmsOutbox::size)
+                .description("Number of event entries waiting in the JMS outbox")
+                .register(meterRegistry);
+
+        this.publisher = new Thread(this::run, "jms-outbox-publisher");
+        this.publisher.setDaemon(true);
+        this.publisher.start();
+    }
+
+    /**
+     * Adds events that are sent together, in order.
+     *
+     * @param events the events
+     * @return true if the events were added, false if they were dropped
+     */
+    boolean add(List<OutboxEvent> events) {
+        synchronized (this.spillLock) {
+            // Checked under the lock, so that no event is added after the outbox is drained to the spill file.
+            if (this.closed) {
+                throw new IllegalStateException("JMS outbox is closed");
+            }
+            if (this.spilled == 0 && this.entries.offer(events)) {
+                return true;
+            }
+            if (this.spillFile != null && this.spill(events)) {
+                return true;
+            }
+        }
+
+        this.dropped.increment(events.size());
+        logger.error("Jms outbox is full, events: {} dropped", events.stream().map(OutboxEvent::eventName).toList());
+        return false;
+    }
+
+    /**
+     * Gets the number of event entries waiting in the outbox.
+     *
+     * @return the number of entries
+     */
+    long size() {
+        synchronized (this.spillLock) {
+            return this.entries.size() + this.spilled;
+        }
+    }
+
+    /**
+     * Stops the publisher thread. The events not sent yet are written to the spill file if one is configured,
+     * otherwise they are dropped.
+     */
+    @Override
+    public void close() {
+        synchronized (this.spillLock) {
+            this.closed = true;
+        }
+        this.publisher.interrupt();
+        try {
+            this.publisher.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        synchronized (this.spillLock) {
+            int dropped = this.spillFile != null
+                    ? this.drainToSpillFile()
+                    : this.entries.size() + (this.sending != null ? 1 : 0);
+            this.closeSpillFile();
+            logger.info("Jms outbox closed, {} event entries dropped, {} left in the spill file",
+                    dropped, this.spilled);
+        }
+    }
+
+    private void run() {
+        try {
+            while (!this.closed) {
+                List<OutboxEvent> events = this.take();
+                if (!events.isEmpty()) {
+                    this.sending = events;
+                    this.send(events);
+                    this.sending = null;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Takes the entries for one send, waits for one if the outbox is empty.
+     *
+     * @return the events of the entries, empty if none came in time
+     * @throws InterruptedException if the thread is interrupted
+     */
+    private List<OutboxEvent> take() throws InterruptedException {
+        List<OutboxEvent> events = new ArrayList<>();
+        List<OutboxEvent> entry = this.poll();
+        if (entry == null) {
+            entry = this.entries.poll(POLL_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+        }
+
+        while (entry != null) {
+            events.addAll(entry);
+            if (events.size() >= this.maxEventsPerSend) {
+                break;
+            }
+            entry = this.poll();
+        }
+        return events;
+    }
+
+    /**
+     * Polls the next entry. The entries in memory were added before the spilled ones.
+     *
+     * @return the next entry, null if there is none
+     */
+    private List<OutboxEvent> poll() {
+        List<OutboxEvent> entry = this.entries.poll();
+        if (entry != null) {
+            return entry;
+        }
+
+        synchronized (this.spillLock) {
+            // Entries added to memory since the poll above were added before any spilled entry, take them first.
+            entry = this.entries.poll();
+            if (entry != null) {
+                return entry;
+            }
+            return this.spilled > 0 ? this.readSpilled() : null;
+        }
+    }
+
+    /**
+     * Sends the events, retries with an exponential backoff until they are sent, the maximum number of attempts
+     * is reached or the failure is not transient.
+     *
+     * @param events the events
+     * @throws InterruptedException if the thread is interrupted while it backs off
+     */
+    private void send(List<OutboxEvent> events) throws InterruptedException {
+        long backoffMs = this.initialBackoffMs;
+        for (int attempt = 1; ; attempt++) {
+            try {
+                this.sender.send(events);
+                return;
+            } catch (JMSException | RuntimeException e) {
+                this.failedSends.increment();
+                logger.error(ExceptionUtils.getMessage(e));
+                logger.error(ExceptionUtils.getStackTrace(e));
+
+                if (attempt >= this.maxSendAttempts || !isTransient(e)) {
+                    this.deadLetter(events, attempt);
+                    return;
+                }
+                logger.error("{} Jms events could not be published, retrying in {} ms", events.size(), backoffMs);
+            }
+
+            Thread.sleep(backoffMs);
+            backoffMs = Math.min(backoffMs * 2, this.maxBackoffMs);
+        }
+    }
+
+    /**
+     * Drops events that could not be sent, they are logged with their payload so that they can be sent again.
+     *
+     * @param events   the events
+     * @param attempts the number of attempts to send them
+     */
+    private void deadLetter(List<OutboxEvent> events, int attempts) {
+        this.deadLetters.increment(events.size());
+        logger.error("{} Jms events dropped after {} failed attempts: {}", events.size(), attempts, events);
+    }
+
+    /**
+     * Checks if a send that failed with the exception can succeed when it is retried. A message that can not be
+     * built or a bug in the sender fails the same way again.
+     *
+     * @param e the exception
+     * @return true if the failure is transient
+     */
+    private static boolean isTransient(Exception e) {
+        return e instanceof JMSException
+                && !(e instanceof MessageFormatException)
+                && !(e instanceof MessageNotWriteableException);
+    }
+
+    private boolean spill(List<OutboxEvent> events) {
+        try {
+            if (this.spillWriter == null) {
+                this.spillWriter = Files.newBufferedWriter(this.spillFile, StandardCharsets.UTF_8,
+                        StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+            }
+            this.spillWriter.write(objectMapper.writeValueAsString(events));
+            this.spillWriter.newLine();
+            this.spillWriter.flush();
+            this.spilled++;
+            return true;
+        } catch (IOException e) {
+            logger.error(ExceptionUtils.getMessage(e));
+            logger.error(ExceptionUtils.getStackTrace(e));
+            return false;
+        }
+    }
+
+    /**
+     * Rewrites the spill file with the events being sent and the entries in memory, followed by the spilled
+     * entries not read yet, which were added after them. Called under the spill lock once the outbox is closed.
+     *
+     * @return the number of entries dropped because the spill file could not be written
+     */
+    private int drainToSpillFile() {
+        List<List<OutboxEvent>> pending = new ArrayList<>();
+        List<OutboxEvent> current = this.sending;
+        if (current != null) {
+            pending.add(current);
+        }
+        this.entries.drainTo(pending);
+        if (pending.isEmpty()) {
+            return 0;
+        }
+
+        try {
+            List<String> lines = new ArrayList<>();
+            for (List<OutboxEvent> entry : pending) {
+                lines.add(objectMapper.writeValueAsString(entry));
+            }
+            if (this.spilled > 0) {
+                if (this.spillReader == null) {
+                    this.spillReader = Files.newBufferedReader(this.spillFile, StandardCharsets.UTF_8);
+                }
+                for (String line = this.spillReader.readLine(); line != null; line = this.spillReader.readLine()) {
+                    lines.add(line);
+                }
+            }
+            this.closeSpillFile();
+
+            Path tempFile = this.spillFile.resolveSibling(this.spillFile.getFileName() + ".tmp");
+            Files.write(tempFile, lines, StandardCharsets.UTF_8);
+            Files.move(tempFile, this.spillFile, StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+            this.spilled = lines.size();
+            return 0;
+        } catch (IOException e) {
+            logger.error(ExceptionUtils.getMessage(e));
+            logger.error(ExceptionUtils.getStackTrace(e));
+            return pending.size();
+        }
+    }
+
+    private List<OutboxEvent> readSpilled() {
+        try {
+            if (this.spillReader == null) {
+                this.spillReader = Files.newBufferedReader(this.spillFile, StandardCharsets.UTF_8);
+            }
+            String line = this.spillReader.readLine();
+            this.spilled = line != null ? this.spilled - 1 : 0;
+            if (this.spilled == 0) {
+                this.closeSpillFile();
+                Files.deleteIfExists(this.spillFile);
+            }
+            return line != null ? objectMapper.readValue(line, ENTRY_TYPE) : null;
+        } catch (IOException e) {
+            logger.error(ExceptionUtils.getMessage(e));
+            logger.error(ExceptionUtils.getStackTrace(e));
+            return null;
+        }
+    }
+
+    private void closeSpillFile() {
+        try {
+            if (this.spillWriter != null) {
+                this.spillWriter.close();
+            }
+            if (this.spillReader != null) {
+                this.spillReader.close();
+            }
+        } catch (IOException e) {
+            logger.error(ExceptionUtils.getMessage(e));
+            logger.error(ExceptionUtils.getStackTrace(e));
+        }
+        this.spillWriter = null;
+        this.spillReader = null;
+    }
+}
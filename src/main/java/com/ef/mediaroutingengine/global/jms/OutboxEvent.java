@@ -0,0 +1,12 @@
+package com.ef.mediaroutingengine.global.jms;
+
+/**
+ * A serialized JMS event ready to be sent.
+ *
+ * @param eventName         the event name, the type of the message
+ * @param text              the serialized event
+ * @param conversationEvent true for the conversation topic, false for the state change topic
+ * @param correlationId     the correlation id of the request that published the event
+ */
+record OutboxEvent(String eventName, String text, boolean conversationEvent, String correlationId) {
+}
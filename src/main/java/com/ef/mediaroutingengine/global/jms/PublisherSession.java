@@ -0,0 +1,141 @@
+package com.ef.mediaroutingengine.global.jms;
+
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+import javax.jms.Connection;
+import javax.jms.JMSException;
+import javax.jms.MessageProducer;
+import javax.jms.Session;
+import javax.jms.TextMessage;
+import javax.jms.Topic;
+
+/**
+ * A JMS session with a publisher on the state change topic and one on the conversation topic. A session is
+ * single-threaded, so a thread locks it before it publishes on it.
+ */
+class PublisherSession {
+    /**
+     * Held by the thread that publishes on the session.
+     */
+    private final ReentrantLock lock = new ReentrantLock();
+    /**
+     * The Session.
+     */
+    private final Session session;
+    /**
+     * The State Change Event Publisher.
+     */
+    private final MessageProducer stateChangeEventPublisher;
+    /**
+     * The Conversation event publisher.
+     */
+    private final MessageProducer conversationEventPublisher;
+
+    /**
+     * Instantiates a new Publisher session and creates its publishers.
+     *
+     * @param connection        the connection
+     * @param transacted        if true, the sent messages are delivered when the session is committed
+     * @param stateChangeTopic  the state change topic
+     * @param conversationTopic the conversation topic
+     * @throws JMSException the jms exception
+     */
+    PublisherSession(Connection connection, boolean transacted, String stateChangeTopic, String conversationTopic)
+            throws JMSException {
+        this.session = connection.createSession(transacted,
+                transacted ? Session.SESSION_TRANSACTED : Session.AUTO_ACKNOWLEDGE);
+        try {
+            this.stateChangeEventPublisher = this.createPublisher(stateChangeTopic);
+            this.conversationEventPublisher = this.createPublisher(conversationTopic);
+        } catch (JMSException e) {
+            this.session.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Locks one of the sessions. The preferred session is tried first, so a thread keeps publishing on the same
+     * session while it is free; if all the sessions are busy the thread waits for the preferred one.
+     *
+     * @param sessions  the sessions
+     * @param preferred the index of the preferred session
+     * @return the locked session
+     */
+    static PublisherSession lockOne(List<PublisherSession> sessions, int preferred) {
+        if (sessions.isEmpty()) {
+            throw new IllegalStateException("JMS publishers are not initialized");
+        }
+
+        int start = Math.floorMod(preferred, sessions.size());
+        for (int i = 0; i < sessions.size(); i++) {
+            PublisherSession publisherSession = sessions.get((start + i) % sessions.size());
+            if (publisherSession.lock.tryLock()) {
+                return publisherSession;
+            }
+        }
+
+        PublisherSession publisherSession = sessions.get(start);
+        publisherSession.lock.lock();
+        return publisherSession;
+    }
+
+    /**
+     * Unlocks the session.
+     */
+    void unlock() {
+        this.lock.unlock();
+    }
+
+    /**
+     * Creates a text message.
+     *
+     * @param text the text
+     * @return the text message
+     * @throws JMSException the jms exception
+     */
+    TextMessage createTextMessage(String text) throws JMSException {
+        return this.session.createTextMessage(text);
+    }
+
+    /**
+     * Gets the publisher of a topic.
+     *
+     * @param conversationEvent true for the conversation topic, false for the state change topic
+     * @return the publisher
+     */
+    MessageProducer getPublisher(boolean conversationEvent) {
+        return conversationEvent ? this.conversationEventPublisher : this.stateChangeEventPublisher;
+    }
+
+    /**
+     * Delivers the messages sent since the last commit, the session must be transacted.
+     *
+     * @throws JMSException the jms exception
+     */
+    void commit() throws JMSException {
+        this.session.commit();
+    }
+
+    /**
+     * Discards the messages sent since the last commit, the session must be transacted.
+     *
+     * @throws JMSException the jms exception
+     */
+    void rollback() throws JMSException {
+        this.session.rollback();
+    }
+
+    /**
+     * Closes the session and its publishers.
+     *
+     * @throws JMSException the jms exception
+     */
+    void close() throws JMSException {
+        this.session.close();
+    }
+
+    private MessageProducer createPublisher(String topicName) throws JMSException {
+        Topic destination = this.session.createTopic(topicName);
+        return this.session.createProducer(destination);
+    }
+}
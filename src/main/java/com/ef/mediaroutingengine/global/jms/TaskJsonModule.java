@@ -0,0 +1,98 @@
+package com.ef.mediaroutingengine.global.jms;
+
+import com.ef.cim.objectmodel.task.Task;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SegmentedStringWriter;
+import com.fasterxml.jackson.databind.BeanDescription;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.SerializationConfig;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.fasterxml.jackson.databind.ser.BeanSerializerModifier;
+import com.fasterxml.jackson.databind.ser.ResolvableSerializer;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import java.io.IOException;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Serializes a task once per scope. The events published in one routing decision embed the same task: the
+ * first event writes its JSON and the others copy it. Outside a scope tasks are serialized as usual.
+ */
+class TaskJsonModule extends SimpleModule {
+    /**
+     * Instantiates a new Task json module.
+     *
+     * @param jsonFactory the factory of the mapper the module is registered with
+     * @param scope       supplies the current scope: task -> its JSON, or null if there is no scope
+     */
+    TaskJsonModule(JsonFactory jsonFactory, Supplier<Map<Task, String>> scope) {
+        super("TaskJsonModule");
+        this.setSerializerModifier(new BeanSerializerModifier() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public JsonSerializer<?> modifySerializer(SerializationConfig config, BeanDescription beanDesc,
+                                                      JsonSerializer<?> serializer) {
+                if (!Task.class.isAssignableFrom(beanDesc.getBeanClass())) {
+                    return serializer;
+                }
+                return new TaskSerializer((JsonSerializer<Object>) serializer, jsonFactory, scope);
+            }
+        });
+    }
+
+    /**
+     * Writes the JSON of the task cached in the current scope, the default serializer writes it the first time.
+     */
+    private static final class TaskSerializer extends StdSerializer<Task> implements ResolvableSerializer {
+        /**
+         * The default serializer of the task.
+         */
+        private final transient JsonSerializer<Object> defaultSerializer;
+        /**
+         * The factory of the generators the JSON of a task is written to.
+         */
+        private final transient JsonFactory jsonFactory;
+        /**
+         * Supplies the current scope.
+         */
+        private final transient Supplier<Map<Task, String>> scope;
+
+        private TaskSerializer(JsonSerializer<Object> defaultSerializer, JsonFactory jsonFactory,
+                               Supplier<Map<Task, String>> scope) {
+            super(Task.class);
+            this.defaultSerializer = defaultSerializer;
+            this.jsonFactory = jsonFactory;
+            this.scope = scope;
+        }
+
+        @Override
+        public void resolve(SerializerProvider provider) throws JsonMappingException {
+            if (this.defaultSerializer instanceof ResolvableSerializer resolvableSerializer) {
+                resolvableSerializer.resolve(provider);
+            }
+        }
+
+        @Override
+        public void serialize(Task task, JsonGenerator gen, SerializerProvider provider) throws IOException {
+            Map<Task, String> serializedTasks = this.scope.get();
+            if (serializedTasks == null) {
+                this.defaultSerializer.serialize(task, gen, provider);
+                return;
+            }
+
+            String json = serializedTasks.get(task);
+            if (json == null) {
+                SegmentedStringWriter writer = new SegmentedStringWriter(this.jsonFactory._getBufferRecycler());
+                try (JsonGenerator taskGen = this.jsonFactory.createGenerator(writer)) {
+                    this.defaultSerializer.serialize(task, taskGen, provider);
+                }
+                json = writer.getAndClear();
+                serializedTasks.put(task, json);
+            }
+            gen.writeRawValue(json);
+        }
+    }
+}
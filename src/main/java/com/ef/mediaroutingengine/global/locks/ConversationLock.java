@@ -1,39 +1,116 @@
 package com.ef.mediaroutingengine.global.locks;
 
-import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.atomic.AtomicInteger;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.locks.Lock;
-import java.util.concurrent.locks.ReentrantLock;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
 
 /**
  * The type Conversation locks pool.
+ *
+ * <p>All instances share one process-wide lock table, either a lock per conversation or a fixed number of lock
+ * stripes, see {@link #configure(Mode, int, long)}. Each instance names the call site it is used from; the time
+ * spent waiting for and holding the locks is recorded per call site in the {@code conversation.lock.wait} and
+ * {@code conversation.lock.hold} timers of the global meter registry.
  */
 @Service
 public class ConversationLock {
-    private static class LockWrapper {
-        private final Lock lock = new ReentrantLock();
-        private final AtomicInteger numberOfThreadsInQueue = new AtomicInteger(1);
+    /**
+     * The constant logger.
+     */
+    private static final Logger logger = LoggerFactory.getLogger(ConversationLock.class);
+    /**
+     * The call site of instances created without one.
+     */
+    private static final String DEFAULT_CALL_SITE = "default";
+    /**
+     * The locks held by the current thread.
+     */
+    private static final ThreadLocal<Holds> holds = ThreadLocal.withInitial(Holds::new);
+    /**
+     * The constant lock table.
+     */
+    private static volatile ConversationLockTable table = new PerConversationLockTable();
+    /**
+     * Timeout of {@link #tryLock(String)} in milliseconds.
+     */
+    private static volatile long tryLockTimeoutMs = 5000;
 
-        LockWrapper addThread() {
-            numberOfThreadsInQueue.incrementAndGet();
-            return this;
-        }
+    /**
+     * Time spent waiting for the lock.
+     */
+    private final Timer waitTimer;
+    /**
+     * Time the lock is held.
+     */
+    private final Timer holdTimer;
+    /**
+     * Number of tryLock calls that timed out.
+     */
+    private final Counter timeouts;
 
-        int removeThread() {
-            return numberOfThreadsInQueue.decrementAndGet();
-        }
+    /**
+     * The lock table implementations.
+     */
+    public enum Mode {
+        /**
+         * A lock per conversation, created and removed as conversations are locked and unlocked.
+         */
+        PER_CONVERSATION,
+        /**
+         * A fixed number of lock stripes shared by all conversations.
+         */
+        STRIPED
+    }
 
-        void lock() {
-            lock.lock();
-        }
+    /**
+     * Instantiates a new Conversation lock for the default call site.
+     */
+    public ConversationLock() {
+        this(DEFAULT_CALL_SITE);
     }
 
     /**
-     * The constant locks.
+     * Instantiates a new Conversation lock.
+     *
+     * @param callSite name of the call site the lock wait and hold times are recorded for
      */
-    private static final Map<String, LockWrapper> locks = new ConcurrentHashMap<>();
+    public ConversationLock(String callSite) {
+        MeterRegistry meterRegistry = Metrics.globalRegistry;
+        this.waitTimer = Timer.builder("conversation.lock.wait")
+                .description("Time spent waiting for a conversation lock")
+                .tag("site", callSite)
+                .register(meterRegistry);
+        this.holdTimer = Timer.builder("conversation.lock.hold")
+                .description("Time a conversation lock is held")
+                .tag("site", callSite)
+                .register(meterRegistry);
+        this.timeouts = Counter.builder("conversation.lock.timeouts")
+                .description("Number of conversation lock attempts that timed out")
+                .tag("site", callSite)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Configures the lock table shared by all conversation locks. Locks held while the table is replaced are
+     * still released on the table they were acquired from.
+     *
+     * @param mode             the lock table implementation
+     * @param stripes          number of stripes of the striped table
+     * @param tryLockTimeoutMs timeout of {@link #tryLock(String)} in milliseconds
+     */
+    public static void configure(Mode mode, int stripes, long tryLockTimeoutMs) {
+        ConversationLock.table = mode == Mode.STRIPED
+                ? new StripedConversationLockTable(stripes)
+                : new PerConversationLockTable();
+        ConversationLock.tryLockTimeoutMs = tryLockTimeoutMs;
+    }
 
     /**
      * Lock.
@@ -41,8 +118,55 @@ public class ConversationLock {
      * @param conversationId the conversation id
      */
     public void lock(String conversationId) {
-        LockWrapper lock = locks.compute(conversationId, (k, v) -> v == null ? new LockWrapper() : v.addThread());
+        long start = System.nanoTime();
+        ConversationLockTable current = table;
+        Lock lock = current.acquire(conversationId);
         lock.lock();
+        this.locked(conversationId, current, lock, start);
+    }
+
+    /**
+     * Locks the conversation if it can be locked within the configured timeout. {@link #unlock(String)} must be
+     * called only if the lock was acquired.
+     *
+     * @param conversationId the conversation id
+     * @return true if the lock was acquired, false if the timeout elapsed or the thread was interrupted
+     */
+    public boolean tryLock(String conversationId) {
+        return this.tryLock(conversationId, tryLockTimeoutMs, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Locks the conversation if it can be locked within the timeout. {@link #unlock(String)} must be called
+     * only if the lock was acquired.
+     *
+     * @param conversationId the conversation id
+     * @param timeout        the timeout
+     * @param unit           the timeout unit
+     * @return true if the lock was acquired, false if the timeout elapsed or the thread was interrupted
+     */
+    public boolean tryLock(String conversationId, long timeout, TimeUnit unit) {
+        long start = System.nanoTime();
+        ConversationLockTable current = table;
+        Lock lock = current.acquire(conversationId);
+
+        boolean acquired = false;
+        try {
+            acquired = lock.tryLock(timeout, unit);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        if (!acquired) {
+            current.release(conversationId, lock);
+            this.waitTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            this.timeouts.increment();
+            logger.warn("Could not lock conversation: {} within {} {}", conversationId, timeout, unit);
+            return false;
+        }
+
+        this.locked(conversationId, current, lock, start);
+        return true;
     }
 
     /**
@@ -51,12 +175,110 @@ public class ConversationLock {
      * @param conversationId the conversation id
      */
     public void unlock(String conversationId) {
-        LockWrapper lockWrapper = locks.get(conversationId);
-        lockWrapper.lock.unlock();
-        if (lockWrapper.removeThread() == 0) {
-            // NB : We pass in the specific value to remove to handle the case where another thread would queue
-            // right before the removal
-            locks.remove(conversationId, lockWrapper);
+        Hold hold = holds.get().remove(conversationId);
+        if (hold == null) {
+            logger.warn("Conversation: {} is not locked by the current thread", conversationId);
+            return;
+        }
+
+        Lock lock = hold.lock;
+        ConversationLockTable lockTable = hold.table;
+        long lockedAt = hold.lockedAt;
+        hold.clear();
+
+        lock.unlock();
+        lockTable.release(conversationId, lock);
+        this.holdTimer.record(System.nanoTime() - lockedAt, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Records the lock wait time and the current thread's hold.
+     */
+    private void locked(String conversationId, ConversationLockTable current, Lock lock, long start) {
+        long now = System.nanoTime();
+        this.waitTimer.record(now - start, TimeUnit.NANOSECONDS);
+        holds.get().push(conversationId, current, lock, now);
+    }
+
+    /**
+     * The conversation locks held by a thread, in the order they were locked. The holds are reused, so that
+     * locking a conversation does not allocate once the thread has held as many locks at a time before.
+     */
+    private static final class Holds {
+        /**
+         * The holds, the first {@code size} are in use.
+         */
+        private Hold[] stack = new Hold[4];
+        /**
+         * Number of locks held.
+         */
+        private int size;
+
+        void push(String conversationId, ConversationLockTable table, Lock lock, long lockedAt) {
+            if (this.size == this.stack.length) {
+                this.stack = Arrays.copyOf(this.stack, this.size * 2);
+            }
+            Hold hold = this.stack[this.size];
+            if (hold == null) {
+                hold = new Hold();
+                this.stack[this.size] = hold;
+            }
+            hold.conversationId = conversationId;
+            hold.table = table;
+            hold.lock = lock;
+            hold.lockedAt = lockedAt;
+            this.size++;
+        }
+
+        /**
+         * Removes the most recent hold of the conversation. The hold is moved past the ones in use, it stays
+         * valid until the thread locks a conversation again.
+         *
+         * @param conversationId the conversation id
+         * @return the hold, null if the thread does not hold the conversation's lock
+         */
+        Hold remove(String conversationId) {
+            for (int i = this.size - 1; i >= 0; i--) {
+                Hold hold = this.stack[i];
+                if (hold.conversationId.equals(conversationId)) {
+                    System.arraycopy(this.stack, i + 1, this.stack, i, this.size - i - 1);
+                    this.size--;
+                    this.stack[this.size] = hold;
+                    return hold;
+                }
+            }
+            return null;
+        }
+    }
+
+    /**
+     * A conversation lock held by the current thread.
+     */
+    private static final class Hold {
+        /**
+         * The conversation id.
+         */
+        private String conversationId;
+        /**
+         * The table the lock was acquired from.
+         */
+        private ConversationLockTable table;
+        /**
+         * The lock.
+         */
+        private Lock lock;
+        /**
+         * The time the lock was acquired, in nanos.
+         */
+        private long lockedAt;
+
+        /**
+         * Drops the references of a released hold.
+         */
+        void clear() {
+            this.conversationId = null;
+            this.table = null;
+            this.lock = null;
         }
     }
 }
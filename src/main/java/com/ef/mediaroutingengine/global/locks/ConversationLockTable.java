@@ -0,0 +1,25 @@
+package com.ef.mediaroutingengine.global.locks;
+
+import java.util.concurrent.locks.Lock;
+
+/**
+ * Maps conversations to the locks they are locked on.
+ */
+interface ConversationLockTable {
+    /**
+     * Returns the lock of the conversation, every call must be followed by a call to
+     * {@link #release(String, Lock)} once the lock is no longer held or waited for.
+     *
+     * @param conversationId the conversation id
+     * @return the lock, not yet locked
+     */
+    Lock acquire(String conversationId);
+
+    /**
+     * Releases the conversation's lock returned by {@link #acquire(String)}.
+     *
+     * @param conversationId the conversation id
+     * @param lock           the lock
+     */
+    void release(String conversationId, Lock lock);
+}
@@ -0,0 +1,54 @@
+package com.ef.mediaroutingengine.global.locks;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A lock per conversation, created on the first acquire and removed when the last thread releases it.
+ */
+class PerConversationLockTable implements ConversationLockTable {
+    /**
+     * The locks of the conversations currently locked or waited for.
+     */
+    private final Map<String, LockWrapper> locks = new ConcurrentHashMap<>();
+
+    @Override
+    public Lock acquire(String conversationId) {
+        return locks.compute(conversationId, (k, v) -> v == null ? new LockWrapper() : v.addThread());
+    }
+
+    @Override
+    public void release(String conversationId, Lock lock) {
+        LockWrapper lockWrapper = (LockWrapper) lock;
+        if (lockWrapper.removeThread() == 0) {
+            // NB : We pass in the specific value to remove to handle the case where another thread would queue
+            // right before the removal
+            locks.remove(conversationId, lockWrapper);
+        }
+    }
+
+    /**
+     * Number of conversations that currently have a lock.
+     *
+     * @return the number of locks
+     */
+    int size() {
+        return locks.size();
+    }
+
+    private static class LockWrapper extends ReentrantLock {
+        private final AtomicInteger numberOfThreadsInQueue = new AtomicInteger(1);
+
+        LockWrapper addThread() {
+            numberOfThreadsInQueue.incrementAndGet();
+            return this;
+        }
+
+        int removeThread() {
+            return numberOfThreadsInQueue.decrementAndGet();
+        }
+    }
+}
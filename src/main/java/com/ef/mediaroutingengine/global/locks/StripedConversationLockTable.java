@@ -0,0 +1,58 @@
+package com.ef.mediaroutingengine.global.locks;
+
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A fixed array of locks, each conversation is locked on the stripe its id hashes to. Memory is bounded by the
+ * number of stripes and locking allocates nothing; conversations that share a stripe wait for each other.
+ */
+class StripedConversationLockTable implements ConversationLockTable {
+    /**
+     * The stripes, a power of two of them.
+     */
+    private final Lock[] stripes;
+
+    /**
+     * Instantiates a new Striped conversation lock table.
+     *
+     * @param stripes the number of stripes, rounded up to a power of two
+     */
+    StripedConversationLockTable(int stripes) {
+        if (stripes < 1) {
+            throw new IllegalArgumentException("Number of stripes must be positive");
+        }
+
+        int size = Integer.highestOneBit(stripes);
+        if (size < stripes) {
+            size <<= 1;
+        }
+
+        this.stripes = new Lock[size];
+        for (int i = 0; i < size; i++) {
+            this.stripes[i] = new ReentrantLock();
+        }
+    }
+
+    @Override
+    public Lock acquire(String conversationId) {
+        int hash = conversationId.hashCode();
+        // Spread the high bits down, as only the low bits select the stripe.
+        hash ^= hash >>> 16;
+        return this.stripes[hash & (this.stripes.length - 1)];
+    }
+
+    @Override
+    public void release(String conversationId, Lock lock) {
+        // The stripes are never removed.
+    }
+
+    /**
+     * Number of stripes.
+     *
+     * @return the number of stripes
+     */
+    int size() {
+        return this.stripes.length;
+    }
+}
@@ -0,0 +1,120 @@
+package com.ef.mediaroutingengine.global.redis;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletionStage;
+
+/**
+ * The interface Async redis client.
+ *
+ * <p>Commands return as soon as they are sent; their replies complete the returned stages. Commands sent from
+ * one thread reach Redis in the order they were sent. A failed command completes its stage exceptionally.
+ */
+public interface AsyncRedisClient {
+    /**
+     * The implementations, selected with the {@code spring.redis.async-client} property.
+     */
+    enum Mode {
+        /**
+         * Commands are run on the calling thread over a connection borrowed from the Jedis pool, the returned
+         * stages are already completed.
+         */
+        POOLED,
+        /**
+         * Commands of all threads are multiplexed over one non-blocking connection, no thread waits for a pool
+         * connection or for a reply.
+         */
+        MULTIPLEXED
+    }
+
+    /**
+     * Sets the object at the path of a JSON document.
+     *
+     * @param key    the key
+     * @param path   the path
+     * @param object the object
+     * @return true if set, false otherwise
+     */
+    CompletionStage<Boolean> setJson(String key, String path, Object object);
+
+    /**
+     * Sets the objects at several paths of one JSON document, in the order of the map.
+     *
+     * @param key    the key
+     * @param values path -> the object to set at the path
+     * @return true if all the paths were set, false otherwise
+     */
+    CompletionStage<Boolean> setJson(String key, Map<String, Object> values);
+
+    /**
+     * Gets the object at the path of a JSON document.
+     *
+     * @param <T>   type T
+     * @param key   the key
+     * @param path  the path
+     * @param clazz the clazz
+     * @return the object, null if the key does not exist
+     */
+    <T> CompletionStage<T> getJson(String key, String path, Class<T> clazz);
+
+    /**
+     * Gets the JSON documents of the keys, keys that do not exist are skipped.
+     *
+     * @param <T>   type T
+     * @param clazz the clazz
+     * @param keys  the keys
+     * @return the list of objects
+     */
+    <T> CompletionStage<List<T>> multiGetJson(Class<T> clazz, String... keys);
+
+    /**
+     * Deletes a JSON document.
+     *
+     * @param key the key
+     * @return the number of deleted documents
+     */
+    CompletionStage<Long> delJson(String key);
+
+    /**
+     * Adds the members to a set.
+     *
+     * @param key     the key
+     * @param members the members
+     * @return the number of members added
+     */
+    CompletionStage<Long> setAdd(String key, String... members);
+
+    /**
+     * Removes the members from a set.
+     *
+     * @param key     the key
+     * @param members the members
+     * @return the number of members removed
+     */
+    CompletionStage<Long> setRem(String key, String... members);
+
+    /**
+     * Gets the members of a set.
+     *
+     * @param key the key
+     * @return the members
+     */
+    CompletionStage<Set<String>> setMembers(String key);
+
+    /**
+     * Deletes the keys.
+     *
+     * @param keys the keys
+     * @return the number of deleted keys
+     */
+    CompletionStage<Long> del(String... keys);
+
+    /**
+     * Checks if the key exists.
+     *
+     * @param key the key
+     * @return true if the key exists, false otherwise
+     */
+    CompletionStage<Boolean> exists(String key);
+}
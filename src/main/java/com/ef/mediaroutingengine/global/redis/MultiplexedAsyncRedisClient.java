@@ -0,0 +1,247 @@
+package com.ef.mediaroutingengine.global.redis;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import io.lettuce.core.ClientOptions;
+import io.lettuce.core.RedisURI;
+import io.lettuce.core.TimeoutOptions;
+import io.lettuce.core.api.StatefulRedisConnection;
+import io.lettuce.core.api.async.RedisAsyncCommands;
+import io.lettuce.core.codec.ByteArrayCodec;
+import io.lettuce.core.output.CommandOutput;
+import io.lettuce.core.output.IntegerOutput;
+import io.lettuce.core.output.StatusOutput;
+import io.lettuce.core.output.ValueListOutput;
+import io.lettuce.core.output.ValueOutput;
+import io.lettuce.core.protocol.CommandArgs;
+import io.lettuce.core.protocol.ProtocolKeyword;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The {@link AsyncRedisClient.Mode#MULTIPLEXED} async redis client. The commands of all threads are pipelined on
+ * one non-blocking Lettuce connection and their replies complete the returned stages on the connection's event
+ * loop, so callers must not block in the stages' callbacks.
+ *
+ * <p>Several paths of one document are set with back-to-back commands, not in a transaction: a transaction on
+ * a shared connection would take in the commands of other threads.
+ */
+public class MultiplexedAsyncRedisClient implements AsyncRedisClient, AutoCloseable {
+    /**
+     * The constant objectMapper.
+     */
+    private static final ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+    /**
+     * The constant JSON_ROOT_PATH.
+     */
+    private static final String JSON_ROOT_PATH = ".";
+
+    /**
+     * The Lettuce client.
+     */
+    private final io.lettuce.core.RedisClient client;
+    /**
+     * The connection shared by all callers.
+     */
+    private final StatefulRedisConnection<byte[], byte[]> connection;
+    /**
+     * The async commands of the connection.
+     */
+    private final RedisAsyncCommands<byte[], byte[]> commands;
+    /**
+     * Class -> the reader of its JSON documents.
+     */
+    private final Map<Class<?>, ObjectReader> readers = new ConcurrentHashMap<>();
+
+    /**
+     * The RedisJSON commands.
+     */
+    private enum JsonCommand implements ProtocolKeyword {
+        /**
+         * Del command.
+         */
+        DEL("JSON.DEL"),
+        /**
+         * Get command.
+         */
+        GET("JSON.GET"),
+        /**
+         * Multi get command.
+         */
+        MGET("JSON.MGET"),
+        /**
+         * Set command.
+         */
+        SET("JSON.SET");
+
+        private final byte[] bytes;
+
+        JsonCommand(String command) {
+            this.bytes = command.getBytes(StandardCharsets.US_ASCII);
+        }
+
+        @Override
+        public byte[] getBytes() {
+            return this.bytes;
+        }
+    }
+
+    /**
+     * Instantiates a new Multiplexed async redis client and connects it, a standalone or a sentinel URI.
+     *
+     * @param redisUri the redis uri
+     * @param timeout  the time after which a command without reply is failed
+     */
+    public MultiplexedAsyncRedisClient(RedisURI redisUri, Duration timeout) {
+        this.client = io.lettuce.core.RedisClient.create(redisUri);
+        this.client.setOptions(ClientOptions.builder()
+                .timeoutOptions(TimeoutOptions.enabled(timeout))
+                .build());
+        this.connection = this.client.connect(ByteArrayCodec.INSTANCE);
+        this.commands = this.connection.async();
+    }
+
+    @Override
+    public CompletionStage<Boolean> setJson(String key, String path, Object object) {
+        try {
+            return this.dispatch(JsonCommand.SET, new StatusOutput<>(ByteArrayCodec.INSTANCE), this.args(key)
+                    .add(path)
+                    .add(objectMapper.writeValueAsBytes(object)))
+                    .thenApply("OK"::equals);
+        } catch (JsonProcessingException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    @Override
+    public CompletionStage<Boolean> setJson(String key, Map<String, Object> values) {
+        CompletableFuture<Boolean> result = CompletableFuture.completedFuture(true);
+        for (Map.Entry<String, Object> entry : values.entrySet()) {
+            CompletionStage<Boolean> set = this.setJson(key, entry.getKey(), entry.getValue());
+            result = result.thenCombine(set, Boolean::logicalAnd);
+        }
+        return result;
+    }
+
+    @Override
+    public <T> CompletionStage<T> getJson(String key, String path, Class<T> clazz) {
+        ObjectReader reader = this.readerFor(clazz);
+        return this.dispatch(JsonCommand.GET, new ValueOutput<>(ByteArrayCodec.INSTANCE), this.args(key).add(path))
+                .thenApply(reply -> reply == null ? null : read(reader, reply));
+    }
+
+    @Override
+    public <T> CompletionStage<List<T>> multiGetJson(Class<T> clazz, String... keys) {
+        if (keys.length == 0) {
+            return CompletableFuture.completedFuture(new ArrayList<>());
+        }
+
+        CommandArgs<byte[], byte[]> args = new CommandArgs<>(ByteArrayCodec.INSTANCE);
+        for (String key : keys) {
+            args.addKey(encode(key));
+        }
+        args.add(JSON_ROOT_PATH);
+
+        ObjectReader reader = this.readerFor(clazz);
+        return this.dispatch(JsonCommand.MGET, new ValueListOutput<>(ByteArrayCodec.INSTANCE), args)
+                .thenApply(replies -> {
+                    List<T> responseList = new ArrayList<>(replies.size());
+                    for (byte[] reply : replies) {
+                        // Keys that do not exist have null replies.
+                        if (reply != null) {
+                            responseList.add(read(reader, reply));
+                        }
+                    }
+                    return responseList;
+                });
+    }
+
+    @Override
+    public CompletionStage<Long> delJson(String key) {
+        return this.dispatch(JsonCommand.DEL, new IntegerOutput<>(ByteArrayCodec.INSTANCE),
+                this.args(key).add(JSON_ROOT_PATH));
+    }
+
+    @Override
+    public CompletionStage<Long> setAdd(String key, String... members) {
+        return this.commands.sadd(encode(key), encodeMany(members));
+    }
+
+    @Override
+    public CompletionStage<Long> setRem(String key, String... members) {
+        return this.commands.srem(encode(key), encodeMany(members));
+    }
+
+    @Override
+    public CompletionStage<Set<String>> setMembers(String key) {
+        return this.commands.smembers(encode(key)).thenApply(members -> {
+            Set<String> result = new HashSet<>(members.size());
+            members.forEach(member -> result.add(new String(member, StandardCharsets.UTF_8)));
+            return result;
+        });
+    }
+
+    @Override
+    public CompletionStage<Long> del(String... keys) {
+        return this.commands.del(encodeMany(keys));
+    }
+
+    @Override
+    public CompletionStage<Boolean> exists(String key) {
+        return this.commands.exists(encode(key)).thenApply(count -> count > 0);
+    }
+
+    /**
+     * Closes the connection and releases the client's resources.
+     */
+    @Override
+    public void close() {
+        this.connection.close();
+        this.client.shutdown();
+    }
+
+    private <T> CompletionStage<T> dispatch(JsonCommand command, CommandOutput<byte[], byte[], T> output,
+                                            CommandArgs<byte[], byte[]> args) {
+        return this.commands.dispatch(command, output, args);
+    }
+
+    private CommandArgs<byte[], byte[]> args(String key) {
+        return new CommandArgs<>(ByteArrayCodec.INSTANCE).addKey(encode(key));
+    }
+
+    private ObjectReader readerFor(Class<?> clazz) {
+        return this.readers.computeIfAbsent(clazz, objectMapper::readerFor);
+    }
+
+    private static <T> T read(ObjectReader reader, byte[] json) {
+        try {
+            return reader.readValue(json);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static byte[] encode(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static byte[][] encodeMany(String... values) {
+        byte[][] result = new byte[values.length][];
+        for (int i = 0; i < values.length; i++) {
+            result[i] = encode(values[i]);
+        }
+        return result;
+    }
+}
@@ -0,0 +1,111 @@
+package com.ef.mediaroutingengine.global.redis;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.function.Function;
+
+/**
+ * The {@link AsyncRedisClient.Mode#POOLED} async redis client. Commands are run on the calling thread through
+ * the {@link RedisClient}, each one on a connection borrowed from the Jedis pool, and the returned stages are
+ * already completed. Several paths of one document are set in one transaction.
+ */
+public class PooledAsyncRedisClient implements AsyncRedisClient {
+    /**
+     * The Redis client.
+     */
+    private final RedisClient redisClient;
+
+    /**
+     * Instantiates a new Pooled async redis client.
+     *
+     * @param redisClient the redis client
+     */
+    public PooledAsyncRedisClient(RedisClient redisClient) {
+        this.redisClient = redisClient;
+    }
+
+    @Override
+    public CompletionStage<Boolean> setJson(String key, String path, Object object) {
+        return this.execute(new RedisBatch(), batch -> batch.setJson(key, path, object));
+    }
+
+    @Override
+    public CompletionStage<Boolean> setJson(String key, Map<String, Object> values) {
+        RedisBatch batch = RedisBatch.atomic();
+        values.forEach((path, object) -> batch.setJson(key, path, object));
+        try {
+            return CompletableFuture.completedFuture(this.redisClient.execute(batch));
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    @Override
+    public <T> CompletionStage<T> getJson(String key, String path, Class<T> clazz) {
+        return this.execute(new RedisBatch(), batch -> batch.getJson(key, path, clazz));
+    }
+
+    @Override
+    public <T> CompletionStage<List<T>> multiGetJson(Class<T> clazz, String... keys) {
+        try {
+            return CompletableFuture.completedFuture(this.redisClient.multiGetJson(clazz, keys));
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    @Override
+    public CompletionStage<Long> delJson(String key) {
+        return this.execute(new RedisBatch(), batch -> batch.delJson(key));
+    }
+
+    @Override
+    public CompletionStage<Long> setAdd(String key, String... members) {
+        return this.execute(new RedisBatch(), batch -> batch.sadd(key, members));
+    }
+
+    @Override
+    public CompletionStage<Long> setRem(String key, String... members) {
+        return this.execute(new RedisBatch(), batch -> batch.srem(key, members));
+    }
+
+    @Override
+    public CompletionStage<Set<String>> setMembers(String key) {
+        return this.execute(new RedisBatch(), batch -> batch.smembers(key));
+    }
+
+    @Override
+    public CompletionStage<Long> del(String... keys) {
+        return this.execute(new RedisBatch(), batch -> batch.del(keys));
+    }
+
+    @Override
+    public CompletionStage<Boolean> exists(String key) {
+        try {
+            return CompletableFuture.completedFuture(this.redisClient.exists(key));
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    /**
+     * Executes a batch of one command and completes a stage with the command's result.
+     *
+     * @param <T>     the type of the result
+     * @param batch   the batch
+     * @param command queues the command on the batch
+     * @return the completed stage
+     */
+    private <T> CompletionStage<T> execute(RedisBatch batch, Function<RedisBatch, RedisBatch.Result<T>> command) {
+        try {
+            RedisBatch.Result<T> result = command.apply(batch);
+            this.redisClient.execute(batch);
+            return CompletableFuture.completedFuture(result.get());
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+}
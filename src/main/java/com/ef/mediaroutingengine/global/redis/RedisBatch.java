@@ -0,0 +1,493 @@
+package com.ef.mediaroutingengine.global.redis;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.Pipeline;
+import redis.clients.jedis.Protocol;
+import redis.clients.jedis.Response;
+import redis.clients.jedis.commands.ProtocolCommand;
+import redis.clients.jedis.util.SafeEncoder;
+
+/**
+ * A batch of Redis commands that are sent to Redis in a single round trip.
+ *
+ * <p>Each queued command returns a {@link Result} that holds the command's reply, or its error, once the batch is
+ * executed with {@link RedisClient#execute(RedisBatch)}. Keys, members and JSON values are sent as bytes. An
+ * {@link #atomic()} batch wraps its commands in MULTI/EXEC in the same round trip; it is aborted as a whole if a
+ * key {@link #watch(String...) watched} by an earlier batch on the same connection was changed.
+ */
+public class RedisBatch {
+    /**
+     * The constant objectMapper.
+     */
+    private static final ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+    /**
+     * Arguments of the commands without arguments.
+     */
+    private static final byte[][] NO_ARGS = new byte[0][];
+    /**
+     * The Atomic flag.
+     */
+    private final boolean atomic;
+    /**
+     * The queued commands.
+     */
+    private final List<Command<?>> commands = new ArrayList<>();
+    /**
+     * The Executed flag.
+     */
+    private boolean executed;
+    /**
+     * The Aborted flag, set if the transaction of an atomic batch was aborted by a watched key.
+     */
+    private boolean aborted;
+
+    /**
+     * Instantiates a new pipelined Redis batch.
+     */
+    public RedisBatch() {
+        this(false);
+    }
+
+    private RedisBatch(boolean atomic) {
+        this.atomic = atomic;
+    }
+
+    /**
+     * Returns a new batch whose commands are executed in a transaction.
+     *
+     * @return the redis batch
+     */
+    public static RedisBatch atomic() {
+        return new RedisBatch(true);
+    }
+
+    /**
+     * Queues a JSON.SET of the object.
+     *
+     * @param key   the key
+     * @param path  the path
+     * @param value the object, serialized to JSON
+     * @return the result, true if the value was set
+     * @throws IllegalArgumentException if the object can not be serialized
+     */
+    public Result<Boolean> setJson(String key, String path, Object value) {
+        try {
+            return this.setJson(key, path, objectMapper.writeValueAsBytes(value));
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException(e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Queues a JSON.SET of an already serialized value.
+     *
+     * @param key  the key
+     * @param path the path
+     * @param json the UTF-8 encoded JSON
+     * @return the result, true if the value was set
+     */
+    public Result<Boolean> setJson(String key, String path, byte[] json) {
+        return this.queue(RedisJson.Command.SET, reply -> "OK".equals(toString(reply)),
+                SafeEncoder.encode(key), SafeEncoder.encode(path), json);
+    }
+
+    /**
+     * Queues a JSON.ARRAPPEND of the object.
+     *
+     * @param key   the key
+     * @param path  the path of the array
+     * @param value the object, serialized to JSON
+     * @return the result, the new size of the array
+     * @throws IllegalArgumentException if the object can not be serialized
+     */
+    public Result<Long> arrAppendJson(String key, String path, Object value) {
+        try {
+            return this.queue(RedisJson.Command.ARRAPPEND, Long.class::cast,
+                    SafeEncoder.encode(key), SafeEncoder.encode(path), objectMapper.writeValueAsBytes(value));
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException(e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Queues a JSON.GET.
+     *
+     * @param key   the key
+     * @param path  the path
+     * @param clazz the class of the value
+     * @param <T>   the type of the value
+     * @return the result, null if the key does not exist
+     */
+    public <T> Result<T> getJson(String key, String path, Class<T> clazz) {
+        return this.queue(RedisJson.Command.GET, reply -> reply == null ? null
+                        : objectMapper.readValue((byte[]) reply, clazz),
+                SafeEncoder.encodeMany(key, path));
+    }
+
+    /**
+     * Queues a JSON.DEL of the whole value.
+     *
+     * @param key the key
+     * @return the result, the number of values deleted
+     */
+    public Result<Long> delJson(String key) {
+        return this.queue(RedisJson.Command.DEL, Long.class::cast, SafeEncoder.encodeMany(key, "."));
+    }
+
+    /**
+     * Queues a JSON.DEL of the value at the path.
+     *
+     * @param key  the key
+     * @param path the path
+     * @return the result, the number of values deleted
+     */
+    public Result<Long> delJson(String key, String path) {
+        return this.queue(RedisJson.Command.DEL, Long.class::cast, SafeEncoder.encodeMany(key, path));
+    }
+
+    /**
+     * Queues a SADD.
+     *
+     * @param key     the key
+     * @param members the members
+     * @return the result, the number of members added
+     */
+    public Result<Long> sadd(String key, String... members) {
+        return this.queue(Protocol.Command.SADD, Long.class::cast, keyAndArgs(key, members));
+    }
+
+    /**
+     * Queues a SREM.
+     *
+     * @param key     the key
+     * @param members the members
+     * @return the result, the number of members removed
+     */
+    public Result<Long> srem(String key, String... members) {
+        return this.queue(Protocol.Command.SREM, Long.class::cast, keyAndArgs(key, members));
+    }
+
+    /**
+     * Queues a SMEMBERS.
+     *
+     * @param key the key
+     * @return the result, the members of the set
+     */
+    @SuppressWarnings("unchecked")
+    public Result<Set<String>> smembers(String key) {
+        return this.queue(Protocol.Command.SMEMBERS, reply -> {
+            Set<String> members = new HashSet<>();
+            for (byte[] member : (List<byte[]>) reply) {
+                members.add(SafeEncoder.encode(member));
+            }
+            return members;
+        }, SafeEncoder.encode(key));
+    }
+
+    /**
+     * Queues a ZADD of one member.
+     *
+     * @param key    the key
+     * @param score  the score
+     * @param member the member
+     * @return the result, the number of members added
+     */
+    public Result<Long> zadd(String key, double score, String member) {
+        return this.queue(Protocol.Command.ZADD, Long.class::cast,
+                SafeEncoder.encode(key), Protocol.toByteArray(score), SafeEncoder.encode(member));
+    }
+
+    /**
+     * Queues a ZREM.
+     *
+     * @param key     the key
+     * @param members the members
+     * @return the result, the number of members removed
+     */
+    public Result<Long> zrem(String key, String... members) {
+        return this.queue(Protocol.Command.ZREM, Long.class::cast, keyAndArgs(key, members));
+    }
+
+    /**
+     * Queues a DEL.
+     *
+     * @param keys the keys
+     * @return the result, the number of keys deleted
+     */
+    public Result<Long> del(String... keys) {
+        return this.queue(Protocol.Command.DEL, Long.class::cast, SafeEncoder.encodeMany(keys));
+    }
+
+    /**
+     * Queues an EXISTS of one key.
+     *
+     * @param key the key
+     * @return the result, true if the key exists
+     */
+    public Result<Boolean> exists(String key) {
+        return this.queue(Protocol.Command.EXISTS, reply -> (Long) reply > 0, SafeEncoder.encode(key));
+    }
+
+    /**
+     * Queues a WATCH, an atomic batch executed next on the same connection is aborted if any of the keys
+     * changes in between.
+     *
+     * @param keys the keys
+     * @return the result
+     */
+    public Result<Boolean> watch(String... keys) {
+        return this.queue(Protocol.Command.WATCH, reply -> "OK".equals(toString(reply)),
+                SafeEncoder.encodeMany(keys));
+    }
+
+    /**
+     * Queues an UNWATCH of the keys watched on the connection, when the transaction they guard is not sent.
+     *
+     * @return the result
+     */
+    public Result<Boolean> unwatch() {
+        return this.queue(Protocol.Command.UNWATCH, reply -> "OK".equals(toString(reply)), NO_ARGS);
+    }
+
+    /**
+     * Number of queued commands.
+     *
+     * @return the number of queued commands
+     */
+    public int size() {
+        return this.commands.size();
+    }
+
+    /**
+     * Is this an atomic batch.
+     *
+     * @return the boolean
+     */
+    public boolean isAtomic() {
+        return this.atomic;
+    }
+
+    /**
+     * Is the transaction of this atomic batch aborted because a watched key changed.
+     *
+     * @return the boolean
+     */
+    public boolean isAborted() {
+        return this.aborted;
+    }
+
+    /**
+     * Did all the commands succeed.
+     *
+     * @return the boolean
+     */
+    public boolean isSuccessful() {
+        return this.executed && this.commands.stream().allMatch(c -> c.result().isSuccessful());
+    }
+
+    /**
+     * Returns the error of the first command that failed.
+     *
+     * @return the error, null if no command failed
+     */
+    public Exception getError() {
+        return this.commands.stream()
+                .map(c -> c.result().getError())
+                .filter(e -> e != null)
+                .findFirst()
+                .orElse(null);
+    }
+
+    /**
+     * Sends the queued commands on the connection in a single round trip and completes their results. Batches
+     * that must share a connection, e.g. a WATCH and the transaction it guards, are executed with this method
+     * on a connection taken from {@link RedisClient#getConnection()}.
+     *
+     * @param conn the connection
+     * @return true if all the commands succeeded, false otherwise
+     * @throws IllegalStateException if the batch was already executed
+     */
+    public boolean execute(Jedis conn) {
+        if (this.executed) {
+            throw new IllegalStateException("Redis batch is already executed");
+        }
+        this.executed = true;
+
+        if (this.commands.isEmpty()) {
+            return true;
+        }
+
+        try {
+            Pipeline pipeline = conn.pipelined();
+            // MULTI and EXEC are sent as plain commands so that EXEC's raw reply tells an aborted transaction.
+            if (this.atomic) {
+                pipeline.sendCommand(Protocol.Command.MULTI, NO_ARGS);
+            }
+            List<Response<Object>> replies = new ArrayList<>(this.commands.size());
+            for (Command<?> command : this.commands) {
+                replies.add(pipeline.sendCommand(command.protocolCommand(), command.args()));
+            }
+            Response<Object> exec = this.atomic ? pipeline.sendCommand(Protocol.Command.EXEC, NO_ARGS) : null;
+            pipeline.sync();
+
+            if (exec == null) {
+                for (int i = 0; i < this.commands.size(); i++) {
+                    this.commands.get(i).complete(replies.get(i));
+                }
+            } else {
+                this.completeTransaction(exec.get());
+            }
+        } catch (RuntimeException e) {
+            this.failAll(e);
+        }
+
+        return this.isSuccessful();
+    }
+
+    /**
+     * Completes the results of an atomic batch from the reply of EXEC.
+     *
+     * @param execReply the reply of EXEC
+     */
+    @SuppressWarnings("unchecked")
+    private void completeTransaction(Object execReply) {
+        if (execReply == null) {
+            this.aborted = true;
+            this.failAll(new IllegalStateException("Transaction aborted, a watched key was changed"));
+            return;
+        }
+
+        List<Object> replies = (List<Object>) execReply;
+        for (int i = 0; i < this.commands.size(); i++) {
+            this.commands.get(i).complete(replies.get(i));
+        }
+    }
+
+    private void failAll(Exception e) {
+        this.commands.stream()
+                .filter(c -> !c.result().isDone())
+                .forEach(c -> c.result().fail(e));
+    }
+
+    private <T> Result<T> queue(ProtocolCommand protocolCommand, Decoder<T> decoder, byte[]... args) {
+        if (this.executed) {
+            throw new IllegalStateException("Redis batch is already executed");
+        }
+        Result<T> result = new Result<>();
+        this.commands.add(new Command<>(protocolCommand, args, decoder, result));
+        return result;
+    }
+
+    private static byte[][] keyAndArgs(String key, String... args) {
+        byte[][] result = new byte[args.length + 1][];
+        result[0] = SafeEncoder.encode(key);
+        for (int i = 0; i < args.length; i++) {
+            result[i + 1] = SafeEncoder.encode(args[i]);
+        }
+        return result;
+    }
+
+    private static String toString(Object reply) {
+        return reply instanceof byte[] bytes ? SafeEncoder.encode(bytes) : null;
+    }
+
+    /**
+     * Decodes a raw reply.
+     *
+     * @param <T> the type of the decoded reply
+     */
+    @FunctionalInterface
+    private interface Decoder<T> {
+        T decode(Object reply) throws IOException;
+    }
+
+    /**
+     * A queued command.
+     */
+    private record Command<T>(ProtocolCommand protocolCommand, byte[][] args, Decoder<T> decoder,
+                              Result<T> result) {
+        void complete(Object reply) {
+            try {
+                Object data = reply instanceof Response<?> response ? response.get() : reply;
+                if (data instanceof Exception e) {
+                    this.result.fail(e);
+                } else {
+                    this.result.complete(this.decoder.decode(data));
+                }
+            } catch (Exception e) {
+                this.result.fail(e);
+            }
+        }
+    }
+
+    /**
+     * The result of a queued command, available after the batch is executed.
+     *
+     * @param <T> the type of the result
+     */
+    public static final class Result<T> {
+        private T value;
+        private Exception error;
+        private boolean done;
+
+        private Result() {
+
+        }
+
+        /**
+         * Returns the reply of the command.
+         *
+         * @return the reply
+         * @throws IllegalStateException if the batch is not executed yet or the command failed
+         */
+        public T get() {
+            if (!this.done) {
+                throw new IllegalStateException("Redis batch is not executed");
+            }
+            if (this.error != null) {
+                throw new IllegalStateException(this.error.getMessage(), this.error);
+            }
+            return this.value;
+        }
+
+        /**
+         * Did the command succeed.
+         *
+         * @return the boolean
+         */
+        public boolean isSuccessful() {
+            return this.done && this.error == null;
+        }
+
+        /**
+         * Gets the error of the command.
+         *
+         * @return the error, null if the command succeeded or is not executed yet
+         */
+        public Exception getError() {
+            return this.error;
+        }
+
+        private boolean isDone() {
+            return this.done;
+        }
+
+        private void complete(T value) {
+            this.value = value;
+            this.done = true;
+        }
+
+        private void fail(Exception error) {
+            this.error = error;
+            this.done = true;
+        }
+    }
+}
@@ -3,6 +3,7 @@ package com.ef.mediaroutingengine.global.redis;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import java.util.List;
 import java.util.Set;
+import java.util.function.Consumer;
 import java.util.function.Predicate;
 import redis.clients.jedis.Jedis;
 import redis.clients.jedis.ScanParams;
@@ -92,6 +93,18 @@ public interface RedisClient {
      */
     <T> List<T> multiGetJson(Class<T> clazz, String... keys);
 
+    /**
+     * Gets the Objects associated with the keys and passes each one to the consumer as it is decoded, without
+     * collecting them in a list. Keys that do not exist are skipped.
+     *
+     * @param <T>      type T
+     * @param clazz    the clazz
+     * @param consumer the consumer of the decoded objects
+     * @param keys     the keys
+     * @return the number of objects passed to the consumer
+     */
+    <T> int multiGetJson(Class<T> clazz, Consumer<? super T> consumer, String... keys);
+
     /**
      * Delete an object associated given key.
      *
@@ -185,5 +198,13 @@ public interface RedisClient {
      */
     ScanResult<String> scan(String cursor, ScanParams params);
 
+    /**
+     * Sends the commands of the batch to Redis in a single round trip.
+     *
+     * @param batch the batch
+     * @return true if all the commands succeeded, false otherwise
+     */
+    boolean execute(RedisBatch batch);
+
     Jedis getConnection();
 }
\ No newline at end of file
@@ -3,14 +3,20 @@ package com.ef.mediaroutingengine.global.redis;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.JavaType;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
 import java.util.function.Predicate;
-import java.util.stream.Stream;
+import org.apache.commons.lang3.exception.ExceptionUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import redis.clients.jedis.Jedis;
@@ -25,6 +31,10 @@ import redis.clients.jedis.util.SafeEncoder;
  */
 @Service
 public class RedisClientImpl implements RedisClient {
+    /**
+     * The constant LOGGER.
+     */
+    private static final Logger logger = LoggerFactory.getLogger(RedisClientImpl.class);
     /**
      * The constant objectMapper.
      */
@@ -33,10 +43,18 @@ public class RedisClientImpl implements RedisClient {
      * The constant JSON_ROOT_PATH.
      */
     private static final String JSON_ROOT_PATH = ".";
+    /**
+     * The constant JSON_ROOT_PATH_BYTES.
+     */
+    private static final byte[] JSON_ROOT_PATH_BYTES = SafeEncoder.encode(JSON_ROOT_PATH);
     /**
      * The Jedis pool.
      */
     private final Pool<Jedis> jedisPool;
+    /**
+     * Class -> the reader of its JSON documents.
+     */
+    private final Map<Class<?>, ObjectReader> readers = new ConcurrentHashMap<>();
 
 
     /**
@@ -112,17 +130,12 @@ public class RedisClientImpl implements RedisClient {
 
     @Override
     public boolean setJsonWithSet(String type, String id, Object object) {
-        Transaction transaction = null;
-        try (Jedis conn = getConnection()) {
-            transaction = conn.multi();
-            transaction.sadd(type, id);
-            transaction.sendCommand(RedisJson.Command.SET, RedisJson.encode(getKey(type, id), JSON_ROOT_PATH, object));
-            transaction.exec();
-            return true;
+        try {
+            RedisBatch batch = RedisBatch.atomic();
+            batch.sadd(type, id);
+            batch.setJson(getKey(type, id), JSON_ROOT_PATH, object);
+            return this.execute(batch);
         } catch (Exception e) {
-            if (transaction != null) {
-                transaction.discard();
-            }
             e.printStackTrace();
         }
         return false;
@@ -130,23 +143,15 @@ public class RedisClientImpl implements RedisClient {
 
     @Override
     public boolean setAllJsonForType(String type, List<String> idList, List<Object> objectList) {
-        Transaction transaction = null;
-        try (Jedis conn = getConnection()) {
-            transaction = conn.multi();
+        try {
+            RedisBatch batch = RedisBatch.atomic();
             for (int i = 0; i < idList.size(); i++) {
                 String id = idList.get(i);
-                Object object = objectList.get(i);
-
-                transaction.sadd(type, id);
-                transaction.sendCommand(RedisJson.Command.SET,
-                        RedisJson.encode(getKey(type, id), JSON_ROOT_PATH, object));
+                batch.sadd(type, id);
+                batch.setJson(getKey(type, id), JSON_ROOT_PATH, objectList.get(i));
             }
-            transaction.exec();
-            return true;
+            return this.execute(batch);
         } catch (Exception e) {
-            if (transaction != null) {
-                transaction.discard();
-            }
             e.printStackTrace();
         }
         return false;
@@ -160,21 +165,15 @@ public class RedisClientImpl implements RedisClient {
      * @return true if operation successful, false otherwise.
      */
     public boolean setMultiJsonWithSet(String type, Map<UUID, Object> jsonObjects) {
-        Transaction transaction = null;
-        try (Jedis conn = getConnection()) {
-            transaction = conn.multi();
+        try {
+            RedisBatch batch = RedisBatch.atomic();
             for (Map.Entry<UUID, Object> entry : jsonObjects.entrySet()) {
                 String id = entry.getKey().toString();
-                transaction.sadd(type, id);
-                transaction.sendCommand(RedisJson.Command.SET,
-                        RedisJson.encode(getKey(type, id), JSON_ROOT_PATH, entry.getValue()));
+                batch.sadd(type, id);
+                batch.setJson(getKey(type, id), JSON_ROOT_PATH, entry.getValue());
             }
-            transaction.exec();
-            return true;
+            return this.execute(batch);
         } catch (Exception e) {
-            if (transaction != null) {
-                transaction.discard();
-            }
             e.printStackTrace();
         }
         return false;
@@ -224,29 +223,56 @@ public class RedisClientImpl implements RedisClient {
 
     @Override
     public <T> List<T> multiGetJson(Class<T> clazz, String... keys) {
+        List<T> responseList = new ArrayList<>(keys.length);
+        this.multiGetJson(clazz, responseList::add, keys);
+        return responseList;
+    }
+
+    @Override
+    public <T> int multiGetJson(Class<T> clazz, Consumer<? super T> consumer, String... keys) {
         if (keys.length == 0) {
-            return new ArrayList<>();
+            return 0;
         }
 
-        List<T> responseList = new ArrayList<>();
-        String[] args = Stream
-                .of(keys, new String[] {JSON_ROOT_PATH})
-                .flatMap(Stream::of)
-                .toArray(String[]::new);
+        byte[][] args = new byte[keys.length + 1][];
+        for (int i = 0; i < keys.length; i++) {
+            args[i] = SafeEncoder.encode(keys[i]);
+        }
+        args[keys.length] = JSON_ROOT_PATH_BYTES;
 
+        // The replies are decoded straight from the reply bytes, never copied into Strings.
+        ObjectReader reader = this.readerFor(clazz);
+        int count = 0;
         try (Jedis conn = getConnection()) {
-            List<String> rep;
             conn.getClient().sendCommand(RedisJson.Command.MGET, args);
-            rep = conn.getClient().getMultiBulkReply();
+            List<byte[]> rep = conn.getClient().getBinaryMultiBulkReply();
             if (rep != null) {
-                for (String object : rep) {
-                    responseList.add(objectMapper.readValue(object, clazz));
+                for (byte[] object : rep) {
+                    // Keys that do not exist have null replies.
+                    if (object == null) {
+                        continue;
+                    }
+                    try {
+                        consumer.accept(reader.readValue(object));
+                        count++;
+                    } catch (IOException e) {
+                        logger.error(ExceptionUtils.getMessage(e));
+                        logger.error(ExceptionUtils.getStackTrace(e));
+                    }
                 }
             }
-        } catch (JsonProcessingException e) {
-            e.printStackTrace();
         }
-        return responseList;
+        return count;
+    }
+
+    /**
+     * Returns the reader of the class, readers are created once per class and reused.
+     *
+     * @param clazz the clazz
+     * @return the object reader
+     */
+    private ObjectReader readerFor(Class<?> clazz) {
+        return this.readers.computeIfAbsent(clazz, objectMapper::readerFor);
     }
 
     @Override
@@ -259,17 +285,12 @@ public class RedisClientImpl implements RedisClient {
 
     @Override
     public boolean delJsonWithSet(String type, String id) {
-        Transaction transaction = null;
-        try (Jedis conn = getConnection()) {
-            transaction = conn.multi();
-            transaction.sendCommand(RedisJson.Command.DEL, SafeEncoder.encodeMany(getKey(type, id), JSON_ROOT_PATH));
-            transaction.srem(type, id);
-            transaction.exec();
-            return true;
+        try {
+            RedisBatch batch = RedisBatch.atomic();
+            batch.delJson(getKey(type, id));
+            batch.srem(type, id);
+            return this.execute(batch);
         } catch (Exception e) {
-            if (transaction != null) {
-                transaction.discard();
-            }
             e.printStackTrace();
         }
         return false;
@@ -359,6 +380,13 @@ public class RedisClientImpl implements RedisClient {
         }
     }
 
+    @Override
+    public boolean execute(RedisBatch batch) {
+        try (Jedis conn = getConnection()) {
+            return batch.execute(conn);
+        }
+    }
+
     /**
      * Gets connection.
      *
@@ -26,6 +26,10 @@ public class RedisJson {
      * The enum Redis json command.
      */
     public enum Command implements ProtocolCommand {
+        /**
+         * Array append command.
+         */
+        ARRAPPEND("JSON.ARRAPPEND"),
         /**
          * Del command.
          */
@@ -4,6 +4,7 @@ import java.lang.reflect.ParameterizedType;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Consumer;
 import redis.clients.jedis.ScanParams;
 import redis.clients.jedis.ScanResult;
 
@@ -96,6 +97,19 @@ public class RedisJsonDao<T> {
      */
     public List<T> findAll(int pageSize) {
         List<T> resultList = new ArrayList<>();
+        this.forEach(pageSize, resultList::add);
+        return resultList;
+    }
+
+    /**
+     * Passes every object in the collection to the consumer, fetching a page at a time. Only the current page is
+     * held in memory, callers that fold the objects into something smaller should prefer this to
+     * {@link #findAll(int)}.
+     *
+     * @param pageSize the number of keys fetched per page
+     * @param consumer the consumer of the objects
+     */
+    public void forEach(int pageSize, Consumer<? super T> consumer) {
         String cursor = "0";
         String pattern = this.type + ":*";
 
@@ -106,11 +120,9 @@ public class RedisJsonDao<T> {
             List<String> keys = scanResult.getResult();
 
             if (!keys.isEmpty()) {
-                resultList.addAll(this.redisClient.multiGetJson(this.clazz, keys.toArray(new String[0])));
+                this.redisClient.multiGetJson(this.clazz, consumer, keys.toArray(new String[0]));
             }
         } while (!cursor.equals("0"));
-
-        return resultList;
     }
 
     /**
@@ -0,0 +1,107 @@
+package com.ef.mediaroutingengine.global.resilience;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Additive-increase, multiplicative-decrease limit of the concurrent calls to an endpoint. A fast successful
+ * call raises the limit by one while the endpoint is busy, a failed or slow call lowers it by the backoff ratio.
+ * A degraded endpoint therefore gets fewer calls at a time and the calls beyond the limit fail fast.
+ */
+public class AdaptiveConcurrencyLimit {
+    /**
+     * The ratio the limit is multiplied with on a failed or slow call.
+     */
+    private static final double BACKOFF_RATIO = 0.9;
+
+    /**
+     * The lowest limit.
+     */
+    private final int minLimit;
+    /**
+     * The highest limit.
+     */
+    private final int maxLimit;
+    /**
+     * Calls slower than this lower the limit, in nanos.
+     */
+    private final long slowCallNanos;
+
+    private double limit;
+    private int inFlight;
+
+    /**
+     * Instantiates a new Adaptive concurrency limit.
+     *
+     * @param initialLimit        the initial limit
+     * @param minLimit            the min limit
+     * @param maxLimit            the max limit
+     * @param slowCallThresholdMs the slow call threshold ms
+     */
+    public AdaptiveConcurrencyLimit(int initialLimit, int minLimit, int maxLimit, long slowCallThresholdMs) {
+        this.minLimit = Math.max(1, minLimit);
+        this.maxLimit = Math.max(this.minLimit, maxLimit);
+        this.limit = Math.max(this.minLimit, Math.min(this.maxLimit, initialLimit));
+        this.slowCallNanos = TimeUnit.MILLISECONDS.toNanos(slowCallThresholdMs);
+    }
+
+    /**
+     * Acquires a slot for a call. The slot must be released by {@link #onResult} or {@link #release}.
+     *
+     * @return true if the call is within the limit
+     */
+    public synchronized boolean tryAcquire() {
+        if (this.inFlight >= (int) this.limit) {
+            return false;
+        }
+        this.inFlight++;
+        return true;
+    }
+
+    /**
+     * Acquires a slot for a call that is sent even if the limit is reached. The slot must be released by
+     * {@link #onResult}.
+     */
+    public synchronized void acquire() {
+        this.inFlight++;
+    }
+
+    /**
+     * Releases the slot of a call that was not sent, the limit is unchanged.
+     */
+    public synchronized void release() {
+        this.inFlight--;
+    }
+
+    /**
+     * Releases the slot of a call and adapts the limit to its outcome.
+     *
+     * @param success      true if the call succeeded
+     * @param elapsedNanos the time the call took
+     */
+    public synchronized void onResult(boolean success, long elapsedNanos) {
+        int wasInFlight = this.inFlight--;
+        if (!success || elapsedNanos > this.slowCallNanos) {
+            this.limit = Math.max(this.minLimit, this.limit * BACKOFF_RATIO);
+        } else if (wasInFlight * 2 >= this.limit) {
+            this.limit = Math.min(this.maxLimit, this.limit + 1);
+        }
+    }
+
+    /**
+     * Gets limit.
+     *
+     * @return the limit
+     */
+    public synchronized int getLimit() {
+        return (int) this.limit;
+    }
+
+    /**
+     * Gets in flight.
+     *
+     * @return the in flight
+     */
+    public synchronized int getInFlight() {
+        return this.inFlight;
+    }
+}
@@ -0,0 +1,15 @@
+package com.ef.mediaroutingengine.global.resilience;
+
+/**
+ * Thrown when a call to an endpoint fails fast because its circuit is open or its concurrency limit is reached.
+ */
+public class CallNotPermittedException extends RuntimeException {
+    /**
+     * Instantiates a new Call not permitted exception.
+     *
+     * @param message the message
+     */
+    public CallNotPermittedException(String message) {
+        super(message);
+    }
+}
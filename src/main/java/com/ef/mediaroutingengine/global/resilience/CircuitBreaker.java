@@ -0,0 +1,161 @@
+package com.ef.mediaroutingengine.global.resilience;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * Count based circuit breaker. A closed circuit records the outcome of the latest calls and opens when their
+ * failure rate reaches the threshold. An open circuit rejects calls until its open duration has passed, then it
+ * turns half-open and lets a few trial calls through: it closes when all of them succeed and opens again on the
+ * first failure.
+ */
+public class CircuitBreaker {
+    /**
+     * The states of a circuit.
+     */
+    public enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    /**
+     * Percentage of failed calls at which the circuit opens.
+     */
+    private final int failureRateThreshold;
+    /**
+     * Minimum number of recorded calls before the circuit can open.
+     */
+    private final int minimumCalls;
+    /**
+     * Time the circuit stays open, in nanos.
+     */
+    private final long openDurationNanos;
+    /**
+     * Number of trial calls of the half-open circuit.
+     */
+    private final int halfOpenCalls;
+    /**
+     * Supplies the current time in nanos.
+     */
+    private final LongSupplier clock;
+    /**
+     * Ring of the outcomes of the latest calls, true if the call failed.
+     */
+    private final boolean[] window;
+
+    private int next;
+    private int recorded;
+    private int failures;
+    private State state = State.CLOSED;
+    private long openedAt;
+    private int halfOpenPermits;
+    private int halfOpenSuccesses;
+
+    /**
+     * Instantiates a new Circuit breaker.
+     *
+     * @param failureRateThreshold the failure rate threshold
+     * @param slidingWindowSize    the sliding window size
+     * @param minimumCalls         the minimum calls
+     * @param openDurationMs       the open duration ms
+     * @param halfOpenCalls        the half open calls
+     */
+    public CircuitBreaker(int failureRateThreshold, int slidingWindowSize, int minimumCalls, long openDurationMs,
+                          int halfOpenCalls) {
+        this(failureRateThreshold, slidingWindowSize, minimumCalls, openDurationMs, halfOpenCalls, System::nanoTime);
+    }
+
+    CircuitBreaker(int failureRateThreshold, int slidingWindowSize, int minimumCalls, long openDurationMs,
+                   int halfOpenCalls, LongSupplier clock) {
+        this.failureRateThreshold = failureRateThreshold;
+        this.window = new boolean[Math.max(1, slidingWindowSize)];
+        this.minimumCalls = Math.max(1, Math.min(minimumCalls, this.window.length));
+        this.openDurationNanos = TimeUnit.MILLISECONDS.toNanos(openDurationMs);
+        this.halfOpenCalls = Math.max(1, halfOpenCalls);
+        this.clock = clock;
+    }
+
+    /**
+     * Acquires permission for a call. The result of a permitted call must be recorded by {@link #onResult}.
+     *
+     * @return true if the call is permitted, false if the circuit is open or out of trial calls
+     */
+    public synchronized boolean tryAcquire() {
+        if (this.state == State.OPEN) {
+            if (this.clock.getAsLong() - this.openedAt < this.openDurationNanos) {
+                return false;
+            }
+            this.state = State.HALF_OPEN;
+            this.halfOpenPermits = this.halfOpenCalls;
+            this.halfOpenSuccesses = 0;
+        }
+        if (this.state == State.HALF_OPEN) {
+            if (this.halfOpenPermits == 0) {
+                return false;
+            }
+            this.halfOpenPermits--;
+        }
+        return true;
+    }
+
+    /**
+     * Records the result of a permitted call.
+     *
+     * @param success true if the call succeeded
+     */
+    public synchronized void onResult(boolean success) {
+        switch (this.state) {
+            case CLOSED -> this.record(success);
+            case HALF_OPEN -> {
+                if (!success) {
+                    this.open();
+                } else if (++this.halfOpenSuccesses >= this.halfOpenCalls) {
+                    this.close();
+                }
+            }
+            default -> {
+                // A call permitted before the circuit opened, its result does not change the open circuit.
+            }
+        }
+    }
+
+    /**
+     * Gets state.
+     *
+     * @return the state
+     */
+    public synchronized State getState() {
+        return this.state;
+    }
+
+    private void record(boolean success) {
+        if (this.recorded == this.window.length) {
+            if (this.window[this.next]) {
+                this.failures--;
+            }
+        } else {
+            this.recorded++;
+        }
+        this.window[this.next] = !success;
+        if (!success) {
+            this.failures++;
+        }
+        this.next = (this.next + 1) % this.window.length;
+
+        if (this.recorded >= this.minimumCalls
+                && this.failures * 100 >= this.failureRateThreshold * this.recorded) {
+            this.open();
+        }
+    }
+
+    private void open() {
+        this.state = State.OPEN;
+        this.openedAt = this.clock.getAsLong();
+    }
+
+    private void close() {
+        this.state = State.CLOSED;
+        this.next = 0;
+        this.recorded = 0;
+        this.failures = 0;
+    }
+}
@@ -0,0 +1,187 @@
+package com.ef.mediaroutingengine.global.resilience;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.util.concurrent.TimeUnit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Guards the calls to one endpoint with a circuit breaker and an adaptive concurrency limit. A call acquires a
+ * permit by {@link #acquire()}, which fails fast while the circuit is open or the limit is reached, and reports
+ * its outcome by {@link #onSuccess} or {@link #onFailure}. The latency of the calls, the rejected calls, the
+ * state of the circuit and the concurrency limit are published as metrics tagged with the uri.
+ */
+public class EndpointGuard {
+    /**
+     * The constant LOGGER.
+     */
+    private static final Logger logger = LoggerFactory.getLogger(EndpointGuard.class);
+
+    /**
+     * The uri of the endpoint.
+     */
+    private final String uri;
+    /**
+     * The Circuit breaker.
+     */
+    private final CircuitBreaker circuitBreaker;
+    /**
+     * The Concurrency limit.
+     */
+    private final AdaptiveConcurrencyLimit concurrencyLimit;
+    /**
+     * The latency of the successful calls.
+     */
+    private final Timer successTimer;
+    /**
+     * The latency of the failed calls.
+     */
+    private final Timer failureTimer;
+    /**
+     * The calls rejected by the open circuit.
+     */
+    private final Counter circuitOpenRejections;
+    /**
+     * The calls rejected by the concurrency limit.
+     */
+    private final Counter concurrencyLimitRejections;
+
+    /**
+     * Instantiates a new Endpoint guard.
+     *
+     * @param uri              the uri
+     * @param circuitBreaker   the circuit breaker
+     * @param concurrencyLimit the concurrency limit
+     * @param meterRegistry    the meter registry
+     */
+    public EndpointGuard(String uri, CircuitBreaker circuitBreaker, AdaptiveConcurrencyLimit concurrencyLimit,
+                         MeterRegistry meterRegistry) {
+        this.uri = uri;
+        this.circuitBreaker = circuitBreaker;
+        this.concurrencyLimit = concurrencyLimit;
+
+        this.successTimer = this.timer("success", meterRegistry);
+        this.failureTimer = this.timer("failure", meterRegistry);
+        this.circuitOpenRejections = this.rejections("circuit_open", meterRegistry);
+        this.concurrencyLimitRejections = this.rejections("concurrency_limit", meterRegistry);
+
+        Gauge.builder("external.service.circuit.state", circuitBreaker, c -> c.getState().ordinal())
+                .description("State of the circuit of the endpoint: 0 closed, 1 open, 2 half-open")
+                .tag("uri", uri)
+                .register(meterRegistry);
+        Gauge.builder("external.service.concurrency.limit", concurrencyLimit, AdaptiveConcurrencyLimit::getLimit)
+                .description("Number of concurrent calls the endpoint is allowed")
+                .tag("uri", uri)
+                .register(meterRegistry);
+        Gauge.builder("external.service.calls.in.flight", concurrencyLimit, AdaptiveConcurrencyLimit::getInFlight)
+                .description("Number of calls to the endpoint in flight")
+                .tag("uri", uri)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Acquires a permit for a call to the endpoint.
+     *
+     * @return the start time of the call in nanos, to be passed to {@link #onSuccess} or {@link #onFailure}
+     * @throws CallNotPermittedException if the circuit is open or the concurrency limit is reached
+     */
+    public long acquire() {
+        if (!this.concurrencyLimit.tryAcquire()) {
+            this.concurrencyLimitRejections.increment();
+            throw new CallNotPermittedException("Concurrency limit of " + this.uri + " reached");
+        }
+        if (!this.circuitBreaker.tryAcquire()) {
+            this.concurrencyLimit.release();
+            this.circuitOpenRejections.increment();
+            throw new CallNotPermittedException("Circuit of " + this.uri + " is open");
+        }
+        return System.nanoTime();
+    }
+
+    /**
+     * Acquires a permit for a call that must not be shed, e.g. a call that frees resources held by the endpoint.
+     * The call is sent while the circuit is open or the limit is reached. It did not acquire a permit of the
+     * circuit, so its outcome is reported by {@link #onExemptResult} and updates only the concurrency limit.
+     *
+     * @return the start time of the call in nanos, to be passed to {@link #onExemptResult}
+     */
+    public long acquireExempt() {
+        this.concurrencyLimit.acquire();
+        return System.nanoTime();
+    }
+
+    /**
+     * Records a successful call. A client error response is a success of the endpoint.
+     *
+     * @param startNanos the start time returned by {@link #acquire()}
+     */
+    public void onSuccess(long startNanos) {
+        this.onResult(true, startNanos);
+    }
+
+    /**
+     * Records a failed call: it timed out, could not connect or the endpoint responded with a server error.
+     *
+     * @param startNanos the start time returned by {@link #acquire()}
+     */
+    public void onFailure(long startNanos) {
+        this.onResult(false, startNanos);
+    }
+
+    /**
+     * Records the outcome of a call acquired by {@link #acquireExempt()}. The circuit is left to the calls it
+     * permitted: an exempt call neither counts as a trial call of the half-open circuit nor fails the closed one.
+     *
+     * @param success    true if the call succeeded, as for {@link #onSuccess}
+     * @param startNanos the start time returned by {@link #acquireExempt()}
+     */
+    public void onExemptResult(boolean success, long startNanos) {
+        this.record(success, startNanos);
+    }
+
+    /**
+     * Gets state.
+     *
+     * @return the state
+     */
+    public CircuitBreaker.State getState() {
+        return this.circuitBreaker.getState();
+    }
+
+    private void onResult(boolean success, long startNanos) {
+        this.record(success, startNanos);
+
+        CircuitBreaker.State before = this.circuitBreaker.getState();
+        this.circuitBreaker.onResult(success);
+        CircuitBreaker.State after = this.circuitBreaker.getState();
+        if (before != after) {
+            logger.warn("Circuit of {} changed from {} to {}", this.uri, before, after);
+        }
+    }
+
+    private void record(boolean success, long startNanos) {
+        long elapsedNanos = System.nanoTime() - startNanos;
+        (success ? this.successTimer : this.failureTimer).record(elapsedNanos, TimeUnit.NANOSECONDS);
+        this.concurrencyLimit.onResult(success, elapsedNanos);
+    }
+
+    private Timer timer(String outcome, MeterRegistry meterRegistry) {
+        return Timer.builder("external.service.calls")
+                .description("Latency of the calls to the endpoint")
+                .tag("uri", this.uri)
+                .tag("outcome", outcome)
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(meterRegistry);
+    }
+
+    private Counter rejections(String reason, MeterRegistry meterRegistry) {
+        return Counter.builder("external.service.calls.rejected")
+                .description("Calls to the endpoint that failed fast")
+                .tag("uri", this.uri)
+                .tag("reason", reason)
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,59 @@
+package com.ef.mediaroutingengine.global.resilience;
+
+import com.ef.mediaroutingengine.config.CircuitBreakerProperties;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * Holds the guard of each external service endpoint, created on first use with the configured properties.
+ */
+@Component
+public class EndpointGuards {
+    /**
+     * The Properties.
+     */
+    private final CircuitBreakerProperties properties;
+    /**
+     * The Meter registry.
+     */
+    private final MeterRegistry meterRegistry;
+    /**
+     * uri -> the guard of the endpoint.
+     */
+    private final Map<String, EndpointGuard> guards = new ConcurrentHashMap<>();
+
+    /**
+     * Instantiates a new Endpoint guards.
+     *
+     * @param properties    the properties
+     * @param meterRegistry the meter registry
+     */
+    @Autowired
+    public EndpointGuards(CircuitBreakerProperties properties, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * Gets the guard of the endpoint.
+     *
+     * @param uri the uri of the endpoint
+     * @return the guard
+     */
+    public EndpointGuard get(String uri) {
+        return this.guards.computeIfAbsent(uri, this::newGuard);
+    }
+
+    private EndpointGuard newGuard(String uri) {
+        CircuitBreaker circuitBreaker = new CircuitBreaker(this.properties.getFailureRateThreshold(),
+                this.properties.getSlidingWindowSize(), this.properties.getMinimumCalls(),
+                this.properties.getOpenDurationMs(), this.properties.getHalfOpenCalls());
+        AdaptiveConcurrencyLimit concurrencyLimit = new AdaptiveConcurrencyLimit(
+                this.properties.getInitialConcurrencyLimit(), this.properties.getMinConcurrencyLimit(),
+                this.properties.getMaxConcurrencyLimit(), this.properties.getSlowCallThresholdMs());
+        return new EndpointGuard(uri, circuitBreaker, concurrencyLimit, this.meterRegistry);
+    }
+}
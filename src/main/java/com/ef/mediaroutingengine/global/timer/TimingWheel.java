@@ -0,0 +1,424 @@
+package com.ef.mediaroutingengine.global.timer;
+
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import org.apache.commons.lang3.exception.ExceptionUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A hierarchical timing wheel that drives any number of timers from a single worker thread.
+ *
+ * <p>Timers are kept in the buckets of a wheel of {@code wheelSize} slots, each slot covering {@code tickMs}
+ * milliseconds. Timers beyond the range of a wheel go into an overflow wheel whose tick is the whole interval of
+ * the wheel below it, and are cascaded down as the clock advances. Scheduling and cancelling a timer are O(1).
+ * Only non-empty buckets are put in a {@link DelayQueue}, so the worker thread sleeps until the next bucket
+ * expires instead of ticking through empty slots.
+ *
+ * <p>Expired timers are run on a fixed dispatcher pool so that a slow timer task never delays the clock.
+ */
+public class TimingWheel {
+    /**
+     * The constant logger.
+     */
+    private static final Logger logger = LoggerFactory.getLogger(TimingWheel.class);
+    /**
+     * Upper bound on how long the worker blocks on the delay queue, so that it notices a stop request.
+     */
+    private static final long MAX_POLL_MS = 200L;
+    /**
+     * Buckets waiting for their expiration time.
+     */
+    private final DelayQueue<Bucket> delayQueue = new DelayQueue<>();
+    /**
+     * Number of timers currently held in the wheel.
+     */
+    private final AtomicInteger pending = new AtomicInteger();
+    /**
+     * Adds take the read lock, clock advances take the write lock.
+     */
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    /**
+     * The lowest level wheel.
+     */
+    private final Wheel wheel;
+    /**
+     * Runs the expired timer tasks.
+     */
+    private final ExecutorService dispatcher;
+    /**
+     * Advances the clock.
+     */
+    private final Thread worker;
+    /**
+     * The Running flag.
+     */
+    private volatile boolean running = true;
+
+    /**
+     * Instantiates and starts a new Timing wheel.
+     *
+     * @param name              name prefix of the worker and dispatcher threads
+     * @param tickMs            duration of one tick in milliseconds
+     * @param wheelSize         number of buckets in each wheel level
+     * @param dispatcherThreads number of threads that run expired timer tasks
+     */
+    public TimingWheel(String name, long tickMs, int wheelSize, int dispatcherThreads) {
+        if (tickMs < 1 || wheelSize < 1 || dispatcherThreads < 1) {
+            throw new IllegalArgumentException("tickMs, wheelSize and dispatcherThreads must be positive");
+        }
+
+        this.wheel = new Wheel(tickMs, wheelSize, System.currentTimeMillis());
+        this.dispatcher = Executors.newFixedThreadPool(dispatcherThreads, threadFactory(name + "-dispatcher"));
+
+        this.worker = new Thread(this::run, name + "-worker");
+        this.worker.setDaemon(true);
+        this.worker.start();
+    }
+
+    /**
+     * Schedules a task to run once after the given delay.
+     *
+     * @param task    the task
+     * @param delayMs the delay in milliseconds
+     * @return the handle to cancel the timer with
+     * @throws IllegalArgumentException if the delay is negative
+     */
+    public Timeout schedule(Runnable task, long delayMs) {
+        if (delayMs < 0) {
+            throw new IllegalArgumentException("Negative delay.");
+        }
+        if (!this.running) {
+            throw new IllegalStateException("Timing wheel is stopped");
+        }
+
+        Timeout timeout = new Timeout(task, System.currentTimeMillis() + delayMs);
+
+        this.lock.readLock().lock();
+        try {
+            this.addOrDispatch(timeout);
+        } finally {
+            this.lock.readLock().unlock();
+        }
+
+        return timeout;
+    }
+
+    /**
+     * Returns the number of timers that are scheduled and not yet expired or cancelled.
+     *
+     * @return the number of pending timers
+     */
+    public int pending() {
+        return this.pending.get();
+    }
+
+    /**
+     * Stops the worker and the dispatcher threads. Pending timers are dropped.
+     */
+    public void stop() {
+        this.running = false;
+        this.worker.interrupt();
+        this.dispatcher.shutdownNow();
+    }
+
+    /**
+     * Adds the timeout in the wheel, or hands it to the dispatcher if it is already due.
+     *
+     * @param timeout the timeout
+     */
+    private void addOrDispatch(Timeout timeout) {
+        if (timeout.isCancelled()) {
+            return;
+        }
+        if (!this.wheel.add(timeout)) {
+            this.dispatcher.execute(timeout::run);
+        }
+    }
+
+    /**
+     * Worker loop, flushes expired buckets and cascades their timers down the wheels.
+     */
+    private void run() {
+        while (this.running) {
+            try {
+                Bucket bucket = this.delayQueue.poll(MAX_POLL_MS, TimeUnit.MILLISECONDS);
+                if (bucket != null) {
+                    this.advance(bucket);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                logger.error(ExceptionUtils.getMessage(e));
+                logger.error(ExceptionUtils.getStackTrace(e));
+            }
+        }
+    }
+
+    /**
+     * Advances the clock to the expired bucket and to every other bucket that is already due.
+     *
+     * @param bucket the first expired bucket
+     */
+    private void advance(Bucket bucket) {
+        this.lock.writeLock().lock();
+        try {
+            while (bucket != null) {
+                this.wheel.advanceClock(bucket.getExpiration());
+                bucket.flush(this::addOrDispatch);
+                bucket = this.delayQueue.poll();
+            }
+        } finally {
+            this.lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Thread factory for the dispatcher threads.
+     *
+     * @param prefix the thread name prefix
+     * @return the thread factory
+     */
+    private static ThreadFactory threadFactory(String prefix) {
+        AtomicInteger counter = new AtomicInteger();
+        return r -> {
+            Thread thread = new Thread(r, prefix + "-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    /**
+     * Handle of a scheduled timer.
+     */
+    public static final class Timeout {
+        /**
+         * The Task.
+         */
+        private final Runnable task;
+        /**
+         * Absolute expiration time in milliseconds.
+         */
+        private final long expirationMs;
+        /**
+         * The bucket this timeout is linked in, null if it is not in any bucket.
+         */
+        private volatile Bucket bucket;
+        /**
+         * Links of the bucket's list, guarded by the bucket.
+         */
+        private Timeout next;
+        private Timeout prev;
+        /**
+         * The Cancelled flag.
+         */
+        private volatile boolean cancelled;
+
+        private Timeout(Runnable task, long expirationMs) {
+            this.task = task;
+            this.expirationMs = expirationMs;
+        }
+
+        /**
+         * Cancels the timer. The task will not run if it has not started already.
+         */
+        public void cancel() {
+            synchronized (this) {
+                this.cancelled = true;
+            }
+            // The timeout may be moved to another bucket by the worker while we try to unlink it.
+            Bucket current = this.bucket;
+            while (current != null) {
+                current.remove(this);
+                current = this.bucket;
+            }
+        }
+
+        /**
+         * Is cancelled boolean.
+         *
+         * @return the boolean
+         */
+        public boolean isCancelled() {
+            return this.cancelled;
+        }
+
+        /**
+         * Gets the absolute expiration time in milliseconds.
+         *
+         * @return the expiration time
+         */
+        public long getExpirationMs() {
+            return this.expirationMs;
+        }
+
+        private void run() {
+            if (this.cancelled) {
+                return;
+            }
+            try {
+                this.task.run();
+            } catch (Exception e) {
+                logger.error(ExceptionUtils.getMessage(e));
+                logger.error(ExceptionUtils.getStackTrace(e));
+            }
+        }
+    }
+
+    /**
+     * A bucket of timers that expire within the same tick, kept as a doubly linked list with a sentinel.
+     */
+    private final class Bucket implements Delayed {
+        private final Timeout root = new Timeout(null, -1L);
+        private final AtomicLong expiration = new AtomicLong(-1L);
+
+        Bucket() {
+            this.root.next = this.root;
+            this.root.prev = this.root;
+        }
+
+        /**
+         * Sets the bucket's expiration time.
+         *
+         * @param expirationMs the expiration ms
+         * @return true if the expiration changed, i.e. the bucket has to be (re)queued
+         */
+        boolean setExpiration(long expirationMs) {
+            return this.expiration.getAndSet(expirationMs) != expirationMs;
+        }
+
+        long getExpiration() {
+            return this.expiration.get();
+        }
+
+        synchronized void add(Timeout timeout) {
+            synchronized (timeout) {
+                if (timeout.cancelled || timeout.bucket != null) {
+                    return;
+                }
+                Timeout tail = this.root.prev;
+                timeout.next = this.root;
+                timeout.prev = tail;
+                tail.next = timeout;
+                this.root.prev = timeout;
+                timeout.bucket = this;
+                TimingWheel.this.pending.incrementAndGet();
+            }
+        }
+
+        synchronized void remove(Timeout timeout) {
+            synchronized (timeout) {
+                if (timeout.bucket == this) {
+                    timeout.next.prev = timeout.prev;
+                    timeout.prev.next = timeout.next;
+                    timeout.next = null;
+                    timeout.prev = null;
+                    timeout.bucket = null;
+                    TimingWheel.this.pending.decrementAndGet();
+                }
+            }
+        }
+
+        synchronized void flush(Consumer<Timeout> consumer) {
+            Timeout head = this.root.next;
+            while (head != this.root) {
+                this.remove(head);
+                consumer.accept(head);
+                head = this.root.next;
+            }
+            this.expiration.set(-1L);
+        }
+
+        @Override
+        public long getDelay(TimeUnit unit) {
+            long delayMs = Math.max(this.getExpiration() - System.currentTimeMillis(), 0);
+            return unit.convert(delayMs, TimeUnit.MILLISECONDS);
+        }
+
+        @Override
+        public int compareTo(Delayed o) {
+            return Long.compare(this.getExpiration(), ((Bucket) o).getExpiration());
+        }
+    }
+
+    /**
+     * One level of the hierarchy.
+     */
+    private final class Wheel {
+        private final long tickMs;
+        private final int wheelSize;
+        private final long interval;
+        private final Bucket[] buckets;
+        private volatile long currentTime;
+        private volatile Wheel overflowWheel;
+
+        Wheel(long tickMs, int wheelSize, long startMs) {
+            this.tickMs = tickMs;
+            this.wheelSize = wheelSize;
+            this.interval = tickMs * wheelSize;
+            this.currentTime = startMs - (startMs % tickMs);
+            this.buckets = new Bucket[wheelSize];
+            for (int i = 0; i < wheelSize; i++) {
+                this.buckets[i] = new Bucket();
+            }
+        }
+
+        /**
+         * Adds the timeout in this wheel or in an overflow wheel.
+         *
+         * @param timeout the timeout
+         * @return false if the timeout has already expired, true otherwise
+         */
+        boolean add(Timeout timeout) {
+            long expirationMs = timeout.expirationMs;
+
+            if (expirationMs < this.currentTime + this.tickMs) {
+                return false;
+            }
+
+            if (expirationMs < this.currentTime + this.interval) {
+                long virtualId = expirationMs / this.tickMs;
+                Bucket bucket = this.buckets[(int) (virtualId % this.wheelSize)];
+                bucket.add(timeout);
+
+                if (bucket.setExpiration(virtualId * this.tickMs)) {
+                    TimingWheel.this.delayQueue.offer(bucket);
+                }
+                return true;
+            }
+
+            return this.getOverflowWheel().add(timeout);
+        }
+
+        void advanceClock(long timeMs) {
+            if (timeMs >= this.currentTime + this.tickMs) {
+                this.currentTime = timeMs - (timeMs % this.tickMs);
+
+                Wheel overflow = this.overflowWheel;
+                if (overflow != null) {
+                    overflow.advanceClock(this.currentTime);
+                }
+            }
+        }
+
+        private Wheel getOverflowWheel() {
+            if (this.overflowWheel == null) {
+                synchronized (this) {
+                    if (this.overflowWheel == null) {
+                        this.overflowWheel = new Wheel(this.interval, this.wheelSize, this.currentTime);
+                    }
+                }
+            }
+            return this.overflowWheel;
+        }
+    }
+}
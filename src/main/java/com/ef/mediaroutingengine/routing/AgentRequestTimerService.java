@@ -8,13 +8,13 @@ import com.ef.cim.objectmodel.task.TaskMediaState;
 import com.ef.cim.objectmodel.task.TaskState;
 import com.ef.mediaroutingengine.global.jms.JmsCommunicator;
 import com.ef.mediaroutingengine.global.locks.ConversationLock;
+import com.ef.mediaroutingengine.global.timer.TimingWheel;
 import com.ef.mediaroutingengine.routing.model.AgentReqTimerEntity;
 import com.ef.mediaroutingengine.routing.model.PrecisionQueue;
 import com.ef.mediaroutingengine.routing.pool.PrecisionQueuesPool;
 import com.ef.mediaroutingengine.taskmanager.repository.TasksRepository;
+import java.util.Collection;
 import java.util.Map;
-import java.util.Timer;
-import java.util.TimerTask;
 import java.util.concurrent.ConcurrentHashMap;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -23,6 +23,9 @@ import org.springframework.stereotype.Service;
 
 /**
  * The type Agent request timer service.
+ *
+ * <p>Timers run on the shared {@link TimingWheel}. The deadline of every running timer is also kept in a Redis
+ * sorted set (score = absolute expiry), so the timers are re-armed on startup from a single read of the set.
  */
 @Service
 public class AgentRequestTimerService {
@@ -33,7 +36,11 @@ public class AgentRequestTimerService {
     /**
      * The Timers.
      */
-    private final Map<String, Timer> timers = new ConcurrentHashMap<>();
+    private final Map<String, TimingWheel.Timeout> timers = new ConcurrentHashMap<>();
+    /**
+     * Shared timing wheel that drives the timers.
+     */
+    private final TimingWheel timingWheel;
     /**
      * The Step timer service.
      */
@@ -51,6 +58,10 @@ public class AgentRequestTimerService {
      * The Precision queues pool.
      */
     private final PrecisionQueuesPool precisionQueuesPool;
+    /**
+     * Locks the conversation of an expired timer.
+     */
+    private final ConversationLock conversationLock = new ConversationLock("agent-request-timer");
 
     /**
      * Instantiates a new Agent request timer service.
@@ -59,10 +70,13 @@ public class AgentRequestTimerService {
      * @param jmsCommunicator     the jms communicator
      * @param tasksRepository     the tasks repository
      * @param precisionQueuesPool the precision queues pool
+     * @param timingWheel         the shared timing wheel
      */
     @Autowired
     public AgentRequestTimerService(StepTimerService stepTimerService, JmsCommunicator jmsCommunicator,
-                                    TasksRepository tasksRepository, PrecisionQueuesPool precisionQueuesPool) {
+                                    TasksRepository tasksRepository, PrecisionQueuesPool precisionQueuesPool,
+                                    TimingWheel timingWheel) {
+        this.timingWheel = timingWheel;
         this.stepTimerService = stepTimerService;
         this.jmsCommunicator = jmsCommunicator;
         this.tasksRepository = tasksRepository;
@@ -84,23 +98,79 @@ public class AgentRequestTimerService {
     }
 
     /**
-     * Start on failover.
+     * Loads the deadlines of all timers that were running before a restart, with a single read of the Redis
+     * sorted set. Timers are not armed here, see {@link #rearm(Task, long)}.
      *
-     * @param task    the task
-     * @param media   the media
-     * @param queueId the queue id
+     * @return map of timerId to absolute expiry time in ms
      */
-    public boolean startOnFailover(Task task, TaskMedia media, String queueId) {
-        long delay = getDelay(media.getRequestSession()) - (System.currentTimeMillis() - media.getEnqueueTime());
+    public Map<String, Long> loadDeadlines() {
+        return this.tasksRepository.findAllAgentReqTimerDeadlines();
+    }
 
-        if (delay < 1L) {
-            return false;
+    /**
+     * Re-arms a timer whose deadline was loaded on startup. The timer is only scheduled in memory, its entity
+     * and deadline are already persisted. A deadline that has passed expires immediately.
+     *
+     * @param task     the task
+     * @param deadline the absolute expiry time in ms
+     */
+    public void rearm(Task task, long deadline) {
+        String timerId = task.getAgentRequestTtlTimerId();
+        long delay = Math.max(deadline - System.currentTimeMillis(), 0L);
+
+        this.timers.computeIfAbsent(timerId, k -> this.timingWheel
+                .schedule(new RequestTimerTask(timerId, task.getConversationId()), delay));
+
+        logger.debug("Agent Request Ttl timer re-armed for {} ms, timerId: {}", delay, timerId);
+    }
+
+    /**
+     * Returns the deadline of a timer that was running before a restart: its persisted deadline or, if none was
+     * persisted, e.g. by a version that did not persist the deadlines, the deadline recomputed from the media's
+     * enqueue time and the channel's agent request ttl.
+     *
+     * @param media             the media
+     * @param persistedDeadline the persisted deadline, null if there is none
+     * @return the absolute expiry time in ms
+     */
+    public long getDeadlineOnStartup(TaskMedia media, Long persistedDeadline) {
+        if (persistedDeadline != null) {
+            return persistedDeadline;
+        }
+        return media.getEnqueueTime() + this.getDelay(media.getRequestSession());
+    }
+
+    /**
+     * Re-arms the timer of a task on startup. A persisted deadline is re-armed in memory, otherwise the timer is
+     * started from the recomputed deadline, see {@link #getDeadlineOnStartup(TaskMedia, Long)}, and its entity
+     * and deadline are persisted. A deadline that has passed expires immediately.
+     *
+     * @param task              the task
+     * @param media             the media
+     * @param queueId           the queue id
+     * @param persistedDeadline the persisted deadline, null if there is none
+     */
+    public void rearmOnStartup(Task task, TaskMedia media, String queueId, Long persistedDeadline) {
+        if (persistedDeadline != null) {
+            this.rearm(task, persistedDeadline);
+            return;
         }
 
+        long delay = Math.max(this.getDeadlineOnStartup(media, null) - System.currentTimeMillis(), 0L);
         AgentReqTimerEntity entity = new AgentReqTimerEntity(task.getId(), media.getId(), queueId);
         this.schedule(task.getAgentRequestTtlTimerId(), task.getConversationId(), entity, delay);
+    }
 
-        return true;
+    /**
+     * Removes the persisted entity and deadline of the given timers in a single transaction. Used on startup
+     * to drop the deadlines that were not re-armed.
+     *
+     * @param timerIds the timer ids
+     */
+    public void discard(Collection<String> timerIds) {
+        if (!timerIds.isEmpty()) {
+            this.tasksRepository.deleteAgentReqTimerEntities(timerIds);
+        }
     }
 
     /**
@@ -113,16 +183,13 @@ public class AgentRequestTimerService {
     private void schedule(String timerId, String conversationId, AgentReqTimerEntity entity, long delay) {
         logger.info("Request to schedule Agent Request Ttl timer initiated for timerId: {}", timerId);
 
-        Timer timer = this.timers.get(timerId);
-        if (timer != null) {
+        if (this.timers.get(timerId) != null) {
             logger.warn("Timer already running, returning...");
             return;
         }
 
-        this.tasksRepository.saveAgentReqTimerEntity(timerId, entity);
-        timer = new Timer();
-        this.timers.put(timerId, timer);
-        timer.schedule(new AgentRequestTimerService.RequestTimerTask(timerId, conversationId), delay);
+        this.tasksRepository.saveAgentReqTimerEntity(timerId, entity, System.currentTimeMillis() + delay);
+        this.timers.put(timerId, this.timingWheel.schedule(new RequestTimerTask(timerId, conversationId), delay));
 
         logger.info("Agent Request Ttl timer scheduled for {} ms, timerId: {}", delay, timerId);
     }
@@ -144,11 +211,10 @@ public class AgentRequestTimerService {
      * @param timerId the task id
      */
     public void stop(String timerId) {
-        Timer timer = this.timers.get(timerId);
+        TimingWheel.Timeout timeout = this.timers.remove(timerId);
 
-        if (timer != null) {
-            timer.cancel();
-            this.timers.remove(timerId);
+        if (timeout != null) {
+            timeout.cancel();
             this.tasksRepository.deleteAgentReqTimerEntity(timerId);
         }
     }
@@ -160,13 +226,12 @@ public class AgentRequestTimerService {
     /**
      * The type Request timer task.
      */
-    private class RequestTimerTask extends TimerTask {
+    private class RequestTimerTask implements Runnable {
         /**
          * The Timer id.
          */
         private final String timerId;
         private final String conversationId;
-        private final ConversationLock conversationLock = new ConversationLock();
 
         /**
          * Instantiates a new Request ttl timer.
@@ -178,6 +243,7 @@ public class AgentRequestTimerService {
             this.conversationId = conversationId;
         }
 
+        @Override
         public void run() {
             logger.info("Agent Request TTL expired for timerId: {}, fetching timer entity...", this.timerId);
 
@@ -198,7 +264,7 @@ public class AgentRequestTimerService {
             }
 
             try {
-                conversationLock.lock(conversationId);
+                AgentRequestTimerService.this.conversationLock.lock(conversationId);
 
                 Task task = AgentRequestTimerService.this.tasksRepository.find(entity.getTaskId());
 
@@ -220,7 +286,7 @@ public class AgentRequestTimerService {
 
                 AgentRequestTimerService.this.stop(this.timerId);
             } finally {
-                conversationLock.unlock(conversationId);
+                AgentRequestTimerService.this.conversationLock.unlock(conversationId);
             }
         }
 
@@ -244,8 +310,14 @@ public class AgentRequestTimerService {
             String[] mediaChanges = task.getActiveMedia().stream().map(TaskMedia::getId).toArray(String[]::new);
             ChannelSession session = media.getRequestSession();
 
-            AgentRequestTimerService.this.jmsCommunicator.publishTaskStateChanged(task, session, true, mediaChanges);
-            AgentRequestTimerService.this.jmsCommunicator.publishNoAgentAvailable(session.getConversationId(), media);
+            JmsCommunicator communicator = AgentRequestTimerService.this.jmsCommunicator;
+            JmsCommunicator.Batch batch = communicator.beginBatch();
+            try {
+                communicator.publishTaskStateChanged(task, session, true, mediaChanges);
+                communicator.publishNoAgentAvailable(session.getConversationId(), media);
+            } finally {
+                batch.close();
+            }
 
             logger.info("Queued task: {} removed successfully", task.getId());
         }
@@ -0,0 +1,236 @@
+package com.ef.mediaroutingengine.routing;
+
+import com.ef.mediaroutingengine.global.commons.Constants;
+import com.ef.mediaroutingengine.routing.model.QueueEventName;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.beans.PropertyChangeEvent;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import org.apache.commons.lang3.exception.ExceptionUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slf4j.MDC;
+
+/**
+ * The mailbox of a precision queue's task router. Events posted to the mailbox are handled one at a time, in
+ * order, on a shared executor, so a task router is never run by two threads at once and the routers of different
+ * queues do not wait for each other.
+ *
+ * <p>Every event other than a new request only wakes the router up to route the queue, so at most one of them is
+ * kept pending: one posted while another is still waiting is coalesced into it. A wake-up is held back for up to
+ * the configured max latency before it is handed to the executor, so that a storm of agent-available or
+ * request-accepted events results in one routing pass per queue per latency window instead of one per event.
+ * New requests carry the task to enqueue, are never held back nor dropped; when the mailbox is full the posting
+ * thread waits for room.
+ */
+public class RoutingMailbox implements Runnable {
+    /**
+     * The constant logger.
+     */
+    private static final Logger logger = LoggerFactory.getLogger(RoutingMailbox.class);
+    /**
+     * Maximum number of events handled before the executor thread is handed back to other mailboxes.
+     */
+    private static final int MAX_EVENTS_PER_RUN = 32;
+    /**
+     * The Queue id.
+     */
+    private final String queueId;
+    /**
+     * Handles the events, the task router.
+     */
+    private final Consumer<PropertyChangeEvent> handler;
+    /**
+     * The shared routing executor.
+     */
+    private final Executor executor;
+    /**
+     * Delays the pending wake-up, null if wake-ups are not delayed.
+     */
+    private final ScheduledExecutorService ticker;
+    /**
+     * Maximum time a wake-up is held back to coalesce the ones that follow, in ms.
+     */
+    private final long maxLatencyMs;
+    /**
+     * The pending events.
+     */
+    private final BlockingQueue<Envelope> events;
+    /**
+     * Whether a wake-up event is pending in the mailbox.
+     */
+    private final AtomicBoolean wakeupPending = new AtomicBoolean();
+    /**
+     * Whether the mailbox is scheduled or running on the executor.
+     */
+    private final AtomicBoolean scheduled = new AtomicBoolean();
+    /**
+     * Time between posting an event and handling it.
+     */
+    private final Timer lag;
+    /**
+     * Number of wake-ups coalesced into a pending one.
+     */
+    private final Counter coalesced;
+
+    /**
+     * Instantiates a new Routing mailbox.
+     *
+     * @param queueId       the queue id
+     * @param handler       the event handler
+     * @param executor      the shared routing executor
+     * @param ticker        the scheduler that delays the wake-ups, may be null if maxLatencyMs is 0
+     * @param maxLatencyMs  the maximum time a wake-up is held back to coalesce the ones that follow, in ms
+     * @param capacity      the maximum number of pending events
+     * @param meterRegistry the meter registry
+     */
+    public RoutingMailbox(String queueId, Consumer<PropertyChangeEvent> handler, Executor executor,
+                          ScheduledExecutorService ticker, long maxLatencyMs, int capacity,
+                          MeterRegistry meterRegistry) {
+        this.queueId = queueId;
+        this.handler = handler;
+        this.executor = executor;
+        this.ticker = ticker;
+        this.maxLatencyMs = ticker != null ? Math.max(0, maxLatencyMs) : 0;
+        this.events = new LinkedBlockingQueue<>(Math.max(1, capacity));
+
+        this.lag = Timer.builder("routing.mailbox.lag")
+                .description("Time a queue event waits in the mailbox of the queue's task router")
+                .tag("queue", queueId)
+                .register(meterRegistry);
+        this.coalesced = Counter.builder("routing.mailbox.coalesced")
+                .description("Number of queue wake-ups coalesced into a pending one")
+                .tag("queue", queueId)
+                .register(meterRegistry);
+        Gauge.builder("routing.mailbox.size", this.events, BlockingQueue::size)
+                .description("Number of events pending in the mailbox of the queue's task router")
+                .tag("queue", queueId)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Posts an event to the mailbox.
+     *
+     * @param evt the event
+     */
+    public void post(PropertyChangeEvent evt) {
+        boolean wakeup = isWakeup(evt);
+        if (wakeup && !this.wakeupPending.compareAndSet(false, true)) {
+            this.coalesced.increment();
+            return;
+        }
+
+        Envelope envelope = new Envelope(evt, System.nanoTime(), MDC.get(Constants.MDC_CORRELATION_ID));
+
+        if (wakeup && this.maxLatencyMs > 0) {
+            this.ticker.schedule(() -> this.enqueue(envelope), this.maxLatencyMs, TimeUnit.MILLISECONDS);
+        } else {
+            this.enqueue(envelope);
+        }
+    }
+
+    /**
+     * Adds the event to the pending events and schedules the mailbox.
+     *
+     * @param envelope the event envelope
+     */
+    private void enqueue(Envelope envelope) {
+        PropertyChangeEvent evt = envelope.evt();
+        boolean wakeup = isWakeup(evt);
+
+        if (!this.events.offer(envelope)) {
+            if (wakeup) {
+                // The mailbox is full of new requests, each of which routes the queue anyway.
+                this.wakeupPending.set(false);
+                this.coalesced.increment();
+                return;
+            }
+            logger.warn("Mailbox of queue: {} is full, waiting to post event: {}", queueId, evt.getPropertyName());
+            try {
+                this.events.put(envelope);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                logger.error("Interrupted while posting event: {} to queue: {}", evt.getPropertyName(), queueId);
+                return;
+            }
+        }
+
+        this.schedule();
+    }
+
+    /**
+     * Gets the number of pending events.
+     *
+     * @return the number of pending events
+     */
+    public int size() {
+        return this.events.size();
+    }
+
+    /**
+     * Handles the pending events, up to {@link #MAX_EVENTS_PER_RUN} of them, and reschedules itself if more are
+     * left.
+     */
+    @Override
+    public void run() {
+        try {
+            Envelope envelope;
+            int handled = 0;
+            while (handled < MAX_EVENTS_PER_RUN && (envelope = this.events.poll()) != null) {
+                this.handle(envelope);
+                handled++;
+            }
+        } finally {
+            this.scheduled.set(false);
+            if (!this.events.isEmpty()) {
+                this.schedule();
+            }
+        }
+    }
+
+    private void handle(Envelope envelope) {
+        if (isWakeup(envelope.evt())) {
+            this.wakeupPending.set(false);
+        }
+        this.lag.record(System.nanoTime() - envelope.postedNanos(), TimeUnit.NANOSECONDS);
+
+        MDC.put(Constants.MDC_CORRELATION_ID, envelope.correlationId());
+        try {
+            this.handler.accept(envelope.evt());
+        } catch (Exception e) {
+            logger.error(ExceptionUtils.getMessage(e));
+            logger.error(ExceptionUtils.getStackTrace(e));
+        } finally {
+            MDC.clear();
+        }
+    }
+
+    private void schedule() {
+        if (this.scheduled.compareAndSet(false, true)) {
+            try {
+                this.executor.execute(this);
+            } catch (RuntimeException e) {
+                this.scheduled.set(false);
+                throw e;
+            }
+        }
+    }
+
+    private static boolean isWakeup(PropertyChangeEvent evt) {
+        return !QueueEventName.NEW_REQUEST.equals(evt.getPropertyName());
+    }
+
+    /**
+     * An event with the time it was posted at and the correlation id of the posting thread.
+     */
+    private record Envelope(PropertyChangeEvent evt, long postedNanos, String correlationId) {
+    }
+}
@@ -0,0 +1,65 @@
+package com.ef.mediaroutingengine.routing;
+
+import com.ef.mediaroutingengine.config.RoutingProperties;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.beans.PropertyChangeEvent;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.function.Consumer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Component;
+
+/**
+ * Creates the mailboxes of the task routers, all backed by the shared routing executor and ticker.
+ */
+@Component
+public class RoutingMailboxFactory {
+    /**
+     * The shared executor that runs the mailboxes.
+     */
+    private final Executor routingExecutor;
+    /**
+     * The shared scheduler that delays the wake-ups.
+     */
+    private final ScheduledExecutorService routingTicker;
+    /**
+     * The Routing properties.
+     */
+    private final RoutingProperties routingProperties;
+    /**
+     * The Meter registry.
+     */
+    private final MeterRegistry meterRegistry;
+
+    /**
+     * Default constructor.
+     *
+     * @param routingExecutor   the executor that runs the mailboxes
+     * @param routingTicker     the scheduler that delays the wake-ups
+     * @param routingProperties the routing properties
+     * @param meterRegistry     the meter registry
+     */
+    @Autowired
+    public RoutingMailboxFactory(@Qualifier("routingExecutor") Executor routingExecutor,
+                                 @Qualifier("routingTicker") ScheduledExecutorService routingTicker,
+                                 RoutingProperties routingProperties, MeterRegistry meterRegistry) {
+        this.routingExecutor = routingExecutor;
+        this.routingTicker = routingTicker;
+        this.routingProperties = routingProperties;
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * Creates the mailbox of a queue's task router.
+     *
+     * @param queueId the queue id
+     * @param handler the event handler
+     * @return the mailbox
+     */
+    public RoutingMailbox create(String queueId, Consumer<PropertyChangeEvent> handler) {
+        return new RoutingMailbox(queueId, handler, this.routingExecutor, this.routingTicker,
+                this.routingProperties.getWakeupMaxLatencyMs(), this.routingProperties.getMailboxCapacity(),
+                this.meterRegistry);
+    }
+}
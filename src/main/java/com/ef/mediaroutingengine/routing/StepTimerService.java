@@ -1,17 +1,17 @@
 package com.ef.mediaroutingengine.routing;
 
+import com.ef.mediaroutingengine.global.timer.TimingWheel;
 import com.ef.mediaroutingengine.routing.model.PrecisionQueue;
 import com.ef.mediaroutingengine.routing.model.QueueEventName;
 import com.ef.mediaroutingengine.routing.model.QueueTask;
 import com.ef.mediaroutingengine.routing.model.Step;
 import java.beans.PropertyChangeEvent;
 import java.util.Map;
-import java.util.Timer;
-import java.util.TimerTask;
 import java.util.concurrent.ConcurrentHashMap;
 import org.apache.commons.lang3.exception.ExceptionUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 /**
@@ -27,7 +27,21 @@ public class StepTimerService {
     /**
      * The Timers.
      */
-    private final Map<String, Timer> timers = new ConcurrentHashMap<>();
+    private final Map<String, TimingWheel.Timeout> timers = new ConcurrentHashMap<>();
+    /**
+     * Shared timing wheel that drives all step timers.
+     */
+    private final TimingWheel timingWheel;
+
+    /**
+     * Default constructor. Autowired -> loads the beans.
+     *
+     * @param timingWheel the shared timing wheel
+     */
+    @Autowired
+    public StepTimerService(TimingWheel timingWheel) {
+        this.timingWheel = timingWheel;
+    }
 
     /**
      * Start next.
@@ -46,10 +60,9 @@ public class StepTimerService {
 
             if (queueTask.getCurrentStep() != null && !queueTask.getCurrentStep().isLastStep()) {
                 long delay = queueTask.getCurrentStep().getStep().getTimeout() * 1000L;
-                Timer timer = new Timer();
-                timer.schedule(new StepTimerTask(queueTask, queue), delay);
+                TimingWheel.Timeout timeout = this.timingWheel.schedule(new StepTimerTask(queueTask, queue), delay);
 
-                this.timers.put(queueTask.getTaskId(), timer);
+                this.timers.put(queueTask.getTaskId(), timeout);
 
                 String stepId = queueTask.getCurrentStep().getStep().getId();
                 logger.debug("Step: {} timer started for Queue Task: {}", stepId, queueTask);
@@ -71,17 +84,16 @@ public class StepTimerService {
      * @param taskId the task id
      */
     public void stop(String taskId) {
-        Timer timer = this.timers.get(taskId);
-        if (timer != null) {
-            timer.cancel();
-            this.timers.remove(taskId);
+        TimingWheel.Timeout timeout = this.timers.remove(taskId);
+        if (timeout != null) {
+            timeout.cancel();
         }
     }
 
     /**
      * The type Step timer task.
      */
-    private class StepTimerTask extends TimerTask {
+    private class StepTimerTask implements Runnable {
         private final QueueTask queueTask;
         private final PrecisionQueue queue;
 
@@ -92,11 +104,11 @@ public class StepTimerService {
          * @param queue the queue
          */
         public StepTimerTask(QueueTask queueTask, PrecisionQueue queue) {
-            super();
             this.queueTask = queueTask;
             this.queue = queue;
         }
 
+        @Override
         public void run() {
             Step currentStep = queueTask.getCurrentStep().getStep();
             logger.debug("Time expired for step: {}, Queue Task: {}", currentStep.getId(), this.queueTask);
@@ -3,10 +3,10 @@ package com.ef.mediaroutingengine.routing;
 import com.ef.cim.objectmodel.task.Task;
 import com.ef.cim.objectmodel.task.TaskMedia;
 import com.ef.cim.objectmodel.task.TaskMediaState;
+import com.ef.mediaroutingengine.config.RoutingProperties;
 import com.ef.mediaroutingengine.global.jms.JmsCommunicator;
 import com.ef.mediaroutingengine.global.locks.ConversationLock;
 import com.ef.mediaroutingengine.routing.model.Agent;
-import com.ef.mediaroutingengine.routing.model.AgentSelectionCriteria;
 import com.ef.mediaroutingengine.routing.model.NewTaskPayload;
 import com.ef.mediaroutingengine.routing.model.PrecisionQueue;
 import com.ef.mediaroutingengine.routing.model.QueueEventName;
@@ -16,13 +16,20 @@ import com.ef.mediaroutingengine.routing.pool.AgentsPool;
 import com.ef.mediaroutingengine.routing.utility.RestRequest;
 import com.ef.mediaroutingengine.routing.utility.TaskUtility;
 import com.ef.mediaroutingengine.taskmanager.repository.TasksRepository;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
 import java.beans.PropertyChangeEvent;
 import java.beans.PropertyChangeListener;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.Executor;
 import org.apache.commons.lang3.exception.ExceptionUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.config.ConfigurableBeanFactory;
 import org.springframework.context.annotation.Scope;
 import org.springframework.stereotype.Service;
@@ -65,25 +72,60 @@ public class TaskRouter implements PropertyChangeListener {
      * The Tasks repository.
      */
     private final TasksRepository tasksRepository;
-    private final ConversationLock conversationLock = new ConversationLock();
+    /**
+     * Runs the offer stage of the reservations, off the queue lock.
+     */
+    private final Executor reservationExecutor;
+    /**
+     * Creates the mailbox of this task router.
+     */
+    private final RoutingMailboxFactory mailboxFactory;
+    /**
+     * Maximum number of reservations in one pass over the queue.
+     */
+    private final int maxReservationsPerWakeup;
+    /**
+     * The Meter registry.
+     */
+    private final MeterRegistry meterRegistry;
+    /**
+     * Number of tasks reserved per pass over the queue.
+     */
+    private DistributionSummary reservationsPerWakeup;
+    /**
+     * The mailbox all events of this task router go through.
+     */
+    private RoutingMailbox mailbox;
+    private final ConversationLock conversationLock = new ConversationLock("task-router");
 
     /**
      * Constructor.
      *
-     * @param agentsPool       the pool of all agents
-     * @param jmsCommunicator  the jms communicator
-     * @param restRequest      the rest request
-     * @param stepTimerService the step timer service
-     * @param tasksRepository  the tasks repo
+     * @param agentsPool          the pool of all agents
+     * @param jmsCommunicator     the jms communicator
+     * @param restRequest         the rest request
+     * @param stepTimerService    the step timer service
+     * @param tasksRepository     the tasks repo
+     * @param reservationExecutor the executor that offers the reserved tasks to agents
+     * @param mailboxFactory      the factory of the task routers' mailboxes
+     * @param routingProperties   the routing properties
+     * @param meterRegistry       the meter registry
      */
     @Autowired
     public TaskRouter(AgentsPool agentsPool, JmsCommunicator jmsCommunicator, RestRequest restRequest,
-                      StepTimerService stepTimerService, TasksRepository tasksRepository) {
+                      StepTimerService stepTimerService, TasksRepository tasksRepository,
+                      @Qualifier("reservationExecutor") Executor reservationExecutor,
+                      RoutingMailboxFactory mailboxFactory,
+                      RoutingProperties routingProperties, MeterRegistry meterRegistry) {
         this.agentsPool = agentsPool;
         this.jmsCommunicator = jmsCommunicator;
         this.restRequest = restRequest;
         this.stepTimerService = stepTimerService;
         this.tasksRepository = tasksRepository;
+        this.reservationExecutor = reservationExecutor;
+        this.mailboxFactory = mailboxFactory;
+        this.maxReservationsPerWakeup = Math.max(1, routingProperties.getMaxReservationsPerWakeup());
+        this.meterRegistry = meterRegistry;
     }
 
     /**
@@ -94,12 +136,31 @@ public class TaskRouter implements PropertyChangeListener {
     public void init(PrecisionQueue precisionQueue) {
         if (!isInit) {
             this.precisionQueue = precisionQueue;
+            this.reservationsPerWakeup = DistributionSummary.builder("routing.reservations.per.wakeup")
+                    .description("Number of queued tasks reserved in one pass of the task router")
+                    .tag("queue", precisionQueue.getId())
+                    .register(this.meterRegistry);
+            this.mailbox = this.mailboxFactory.create(precisionQueue.getId(), this::handle);
             this.isInit = true;
         }
     }
 
+    /**
+     * Posts the event to this router's mailbox, it is handled asynchronously on the routing executor.
+     *
+     * @param evt the event
+     */
     @Override
     public void propertyChange(PropertyChangeEvent evt) {
+        this.mailbox.post(evt);
+    }
+
+    /**
+     * Handles an event from the mailbox, enqueues the new request if any and routes the queue.
+     *
+     * @param evt the event
+     */
+    private void handle(PropertyChangeEvent evt) {
         String evtName = evt.getPropertyName();
         logger.debug("TaskRouter for queue: [{}] invoked on event [{}]", precisionQueue.getName(), evtName);
 
@@ -107,30 +168,24 @@ public class TaskRouter implements PropertyChangeListener {
             this.onNewRequest(evt);
         }
 
-        try {
-            synchronized (precisionQueue.getServiceQueue()) {
-                QueueTask queueTask = precisionQueue.peek();
-
-                if (queueTask == null) {
-                    logger.debug("Queue [{}] is empty", this.precisionQueue.getName());
-                    return;
-                }
-
-                logger.debug("Queue [{}] is not empty", this.precisionQueue.getName());
-
-                try {
-                    conversationLock.lock(queueTask.getConversationId());
+        this.route();
+    }
 
-                    Task task = this.tasksRepository.find(queueTask.getTaskId());
-                    if (task == null || task.findMediaBy(queueTask.getMediaId()) == null) {
-                        precisionQueue.dequeue();
-                        return;
-                    }
+    /**
+     * Reserves agents for as many queued tasks as possible and hands the reservations to the reservation
+     * executor. If the pass stopped at the reservation limit another pass is posted to the mailbox, so that the
+     * rest of the queue does not wait for the next event.
+     */
+    private void route() {
+        try {
+            List<Reservation> reservations = this.reserve();
+            this.reservationsPerWakeup.record(reservations.size());
 
-                    reserve(queueTask, task);
-                } finally {
-                    conversationLock.unlock(queueTask.getConversationId());
-                }
+            for (Reservation reservation : reservations) {
+                this.reservationExecutor.execute(() -> this.offer(reservation));
+            }
+            if (reservations.size() >= this.maxReservationsPerWakeup) {
+                this.mailbox.post(new PropertyChangeEvent(this, QueueEventName.ROUTE_REMAINING, null, null));
             }
         } catch (Exception ex) {
             logger.error(ExceptionUtils.getMessage(ex));
@@ -160,108 +215,175 @@ public class TaskRouter implements PropertyChangeListener {
     }
 
     /**
-     * Reserve.
+     * Walks the queue in dequeue order and reserves an available agent for each task it can, using only
+     * in-memory state. A task for which no agent is available is skipped, it does not block the tasks behind it.
+     * The pass ends when the queue is exhausted, when no step of the queue has an available agent left or when
+     * the reservation limit is reached. The reserved tasks are dequeued under the queue lock, so that the next
+     * pass routes the next tasks while these are being offered.
      *
-     * @param queueTask the queue task
-     * @param task      the task
+     * @return the reservations, empty if no task could be reserved
      */
-    private void reserve(QueueTask queueTask, Task task) {
-        TaskMedia media = task.findMediaBy(queueTask.getMediaId());
-
-        boolean assignedToLastAssignedAgent = this.assignToLastAssignedAgent(task, media);
-
-        if (!assignedToLastAssignedAgent) {
-            int currentStepIndex = precisionQueue.getStepIndex(queueTask.getCurrentStep().getStep());
-
-            for (int i = 0; i < currentStepIndex + 1; i++) {
-                Step step = precisionQueue.getStepAt(i);
-                logger.info("Step: {} searching in queue: {}", i, precisionQueue.getName());
-                Agent agent = this.getAvailableAgentWithLeastActiveTasks(step, queueTask.getConversationId());
-                if (agent != null) {
-                    logger.debug("Agent: {} is available to schedule queueTask: {}", agent.getId(), queueTask.getId());
-                    this.assignTaskTo(agent, task, media);
-                    return;
-                }
+    private List<Reservation> reserve() {
+        List<Reservation> reservations = new ArrayList<>();
+
+        synchronized (precisionQueue.getServiceQueue()) {
+            if (precisionQueue.isEmpty()) {
+                logger.debug("Queue [{}] is empty", this.precisionQueue.getName());
+                return reservations;
             }
 
-            logger.debug("Could not find an agent at the moment for queueTask: {}", queueTask.getId());
+            logger.debug("Queue [{}] is not empty", this.precisionQueue.getName());
+
+            BitSet exhaustedSteps = new BitSet();
+            Iterator<QueueTask> queueTasks = precisionQueue.iterator();
+
+            while (queueTasks.hasNext() && reservations.size() < this.maxReservationsPerWakeup) {
+                QueueTask queueTask = queueTasks.next();
+
+                Agent agent = this.findAgentFor(queueTask, exhaustedSteps);
+                long epoch = agent != null ? agent.tryReserve(queueTask.toAgentTask()) : Agent.NO_RESERVATION;
+
+                if (epoch != Agent.NO_RESERVATION) {
+                    logger.debug("Agent: {} is reserved for queueTask: {}", agent.getId(), queueTask.getId());
+                    this.precisionQueue.removeTask(queueTask.getTaskId());
+                    reservations.add(new Reservation(queueTask, agent, epoch));
+                } else {
+                    logger.debug("Could not find an agent at the moment for queueTask: {}", queueTask.getId());
+                    if (exhaustedSteps.cardinality() >= this.precisionQueue.getSteps().size()) {
+                        break;
+                    }
+                }
+            }
         }
+
+        return reservations;
     }
 
     /**
-     * Assign to last assigned agent boolean.
+     * Finds the agent to reserve for the queue task, the last assigned agent if it is available, the available
+     * agent with the least active tasks in the steps up to the task's current step otherwise. Steps found to have
+     * no available agent at all are marked exhausted and are not searched again in the same pass.
      *
-     * @param task  the task
-     * @param media the media
-     * @return the boolean
+     * @param queueTask      the queue task
+     * @param exhaustedSteps indexes of the steps without any available agent in this pass
+     * @return the agent, null if no agent is available
      */
-    private boolean assignToLastAssignedAgent(Task task, TaskMedia media) {
-        String lastAssignedAgentId = TaskUtility.getLastAssignedAgentId(media);
+    private Agent findAgentFor(QueueTask queueTask, BitSet exhaustedSteps) {
+        String lastAssignedAgentId = queueTask.getLastAssignedAgentId();
         logger.info("Last assigned agent-id {} ", lastAssignedAgentId);
 
         if (lastAssignedAgentId != null) {
             Agent agent = this.agentsPool.findBy(lastAssignedAgentId);
 
-            if (agent != null && agent.isAvailableForReservation(media.getMrdId(), task.getConversationId())) {
-                assignTaskTo(agent, task, media);
-                return true;
+            if (agent != null && agent.isAvailableForReservation(queueTask.getMrdId(), queueTask.getConversationId())) {
+                return agent;
+            }
+        }
+
+        if (queueTask.getCurrentStep() == null) {
+            return null;
+        }
+
+        String mrdId = this.precisionQueue.getMrd().getId();
+        int currentStepIndex = precisionQueue.getStepIndex(queueTask.getCurrentStep().getStep());
+
+        for (int i = 0; i < currentStepIndex + 1; i++) {
+            if (exhaustedSteps.get(i)) {
+                continue;
+            }
+
+            Step step = precisionQueue.getStepAt(i);
+            logger.info("Step: {} searching in queue: {}", i, precisionQueue.getName());
+            Agent agent = this.getAvailableAgentWithLeastActiveTasks(step, queueTask.getConversationId());
+            if (agent != null) {
+                logger.debug("Agent: {} is available to schedule queueTask: {}", agent.getId(), queueTask.getId());
+                return agent;
+            }
+            if (!step.hasAvailableAgent(mrdId)) {
+                exhaustedSteps.set(i);
             }
         }
 
-        return false;
+        return null;
     }
 
     /**
-     * Gets available agent with the least number of active tasks.
+     * Gets available agent with the least number of active tasks, the longest available one among equals.
      *
      * @param step           the step
      * @param conversationId the conversation id
      * @return the available agent with the least number of active tasks
      */
     Agent getAvailableAgentWithLeastActiveTasks(Step step, String conversationId) {
-        String mrdId = this.precisionQueue.getMrd().getId();
-        List<Agent> sortedAgentList = step.orderAgentsBy(AgentSelectionCriteria.LONGEST_AVAILABLE, mrdId);
-        int lowestNumberOfTasks = Integer.MAX_VALUE;
-        Agent result = null;
-
-        for (Agent agent : sortedAgentList) {
-            int noOfTasksOnMrd = agent.getNoOfActiveQueueTasks(mrdId);
-
-            if (agent.isAvailableForReservation(mrdId, conversationId) && noOfTasksOnMrd < lowestNumberOfTasks) {
-                lowestNumberOfTasks = noOfTasksOnMrd;
-                result = agent;
-            }
-        }
-        return result;
+        return step.findAvailableAgent(this.precisionQueue.getMrd().getId(), conversationId);
     }
 
     /**
-     * Assign queueTask to.
+     * Offers the reserved task to the agent and persists the reservation. Runs on the reservation executor. If
+     * the task or its media no longer exists the reservation is dropped. If the agent's reservation was cleared
+     * meanwhile, the media is no longer queued, the offer fails or the conversation can not be locked in time the
+     * reservation is compensated by unreserving the agent and putting the task back at the head of the queue. A
+     * task that lost the conversation lock is routed again by a wake-up of the queue, a failed offer waits for the
+     * next queue event so that a failing Agent-Manager is not called in a loop.
      *
-     * @param agent the agent
-     * @param task  the task
-     * @param media the media
+     * @param reservation the reservation
      */
-    private void assignTaskTo(Agent agent, Task task, TaskMedia media) {
+    void offer(Reservation reservation) {
+        QueueTask queueTask = reservation.queueTask();
+        Agent agent = reservation.agent();
+
+        Task task;
+        TaskMedia media;
+
+        // Don't block the reservation executor behind a slow call holding the conversation, route the task again.
+        if (!conversationLock.tryLock(queueTask.getConversationId())) {
+            this.compensate(reservation);
+            this.mailbox.post(new PropertyChangeEvent(this, QueueEventName.TASK_REQUEUED, null, null));
+            return;
+        }
+
         try {
-            boolean isReserved = agent.reserveTask(task, media);
+            task = this.tasksRepository.find(queueTask.getTaskId());
+            media = task != null ? task.findMediaBy(queueTask.getMediaId()) : null;
+
+            if (media == null) {
+                logger.debug("Task: {} is no longer queued, dropping reservation of agent: {}",
+                        queueTask.getTaskId(), agent.getId());
+                agent.removeReservedTask(reservation.epoch());
+                return;
+            }
 
-            if (!isReserved) {
+            // The reservation may have been cleared by a logout, or the media routed by someone else meanwhile.
+            if (agent.getReservationEpoch() != reservation.epoch() || media.getState() != TaskMediaState.QUEUED) {
+                logger.debug("Reservation of agent: {} for queueTask: {} is no longer valid",
+                        agent.getId(), queueTask.getId());
+                this.compensate(reservation);
                 return;
             }
 
-            if (this.offerToAgent(task, media, agent)) {
-                task.setAssignedTo(agent.toTaskAgent());
-                media.setState(TaskMediaState.RESERVED);
-                this.tasksRepository.update(task);
+            if (!this.offerToAgent(task, media, agent)) {
+                this.compensate(reservation);
+                return;
+            }
 
-                this.stepTimerService.stop(task.getId());
-                this.precisionQueue.dequeue();
+            this.tasksRepository.reserve(task, media.getId(), agent.toTaskAgent());
+        } catch (Exception e) {
+            logger.error(ExceptionUtils.getMessage(e));
+            logger.error(ExceptionUtils.getStackTrace(e));
+            this.compensate(reservation);
+            return;
+        } finally {
+            conversationLock.unlock(queueTask.getConversationId());
+        }
 
+        try {
+            this.stepTimerService.stop(task.getId());
+            JmsCommunicator.Batch batch = this.jmsCommunicator.beginBatch();
+            try {
                 this.jmsCommunicator.publishTaskStateChanged(task, media.getRequestSession(), false, media.getId());
                 this.jmsCommunicator.publishAgentReserved(task, media, agent.toCcUser());
-            } else {
-                agent.removeReservedTask();
+            } finally {
+                batch.close();
             }
         } catch (Exception e) {
             logger.error(ExceptionUtils.getMessage(e));
@@ -269,6 +391,46 @@ public class TaskRouter implements PropertyChangeListener {
         }
     }
 
+    /**
+     * Undoes a reservation that could not be offered. The task is put back in the queue only if it is still
+     * queued, so that a task closed or routed otherwise while it was reserved is not routed again.
+     *
+     * @param reservation the reservation
+     */
+    private void compensate(Reservation reservation) {
+        QueueTask queueTask = reservation.queueTask();
+        reservation.agent().removeReservedTask(reservation.epoch());
+
+        if (!this.isStillQueued(queueTask)) {
+            logger.debug("Task: {} is no longer queued, dropping reservation of agent: {}",
+                    queueTask.getTaskId(), reservation.agent().getId());
+            return;
+        }
+
+        logger.debug("Reservation of agent: {} for queueTask: {} failed, putting the task back in queue",
+                reservation.agent().getId(), queueTask.getId());
+        this.precisionQueue.enqueueFirst(queueTask);
+    }
+
+    /**
+     * Checks if the media of the queue task still exists and is queued. If the repository can not be read the
+     * task is assumed to be queued, a task closed meanwhile is dropped when it is offered again.
+     *
+     * @param queueTask the queue task
+     * @return true if the media still exists and is queued
+     */
+    private boolean isStillQueued(QueueTask queueTask) {
+        try {
+            Task task = this.tasksRepository.find(queueTask.getTaskId());
+            TaskMedia media = task != null ? task.findMediaBy(queueTask.getMediaId()) : null;
+            return media != null && media.getState() == TaskMediaState.QUEUED;
+        } catch (Exception e) {
+            logger.error(ExceptionUtils.getMessage(e));
+            logger.error(ExceptionUtils.getStackTrace(e));
+            return true;
+        }
+    }
+
     /**
      * Present task boolean.
      *
@@ -283,4 +445,14 @@ public class TaskRouter implements PropertyChangeListener {
         }
         return true;
     }
-}
\ No newline at end of file
+
+    /**
+     * An agent reserved for a queue task under the queue lock, not yet offered or persisted.
+     *
+     * @param queueTask the queue task
+     * @param agent     the reserved agent
+     * @param epoch     the epoch of the agent's reservation
+     */
+    record Reservation(QueueTask queueTask, Agent agent, long epoch) {
+    }
+}
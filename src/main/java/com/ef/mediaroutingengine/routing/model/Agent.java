@@ -1,6 +1,7 @@
 package com.ef.mediaroutingengine.routing.model;
 
 import com.ef.cim.objectmodel.AgentMrdState;
+import com.ef.cim.objectmodel.AgentPresence;
 import com.ef.cim.objectmodel.AgentState;
 import com.ef.cim.objectmodel.AssociatedMrd;
 import com.ef.cim.objectmodel.AssociatedRoutingAttribute;
@@ -16,16 +17,27 @@ import java.sql.Timestamp;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.ListIterator;
 import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
 import javax.validation.constraints.NotNull;
 
 /**
  * The type Agent.
  */
 public class Agent {
+    /**
+     * The epoch returned when a task could not be reserved.
+     */
+    public static final long NO_RESERVATION = 0L;
     /**
      * The Associated routing attributes.
      */
@@ -35,6 +47,16 @@ public class Agent {
      * The Active tasks.
      */
     private final Map<String, List<AgentTask>> activeTasks;
+    /**
+     * Mrd id -> number of active tasks of QUEUE routing-mode or named agent transfers on the mrd.
+     * Written under this agent's lock along with the active tasks.
+     */
+    private final Map<String, Integer> noOfActiveQueueTasks = new ConcurrentHashMap<>();
+    /**
+     * Conversation id -> the active tasks of the conversation. Written under this agent's lock along with the
+     * active tasks.
+     */
+    private final Map<String, List<AgentTask>> activeTasksByConversation = new ConcurrentHashMap<>();
     /**
      * The Agent mrd states.
      */
@@ -48,10 +70,36 @@ public class Agent {
      */
     private AgentState agentState;
     /**
-     * The Reserved task.
+     * The time the agent state was last changed.
      */
-    private AgentTask reservedTask;
+    private volatile Timestamp stateChangeTime;
+    /**
+     * The time the agent last logged in.
+     */
+    private volatile Timestamp loginTime;
+    /**
+     * The topics of the agent's stored presence, published with the presence.
+     */
+    private volatile List<String> topics;
+    /**
+     * The reservation slot, holds the reserved task and the epoch it was reserved in, null if no task is reserved.
+     */
+    private final AtomicReference<Reservation> reservation = new AtomicReference<>();
+    /**
+     * Source of the reservation epochs.
+     */
+    private final AtomicLong reservationEpochs = new AtomicLong();
     private boolean nonInterruptible;
+    /**
+     * The steps this agent is associated with, by identity as an updated step is equal to the one it replaces.
+     * Guarded by this agent.
+     */
+    private final Set<Step> associatedSteps = Collections.newSetFromMap(new IdentityHashMap<>());
+    /**
+     * Mrd id -> the agent's availability entry in its associated steps, absent if not available on the mrd.
+     * Guarded by this agent.
+     */
+    private final Map<String, AgentAvailability> availability = new HashMap<>();
 
     /**
      * Default constructor, An Agent object can only be created from a CCUser object.
@@ -132,14 +180,16 @@ public class Agent {
      *
      * @param task task to be added
      */
-    public void addActiveTask(Task task, TaskMedia taskMedia) {
+    public synchronized void addActiveTask(Task task, TaskMedia taskMedia) {
         this.activeTasks.computeIfAbsent(taskMedia.getMrdId(), k -> Collections.synchronizedList(new ArrayList<>()));
         List<AgentTask> taskList = this.activeTasks.get(taskMedia.getMrdId());
 
         AgentTask agentTask = new AgentTask(task, taskMedia);
         if (!taskList.contains(agentTask)) {
             taskList.add(agentTask);
+            this.indexActiveTask(agentTask);
         }
+        this.refreshAvailability(taskMedia.getMrdId());
     }
 
     /**
@@ -157,7 +207,7 @@ public class Agent {
      * @param taskId the task id
      * @param mrdId  the mrd id
      */
-    public void removeTask(String taskId, String mrdId) {
+    public synchronized void removeTask(String taskId, String mrdId) {
         List<AgentTask> agentTasks = this.activeTasks.get(mrdId);
 
         if (agentTasks == null) {
@@ -166,11 +216,53 @@ public class Agent {
 
         ListIterator<AgentTask> iter = agentTasks.listIterator();
         while (iter.hasNext()) {
-            if (iter.next().getTaskId().equals(taskId)) {
+            AgentTask agentTask = iter.next();
+            if (agentTask.getTaskId().equals(taskId)) {
                 iter.remove();
+                this.unindexActiveTask(agentTask);
                 break;
             }
         }
+        this.refreshAvailability(mrdId);
+    }
+
+    /**
+     * Adds an active task to the per-mrd counters and the conversation index.
+     *
+     * @param agentTask the agent task
+     */
+    private void indexActiveTask(AgentTask agentTask) {
+        if (isQueueTask(agentTask)) {
+            this.noOfActiveQueueTasks.merge(agentTask.getMrdId(), 1, Integer::sum);
+        }
+        this.activeTasksByConversation.computeIfAbsent(agentTask.getConversationId(),
+                k -> new CopyOnWriteArrayList<>()).add(agentTask);
+    }
+
+    /**
+     * Removes an active task from the per-mrd counters and the conversation index.
+     *
+     * @param agentTask the agent task
+     */
+    private void unindexActiveTask(AgentTask agentTask) {
+        if (isQueueTask(agentTask)) {
+            this.noOfActiveQueueTasks.computeIfPresent(agentTask.getMrdId(), (k, v) -> v > 1 ? v - 1 : null);
+        }
+        this.activeTasksByConversation.computeIfPresent(agentTask.getConversationId(), (k, v) -> {
+            v.remove(agentTask);
+            return v.isEmpty() ? null : v;
+        });
+    }
+
+    /**
+     * Is the task of QUEUE routing-mode or a named agent transfer.
+     *
+     * @param agentTask the agent task
+     * @return the boolean
+     */
+    private static boolean isQueueTask(AgentTask agentTask) {
+        return Enums.TaskTypeMode.QUEUE.equals(agentTask.getTaskType().getMode())
+                || TaskUtility.isNamedAgentTransfer(agentTask.getTaskType());
     }
 
     /**
@@ -180,16 +272,10 @@ public class Agent {
      * @return total number of active tasks on an agent's mrd
      */
     public int getNoOfActiveQueueTasks(String mrdId) {
-        List<AgentTask> agentTasks = this.activeTasks.get(mrdId);
-
-        if (agentTasks == null) {
+        if (mrdId == null) {
             return 0;
         }
-
-        return (int) agentTasks.stream()
-                .filter(t -> t.getTaskType().getMode().equals(Enums.TaskTypeMode.QUEUE)
-                        || TaskUtility.isNamedAgentTransfer(t.getTaskType()))
-                .count();
+        return this.noOfActiveQueueTasks.getOrDefault(mrdId, 0);
     }
 
     /**
@@ -212,6 +298,7 @@ public class Agent {
      */
     public List<AgentTask> getAllTasks() {
         List<AgentTask> result = this.getActiveTasksList();
+        AgentTask reservedTask = this.getReservedTask();
         if (reservedTask != null) {
             result.add(reservedTask);
         }
@@ -225,10 +312,23 @@ public class Agent {
      * @return the task by conversation id
      */
     public AgentTask getTaskByConversationId(String conversationId) {
-        return this.getAllTasks().stream()
-                .filter(t -> t.getConversationId().equals(conversationId))
-                .findFirst()
-                .orElse(null);
+        if (conversationId == null) {
+            return null;
+        }
+
+        List<AgentTask> conversationTasks = this.activeTasksByConversation.get(conversationId);
+        if (conversationTasks != null) {
+            // The list may be emptied concurrently, take the first task of its snapshot.
+            for (AgentTask agentTask : conversationTasks) {
+                return agentTask;
+            }
+        }
+
+        AgentTask reserved = this.getReservedTask();
+        if (reserved != null && conversationId.equals(reserved.getConversationId())) {
+            return reserved;
+        }
+        return null;
     }
 
     /**
@@ -245,9 +345,12 @@ public class Agent {
     /**
      * Clear all tasks.
      */
-    public void clearAllTasks() {
+    public synchronized void clearAllTasks() {
         this.activeTasks.replaceAll((i, v) -> Collections.synchronizedList(new ArrayList<>()));
-        this.reservedTask = null;
+        this.noOfActiveQueueTasks.clear();
+        this.activeTasksByConversation.clear();
+        this.reservation.set(null);
+        this.refreshAvailability();
     }
 
     /**
@@ -279,6 +382,62 @@ public class Agent {
      */
     public void setState(AgentState state) {
         this.agentState = state;
+        this.stateChangeTime = new Timestamp(System.currentTimeMillis());
+        this.refreshAvailability();
+    }
+
+    /**
+     * Gets the time the agent state was last changed.
+     *
+     * @return the state change time
+     */
+    public Timestamp getStateChangeTime() {
+        return stateChangeTime;
+    }
+
+    /**
+     * Sets the time the agent state was last changed, e.g. when the state is restored from the agent presence.
+     *
+     * @param stateChangeTime the state change time
+     */
+    public void setStateChangeTime(Timestamp stateChangeTime) {
+        this.stateChangeTime = stateChangeTime;
+    }
+
+    /**
+     * Gets the topics of the agent's stored presence.
+     *
+     * @return the topics
+     */
+    public List<String> getTopics() {
+        return topics;
+    }
+
+    /**
+     * Sets the topics of the agent's stored presence.
+     *
+     * @param topics the topics
+     */
+    public void setTopics(List<String> topics) {
+        this.topics = topics;
+    }
+
+    /**
+     * Gets the time the agent last logged in.
+     *
+     * @return the login time
+     */
+    public Timestamp getLoginTime() {
+        return loginTime;
+    }
+
+    /**
+     * Sets the time the agent last logged in.
+     *
+     * @param loginTime the login time
+     */
+    public void setLoginTime(Timestamp loginTime) {
+        this.loginTime = loginTime;
     }
 
     /**
@@ -301,6 +460,7 @@ public class Agent {
         this.agentMrdStates.clear();
         agentMrdStateList.forEach(agentMrdState ->
                 this.agentMrdStates.put(agentMrdState.getMrd().getId(), agentMrdState));
+        this.refreshAvailability();
     }
 
     /**
@@ -323,6 +483,7 @@ public class Agent {
      */
     public void addAgentMrdState(AgentMrdState agentMrdState) {
         this.agentMrdStates.put(agentMrdState.getMrd().getId(), agentMrdState);
+        this.refreshAvailability(agentMrdState.getMrd().getId());
     }
 
     /**
@@ -333,6 +494,7 @@ public class Agent {
     public void deleteAgentMrdState(String mrdId) {
         if (mrdId != null) {
             this.agentMrdStates.remove(mrdId);
+            this.refreshAvailability(mrdId);
         }
     }
 
@@ -343,20 +505,65 @@ public class Agent {
      * @param media the media
      * @return the boolean
      */
-    public synchronized boolean reserveTask(Task task, TaskMedia media) {
-        if (reservedTask == null) {
-            this.reservedTask = new AgentTask(task, media);
-            return true;
+    public boolean reserveTask(Task task, TaskMedia media) {
+        return this.reserveTask(new AgentTask(task, media));
+    }
+
+    /**
+     * Reserve task boolean.
+     *
+     * @param agentTask the agent task
+     * @return the boolean
+     */
+    public boolean reserveTask(AgentTask agentTask) {
+        return this.tryReserve(agentTask) != NO_RESERVATION;
+    }
+
+    /**
+     * Reserves the task for the agent if no task is reserved for it already. The slot is claimed with a
+     * compare-and-set, so of concurrent callers exactly one wins and the others fail without blocking.
+     *
+     * @param agentTask the agent task
+     * @return the epoch of the reservation, {@link #NO_RESERVATION} if a task is already reserved
+     */
+    public long tryReserve(AgentTask agentTask) {
+        if (this.reservation.get() != null) {
+            return NO_RESERVATION;
+        }
+
+        Reservation reserved = new Reservation(agentTask, this.reservationEpochs.incrementAndGet());
+        if (!this.reservation.compareAndSet(null, reserved)) {
+            return NO_RESERVATION;
         }
 
-        return false;
+        this.refreshAvailability();
+        return reserved.epoch();
     }
 
     /**
      * Remove reserved task.
      */
-    public synchronized void removeReservedTask() {
-        this.reservedTask = null;
+    public void removeReservedTask() {
+        if (this.reservation.getAndSet(null) != null) {
+            this.refreshAvailability();
+        }
+    }
+
+    /**
+     * Removes the reserved task only if it is still the reservation of the given epoch, so that a late unreserve
+     * of an earlier reservation does not release a task reserved since.
+     *
+     * @param epoch the epoch returned by {@link #tryReserve(AgentTask)}
+     * @return true if the reservation was removed, false if it is stale
+     */
+    public boolean removeReservedTask(long epoch) {
+        Reservation current = this.reservation.get();
+        if (current == null || current.epoch() != epoch || !this.reservation.compareAndSet(current, null)) {
+            return false;
+        }
+
+        this.refreshAvailability();
+        return true;
     }
 
     /**
@@ -365,11 +572,27 @@ public class Agent {
      * @return the boolean
      */
     public boolean isTaskReserved() {
-        return this.reservedTask != null;
+        return this.reservation.get() != null;
     }
 
+    /**
+     * Gets reserved task.
+     *
+     * @return the reserved task, null if no task is reserved
+     */
     public AgentTask getReservedTask() {
-        return this.reservedTask;
+        Reservation current = this.reservation.get();
+        return current != null ? current.task() : null;
+    }
+
+    /**
+     * Gets the epoch of the current reservation.
+     *
+     * @return the reservation epoch, {@link #NO_RESERVATION} if no task is reserved
+     */
+    public long getReservationEpoch() {
+        Reservation current = this.reservation.get();
+        return current != null ? current.epoch() : NO_RESERVATION;
     }
 
     public boolean isNonInterruptible() {
@@ -378,6 +601,87 @@ public class Agent {
 
     public void setNonInterruptible(boolean nonInterruptible) {
         this.nonInterruptible = nonInterruptible;
+        this.refreshAvailability();
+    }
+
+    /**
+     * Re-evaluates the agent's availability on all MRDs, see {@link #refreshAvailability(String)}.
+     */
+    public synchronized void refreshAvailability() {
+        Set<String> mrdIds = new HashSet<>(this.agentMrdStates.keySet());
+        mrdIds.addAll(this.availability.keySet());
+        mrdIds.forEach(this::refreshAvailability);
+    }
+
+    /**
+     * Re-evaluates the agent's availability for reservation on the MRD and updates its entry in the available
+     * agents of each associated step. Must be called whenever the agent's state, MRD state, reserved task or
+     * active tasks on the MRD change.
+     *
+     * @param mrdId the mrd id
+     */
+    public synchronized void refreshAvailability(String mrdId) {
+        AgentAvailability previous = this.availability.get(mrdId);
+        AgentAvailability current = this.evaluateAvailability(mrdId);
+
+        if (Objects.equals(previous, current)) {
+            return;
+        }
+
+        for (Step step : this.associatedSteps) {
+            if (previous != null) {
+                step.removeAvailableAgent(mrdId, previous);
+            }
+            if (current != null) {
+                step.addAvailableAgent(mrdId, current);
+            }
+        }
+
+        if (current != null) {
+            this.availability.put(mrdId, current);
+        } else {
+            this.availability.remove(mrdId);
+        }
+    }
+
+    /**
+     * Evaluates the agent's availability entry on an MRD.
+     *
+     * @param mrdId the mrd id
+     * @return the availability entry, null if the agent is not available for reservation on the MRD
+     */
+    private AgentAvailability evaluateAvailability(String mrdId) {
+        AgentMrdState agentMrdState = this.agentMrdStates.get(mrdId);
+        if (this.agentState == null || agentMrdState == null || agentMrdState.getState() == null
+                || !this.isAvailableForReservation(mrdId)) {
+            return null;
+        }
+
+        Timestamp readySince = agentMrdState.getStateChangeTime();
+        return new AgentAvailability(this, this.getNoOfActiveQueueTasks(mrdId),
+                readySince != null ? readySince.getTime() : Long.MAX_VALUE);
+    }
+
+    /**
+     * Associates the agent with a step, the step receives the agent's current availability entries.
+     *
+     * @param step the step
+     */
+    synchronized void addAssociatedStep(Step step) {
+        if (this.associatedSteps.add(step)) {
+            this.availability.forEach(step::addAvailableAgent);
+        }
+    }
+
+    /**
+     * Removes the agent's association with a step along with its availability entries in the step.
+     *
+     * @param step the step
+     */
+    synchronized void removeAssociatedStep(Step step) {
+        if (this.associatedSteps.remove(step)) {
+            this.availability.forEach(step::removeAvailableAgent);
+        }
     }
 
     /**
@@ -408,6 +712,19 @@ public class Agent {
         return ccUser;
     }
 
+    /**
+     * Converts the Agent object to the AgentPresence object it is persisted and published as.
+     *
+     * @return the converted AgentPresence object
+     */
+    public AgentPresence toAgentPresence() {
+        AgentPresence agentPresence = new AgentPresence(this.toCcUser(), this.agentState, this.getAgentMrdStates());
+        agentPresence.setStateChangeTime(this.stateChangeTime);
+        agentPresence.setAgentLoginTime(this.loginTime);
+        agentPresence.setTopics(this.topics);
+        return agentPresence;
+    }
+
     public TaskAgent toTaskAgent() {
         return new TaskAgent(this.getId(), this.keycloakUser.displayName());
     }
@@ -477,7 +794,15 @@ public class Agent {
     }
 
     boolean isActiveOn(String conversationId) {
-        return this.getActiveTasksList().stream()
-                .anyMatch(t -> t.getConversationId().equals(conversationId));
+        return conversationId != null && this.activeTasksByConversation.containsKey(conversationId);
+    }
+
+    /**
+     * A reserved task and the epoch it was reserved in.
+     *
+     * @param task  the reserved task
+     * @param epoch the reservation epoch
+     */
+    private record Reservation(AgentTask task, long epoch) {
     }
-}
\ No newline at end of file
+}
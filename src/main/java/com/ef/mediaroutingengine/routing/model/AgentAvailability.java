@@ -0,0 +1,27 @@
+package com.ef.mediaroutingengine.routing.model;
+
+import java.util.Comparator;
+
+/**
+ * Snapshot of an agent that is available for reservation on an MRD, ordered the way the task router picks agents:
+ * the fewest active queue tasks first, then the one that has been ready the longest.
+ *
+ * @param agent            the agent
+ * @param activeQueueTasks the number of active queue tasks of the agent on the MRD
+ * @param readySince       the last state change time of the agent's MRD state in ms
+ */
+record AgentAvailability(Agent agent, int activeQueueTasks, long readySince)
+        implements Comparable<AgentAvailability> {
+    /**
+     * The ordering of available agents.
+     */
+    private static final Comparator<AgentAvailability> ORDER = Comparator
+            .comparingInt(AgentAvailability::activeQueueTasks)
+            .thenComparingLong(AgentAvailability::readySince)
+            .thenComparing(a -> a.agent().getId());
+
+    @Override
+    public int compareTo(AgentAvailability o) {
+        return ORDER.compare(this, o);
+    }
+}
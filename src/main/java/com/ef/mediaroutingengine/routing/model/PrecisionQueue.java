@@ -14,9 +14,16 @@ import com.ef.mediaroutingengine.routing.queue.PriorityQueue;
 import com.ef.mediaroutingengine.taskmanager.model.TaskStep;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.Setter;
 import org.slf4j.Logger;
@@ -52,6 +59,12 @@ public class PrecisionQueue implements Queue {
      * The Steps.
      */
     private final List<Step> steps;
+    /**
+     * Routing-attribute id -> steps referencing it, rebuilt whenever the steps change.
+     */
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private volatile Map<String, List<Step>> stepsByRoutingAttribute = Collections.emptyMap();
     /**
      * The Mrd.
      */
@@ -84,7 +97,8 @@ public class PrecisionQueue implements Queue {
         this.serviceLevelThreshold = pqEntity.getServiceLevelThreshold();
         this.agentSlaDuration = pqEntity.getAgentSlaDuration();
         this.steps = toSteps(pqEntity.getSteps());
-        this.evaluateAgentsAssociatedWithSteps(agentsPool.findAll());
+        this.indexStepsByRoutingAttribute();
+        this.evaluateAgentsAssociatedWithSteps(agentsPool);
 
         this.serviceQueue = new PriorityQueue();
         this.taskRouter = taskRouter;
@@ -197,6 +211,7 @@ public class PrecisionQueue implements Queue {
         if (step != null) {
             synchronized (this.steps) {
                 this.steps.add(step);
+                this.indexStepsByRoutingAttribute();
             }
         }
     }
@@ -210,7 +225,8 @@ public class PrecisionQueue implements Queue {
         int index = findStepIndex(id);
         synchronized (this.steps) {
             if (index > -1) {
-                this.steps.remove(index);
+                this.steps.remove(index).clearAssociatedAgents();
+                this.indexStepsByRoutingAttribute();
             }
         }
     }
@@ -239,13 +255,47 @@ public class PrecisionQueue implements Queue {
         synchronized (this.steps) {
             for (int i = 0; i < this.steps.size(); i++) {
                 if (this.steps.get(i).equals(step)) {
-                    this.steps.set(i, step);
+                    Step replaced = this.steps.set(i, step);
+                    if (replaced != step) {
+                        replaced.clearAssociatedAgents();
+                    }
                     break;
                 }
             }
+            this.indexStepsByRoutingAttribute();
+        }
+    }
+
+    /**
+     * Rebuilds the routing-attribute -> steps index from the current steps.
+     */
+    private void indexStepsByRoutingAttribute() {
+        synchronized (this.steps) {
+            Map<String, List<Step>> index = new HashMap<>();
+            for (Step step : this.steps) {
+                for (String routingAttributeId : step.getRoutingAttributeIds()) {
+                    index.computeIfAbsent(routingAttributeId, k -> new ArrayList<>()).add(step);
+                }
+            }
+            this.stepsByRoutingAttribute = index;
         }
     }
 
+    /**
+     * Finds the steps that reference any of the given routing attributes.
+     *
+     * @param routingAttributeIds the routing attribute ids
+     * @return the steps
+     */
+    private Set<Step> findStepsReferencing(Collection<String> routingAttributeIds) {
+        Map<String, List<Step>> index = this.stepsByRoutingAttribute;
+        Set<Step> result = new LinkedHashSet<>();
+        for (String routingAttributeId : routingAttributeIds) {
+            result.addAll(index.getOrDefault(routingAttributeId, Collections.emptyList()));
+        }
+        return result;
+    }
+
     /**
      * Update queue.
      *
@@ -278,7 +328,7 @@ public class PrecisionQueue implements Queue {
     public int getPosition(Task task) {
         TaskMedia media = task.findMediaByState(TaskMediaState.QUEUED);
         if (media != null) {
-            return this.serviceQueue.getPosition(task.getId(), media.getPriority());
+            return this.serviceQueue.getPosition(task.getId());
         }
         return -1;
     }
@@ -286,40 +336,39 @@ public class PrecisionQueue implements Queue {
     /**
      * Evaluates the agents associated with each step in this precision-queue.
      *
-     * @param allAgents List of all agents in the configuration DB
+     * @param agentsPool the agents pool
      */
-    public void evaluateAgentsAssociatedWithSteps(List<Agent> allAgents) {
+    public void evaluateAgentsAssociatedWithSteps(AgentsPool agentsPool) {
         if (steps == null) {
             return;
         }
         for (Step step : steps) {
-            step.evaluateAssociatedAgents(allAgents);
+            step.evaluateAssociatedAgents(agentsPool);
         }
     }
 
     /**
-     * Evaluate agent associated with steps.
+     * Evaluate agent associated with steps. Only the steps that reference one of the agent's routing attributes
+     * can match the agent.
      *
      * @param agent the agent
      */
     public void evaluateAssociatedAgentOnInsert(Agent agent) {
-        if (steps != null) {
-            for (Step step : steps) {
-                step.evaluateAssociatedAgentOnInsert(agent);
-            }
+        for (Step step : this.findStepsReferencing(agent.getAssociatedRoutingAttributes().keySet())) {
+            step.evaluateAssociatedAgentOnInsert(agent);
         }
     }
 
     /**
-     * Evaluate associated agent on update.
+     * Evaluate associated agent on update. Only the steps that reference one of the changed routing attributes
+     * are re-evaluated, the result of the other steps can not have changed.
      *
-     * @param agent the agent
+     * @param agent                      the agent
+     * @param changedRoutingAttributeIds ids of the agent's routing attributes that were added, removed or changed
      */
-    public void evaluateAssociatedAgentOnUpdate(Agent agent) {
-        if (steps != null) {
-            for (Step step : steps) {
-                step.evaluateAssociatedAgentOnUpdate(agent);
-            }
+    public void evaluateAssociatedAgentOnUpdate(Agent agent, Set<String> changedRoutingAttributeIds) {
+        for (Step step : this.findStepsReferencing(changedRoutingAttributeIds)) {
+            step.evaluateAssociatedAgentOnUpdate(agent);
         }
     }
 
@@ -334,7 +383,7 @@ public class PrecisionQueue implements Queue {
 
     @Override
     public boolean enqueue(QueueTask task) {
-        if (task == null || this.serviceQueue.exists(task.getId())) {
+        if (task == null || this.serviceQueue.exists(task.getTaskId())) {
             return false;
         }
         boolean isEnqueued = serviceQueue.enqueue(task);
@@ -342,6 +391,22 @@ public class PrecisionQueue implements Queue {
         return isEnqueued;
     }
 
+    /**
+     * Puts a task back at the head of its priority level, used when a task that was dequeued for reservation
+     * could not be offered to the reserved agent.
+     *
+     * @param task the task
+     * @return the boolean
+     */
+    public boolean enqueueFirst(QueueTask task) {
+        if (task == null) {
+            return false;
+        }
+        boolean isEnqueued = this.serviceQueue.enqueueFirst(task);
+        printQueue();
+        return isEnqueued;
+    }
+
     @Override
     public QueueTask dequeue() {
         QueueTask task = this.serviceQueue.dequeue(true); //serviceQueue.poll
@@ -375,6 +440,16 @@ public class PrecisionQueue implements Queue {
         return task;
     }
 
+    /**
+     * Returns an iterator over the queued tasks in dequeue order. The caller must hold the lock on the service
+     * queue while iterating and may only remove the task last returned, see {@link PriorityQueue#iterator()}.
+     *
+     * @return the iterator
+     */
+    public Iterator<QueueTask> iterator() {
+        return this.serviceQueue.iterator();
+    }
+
     /**
      * Remove by task id boolean.
      *
@@ -31,4 +31,12 @@ public final class QueueEventName {
      * The constant ON_FAILOVER.
      */
     public static final String ON_FAILOVER = "ON_FAILOVER";
+    /**
+     * The constant ROUTE_REMAINING, posted by a task router that stopped at its reservation limit.
+     */
+    public static final String ROUTE_REMAINING = "ROUTE_REMAINING";
+    /**
+     * The constant TASK_REQUEUED, posted by a task router that put a task back because its conversation was busy.
+     */
+    public static final String TASK_REQUEUED = "TASK_REQUEUED";
 }
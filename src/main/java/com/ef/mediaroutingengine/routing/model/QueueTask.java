@@ -1,6 +1,9 @@
 package com.ef.mediaroutingengine.routing.model;
 
 import com.ef.cim.objectmodel.task.TaskMedia;
+import com.ef.cim.objectmodel.task.TaskQueue;
+import com.ef.cim.objectmodel.task.TaskType;
+import com.ef.mediaroutingengine.routing.utility.TaskUtility;
 import com.ef.mediaroutingengine.taskmanager.model.TaskStep;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import java.util.UUID;
@@ -43,6 +46,26 @@ public class QueueTask {
      * The Enqueue time.
      */
     private final Long enqueueTime;
+    /**
+     * The Mrd id.
+     */
+    @JsonIgnore
+    private final String mrdId;
+    /**
+     * The Task type.
+     */
+    @JsonIgnore
+    private final TaskType type;
+    /**
+     * The Task queue.
+     */
+    @JsonIgnore
+    private final TaskQueue queue;
+    /**
+     * The Last assigned agent id.
+     */
+    @JsonIgnore
+    private final String lastAssignedAgentId;
     /**
      * The Current step.
      */
@@ -58,6 +81,23 @@ public class QueueTask {
      */
     public QueueTask(String conversationId, String taskId, String mediaId, String queueId, int priority,
                      long enqueueTime) {
+        this(conversationId, taskId, mediaId, queueId, priority, enqueueTime, null, null, null, null);
+    }
+
+    /**
+     * Instantiates a new Queue task from the media to be routed.
+     *
+     * @param conversationId the conversation id
+     * @param media          the media
+     */
+    public QueueTask(String conversationId, TaskMedia media) {
+        this(conversationId, media.getTaskId(), media.getId(), media.getQueue().getId(), media.getPriority(),
+                media.getEnqueueTime(), media.getMrdId(), media.getType(), media.getQueue(),
+                TaskUtility.getLastAssignedAgentId(media));
+    }
+
+    private QueueTask(String conversationId, String taskId, String mediaId, String queueId, int priority,
+                      long enqueueTime, String mrdId, TaskType type, TaskQueue queue, String lastAssignedAgentId) {
         this.id = UUID.randomUUID().toString();
         this.conversationId = conversationId;
         this.taskId = taskId;
@@ -65,15 +105,18 @@ public class QueueTask {
         this.queueId = queueId;
         this.priority = priority;
         this.enqueueTime = enqueueTime;
+        this.mrdId = mrdId;
+        this.type = type;
+        this.queue = queue;
+        this.lastAssignedAgentId = lastAssignedAgentId;
     }
 
-    public QueueTask(String conversationId, TaskMedia media) {
-        this(conversationId, media.getTaskId(), media.getId(), media.getQueue().getId(), media.getPriority(),
-                media.getEnqueueTime());
-    }
-
-    @JsonIgnore
-    public String getLastAssignedAgentId() {
-        return null;
+    /**
+     * Converts the queue task to the agent task an agent is reserved with.
+     *
+     * @return the agent task
+     */
+    public AgentTask toAgentTask() {
+        return new AgentTask(this.taskId, this.mediaId, this.conversationId, this.mrdId, this.type, this.queue);
     }
 }
@@ -1,15 +1,23 @@
 package com.ef.mediaroutingengine.routing.model;
 
-import static com.ef.mediaroutingengine.routing.utility.StepCriteriaBuilder.buildCriteria;
-import static com.ef.mediaroutingengine.routing.utility.StepCriteriaEvaluator.evaluate;
-
 import com.ef.cim.objectmodel.ExpressionEntity;
 import com.ef.cim.objectmodel.StepEntity;
+import com.ef.mediaroutingengine.routing.pool.AgentsPool;
+import com.ef.mediaroutingengine.routing.utility.StepCriteriaCompiler;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
 import java.util.Objects;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.function.Predicate;
 
 /**
  * The type Step.
@@ -23,10 +31,23 @@ public class Step {
      * The Associated agents.
      */
     private final List<Agent> associatedAgents;
+    /**
+     * Mrd id -> the associated agents currently available for reservation on the mrd, best candidate first.
+     * Maintained by the agents, see {@link Agent#refreshAvailability(String)}.
+     */
+    private final Map<String, NavigableSet<AgentAvailability>> availableAgents = new ConcurrentHashMap<>();
     /**
      * The Expressions.
      */
     private List<Expression> expressions;
+    /**
+     * The expressions compiled into a predicate, recompiled whenever the expressions are set.
+     */
+    private Predicate<Agent> criteria;
+    /**
+     * Ids of the routing attributes referenced in the expressions.
+     */
+    private Set<String> routingAttributeIds;
     /**
      * The Timeout.
      */
@@ -38,6 +59,7 @@ public class Step {
     public Step() {
         this.id = UUID.randomUUID().toString();
         this.expressions = new ArrayList<>();
+        this.compileCriteria();
         this.associatedAgents = new ArrayList<>();
     }
 
@@ -49,6 +71,7 @@ public class Step {
     public Step(StepEntity stepEntity) {
         this.id = stepEntity.getId();
         this.expressions = toExpressions(stepEntity.getExpressions());
+        this.compileCriteria();
         this.timeout = stepEntity.getTimeout();
         this.associatedAgents = new ArrayList<>();
     }
@@ -95,6 +118,34 @@ public class Step {
      */
     public void setExpressions(List<Expression> expressions) {
         this.expressions = expressions;
+        this.compileCriteria();
+    }
+
+    /**
+     * Compiles the expressions into the criteria predicate and collects the referenced routing attributes.
+     */
+    private void compileCriteria() {
+        Set<String> ids = new HashSet<>();
+        if (this.expressions != null) {
+            for (Expression expression : this.expressions) {
+                for (Term term : expression.getTerms()) {
+                    if (term.getRoutingAttribute() != null) {
+                        ids.add(term.getRoutingAttribute().getId());
+                    }
+                }
+            }
+        }
+        this.routingAttributeIds = Collections.unmodifiableSet(ids);
+        this.criteria = StepCriteriaCompiler.compile(this);
+    }
+
+    /**
+     * Gets the ids of the routing attributes referenced in the expressions.
+     *
+     * @return the routing attribute ids
+     */
+    public Set<String> getRoutingAttributeIds() {
+        return routingAttributeIds;
     }
 
     /**
@@ -116,15 +167,29 @@ public class Step {
     }
 
     /**
-     * Evaluate associated agents.
+     * Evaluates the associated agents with range lookups on the routing-attribute index of the agents pool.
+     * Every term requires its routing attribute, so an agent that matches the criteria matches at least one
+     * term, and only the agents matching a term need to be tested against the criteria.
      *
-     * @param allAgents the all agents
+     * @param agentsPool the agents pool
      */
-    public void evaluateAssociatedAgents(List<Agent> allAgents) {
+    public void evaluateAssociatedAgents(AgentsPool agentsPool) {
+        Set<Agent> candidates = new LinkedHashSet<>();
+        for (Expression expression : this.expressions) {
+            for (Term term : expression.getTerms()) {
+                if (term.getRoutingAttribute() != null) {
+                    candidates.addAll(agentsPool.findAllByRoutingAttribute(term.getRoutingAttribute().getId(),
+                            term.getRelationalOperator(), term.getValue()));
+                }
+            }
+        }
+
         synchronized (this.associatedAgents) {
-            this.associatedAgents.clear();
-            for (Agent agent : allAgents) {
-                evaluateAssociatedAgentOnInsert(agent);
+            this.clearAssociatedAgents();
+            for (Agent agent : candidates) {
+                if (isAssociated(agent)) {
+                    this.associate(agent);
+                }
             }
         }
     }
@@ -137,7 +202,9 @@ public class Step {
     public void evaluateAssociatedAgentOnInsert(Agent agent) {
         if (isAssociated(agent)) {
             synchronized (this.associatedAgents) {
-                this.associatedAgents.add(agent);
+                if (getIndexOf(agent) == -1) {
+                    this.associate(agent);
+                }
             }
         }
     }
@@ -152,9 +219,9 @@ public class Step {
         synchronized (this.associatedAgents) {
             int index = getIndexOf(agent);
             if (isAssociated && index == -1) {
-                this.associatedAgents.add(agent);
+                this.associate(agent);
             } else if (!isAssociated && index > -1) {
-                this.associatedAgents.remove(index);
+                this.dissociate(index);
             }
         }
     }
@@ -166,7 +233,7 @@ public class Step {
      * @return the boolean
      */
     private boolean isAssociated(Agent agent) {
-        return evaluate(buildCriteria(agent, this));
+        return this.criteria.test(agent);
     }
 
     /**
@@ -212,9 +279,109 @@ public class Step {
         synchronized (this.associatedAgents) {
             int index = this.getIndexOf(id);
             if (index > -1) {
-                associatedAgents.remove(index);
+                this.dissociate(index);
+            }
+        }
+    }
+
+    /**
+     * Removes all associated agents. Called when the step is deleted or replaced by an updated step, so that the
+     * agents stop maintaining their availability in it.
+     */
+    public void clearAssociatedAgents() {
+        synchronized (this.associatedAgents) {
+            for (Agent agent : this.associatedAgents) {
+                agent.removeAssociatedStep(this);
+            }
+            this.associatedAgents.clear();
+        }
+    }
+
+    /**
+     * Adds an associated agent, the agent adds its availability entries in the step. The caller holds the lock
+     * on the associated agents.
+     *
+     * @param agent the agent
+     */
+    private void associate(Agent agent) {
+        this.associatedAgents.add(agent);
+        agent.addAssociatedStep(this);
+    }
+
+    /**
+     * Removes the associated agent at the index, the agent removes its availability entries from the step.
+     * The caller holds the lock on the associated agents.
+     *
+     * @param index the index
+     */
+    private void dissociate(int index) {
+        Agent agent = this.associatedAgents.remove(index);
+        agent.removeAssociatedStep(this);
+    }
+
+    /**
+     * Adds an available agent entry.
+     *
+     * @param mrdId        the mrd id
+     * @param availability the availability entry
+     */
+    void addAvailableAgent(String mrdId, AgentAvailability availability) {
+        this.availableAgents.computeIfAbsent(mrdId, k -> new ConcurrentSkipListSet<>()).add(availability);
+    }
+
+    /**
+     * Removes an available agent entry.
+     *
+     * @param mrdId        the mrd id
+     * @param availability the availability entry
+     */
+    void removeAvailableAgent(String mrdId, AgentAvailability availability) {
+        NavigableSet<AgentAvailability> agents = this.availableAgents.get(mrdId);
+        if (agents != null) {
+            agents.remove(availability);
+        }
+    }
+
+    /**
+     * Checks whether any associated agent is available for reservation on the MRD, regardless of the conversation
+     * of the task to be routed.
+     *
+     * @param mrdId the mrd id
+     * @return true if an associated agent is available, false otherwise
+     */
+    public boolean hasAvailableAgent(String mrdId) {
+        NavigableSet<AgentAvailability> agents = this.availableAgents.get(mrdId);
+        if (agents == null) {
+            return false;
+        }
+        for (AgentAvailability entry : agents) {
+            if (entry.agent().isAvailableForReservation(mrdId)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Finds the associated agent with the least active queue tasks on the MRD that is available for reservation,
+     * the agent that has been ready the longest among equals. Walks the available agents in order, so the first
+     * entry is returned unless it has gone stale between the agent's state change and its availability refresh.
+     *
+     * @param mrdId          the mrd id
+     * @param conversationId the conversation id of the task to be routed
+     * @return the agent, null if no associated agent is available
+     */
+    public Agent findAvailableAgent(String mrdId, String conversationId) {
+        NavigableSet<AgentAvailability> agents = this.availableAgents.get(mrdId);
+        if (agents == null) {
+            return null;
+        }
+        for (AgentAvailability entry : agents) {
+            if (entry.agent().isAvailableForReservation(mrdId, conversationId)) {
+                return entry.agent();
             }
         }
+        return null;
     }
 
     /**
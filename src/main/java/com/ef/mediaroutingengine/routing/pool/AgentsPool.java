@@ -4,13 +4,23 @@ import com.ef.cim.objectmodel.CCUser;
 import com.ef.cim.objectmodel.task.TaskAgent;
 import com.ef.mediaroutingengine.routing.model.Agent;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Objects;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
 import org.springframework.stereotype.Service;
 
 /**
  * The type Agents pool.
+ *
+ * <p>Besides the agents, the pool keeps an inverted index from routing-attribute id to the agents associated with
+ * it, sorted by the attribute's value, so that the agents matching a step term are found with a range lookup.
  */
 @Service
 public class AgentsPool {
@@ -18,15 +28,29 @@ public class AgentsPool {
      * The Agents.
      */
     private final Map<String, Agent> pool = new ConcurrentHashMap<>();
+    /**
+     * Routing-attribute id -> attribute value -> agents associated with the attribute at that value.
+     */
+    private final Map<String, NavigableMap<Integer, Set<Agent>>> routingAttributeIndex = new ConcurrentHashMap<>();
+    /**
+     * Agent id -> (routing-attribute id -> value) as currently reflected in the routing-attribute index.
+     */
+    private final Map<String, Map<String, Integer>> indexedAttributes = new ConcurrentHashMap<>();
 
     /**
      * Loads the pool at start of the application.
      *
      * @param ccUsers list of CCUsers from the config DB.
      */
-    public void loadFrom(List<CCUser> ccUsers) {
+    public synchronized void loadFrom(List<CCUser> ccUsers) {
         this.pool.clear();
-        ccUsers.forEach(ccUser -> this.pool.put(ccUser.getId(), new Agent(ccUser)));
+        this.routingAttributeIndex.clear();
+        this.indexedAttributes.clear();
+        ccUsers.forEach(ccUser -> {
+            Agent agent = new Agent(ccUser);
+            this.pool.put(ccUser.getId(), agent);
+            this.reindex(agent);
+        });
     }
 
     /**
@@ -35,8 +59,8 @@ public class AgentsPool {
      * @param agent the agent
      */
     public void insert(Agent agent) {
-        if (agent != null) {
-            this.pool.putIfAbsent(agent.getId(), agent);
+        if (agent != null && this.pool.putIfAbsent(agent.getId(), agent) == null) {
+            this.reindex(agent);
         }
     }
 
@@ -85,10 +109,114 @@ public class AgentsPool {
      */
     public void deleteById(String id) {
         if (id != null) {
-            this.pool.remove(id);
+            Agent removed = this.pool.remove(id);
+            if (removed != null) {
+                this.unindex(removed);
+            }
         }
     }
 
+    /**
+     * Brings the routing-attribute index up to date with the agent's associated routing attributes. Must be
+     * called whenever the routing attributes of an agent in the pool change.
+     *
+     * @param agent the agent
+     * @return ids of the routing attributes that were added, removed or changed value
+     */
+    public synchronized Set<String> reindex(Agent agent) {
+        Map<String, Integer> current = new HashMap<>();
+        agent.getAssociatedRoutingAttributes().forEach((id, attribute) -> current.put(id, attribute.getValue()));
+
+        Map<String, Integer> previous = this.indexedAttributes.getOrDefault(agent.getId(), Collections.emptyMap());
+        Set<String> changed = new HashSet<>();
+
+        previous.forEach((id, value) -> {
+            if (!value.equals(current.get(id))) {
+                this.removeFromIndex(id, value, agent);
+                changed.add(id);
+            }
+        });
+        current.forEach((id, value) -> {
+            if (!value.equals(previous.get(id))) {
+                this.routingAttributeIndex.computeIfAbsent(id, k -> new ConcurrentSkipListMap<>())
+                        .computeIfAbsent(value, k -> ConcurrentHashMap.newKeySet())
+                        .add(agent);
+                changed.add(id);
+            }
+        });
+
+        this.indexedAttributes.put(agent.getId(), current);
+        return changed;
+    }
+
+    /**
+     * Removes the agent from the routing-attribute index.
+     *
+     * @param agent the agent
+     */
+    private synchronized void unindex(Agent agent) {
+        Map<String, Integer> previous = this.indexedAttributes.remove(agent.getId());
+        if (previous != null) {
+            previous.forEach((id, value) -> this.removeFromIndex(id, value, agent));
+        }
+    }
+
+    /**
+     * Removes the agent from the routing-attribute index entry of the given attribute value.
+     *
+     * @param routingAttributeId the routing attribute id
+     * @param value              the value
+     * @param agent              the agent
+     */
+    private void removeFromIndex(String routingAttributeId, Integer value, Agent agent) {
+        NavigableMap<Integer, Set<Agent>> byValue = this.routingAttributeIndex.get(routingAttributeId);
+        if (byValue == null) {
+            return;
+        }
+        Set<Agent> agents = byValue.get(value);
+        if (agents != null) {
+            agents.removeIf(a -> Objects.equals(a.getId(), agent.getId()));
+            if (agents.isEmpty()) {
+                byValue.remove(value);
+            }
+        }
+    }
+
+    /**
+     * Finds the agents associated with a routing attribute whose value satisfies the relational operator
+     * against the given value, e.g. all agents with attribute 'English' &gt;= 5.
+     *
+     * @param routingAttributeId the routing attribute id
+     * @param relationalOperator the relational operator
+     * @param value              the value to compare against
+     * @return the matching agents, empty if none match or the operator is unknown
+     */
+    public Set<Agent> findAllByRoutingAttribute(String routingAttributeId, String relationalOperator, int value) {
+        NavigableMap<Integer, Set<Agent>> byValue = routingAttributeId != null
+                ? this.routingAttributeIndex.get(routingAttributeId) : null;
+        if (byValue == null || relationalOperator == null) {
+            return Collections.emptySet();
+        }
+
+        NavigableMap<Integer, Set<Agent>> range = switch (relationalOperator) {
+            case "==" -> byValue.subMap(value, true, value, true);
+            case "!=" -> byValue;
+            case ">" -> byValue.tailMap(value, false);
+            case ">=" -> byValue.tailMap(value, true);
+            case "<" -> byValue.headMap(value, false);
+            case "<=" -> byValue.headMap(value, true);
+            default -> Collections.emptyNavigableMap();
+        };
+
+        Set<Agent> result = new HashSet<>();
+        range.forEach((v, agents) -> {
+            if (!"!=".equals(relationalOperator) || v != value) {
+                result.addAll(agents);
+            }
+        });
+        return result;
+    }
+
     /**
      * Size int.
      *
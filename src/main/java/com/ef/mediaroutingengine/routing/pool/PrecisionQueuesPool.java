@@ -4,19 +4,18 @@ import com.ef.cim.objectmodel.AgentMrdState;
 import com.ef.cim.objectmodel.PrecisionQueueEntity;
 import com.ef.cim.objectmodel.task.Task;
 import com.ef.cim.objectmodel.task.TaskMedia;
-import com.ef.mediaroutingengine.global.commons.Constants;
 import com.ef.mediaroutingengine.routing.TaskRouter;
 import com.ef.mediaroutingengine.routing.model.Agent;
 import com.ef.mediaroutingengine.routing.model.NewTaskPayload;
 import com.ef.mediaroutingengine.routing.model.PrecisionQueue;
 import com.ef.mediaroutingengine.routing.model.QueueEventName;
+import com.ef.mediaroutingengine.routing.model.Step;
 import java.beans.PropertyChangeEvent;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.CompletableFuture;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
-import org.slf4j.MDC;
 import org.springframework.beans.factory.annotation.Lookup;
 import org.springframework.stereotype.Repository;
 
@@ -96,7 +95,11 @@ public class PrecisionQueuesPool {
      */
     public boolean deleteById(String id) {
         PrecisionQueue removed = this.pool.remove(id);
-        return removed != null;
+        if (removed == null) {
+            return false;
+        }
+        removed.getSteps().forEach(Step::clearAssociatedAgents);
+        return true;
     }
 
     /**
@@ -133,10 +136,13 @@ public class PrecisionQueuesPool {
     /**
      * Evaluate on update for all.
      *
-     * @param agent the agent
+     * @param agent                      the agent
+     * @param changedRoutingAttributeIds ids of the agent's routing attributes that were added, removed or changed
      */
-    public void evaluateOnUpdateForAll(Agent agent) {
-        pool.forEach((k, v) -> v.evaluateAssociatedAgentOnUpdate(agent));
+    public void evaluateOnUpdateForAll(Agent agent, Set<String> changedRoutingAttributeIds) {
+        if (!changedRoutingAttributeIds.isEmpty()) {
+            pool.forEach((k, v) -> v.evaluateAssociatedAgentOnUpdate(agent, changedRoutingAttributeIds));
+        }
     }
 
     /**
@@ -157,7 +163,10 @@ public class PrecisionQueuesPool {
     public void publishNewRequest(Task task, TaskMedia media) {
         String evtName = QueueEventName.NEW_REQUEST;
         NewTaskPayload payload = new NewTaskPayload(task, media);
-        this.notifyQueues(new PropertyChangeEvent(this, evtName, null, payload));
+        PrecisionQueue queue = this.findById(media.getQueue().getId());
+        if (queue != null) {
+            queue.getTaskRouter().propertyChange(new PropertyChangeEvent(this, evtName, null, payload));
+        }
     }
 
     /**
@@ -208,19 +217,15 @@ public class PrecisionQueuesPool {
     }
 
     /**
-     * Notify queues.
+     * Notify queues. The event is posted to the mailbox of each queue's task router and handled on the routing
+     * executor.
      *
      * @param evt    the evt
      * @param queues the queues
      */
     private void notifyQueues(PropertyChangeEvent evt, List<PrecisionQueue> queues) {
-        String correlationId = MDC.get(Constants.MDC_CORRELATION_ID);
-        CompletableFuture.runAsync(() -> {
-            MDC.put(Constants.MDC_CORRELATION_ID, correlationId);
-            for (PrecisionQueue queue : queues) {
-                queue.getTaskRouter().propertyChange(evt);
-            }
-            MDC.clear();
-        });
+        for (PrecisionQueue queue : queues) {
+            queue.getTaskRouter().propertyChange(evt);
+        }
     }
 }
@@ -1,44 +1,87 @@
 package com.ef.mediaroutingengine.routing.queue;
 
 import com.ef.mediaroutingengine.routing.model.QueueTask;
-import java.util.LinkedList;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.NoSuchElementException;
 import javax.validation.constraints.NotNull;
 
 /**
  * The type Priority queue.
+ *
+ * <p>Tasks are kept in one intrusive doubly linked list per priority level, highest level served first and FIFO
+ * within a level. A task-id index gives O(1) exists and remove, and each level keeps a Fenwick tree over the
+ * insertion slots of its tasks so that the position of a task in the queue is found in O(log n).
  */
 public class PriorityQueue {
-    /**
-     * The Multi level queue map.
-     */
-    private final Map<Integer, ConcurrentLinkedQueue<QueueTask>> multiLevelQueueMap;
     /**
      * The No of queue levels.
      */
     private static final int NO_OF_QUEUE_LEVELS = 11;
+    /**
+     * The queue levels, indexed by priority.
+     */
+    private final Level[] levels;
+    /**
+     * Task id -> node of the task.
+     */
+    private final Map<String, Node> index;
 
     /**
      * Instantiates a new Priority queue.
      */
     public PriorityQueue() {
-        this.multiLevelQueueMap = new ConcurrentHashMap<>();
+        this.levels = new Level[NO_OF_QUEUE_LEVELS + 1];
         for (int i = NO_OF_QUEUE_LEVELS; i >= 1; i--) {
-            this.multiLevelQueueMap.put(i, new ConcurrentLinkedQueue<>());
+            this.levels[i] = new Level();
         }
+        this.index = new HashMap<>();
     }
 
     /**
      * Enqueue boolean.
      *
      * @param task the task service
-     * @return the boolean
+     * @return true if the task is enqueued, false if a task with the same task id is already in the queue
+     * @throws IllegalArgumentException if the task's priority is not a valid queue level
      */
-    public boolean enqueue(@NotNull QueueTask task) {
-        return this.multiLevelQueueMap.get(task.getPriority()).offer(task);
+    public synchronized boolean enqueue(@NotNull QueueTask task) {
+        Level level = this.levelOf(task);
+        if (this.index.containsKey(task.getTaskId())) {
+            return false;
+        }
+
+        this.index.put(task.getTaskId(), level.append(task));
+        return true;
+    }
+
+    /**
+     * Enqueues the task at the head of its priority level, used to put back a task that was dequeued but could
+     * not be routed.
+     *
+     * @param task the task
+     * @return true if the task is enqueued, false if a task with the same task id is already in the queue
+     * @throws IllegalArgumentException if the task's priority is not a valid queue level
+     */
+    public synchronized boolean enqueueFirst(@NotNull QueueTask task) {
+        Level level = this.levelOf(task);
+        if (this.index.containsKey(task.getTaskId())) {
+            return false;
+        }
+
+        this.index.put(task.getTaskId(), level.prepend(task));
+        return true;
+    }
+
+    private Level levelOf(QueueTask task) {
+        int priority = task.getPriority();
+        if (priority < 1 || priority > NO_OF_QUEUE_LEVELS) {
+            throw new IllegalArgumentException("Invalid task priority: " + priority);
+        }
+        return this.levels[priority];
     }
 
     /**
@@ -48,12 +91,15 @@ public class PriorityQueue {
      *             removed from queue otherwise (queue peek operation)
      * @return the task service in both cases (poll or peak), returns null if task not found
      */
-    public QueueTask dequeue(boolean poll) {
+    public synchronized QueueTask dequeue(boolean poll) {
         for (int i = NO_OF_QUEUE_LEVELS; i >= 1; i--) {
-            if (!this.multiLevelQueueMap.get(i).isEmpty()) {
-                return poll
-                        ? this.multiLevelQueueMap.get(i).poll()
-                        : this.multiLevelQueueMap.get(i).peek();
+            Node head = this.levels[i].head;
+            if (head != null) {
+                if (poll) {
+                    this.index.remove(head.task.getTaskId());
+                    this.levels[i].unlink(head);
+                }
+                return head.task;
             }
         }
         return null;
@@ -64,9 +110,10 @@ public class PriorityQueue {
      *
      * @param taskId the task id
      */
-    public void remove(@NotNull String taskId) {
-        for (Map.Entry<Integer, ConcurrentLinkedQueue<QueueTask>> entry : this.multiLevelQueueMap.entrySet()) {
-            entry.getValue().removeIf(t -> t.getTaskId().equals(taskId));
+    public synchronized void remove(@NotNull String taskId) {
+        Node node = this.index.remove(taskId);
+        if (node != null) {
+            this.levels[node.task.getPriority()].unlink(node);
         }
     }
 
@@ -75,12 +122,8 @@ public class PriorityQueue {
      *
      * @return the int size of the Priority queue
      */
-    public int size() {
-        int size = 0;
-        for (int i = NO_OF_QUEUE_LEVELS; i >= 1; i--) {
-            size = size + this.multiLevelQueueMap.get(i).size();
-        }
-        return size;
+    public synchronized int size() {
+        return this.index.size();
     }
 
     /**
@@ -89,76 +132,98 @@ public class PriorityQueue {
      * @param taskId the task id
      * @return the boolean
      */
-    public boolean exists(String taskId) {
-        for (Map.Entry<Integer, ConcurrentLinkedQueue<QueueTask>> entry : this.multiLevelQueueMap.entrySet()) {
-            for (QueueTask task1 : entry.getValue()) {
-                if (taskId.equals(task1.getId())) {
-                    return true;
-                }
-            }
-        }
-        return false;
+    public synchronized boolean exists(String taskId) {
+        return this.index.containsKey(taskId);
     }
 
-
-
     /**
-     * Returns the list of enqueued tasks.
+     * Returns the list of enqueued tasks in the order they will be dequeued.
      *
      * @return list of enqueued tasks
      */
-    public List<QueueTask> getAll() {
-        List<QueueTask> taskList = new LinkedList<>();
-        for (Map.Entry<Integer, ConcurrentLinkedQueue<QueueTask>> entry : this.multiLevelQueueMap.entrySet()) {
-            taskList.addAll(entry.getValue());
+    public synchronized List<QueueTask> getAll() {
+        List<QueueTask> taskList = new ArrayList<>(this.index.size());
+        for (int i = NO_OF_QUEUE_LEVELS; i >= 1; i--) {
+            for (Node node = this.levels[i].head; node != null; node = node.next) {
+                taskList.add(node.task);
+            }
         }
         return taskList;
     }
 
     /**
-     * Gets position.
+     * Returns an iterator over the enqueued tasks in the order they will be dequeued. The caller must hold the
+     * lock on this queue while iterating; the task last returned may be removed from the queue, any other
+     * modification invalidates the iterator.
      *
-     * @param taskId   the task id
-     * @param priority the priority
-     * @return the position
+     * @return the iterator
      */
-    public int getPosition(String taskId, int priority) {
-        int positionInSamePriority = getPositionInSamePriority(taskId, priority);
+    public Iterator<QueueTask> iterator() {
+        return new Iterator<>() {
+            private int level = NO_OF_QUEUE_LEVELS + 1;
+            private Node next = this.advance(null);
+
+            @Override
+            public boolean hasNext() {
+                return this.next != null;
+            }
 
-        if (positionInSamePriority == -1) {
+            @Override
+            public QueueTask next() {
+                if (this.next == null) {
+                    throw new NoSuchElementException();
+                }
+                Node current = this.next;
+                this.next = this.advance(current);
+                return current.task;
+            }
+
+            private Node advance(Node from) {
+                if (from != null && from.next != null) {
+                    return from.next;
+                }
+                while (--this.level >= 1) {
+                    if (PriorityQueue.this.levels[this.level].head != null) {
+                        return PriorityQueue.this.levels[this.level].head;
+                    }
+                }
+                return null;
+            }
+        };
+    }
+
+    /**
+     * Gets the 1-based position of a task in the queue.
+     *
+     * @param taskId the task id
+     * @return the position, -1 if the task is not in the queue
+     */
+    public synchronized int getPosition(String taskId) {
+        Node node = this.index.get(taskId);
+        if (node == null) {
             return -1;
         }
 
-        int position = positionInSamePriority;
+        int priority = node.task.getPriority();
+        int position = this.levels[priority].rankOf(node);
 
         for (int i = priority + 1; i <= NO_OF_QUEUE_LEVELS; i++) {
-            position += this.multiLevelQueueMap.get(i).size();
+            position += this.levels[i].size;
         }
 
         return position;
     }
 
-    private int getPositionInSamePriority(String taskId, int priority) {
-        int position = 1;
-        for (QueueTask queuedTask : this.multiLevelQueueMap.get(priority)) {
-            if (queuedTask.getTaskId().equals(taskId)) {
-                return position;
-            }
-            position++;
-        }
-        return -1;
-    }
-
     @Override
-    public String toString() {
+    public synchronized String toString() {
         StringBuilder result = new StringBuilder("->/");
 
         for (int i = NO_OF_QUEUE_LEVELS; i >= 1; i--) {
-            for (QueueTask task : this.multiLevelQueueMap.get(i)) {
+            for (Node node = this.levels[i].head; node != null; node = node.next) {
                 result.append("Task ID: ")
-                        .append(task.getTaskId())
+                        .append(node.task.getTaskId())
                         .append(", Media ID: ")
-                        .append(task.getMediaId())
+                        .append(node.task.getMediaId())
                         .append("|");
             }
         }
@@ -171,4 +236,130 @@ public class PriorityQueue {
 
         return result.toString();
     }
+
+    /**
+     * A task linked in its priority level.
+     */
+    private static final class Node {
+        private final QueueTask task;
+        /**
+         * Insertion slot of the node in its level's Fenwick tree, increases from head to tail.
+         */
+        private int slot;
+        private Node prev;
+        private Node next;
+
+        Node(QueueTask task, int slot) {
+            this.task = task;
+            this.slot = slot;
+        }
+    }
+
+    /**
+     * One priority level: a FIFO linked list of nodes and a Fenwick tree counting the occupied slots.
+     */
+    private static final class Level {
+        private static final int MIN_CAPACITY = 16;
+        private Node head;
+        private Node tail;
+        private int size;
+        /**
+         * Fenwick tree over the slots, 1-based.
+         */
+        private int[] tree = new int[MIN_CAPACITY + 1];
+        private int nextSlot;
+
+        Node append(QueueTask task) {
+            if (this.nextSlot == this.tree.length - 1) {
+                this.compact();
+            }
+
+            Node node = new Node(task, this.nextSlot++);
+            if (this.tail == null) {
+                this.head = node;
+            } else {
+                this.tail.next = node;
+                node.prev = this.tail;
+            }
+            this.tail = node;
+            this.size++;
+            this.add(node.slot, 1);
+            return node;
+        }
+
+        Node prepend(QueueTask task) {
+            if (this.head == null) {
+                return this.append(task);
+            }
+            if (this.head.slot == 0) {
+                this.compact();
+            }
+
+            Node node = new Node(task, this.head.slot - 1);
+            node.next = this.head;
+            this.head.prev = node;
+            this.head = node;
+            this.size++;
+            this.add(node.slot, 1);
+            return node;
+        }
+
+        void unlink(Node node) {
+            if (node.prev == null) {
+                this.head = node.next;
+            } else {
+                node.prev.next = node.next;
+            }
+            if (node.next == null) {
+                this.tail = node.prev;
+            } else {
+                node.next.prev = node.prev;
+            }
+            node.prev = null;
+            node.next = null;
+            this.size--;
+            this.add(node.slot, -1);
+        }
+
+        /**
+         * Returns the 1-based position of the node in this level, i.e. the number of occupied slots up to and
+         * including the node's slot.
+         *
+         * @param node the node
+         * @return the position
+         */
+        int rankOf(Node node) {
+            int sum = 0;
+            for (int i = node.slot + 1; i > 0; i -= i & -i) {
+                sum += this.tree[i];
+            }
+            return sum;
+        }
+
+        private void add(int slot, int delta) {
+            for (int i = slot + 1; i < this.tree.length; i += i & -i) {
+                this.tree[i] += delta;
+            }
+        }
+
+        /**
+         * Renumbers the nodes into a tree with at least as many free slots as nodes, split between both ends of the
+         * level, so that the linear rebuild is amortized over the appends and prepends that follow.
+         */
+        private void compact() {
+            int capacity = Math.max(MIN_CAPACITY, this.size * 3);
+            this.tree = new int[capacity + 1];
+            this.nextSlot = (capacity - this.size) / 2;
+            for (Node node = this.head; node != null; node = node.next) {
+                node.slot = this.nextSlot++;
+                this.tree[node.slot + 1] = 1;
+            }
+            for (int i = 1; i < this.tree.length; i++) {
+                int parent = i + (i & -i);
+                if (parent < this.tree.length) {
+                    this.tree[parent] += this.tree[i];
+                }
+            }
+        }
+    }
 }
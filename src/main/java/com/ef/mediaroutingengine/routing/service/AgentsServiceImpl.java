@@ -25,6 +25,7 @@ import com.ef.mediaroutingengine.routing.repository.AgentsRepository;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 import java.util.concurrent.atomic.AtomicBoolean;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -249,12 +250,13 @@ public class AgentsServiceImpl implements AgentsService {
         }
 
         agent.updateFrom(ccUser);
+        Set<String> changedRoutingAttributeIds = this.agentsPool.reindex(agent);
         logger.debug("Agent updated in in-memory Agents pool | Agent: {}", agent.getId());
 
         this.agentPresenceRepository.updateCcUser(ccUser);
         logger.debug("Agent updated in Agent Presence Repository | Agent: {}", agent.getId());
 
-        this.precisionQueuesPool.evaluateOnUpdateForAll(agent);
+        this.precisionQueuesPool.evaluateOnUpdateForAll(agent, changedRoutingAttributeIds);
         logger.debug("Agent's association in Queues re-evaluated | Agent: {}", agent.getId());
 
         this.updateAgentMrdState(ccUser);
@@ -306,6 +308,7 @@ public class AgentsServiceImpl implements AgentsService {
         ccUser.setAssociatedRoutingAttributes(new ArrayList<>());
 
         agent.updateFrom(ccUser);
+        this.agentsPool.reindex(agent);
         logger.debug("All routing-attributes removed from Agent in in-memory pool | Agent: {}", id);
 
         this.agentPresenceRepository.updateCcUser(ccUser);
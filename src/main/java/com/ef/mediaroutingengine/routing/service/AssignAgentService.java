@@ -44,7 +44,7 @@ public class AssignAgentService {
      * The Mrd pool.
      */
     private final MrdPool mrdPool;
-    private final ConversationLock conversationLock = new ConversationLock();
+    private final ConversationLock conversationLock = new ConversationLock("assign-agent");
 
     /**
      * Instantiates a new Assign agent service.
@@ -100,17 +100,17 @@ public class AssignAgentService {
 
             TaskMedia media = task.findMediaByMrdId(mrdId);
 
+            // An activated media is written by activateMedia.
             if (media == null) {
                 media = this.createMedia(req, task.getId(), mrdId);
-                task.addMedia(media);
-            } else {
-                media.setState(req.getState());
+                tasksRepository.appendMedia(task, media);
+            } else if (!req.getState().equals(TaskMediaState.ACTIVE)) {
+                tasksRepository.setMediaState(task, media.getId(), req.getState());
             }
 
             if (req.getState().equals(TaskMediaState.ACTIVE)) {
                 taskManager.activateMedia(task, media);
             } else {
-                tasksRepository.updateActiveMedias(task.getId(), task.getActiveMedia());
                 jmsCommunicator.publishTaskStateChanged(task, media.getRequestSession(), false, media.getId());
             }
 
@@ -35,7 +35,7 @@ public class AssignResourceServiceImpl implements AssignResourceService {
     private final TaskManager taskManager;
     private final TasksRepository tasksRepository;
     private final MrdPool mrdPool;
-    private final ConversationLock conversationLock = new ConversationLock();
+    private final ConversationLock conversationLock = new ConversationLock("assign-resource");
 
     /**
      * Default constructor. Loads the dependencies.
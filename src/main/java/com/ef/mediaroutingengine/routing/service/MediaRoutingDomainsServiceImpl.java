@@ -196,7 +196,7 @@ public class MediaRoutingDomainsServiceImpl implements MediaRoutingDomainsServic
      */
     void updateMrdInAgentMrdStateInAllAgentPresence(MediaRoutingDomain mediaRoutingDomain) {
         Map<String, AgentPresence> agentPresenceMap = new HashMap<>();
-        for (AgentPresence agentPresence : this.agentPresenceRepository.findAll(2500)) {
+        this.agentPresenceRepository.forEach(2500, agentPresence -> {
             for (AgentMrdState agentMrdState : agentPresence.getAgentMrdStates()) {
                 if (agentMrdState.getMrd().getId().equals(mediaRoutingDomain.getId())) {
                     agentMrdState.setMrd(mediaRoutingDomain);
@@ -204,7 +204,7 @@ public class MediaRoutingDomainsServiceImpl implements MediaRoutingDomainsServic
                     break;
                 }
             }
-        }
+        });
         this.agentPresenceRepository.saveAllByKeyValueMap(agentPresenceMap, 2500);
     }
 
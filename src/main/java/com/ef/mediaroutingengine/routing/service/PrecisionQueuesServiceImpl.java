@@ -64,7 +64,7 @@ public class PrecisionQueuesServiceImpl implements PrecisionQueuesService {
      * The Tasks repository.
      */
     private final TasksRepository tasksRepository;
-    private final ConversationLock conversationLock = new ConversationLock();
+    private final ConversationLock conversationLock = new ConversationLock("precision-queues");
 
     /**
      * Default constructor.
@@ -95,7 +95,7 @@ public class StepsServiceImpl implements StepsService {
         Step newStep = new Step(stepEntity);
         logger.debug("New Step created with id: {}", newStep.getId());
 
-        newStep.evaluateAssociatedAgents(agentsPool.findAll());
+        newStep.evaluateAssociatedAgents(agentsPool);
         logger.debug("Associated agents evaluated in Step: {}", newStep.getId());
 
         Optional<PrecisionQueueEntity> existing = this.repository.findById(queueId);
@@ -142,7 +142,7 @@ public class StepsServiceImpl implements StepsService {
         logger.debug("Step {} entity updated in Queue {} in Config DB", id, queueId);
 
         Step step = new Step(stepEntity);
-        step.evaluateAssociatedAgents(agentsPool.findAll());
+        step.evaluateAssociatedAgents(agentsPool);
         logger.debug("Associated agent in Step {} re-evaluated", id);
 
         this.precisionQueuesPool.findById(queueId).updateStep(step);
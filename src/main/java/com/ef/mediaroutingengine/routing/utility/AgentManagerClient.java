@@ -0,0 +1,213 @@
+package com.ef.mediaroutingengine.routing.utility;
+
+import com.ef.mediaroutingengine.config.ExternalServiceConfig;
+import com.ef.mediaroutingengine.global.commons.Constants;
+import com.ef.mediaroutingengine.global.resilience.CallNotPermittedException;
+import com.ef.mediaroutingengine.global.resilience.EndpointGuard;
+import com.ef.mediaroutingengine.global.resilience.EndpointGuards;
+import com.ef.mediaroutingengine.routing.dto.AssignTaskRequest;
+import com.ef.mediaroutingengine.routing.dto.RevokeTaskRequest;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.annotation.PreDestroy;
+import okhttp3.Call;
+import okhttp3.Callback;
+import okhttp3.ConnectionPool;
+import okhttp3.Dispatcher;
+import okhttp3.MediaType;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slf4j.MDC;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.stereotype.Component;
+
+/**
+ * Non-blocking client of Agent-Manager's task APIs. Calls are sent on pooled keep-alive connections by a
+ * dispatcher that runs at most {@code max-in-flight-requests} of them at a time on its own threads, the calls
+ * that follow wait in the dispatcher's queue. Each API has its own connect and read timeouts, a call that takes
+ * longer than both together is cancelled. Each API is guarded by its own circuit breaker and adaptive
+ * concurrency limit, Assign-Task calls fail fast while Agent-Manager is degraded. Revoke-Task calls are never
+ * shed, a dropped revoke would leave the task with the agent in Agent-Manager.
+ */
+@Component
+public class AgentManagerClient {
+    /**
+     * The constant LOGGER.
+     */
+    private static final Logger logger = LoggerFactory.getLogger(AgentManagerClient.class);
+    /**
+     * The media type of the request bodies.
+     */
+    private static final MediaType JSON = MediaType.get("application/json");
+
+    /**
+     * The Config.
+     */
+    private final ExternalServiceConfig config;
+    /**
+     * The guards of the APIs.
+     */
+    private final EndpointGuards endpointGuards;
+    /**
+     * Serializes the request bodies as the RestTemplate's JSON converter does.
+     */
+    private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+    /**
+     * The threads of the dispatcher.
+     */
+    private final ExecutorService executor;
+    /**
+     * The connection pool shared by the clients.
+     */
+    private final ConnectionPool connectionPool;
+    /**
+     * The client of the Assign-Task API.
+     */
+    private final OkHttpClient assignTaskClient;
+    /**
+     * The client of the Revoke-Task API.
+     */
+    private final OkHttpClient revokeTaskClient;
+
+    /**
+     * Instantiates a new Agent manager client.
+     *
+     * @param config         the config
+     * @param endpointGuards the endpoint guards
+     */
+    @Autowired
+    public AgentManagerClient(ExternalServiceConfig config, EndpointGuards endpointGuards) {
+        this.config = config;
+        this.endpointGuards = endpointGuards;
+
+        int maxInFlightRequests = Math.max(1, config.getMaxInFlightRequests());
+        AtomicInteger counter = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(maxInFlightRequests, r -> {
+            Thread thread = new Thread(r, "agent-manager-client-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        Dispatcher dispatcher = new Dispatcher(this.executor);
+        dispatcher.setMaxRequests(maxInFlightRequests);
+        dispatcher.setMaxRequestsPerHost(maxInFlightRequests);
+
+        this.connectionPool = new ConnectionPool(config.getMaxIdleConnections(), config.getKeepAliveMs(),
+                TimeUnit.MILLISECONDS);
+        OkHttpClient client = new OkHttpClient.Builder()
+                .dispatcher(dispatcher)
+                .connectionPool(this.connectionPool)
+                .build();
+
+        this.assignTaskClient = client.newBuilder()
+                .connectTimeout(config.getAssignTaskConnectTimeoutMs(), TimeUnit.MILLISECONDS)
+                .readTimeout(config.getAssignTaskReadTimeoutMs(), TimeUnit.MILLISECONDS)
+                .callTimeout(config.getAssignTaskConnectTimeoutMs() + config.getAssignTaskReadTimeoutMs(),
+                        TimeUnit.MILLISECONDS)
+                .build();
+        this.revokeTaskClient = client.newBuilder()
+                .connectTimeout(config.getRevokeTaskConnectTimeoutMs(), TimeUnit.MILLISECONDS)
+                .readTimeout(config.getRevokeTaskReadTimeoutMs(), TimeUnit.MILLISECONDS)
+                .callTimeout(config.getRevokeTaskConnectTimeoutMs() + config.getRevokeTaskReadTimeoutMs(),
+                        TimeUnit.MILLISECONDS)
+                .build();
+    }
+
+    /**
+     * Posts the request to Agent-Manager's Assign-Task API.
+     *
+     * @param request the request
+     * @return completed with true if Agent-Manager accepted the task, false if it responded with an error, or
+     *         completed exceptionally if the call failed or, with {@link CallNotPermittedException}, was
+     *         not sent because the API's circuit is open or its concurrency limit is reached
+     */
+    public CompletableFuture<Boolean> postAssignTask(AssignTaskRequest request) {
+        return this.post(this.assignTaskClient, this.config.getAssignTaskUri(), request, true);
+    }
+
+    /**
+     * Posts the request to Agent-Manager's Revoke-Task API.
+     *
+     * @param request the request
+     * @return completed with true if Agent-Manager revoked the task, false if it responded with an error, or
+     *         completed exceptionally if the call failed. The call is sent even if the API's circuit is open or
+     *         its concurrency limit is reached.
+     */
+    public CompletableFuture<Boolean> postRevokeTask(RevokeTaskRequest request) {
+        return this.post(this.revokeTaskClient, this.config.getRevokeTaskUri(), request, false);
+    }
+
+    /**
+     * Stops the dispatcher threads and closes the pooled connections.
+     */
+    @PreDestroy
+    public void close() {
+        this.executor.shutdown();
+        this.connectionPool.evictAll();
+    }
+
+    private CompletableFuture<Boolean> post(OkHttpClient client, String uri, Object body, boolean sheddable) {
+        Request request;
+        try {
+            Request.Builder builder = new Request.Builder()
+                    .url(uri)
+                    .post(RequestBody.create(this.objectMapper.writeValueAsBytes(body), JSON));
+            String correlationId = MDC.get(Constants.MDC_CORRELATION_ID);
+            if (correlationId != null) {
+                builder.header(Constants.MDC_CORRELATION_ID, correlationId);
+            }
+            request = builder.build();
+        } catch (JsonProcessingException | IllegalArgumentException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+
+        EndpointGuard guard = this.endpointGuards.get(uri);
+        long start;
+        try {
+            start = sheddable ? guard.acquire() : guard.acquireExempt();
+        } catch (CallNotPermittedException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+
+        CompletableFuture<Boolean> result = new CompletableFuture<>();
+        client.newCall(request).enqueue(new Callback() {
+            @Override
+            public void onFailure(Call call, IOException e) {
+                onResult(guard, sheddable, false, start);
+                result.completeExceptionally(e);
+            }
+
+            @Override
+            public void onResponse(Call call, Response response) {
+                try (response) {
+                    onResult(guard, sheddable, response.code() < 500, start);
+                    if (!response.isSuccessful()) {
+                        logger.error("{} {} responded with status: {}", request.method(), uri, response.code());
+                    }
+                    result.complete(response.isSuccessful());
+                }
+            }
+        });
+        return result;
+    }
+
+    private static void onResult(EndpointGuard guard, boolean sheddable, boolean success, long start) {
+        if (!sheddable) {
+            guard.onExemptResult(success, start);
+        } else if (success) {
+            guard.onSuccess(start);
+        } else {
+            guard.onFailure(start);
+        }
+    }
+}
@@ -7,12 +7,16 @@ import com.ef.cim.objectmodel.task.TaskMedia;
 import com.ef.cim.objectmodel.task.TaskMediaState;
 import com.ef.mediaroutingengine.config.ExternalServiceConfig;
 import com.ef.mediaroutingengine.global.commons.Constants;
+import com.ef.mediaroutingengine.global.resilience.CallNotPermittedException;
+import com.ef.mediaroutingengine.global.resilience.EndpointGuard;
+import com.ef.mediaroutingengine.global.resilience.EndpointGuards;
 import com.ef.mediaroutingengine.global.utilities.ObjectToUrlEncodedConverter;
 import com.ef.mediaroutingengine.routing.dto.AssignTaskRequest;
 import com.ef.mediaroutingengine.routing.dto.RevokeTaskRequest;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import java.time.Duration;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import org.apache.commons.lang3.exception.ExceptionUtils;
 import org.keycloak.representations.AccessTokenResponse;
 import org.slf4j.Logger;
@@ -28,6 +32,7 @@ import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
 import org.springframework.util.MultiValueMap;
+import org.springframework.web.client.HttpClientErrorException;
 import org.springframework.web.client.ResourceAccessException;
 import org.springframework.web.client.RestTemplate;
 
@@ -48,102 +53,82 @@ public class RestRequest {
      * The Rest Template.
      */
     private final RestTemplate restTemplate;
+    /**
+     * The Agent-Manager client.
+     */
+    private final AgentManagerClient agentManagerClient;
+    /**
+     * The guards of the external service endpoints.
+     */
+    private final EndpointGuards endpointGuards;
 
     /**
      * Instantiates a new Rest request.
      *
-     * @param config the config
+     * @param config             the config
+     * @param agentManagerClient the agent manager client
+     * @param endpointGuards     the endpoint guards
      */
     @Autowired
-    public RestRequest(ExternalServiceConfig config) {
+    public RestRequest(ExternalServiceConfig config, AgentManagerClient agentManagerClient,
+                       EndpointGuards endpointGuards) {
         RestTemplateBuilder restTemplateBuilder = new RestTemplateBuilder();
-        Duration duration = Duration.ofSeconds(5);
-        this.restTemplate = restTemplateBuilder.setConnectTimeout(duration).build();
+        this.restTemplate = restTemplateBuilder
+                .setConnectTimeout(Duration.ofMillis(config.getConnectTimeoutMs()))
+                .setReadTimeout(Duration.ofMillis(config.getReadTimeoutMs()))
+                .build();
         this.config = config;
+        this.agentManagerClient = agentManagerClient;
+        this.endpointGuards = endpointGuards;
     }
 
     /**
-     * Post assign task boolean.
+     * Post assign task boolean. The call is sent by the Agent-Manager client, an async call returns without
+     * waiting for the response.
      *
      * @param task  the task
      * @param media the media
      * @param state the state
      * @param agent the agent
      * @param async the async
-     * @return the boolean
+     * @return true if the task was assigned or the call is async, false otherwise
      */
     public boolean postAssignTask(Task task, TaskMedia media, TaskMediaState state, CCUser agent, boolean async) {
-        if (async) {
-            String correlationId = MDC.get(Constants.MDC_CORRELATION_ID);
-            CompletableFuture.runAsync(() -> {
-                MDC.put(Constants.MDC_CORRELATION_ID, correlationId);
-                MDC.put(Constants.MDC_TOPIC_ID, task.getConversationId());
-                this.postAssignTask(task, media, state, agent);
-                MDC.clear();
-            });
-            return true;
-        }
-
-        return postAssignTask(task, media, state, agent);
-    }
-
-    /**
-     * Post assign task boolean.
-     *
-     * @param task  the task
-     * @param media the media
-     * @param state the state
-     * @param agent the agent
-     * @return the boolean
-     */
-    private boolean postAssignTask(Task task, TaskMedia media, TaskMediaState state, CCUser agent) {
         media.setState(state);
         AssignTaskRequest request = new AssignTaskRequest(task.getId(), task.getConversationId(), media, agent);
 
-        try {
-            this.httpRequest(request, this.config.getAssignTaskUri(), HttpMethod.POST);
-            return true;
-        } catch (Exception e) {
-            logger.error(ExceptionUtils.getMessage(e));
-            logger.error(ExceptionUtils.getStackTrace(e));
-            return false;
-        }
+        CompletableFuture<Boolean> assigned = this.agentManagerClient.postAssignTask(request)
+                .exceptionally(e -> this.logFailure("Assign", task, e));
+        return async || assigned.join();
     }
 
     /**
-     * Post revoke task.
+     * Post revoke task. The call is sent by the Agent-Manager client, an async call returns without waiting for
+     * the response.
      *
      * @param task  the task
      * @param async the async
      */
     public void postRevokeTask(Task task, boolean async) {
+        CompletableFuture<Boolean> revoked = this.agentManagerClient.postRevokeTask(new RevokeTaskRequest(task))
+                .exceptionally(e -> this.logFailure("Revoke", task, e));
         if (!async) {
-            this.postRevokeTask(task);
-            return;
+            revoked.join();
         }
-
-        String correlationId = MDC.get(Constants.MDC_CORRELATION_ID);
-        CompletableFuture.runAsync(() -> {
-            MDC.put(Constants.MDC_CORRELATION_ID, correlationId);
-            MDC.put(Constants.MDC_TOPIC_ID, task.getConversationId());
-            this.postRevokeTask(task);
-            MDC.clear();
-        });
-
     }
 
-    /**
-     * Post revoke task.
-     *
-     * @param task the task
-     */
-    private void postRevokeTask(Task task) {
-        try {
-            this.httpRequest(new RevokeTaskRequest(task), this.config.getRevokeTaskUri(), HttpMethod.POST);
-        } catch (Exception e) {
-            logger.error(ExceptionUtils.getMessage(e));
-            logger.error(ExceptionUtils.getStackTrace(e));
+    private boolean logFailure(String api, Task task, Throwable e) {
+        Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+        if (cause instanceof CallNotPermittedException) {
+            logger.warn("{}-Task call for task: {} of conversation: {} not sent, {}", api, task.getId(),
+                    task.getConversationId(), cause.getMessage());
+            return false;
         }
+        logger.error("{}-Task call for task: {} of conversation: {} failed", api, task.getId(),
+                task.getConversationId());
+        logger.error(ExceptionUtils.getMessage(e));
+        logger.error(ExceptionUtils.getStackTrace(e));
+        return false;
     }
 
     /**
@@ -186,10 +171,26 @@ public class RestRequest {
      *
      * @param queueId the queue for which the stats are required.
      * @return returns the QueueHistoricalStats DTO.
+     * @throws CallNotPermittedException if the circuit of Real-Time-Reports is open or its concurrency limit is
+     *                                   reached
      */
     public QueueHistoricalStatsDto getQueueHistoricalStats(String queueId) {
+        EndpointGuard guard = this.endpointGuards.get(config.getRealTimeReportsUri());
+        long start = guard.acquire();
+
         String url = config.getRealTimeReportsUri() + "/queue/" + queueId + "/historical-stats";
-        return this.restTemplate.getForEntity(url, QueueHistoricalStatsDto.class).getBody();
+        try {
+            QueueHistoricalStatsDto stats = this.restTemplate.getForEntity(url, QueueHistoricalStatsDto.class)
+                    .getBody();
+            guard.onSuccess(start);
+            return stats;
+        } catch (HttpClientErrorException e) {
+            guard.onSuccess(start);
+            throw e;
+        } catch (RuntimeException e) {
+            guard.onFailure(start);
+            throw e;
+        }
     }
 
     /**
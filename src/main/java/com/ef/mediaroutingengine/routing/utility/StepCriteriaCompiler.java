@@ -0,0 +1,176 @@
+package com.ef.mediaroutingengine.routing.utility;
+
+import com.ef.cim.objectmodel.AssociatedRoutingAttribute;
+import com.ef.mediaroutingengine.routing.model.Agent;
+import com.ef.mediaroutingengine.routing.model.Expression;
+import com.ef.mediaroutingengine.routing.model.Step;
+import com.ef.mediaroutingengine.routing.model.Term;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.IntPredicate;
+import java.util.function.Predicate;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Compiles the criteria of a step into an immutable predicate tree that is evaluated directly against an
+ * agent's routing attributes.
+ *
+ * <p>The compiled predicate has the semantics of the logical expression a step's criteria describe:
+ * <ul>
+ *     <li>AND binds tighter than OR, at the term level as well as at the expression level.</li>
+ *     <li>A term whose routing attribute is not associated with the agent evaluates to false.</li>
+ *     <li>A step without expressions and malformed criteria (an empty expression, a missing or unknown
+ *     logical or relational operator) never match any agent.</li>
+ * </ul>
+ */
+public class StepCriteriaCompiler {
+    /**
+     * The constant logger.
+     */
+    private static final Logger logger = LoggerFactory.getLogger(StepCriteriaCompiler.class);
+    /**
+     * Predicate that matches no agent.
+     */
+    private static final Predicate<Agent> NONE = agent -> false;
+
+    /**
+     * Instantiates a new Step criteria compiler.
+     */
+    private StepCriteriaCompiler() {
+
+    }
+
+    /**
+     * Compiles the criteria of the step.
+     *
+     * @param step the step
+     * @return the compiled predicate
+     */
+    public static Predicate<Agent> compile(Step step) {
+        if (step.getExpressions() == null || step.getExpressions().isEmpty()) {
+            return NONE;
+        }
+
+        try {
+            return compileExpressions(step.getExpressions());
+        } catch (IllegalArgumentException e) {
+            logger.error("Criteria of step: {} can not be compiled, {}", step.getId(), e.getMessage());
+            return NONE;
+        }
+    }
+
+    /**
+     * Compiles the expressions of a step.
+     *
+     * @param expressions the expressions
+     * @return the predicate
+     */
+    private static Predicate<Agent> compileExpressions(List<Expression> expressions) {
+        LogicalChain chain = new LogicalChain();
+        for (Expression expression : expressions) {
+            chain.append(expression.getPreExpressionCondition(), compileTerms(expression.getTerms()));
+        }
+        return chain.build();
+    }
+
+    /**
+     * Compiles the terms of an expression.
+     *
+     * @param terms the terms
+     * @return the predicate
+     */
+    private static Predicate<Agent> compileTerms(List<Term> terms) {
+        if (terms == null || terms.isEmpty()) {
+            throw new IllegalArgumentException("expression has no terms");
+        }
+
+        LogicalChain chain = new LogicalChain();
+        for (Term term : terms) {
+            chain.append(term.getPreTermLogicalOperator(), compileTerm(term));
+        }
+        return chain.build();
+    }
+
+    /**
+     * Compiles a term.
+     *
+     * @param term the term
+     * @return the predicate
+     */
+    private static Predicate<Agent> compileTerm(Term term) {
+        IntPredicate comparison = comparison(term.getRelationalOperator(), term.getValue());
+
+        if (term.getRoutingAttribute() == null) {
+            return NONE;
+        }
+
+        String routingAttributeId = term.getRoutingAttribute().getId();
+        return agent -> {
+            AssociatedRoutingAttribute attribute = agent.findAssociatedRoutingAttributeById(routingAttributeId);
+            return attribute != null && comparison.test(attribute.getValue());
+        };
+    }
+
+    /**
+     * Returns the comparison of an agent's attribute value against the term's value.
+     *
+     * @param operator the relational operator
+     * @param value    the term's value
+     * @return the comparison
+     */
+    private static IntPredicate comparison(String operator, int value) {
+        if (operator == null) {
+            throw new IllegalArgumentException("missing relational operator");
+        }
+        return switch (operator) {
+            case "==" -> v -> v == value;
+            case "!=" -> v -> v != value;
+            case ">" -> v -> v > value;
+            case ">=" -> v -> v >= value;
+            case "<" -> v -> v < value;
+            case "<=" -> v -> v <= value;
+            default -> throw new IllegalArgumentException("unknown relational operator '" + operator + "'");
+        };
+    }
+
+    /**
+     * Builds an OR of AND-chains from operands joined by logical operators, the first operand is not preceded
+     * by an operator.
+     */
+    private static class LogicalChain {
+        private final List<Predicate<Agent>> disjuncts = new ArrayList<>();
+        private Predicate<Agent> conjunction;
+
+        void append(String operator, Predicate<Agent> operand) {
+            if (this.conjunction == null) {
+                if (operator != null) {
+                    throw new IllegalArgumentException("leading logical operator '" + operator + "'");
+                }
+                this.conjunction = operand;
+                return;
+            }
+
+            if (operator == null) {
+                throw new IllegalArgumentException("missing logical operator");
+            }
+
+            switch (operator) {
+                case "AND", "and" -> this.conjunction = this.conjunction.and(operand);
+                case "OR", "or" -> {
+                    this.disjuncts.add(this.conjunction);
+                    this.conjunction = operand;
+                }
+                default -> throw new IllegalArgumentException("unknown logical operator '" + operator + "'");
+            }
+        }
+
+        Predicate<Agent> build() {
+            Predicate<Agent> result = this.conjunction;
+            for (int i = this.disjuncts.size() - 1; i >= 0; i--) {
+                result = this.disjuncts.get(i).or(result);
+            }
+            return result;
+        }
+    }
+}
@@ -27,6 +27,7 @@ import com.ef.mediaroutingengine.taskmanager.repository.TasksRepository;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.ListIterator;
+import java.util.Map;
 import java.util.UUID;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -148,15 +149,20 @@ public class TaskManager {
             TaskMedia media = this.createMedia(req, task.getId(), mrdId, TaskMediaState.RESERVED, queue);
 
             if (agent.isAvailableForReservation(mrdId) && agent.reserveTask(task, media)) {
-                task.addMedia(media);
-                this.tasksRepository.updateActiveMedias(task.getId(), task.getActiveMedia());
+                this.tasksRepository.appendMedia(task, media);
 
                 if (req.isOfferToAgent()) {
                     restRequest.postAssignTask(task, media, media.getState(), agent.toCcUser(), true);
                 }
 
-                this.jmsCommunicator.publishTaskStateChanged(task, media.getRequestSession(), false, media.getId());
-                this.jmsCommunicator.publishAgentReserved(task, media, agent.toCcUser());
+                JmsCommunicator.Batch batch = this.jmsCommunicator.beginBatch();
+                try {
+                    this.jmsCommunicator.publishTaskStateChanged(task, media.getRequestSession(), false,
+                            media.getId());
+                    this.jmsCommunicator.publishAgentReserved(task, media, agent.toCcUser());
+                } finally {
+                    batch.close();
+                }
 
                 return true;
             }
@@ -185,23 +191,28 @@ public class TaskManager {
     }
 
     /**
-     * Load tasks on startup.
+     * Load tasks on startup. Agent request timers are re-armed from the deadlines persisted before the restart, a
+     * deadline that has passed expires immediately. The deadline of a task that has none persisted is recomputed
+     * from its media. The deadlines of tasks that no longer exist are discarded.
      *
      * @param tasks the tasks
      */
     public void loadTasksOnStartup(List<Task> tasks) {
         long queuedTasks = 0L;
+        Map<String, Long> deadlines = this.agentRequestTimerService.loadDeadlines();
         ListIterator<Task> itr = tasks.listIterator();
 
         while (itr.hasNext()) {
             Task task = itr.next();
             Agent agent = this.agentsPool.findBy(task.getAssignedTo());
+            Long persistedDeadline = deadlines.get(task.getAgentRequestTtlTimerId());
 
             for (TaskMedia media : task.getActiveMedia()) {
                 PrecisionQueue queue = this.precisionQueuesPool.findById(media.getQueue().getId());
 
                 if (media.getState().equals(TaskMediaState.QUEUED)) {
-                    if (this.enqueueTaskOnStartup(task, media, queue)) {
+                    if (this.enqueueTaskOnStartup(task, media, queue, persistedDeadline)) {
+                        deadlines.remove(task.getAgentRequestTtlTimerId());
                         queuedTasks++;
                     } else {
                         itr.remove();
@@ -209,7 +220,8 @@ public class TaskManager {
 
                     break;
                 } else if (media.getState().equals(TaskMediaState.RESERVED)) {
-                    this.agentRequestTimerService.startOnFailover(task, media, queue.getId());
+                    this.agentRequestTimerService.rearmOnStartup(task, media, queue.getId(), persistedDeadline);
+                    deadlines.remove(task.getAgentRequestTtlTimerId());
                     agent.reserveTask(task, media);
                 } else if (media.getState().equals(TaskMediaState.ACTIVE)) {
                     agent.addActiveTask(task, media);
@@ -217,24 +229,30 @@ public class TaskManager {
             }
         }
 
+        this.agentRequestTimerService.discard(deadlines.keySet());
+
         if (queuedTasks > 0) {
             this.precisionQueuesPool.publishOnFailover();
         }
     }
 
     /**
-     * Enqueue task on startup boolean.
+     * Enqueue task on startup boolean. A task whose agent request ttl has expired is closed.
      *
-     * @param task  the task
-     * @param media the media
-     * @param queue the queue
+     * @param task              the task
+     * @param media             the media
+     * @param queue             the queue
+     * @param persistedDeadline the persisted agent request ttl deadline, null if there is none
      * @return the boolean
      */
-    private boolean enqueueTaskOnStartup(Task task, TaskMedia media, PrecisionQueue queue) {
-        if (this.agentRequestTimerService.startOnFailover(task, media, queue.getId())) {
+    private boolean enqueueTaskOnStartup(Task task, TaskMedia media, PrecisionQueue queue, Long persistedDeadline) {
+        long deadline = this.agentRequestTimerService.getDeadlineOnStartup(media, persistedDeadline);
+
+        if (deadline > System.currentTimeMillis()) {
             QueueTask queueTask = new QueueTask(task.getConversationId(), media);
             queue.enqueue(queueTask);
             this.stepTimerService.startNext(queueTask, queue, 0);
+            this.agentRequestTimerService.rearmOnStartup(task, media, queue.getId(), persistedDeadline);
 
             logger.debug("Task: {} enqueued in Queue: {} on startup", task.getId(), queue.getId());
             return true;
@@ -374,8 +392,7 @@ public class TaskManager {
         ChannelSession session = media.getRequestSession();
         this.jmsCommunicator.publishTaskStateChanged(task, session, false, mediaStateChanges.toArray(new String[0]));
 
-        task.getActiveMedia().removeIf(m -> m.getState().equals(TaskMediaState.CLOSED));
-        this.tasksRepository.updateActiveMedias(task.getId(), task.getActiveMedia());
+        this.tasksRepository.activateMedia(task, media);
 
         if (!this.mrdPool.getType(media.getMrdId()).isInterruptible()) {
             agent.setNonInterruptible(true);
@@ -456,8 +473,7 @@ public class TaskManager {
                 return true;
             } else {
                 jmsCommunicator.publishTaskStateChanged(task, session, false, media.getId());
-                task.removeMedia(media.getId());
-                tasksRepository.updateActiveMedias(task.getId(), task.getActiveMedia());
+                tasksRepository.removeMedia(task, media.getId());
             }
 
         }
@@ -84,6 +84,17 @@ public class TasksController {
         return new ResponseEntity<>(this.service.retrieveAll(agentId), HttpStatus.OK);
     }
 
+    /**
+     * Rebuilds the indexes of the tasks by agent, MRD and queue from the tasks in Redis.
+     *
+     * @return the response entity
+     */
+    @PostMapping("/indexes/rebuild")
+    public ResponseEntity<Object> rebuildIndexes() {
+        int noOfTasks = this.service.rebuildIndexes();
+        return ResponseEntity.ok().body(new SuccessResponseBody("Indexes of " + noOfTasks + " tasks rebuilt"));
+    }
+
     /**
      * Change task state response entity.
      *
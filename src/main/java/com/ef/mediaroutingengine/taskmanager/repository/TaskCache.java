@@ -0,0 +1,274 @@
+package com.ef.mediaroutingengine.taskmanager.repository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import org.apache.commons.lang3.exception.ExceptionUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * In-process cache of the tasks written by this instance, kept as JSON snapshots so that every read returns a
+ * fresh copy, the same as a read from Redis.
+ *
+ * <p>In {@link Mode#WRITE_THROUGH} mode the repository writes to Redis first and then records the snapshot. In
+ * {@link Mode#WRITE_BEHIND} mode the snapshot is recorded and the write is left pending; pending writes of the
+ * same task are coalesced into one and are flushed to Redis in batches every flush interval. Writes that fail
+ * to flush are kept pending and retried on the next flush.
+ */
+public class TaskCache {
+    /**
+     * The constant logger.
+     */
+    private static final Logger logger = LoggerFactory.getLogger(TaskCache.class);
+    /**
+     * Snapshot of a task deleted in memory whose delete is not yet flushed.
+     */
+    private static final Snapshot TOMBSTONE = new Snapshot(null);
+
+    /**
+     * Task id -> the task's latest JSON snapshot.
+     */
+    private final Map<String, Snapshot> snapshots = new ConcurrentHashMap<>();
+    /**
+     * Task id -> the task's pending write, write-behind mode only.
+     */
+    private final Map<String, TaskWrite> pending = new ConcurrentHashMap<>();
+    /**
+     * Writes a batch of task writes to Redis, throws if the batch could not be written.
+     */
+    private final Consumer<List<TaskWrite>> writer;
+    /**
+     * The Mode.
+     */
+    private final Mode mode;
+    /**
+     * Maximum number of task writes in one batch.
+     */
+    private final int maxBatchSize;
+    /**
+     * Runs the periodic flush, null in write-through mode.
+     */
+    private final ScheduledExecutorService flusher;
+
+    /**
+     * The durability modes.
+     */
+    public enum Mode {
+        /**
+         * Every write goes to Redis before it returns, no write is lost on failover.
+         */
+        WRITE_THROUGH,
+        /**
+         * Writes are flushed to Redis in the background, writes of the last flush interval may be lost on failover.
+         */
+        WRITE_BEHIND
+    }
+
+    /**
+     * The kinds of task writes.
+     */
+    enum Op {
+        /**
+         * A new task, saved along with its conversation's and the global set memberships.
+         */
+        INSERT,
+        /**
+         * An updated task.
+         */
+        UPDATE,
+        /**
+         * A deleted task, removed along with its set memberships.
+         */
+        DELETE,
+        /**
+         * Only the task's index set memberships are rewritten.
+         */
+        REINDEX
+    }
+
+    /**
+     * Instantiates a new Task cache.
+     *
+     * @param writer          writes a batch of task writes to Redis, throws if the batch could not be written
+     * @param mode            the durability mode
+     * @param flushIntervalMs interval of the background flush in write-behind mode
+     * @param maxBatchSize    maximum number of task writes in one batch
+     */
+    TaskCache(Consumer<List<TaskWrite>> writer, Mode mode, long flushIntervalMs, int maxBatchSize) {
+        this.writer = writer;
+        this.mode = mode;
+        this.maxBatchSize = Math.max(1, maxBatchSize);
+
+        if (mode == Mode.WRITE_BEHIND) {
+            this.flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread thread = new Thread(r, "task-cache-flusher");
+                thread.setDaemon(true);
+                return thread;
+            });
+            this.flusher.scheduleWithFixedDelay(this::flush, flushIntervalMs, flushIntervalMs, TimeUnit.MILLISECONDS);
+        } else {
+            this.flusher = null;
+        }
+    }
+
+    /**
+     * Is the cache in write-behind mode.
+     *
+     * @return the boolean
+     */
+    boolean isWriteBehind() {
+        return this.mode == Mode.WRITE_BEHIND;
+    }
+
+    /**
+     * Returns the snapshot of the task.
+     *
+     * @param taskId the task id
+     * @return the snapshot, null if the task is not cached
+     */
+    Snapshot get(String taskId) {
+        return this.snapshots.get(taskId);
+    }
+
+    /**
+     * Records the snapshot of a task written to Redis.
+     *
+     * @param taskId the task id
+     * @param json   the task's JSON
+     */
+    void put(String taskId, String json) {
+        this.snapshots.put(taskId, new Snapshot(json));
+    }
+
+    /**
+     * Forgets the task, its next read goes to Redis.
+     *
+     * @param taskId the task id
+     */
+    void evict(String taskId) {
+        this.snapshots.remove(taskId);
+    }
+
+    /**
+     * Records the write in memory and leaves it pending for the next flush, write-behind mode only.
+     *
+     * @param write the task write
+     */
+    void writeBehind(TaskWrite write) {
+        // The write is made pending before the snapshot changes, so that a deleted task is never read back from
+        // Redis while its delete is pending.
+        this.pending.merge(write.taskId(), write, TaskCache::coalesce);
+        this.snapshots.put(write.taskId(), write.op() == Op.DELETE ? TOMBSTONE : new Snapshot(write.json()));
+    }
+
+    /**
+     * Writes all pending writes to Redis.
+     */
+    synchronized void flush() {
+        List<TaskWrite> batch = new ArrayList<>();
+        for (String taskId : this.pending.keySet()) {
+            TaskWrite write = this.pending.remove(taskId);
+            if (write != null) {
+                batch.add(write);
+            }
+            if (batch.size() >= this.maxBatchSize) {
+                this.write(batch);
+                batch = new ArrayList<>();
+            }
+        }
+        if (!batch.isEmpty()) {
+            this.write(batch);
+        }
+    }
+
+    /**
+     * Number of pending writes.
+     *
+     * @return the number of pending writes
+     */
+    int pendingWrites() {
+        return this.pending.size();
+    }
+
+    /**
+     * Flushes the pending writes and stops the background flush.
+     */
+    void close() {
+        if (this.flusher != null) {
+            this.flusher.shutdown();
+            this.flush();
+        }
+    }
+
+    /**
+     * Writes a batch, its writes are made pending again if it fails.
+     *
+     * @param batch the batch
+     */
+    private void write(List<TaskWrite> batch) {
+        try {
+            this.writer.accept(batch);
+        } catch (Exception e) {
+            logger.error("Failed to flush {} task writes, retrying on the next flush", batch.size());
+            logger.error(ExceptionUtils.getMessage(e));
+            logger.error(ExceptionUtils.getStackTrace(e));
+            batch.forEach(w -> this.pending.merge(w.taskId(), w, (current, failed) -> coalesce(failed, current)));
+            return;
+        }
+
+        // Deletes are flushed, their tasks are no longer in Redis either.
+        batch.stream()
+                .filter(w -> w.op() == Op.DELETE)
+                .forEach(w -> this.snapshots.remove(w.taskId(), TOMBSTONE));
+    }
+
+    /**
+     * Coalesces two writes of the same task into one.
+     *
+     * @param older the older write
+     * @param newer the newer write
+     * @return the coalesced write
+     */
+    private static TaskWrite coalesce(TaskWrite older, TaskWrite newer) {
+        if (newer.op() == Op.UPDATE && older.op() == Op.INSERT) {
+            // The insert has not reached Redis yet, it must still add the task to its sets.
+            return new TaskWrite(Op.INSERT, newer.taskId(), older.conversationId(), newer.json(), newer.indexKeys());
+        }
+        return newer;
+    }
+
+    /**
+     * A cached task.
+     *
+     * @param json the task's JSON, null if the task is deleted
+     */
+    record Snapshot(String json) {
+        /**
+         * Is the task deleted.
+         *
+         * @return the boolean
+         */
+        boolean isDeleted() {
+            return this.json == null;
+        }
+    }
+
+    /**
+     * A write of a task to Redis.
+     *
+     * @param op             the kind of write
+     * @param taskId         the task id
+     * @param conversationId the task's conversation id
+     * @param json           the task's JSON, null for a delete
+     * @param indexKeys      the keys of the index sets the task belongs to after the write
+     */
+    record TaskWrite(Op op, String taskId, String conversationId, String json, Set<String> indexKeys) {
+    }
+}
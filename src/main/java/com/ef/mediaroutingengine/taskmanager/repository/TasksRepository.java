@@ -1,28 +1,54 @@
 package com.ef.mediaroutingengine.taskmanager.repository;
 
 import com.ef.cim.objectmodel.task.Task;
+import com.ef.cim.objectmodel.task.TaskAgent;
 import com.ef.cim.objectmodel.task.TaskMedia;
 import com.ef.cim.objectmodel.task.TaskMediaState;
 import com.ef.cim.objectmodel.task.TaskState;
+import com.ef.mediaroutingengine.config.TaskCacheProperties;
+import com.ef.mediaroutingengine.global.redis.RedisBatch;
 import com.ef.mediaroutingengine.global.redis.RedisClient;
-import com.ef.mediaroutingengine.global.redis.RedisJson;
 import com.ef.mediaroutingengine.global.redis.RedisJsonDao;
 import com.ef.mediaroutingengine.routing.model.AgentReqTimerEntity;
+import com.ef.mediaroutingengine.taskmanager.repository.TaskCache.Op;
+import com.ef.mediaroutingengine.taskmanager.repository.TaskCache.Snapshot;
+import com.ef.mediaroutingengine.taskmanager.repository.TaskCache.TaskWrite;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.regex.Pattern;
+import javax.annotation.PreDestroy;
 import org.apache.commons.lang3.exception.ExceptionUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 import redis.clients.jedis.Jedis;
-import redis.clients.jedis.Transaction;
+import redis.clients.jedis.ScanParams;
+import redis.clients.jedis.ScanResult;
+import redis.clients.jedis.Tuple;
 import redis.clients.jedis.util.SafeEncoder;
 
 /**
  * The type Tasks repository.
+ *
+ * <p>Reads of single tasks are served from the {@link TaskCache} of the tasks written by this instance. In
+ * write-behind mode the writes are flushed to Redis in the background; the pending writes are flushed before
+ * every query that reads more than one task from Redis.
+ *
+ * <p>The ids of the tasks are indexed in Redis sets by assigned agent, by MRD and by queue of the active medias.
+ * The index sets a task is in are kept in its own set, so that a write moves the task out of the indexes it no
+ * longer belongs to in the same transaction.
  */
 @Component
 public class TasksRepository extends RedisJsonDao<Task> {
@@ -30,15 +56,71 @@ public class TasksRepository extends RedisJsonDao<Task> {
      * The constant logger.
      */
     private static final Logger logger = LoggerFactory.getLogger(TasksRepository.class);
+    /**
+     * Sorted set of agent request timer ids scored by their absolute expiry time in ms.
+     */
+    private static final String AGENT_REQ_TIMER_DEADLINES_KEY = "agentRequestTimerDeadlines";
+    /**
+     * Prefix of the sets of task ids assigned to an agent.
+     */
+    private static final String AGENT_INDEX_PREFIX = "taskAgent:";
+    /**
+     * Prefix of the sets of task ids with an active media on an MRD.
+     */
+    private static final String MRD_INDEX_PREFIX = "taskMrd:";
+    /**
+     * Prefix of the sets of task ids with an active media in a queue.
+     */
+    private static final String QUEUE_INDEX_PREFIX = "taskQueue:";
+    /**
+     * Prefix of the sets of index keys a task is in.
+     */
+    private static final String TASK_INDEXES_PREFIX = "taskIndexes:";
+    /**
+     * Serializes the tasks into the cached snapshots and the JSON saved in Redis.
+     */
+    private static final ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+    /**
+     * A JSON path to a top level field of a task.
+     */
+    private static final Pattern TOP_LEVEL_PATH = Pattern.compile("\\.\\w+");
+    /**
+     * Paths of the task fields the indexes are built from.
+     */
+    private static final Set<String> INDEXED_PATHS = Set.of(".assignedTo", ".activeMedia");
+    /**
+     * Number of times a write is retried when the task's indexes change concurrently.
+     */
+    private static final int MAX_INDEX_ATTEMPTS = 3;
+    /**
+     * Number of tasks re-indexed in one pipeline by a rebuild.
+     */
+    private static final int REBUILD_BATCH_SIZE = 500;
+    /**
+     * The Task cache.
+     */
+    private final TaskCache taskCache;
 
     /**
      * Instantiates a new Tasks repository.
      *
-     * @param redisClient the redis client
+     * @param redisClient         the redis client
+     * @param taskCacheProperties the task cache properties
      */
     @Autowired
-    public TasksRepository(RedisClient redisClient) {
+    public TasksRepository(RedisClient redisClient, TaskCacheProperties taskCacheProperties) {
         super(redisClient, "task");
+        logger.info("Initializing task cache, config: {}", taskCacheProperties);
+        this.taskCache = new TaskCache(this::write, taskCacheProperties.getMode(),
+                taskCacheProperties.getFlushIntervalMs(), taskCacheProperties.getMaxBatchSize());
+    }
+
+    /**
+     * Flushes the pending task writes before the application stops.
+     */
+    @PreDestroy
+    public void close() {
+        this.taskCache.close();
     }
 
     /**
@@ -47,24 +129,20 @@ public class TasksRepository extends RedisJsonDao<Task> {
      * @param task the task to be inserted
      */
     public void insert(Task task) {
-        Transaction transaction = null;
-        try (Jedis conn = redisClient.getConnection()) {
-            transaction = conn.multi();
+        String json = this.toJson(task);
+        if (json == null) {
+            return;
+        }
 
-            // Add taskId to a set of task ids of this conversation
-            transaction.sadd(getConversationKey(task.getConversationId()), task.getId());
-            // Add taskId to set of all task ids
-            transaction.sadd(type, task.getId());
-            // Save Task as a RedisJson Object
-            transaction.sendCommand(RedisJson.Command.SET, RedisJson.encode(getKey(task.getId()), ".", task));
+        TaskWrite write = new TaskWrite(Op.INSERT, task.getId(), task.getConversationId(), json, indexKeys(task));
 
-            transaction.exec();
-        } catch (Exception e) {
-            if (transaction != null) {
-                transaction.discard();
-            }
-            logger.error(ExceptionUtils.getMessage(e));
-            logger.error(ExceptionUtils.getStackTrace(e));
+        if (this.taskCache.isWriteBehind()) {
+            this.taskCache.writeBehind(write);
+            return;
+        }
+
+        if (this.writeThrough(write)) {
+            this.taskCache.put(task.getId(), json);
         }
     }
 
@@ -81,7 +159,43 @@ public class TasksRepository extends RedisJsonDao<Task> {
      * @return the boolean
      */
     public boolean update(Task task) {
-        return super.save(task.getId(), task);
+        String json = this.toJson(task);
+        if (json == null) {
+            return false;
+        }
+
+        TaskWrite write = new TaskWrite(Op.UPDATE, task.getId(), task.getConversationId(), json, indexKeys(task));
+
+        if (this.taskCache.isWriteBehind()) {
+            this.taskCache.writeBehind(write);
+            return true;
+        }
+
+        if (!this.writeThrough(write)) {
+            return false;
+        }
+        this.taskCache.put(task.getId(), json);
+        return true;
+    }
+
+    @Override
+    public Task find(String id) {
+        Snapshot snapshot = this.taskCache.get(id);
+        if (snapshot == null) {
+            return super.find(id);
+        }
+        if (snapshot.isDeleted()) {
+            return null;
+        }
+
+        try {
+            return objectMapper.readValue(snapshot.json(), Task.class);
+        } catch (JsonProcessingException e) {
+            logger.error(ExceptionUtils.getMessage(e));
+            logger.error(ExceptionUtils.getStackTrace(e));
+            this.taskCache.evict(id);
+            return super.find(id);
+        }
     }
 
     /**
@@ -93,6 +207,18 @@ public class TasksRepository extends RedisJsonDao<Task> {
         return this.findAll(2000);
     }
 
+    @Override
+    public void forEach(int pageSize, Consumer<? super Task> consumer) {
+        this.flushPendingWrites();
+        super.forEach(pageSize, consumer);
+    }
+
+    @Override
+    public List<Task> findAll(List<String> ids) {
+        this.flushPendingWrites();
+        return super.findAll(ids);
+    }
+
     /**
      * Find all by agent list.
      *
@@ -100,9 +226,7 @@ public class TasksRepository extends RedisJsonDao<Task> {
      * @return the list
      */
     public List<Task> findAllByAgent(String agentId) {
-        return this.findAll().stream()
-                .filter(t -> t.getAssignedTo() != null && t.getAssignedTo().getId().equals(agentId))
-                .toList();
+        return this.findAllByIndex(getAgentIndexKey(agentId));
     }
 
     /**
@@ -112,6 +236,7 @@ public class TasksRepository extends RedisJsonDao<Task> {
      * @return the list
      */
     public List<Task> findAllByConversationId(String conversationId) {
+        this.flushPendingWrites();
         String[] keys;
 
         try (Jedis conn = redisClient.getConnection()) {
@@ -133,9 +258,7 @@ public class TasksRepository extends RedisJsonDao<Task> {
      * @return the list
      */
     public List<Task> findAllByMrdId(String mrdId) {
-        return this.findAll().stream()
-                .filter(t -> t.getActiveMedia().stream().anyMatch(m -> m.getMrdId().equals(mrdId)))
-                .toList();
+        return this.findAllByIndex(getMrdIndexKey(mrdId));
     }
 
     /**
@@ -145,10 +268,28 @@ public class TasksRepository extends RedisJsonDao<Task> {
      * @return the list
      */
     public List<Task> findAllByQueueId(String queueId) {
-        return this.findAll().stream()
-                .filter(t -> t.getActiveMedia().stream()
-                        .anyMatch(m -> m.getQueue() != null && m.getQueue().getId().equals(queueId)))
-                .toList();
+        return this.findAllByIndex(getQueueIndexKey(queueId));
+    }
+
+    /**
+     * Finds the tasks in an index set.
+     *
+     * @param indexKey the key of the index set
+     * @return the list
+     */
+    private List<Task> findAllByIndex(String indexKey) {
+        this.flushPendingWrites();
+        List<String> ids;
+
+        try (Jedis conn = redisClient.getConnection()) {
+            ids = new ArrayList<>(conn.smembers(indexKey));
+        } catch (Exception e) {
+            logger.error(ExceptionUtils.getMessage(e));
+            logger.error(ExceptionUtils.getStackTrace(e));
+            return new ArrayList<>();
+        }
+
+        return super.findAll(ids);
     }
 
     /**
@@ -171,16 +312,6 @@ public class TasksRepository extends RedisJsonDao<Task> {
         return result;
     }
 
-    /**
-     * Update active medias.
-     *
-     * @param taskId       the task id
-     * @param activeMedias the active medias
-     */
-    public void updateActiveMedias(String taskId, List<TaskMedia> activeMedias) {
-        this.updateField(taskId, ".activeMedia", activeMedias);
-    }
-
     /**
      * Update state.
      *
@@ -192,29 +323,202 @@ public class TasksRepository extends RedisJsonDao<Task> {
     }
 
     /**
-     * Delete.
+     * Sets the state of a media of the task, only the media's state is written to Redis.
      *
-     * @param task the task
+     * @param task    the task
+     * @param mediaId the media id
+     * @param state   the new state
+     * @return true if the state was written, false otherwise
      */
-    public void delete(Task task) {
-        Transaction transaction = null;
-        try (Jedis conn = redisClient.getConnection()) {
-            transaction = conn.multi();
+    public boolean setMediaState(Task task, String mediaId, TaskMediaState state) {
+        String path = this.getMediaPath(task, mediaId) + ".state";
+        task.findMediaBy(mediaId).setState(state);
+        return this.patch(task, false, batch -> batch.setJson(getKey(task.getId()), path, state));
+    }
 
-            // Delete Task Json Object in Redis
-            transaction.sendCommand(RedisJson.Command.DEL, SafeEncoder.encodeMany(getKey(task.getId()), "."));
-            // Remove taskId from set of all task ids
-            transaction.srem(type, task.getId());
-            // Remove taskId from set of task ids of this conversation
-            transaction.srem(getConversationKey(task.getConversationId()), task.getId());
+    /**
+     * Writes a change already made to a media of the task, only the media is written to Redis.
+     *
+     * @param task  the task
+     * @param media the changed media
+     * @return true if the media was written, false otherwise
+     */
+    public boolean updateMedia(Task task, TaskMedia media) {
+        String path = this.getMediaPath(task, media.getId());
+        return this.patch(task, false, batch -> batch.setJson(getKey(task.getId()), path, media));
+    }
 
-            transaction.exec();
-        } catch (Exception e) {
-            if (transaction != null) {
-                transaction.discard();
+    /**
+     * Removes the media from the task, only the media is deleted from Redis.
+     *
+     * @param task    the task
+     * @param mediaId the media id
+     * @return true if the media was deleted, false otherwise
+     */
+    public boolean removeMedia(Task task, String mediaId) {
+        String path = this.getMediaPath(task, mediaId);
+        task.removeMedia(mediaId);
+        return this.patch(task, true, batch -> batch.delJson(getKey(task.getId()), path));
+    }
+
+    /**
+     * Removes the closed medias from the task and writes the activated media in one write, only these medias are
+     * written to Redis. The closed medias are deleted from the last one, so that the index of the ones before it
+     * does not change.
+     *
+     * @param task  the task
+     * @param media the activated media
+     * @return true if the medias were written, false otherwise
+     */
+    public boolean activateMedia(Task task, TaskMedia media) {
+        List<String> closedPaths = new ArrayList<>();
+        List<TaskMedia> medias = task.getActiveMedia();
+        for (int i = medias.size() - 1; i >= 0; i--) {
+            if (medias.get(i).getState().equals(TaskMediaState.CLOSED)) {
+                closedPaths.add(".activeMedia[" + i + "]");
+            }
+        }
+        medias.removeIf(m -> m.getState().equals(TaskMediaState.CLOSED));
+        String path = this.getMediaPath(task, media.getId());
+
+        return this.patch(task, true, batch -> {
+            closedPaths.forEach(closedPath -> batch.delJson(getKey(task.getId()), closedPath));
+            batch.setJson(getKey(task.getId()), path, media);
+        });
+    }
+
+    /**
+     * Assigns the task to the agent and sets the media's state to reserved in one write, only the task's assignee
+     * and the media's state are written to Redis.
+     *
+     * @param task    the task
+     * @param mediaId the id of the reserved media
+     * @param agent   the agent
+     * @return true if the reservation was written, false otherwise
+     */
+    public boolean reserve(Task task, String mediaId, TaskAgent agent) {
+        String path = this.getMediaPath(task, mediaId) + ".state";
+        task.setAssignedTo(agent);
+        task.findMediaBy(mediaId).setState(TaskMediaState.RESERVED);
+
+        return this.patch(task, true, batch -> {
+            batch.setJson(getKey(task.getId()), ".assignedTo", agent);
+            batch.setJson(getKey(task.getId()), path, TaskMediaState.RESERVED);
+        });
+    }
+
+    /**
+     * Adds the media to the task, only the media is written to Redis.
+     *
+     * @param task  the task
+     * @param media the media
+     * @return true if the media was written, false otherwise
+     */
+    public boolean appendMedia(Task task, TaskMedia media) {
+        task.addMedia(media);
+        return this.patch(task, true, batch -> batch.arrAppendJson(getKey(task.getId()), ".activeMedia", media));
+    }
+
+    /**
+     * Writes a change already made to the task. In write-through mode only the changed paths are written to
+     * Redis, in write-behind mode the task is updated in memory. The paths of the task's medias are addressed by
+     * index, they are valid while the task's conversation is locked by the caller.
+     *
+     * @param task     the changed task
+     * @param reindex  whether the change moves the task between index sets
+     * @param commands appends the JSON path commands of the change
+     * @return true if the change was written, false otherwise
+     */
+    private boolean patch(Task task, boolean reindex, Consumer<RedisBatch> commands) {
+        if (this.taskCache.isWriteBehind()) {
+            return this.update(task);
+        }
+
+        boolean patched;
+        if (reindex) {
+            patched = this.writeThrough(task.getId(), indexKeys(task), commands);
+        } else {
+            RedisBatch batch = RedisBatch.atomic();
+            commands.accept(batch);
+            patched = this.redisClient.execute(batch);
+            if (!patched) {
+                logger.error("Failed to update task: {}", task.getId());
+                logger.error(ExceptionUtils.getMessage(batch.getError()));
+            }
+        }
+
+        String json = patched ? this.toJson(task) : null;
+        if (json != null) {
+            this.taskCache.put(task.getId(), json);
+        } else {
+            this.taskCache.evict(task.getId());
+        }
+        return patched;
+    }
+
+    /**
+     * Returns the JSON path of a media of the task.
+     *
+     * @param task    the task
+     * @param mediaId the media id
+     * @return the path
+     * @throws IllegalArgumentException if the task has no such media
+     */
+    private String getMediaPath(Task task, String mediaId) {
+        TaskMedia media = task.findMediaBy(mediaId);
+        if (media == null) {
+            throw new IllegalArgumentException("Media: " + mediaId + " not found in task: " + task.getId());
+        }
+        return ".activeMedia[" + task.getActiveMedia().indexOf(media) + "]";
+    }
+
+    @Override
+    public boolean updateField(String id, String path, Object value) {
+        if (!this.taskCache.isWriteBehind() || !TOP_LEVEL_PATH.matcher(path).matches()) {
+            // Nested paths are written through, after the pending writes they apply to.
+            this.flushPendingWrites();
+            boolean updated = super.updateField(id, path, value);
+            this.taskCache.evict(id);
+            if (updated && INDEXED_PATHS.contains(path)) {
+                this.reindex(id);
             }
+            return updated;
+        }
+
+        Task task = this.find(id);
+        if (task == null) {
+            return false;
+        }
+
+        try {
+            ObjectNode node = objectMapper.valueToTree(task);
+            node.set(path.substring(1), objectMapper.valueToTree(value));
+            Task updated = objectMapper.treeToValue(node, Task.class);
+            this.taskCache.writeBehind(new TaskWrite(Op.UPDATE, id, task.getConversationId(),
+                    objectMapper.writeValueAsString(node), indexKeys(updated)));
+            return true;
+        } catch (Exception e) {
             logger.error(ExceptionUtils.getMessage(e));
             logger.error(ExceptionUtils.getStackTrace(e));
+            return false;
+        }
+    }
+
+    /**
+     * Delete.
+     *
+     * @param task the task
+     */
+    public void delete(Task task) {
+        TaskWrite write = new TaskWrite(Op.DELETE, task.getId(), task.getConversationId(), null, Set.of());
+
+        if (this.taskCache.isWriteBehind()) {
+            this.taskCache.writeBehind(write);
+            return;
+        }
+
+        if (this.writeThrough(write)) {
+            this.taskCache.evict(task.getId());
         }
     }
 
@@ -245,12 +549,479 @@ public class TasksRepository extends RedisJsonDao<Task> {
     }
 
     /**
-     * Delete agent req timer entity.
+     * Save agent req timer entity together with the timer's deadline in a single transaction.
+     *
+     * @param timerId  the timer id
+     * @param entity   the entity
+     * @param deadline the absolute expiry time in ms
+     */
+    public void saveAgentReqTimerEntity(String timerId, AgentReqTimerEntity entity, long deadline) {
+        try {
+            RedisBatch batch = RedisBatch.atomic();
+            batch.setJson(getAgentReqTimerKey(timerId), ".", entity);
+            batch.zadd(AGENT_REQ_TIMER_DEADLINES_KEY, deadline, timerId);
+
+            if (!this.redisClient.execute(batch)) {
+                logger.error("Failed to save agent request timer: {}, {}", timerId,
+                        ExceptionUtils.getMessage(batch.getError()));
+            }
+        } catch (Exception e) {
+            logger.error(ExceptionUtils.getMessage(e));
+            logger.error(ExceptionUtils.getStackTrace(e));
+        }
+    }
+
+    /**
+     * Delete agent req timer entity and the timer's deadline.
      *
      * @param timerId the timer id
      */
     public void deleteAgentReqTimerEntity(String timerId) {
-        this.redisClient.delJson(this.getAgentReqTimerKey(timerId));
+        this.deleteAgentReqTimerEntities(List.of(timerId));
+    }
+
+    /**
+     * Delete the agent req timer entities and deadlines of the given timers in a single transaction.
+     *
+     * @param timerIds the timer ids
+     */
+    public void deleteAgentReqTimerEntities(Collection<String> timerIds) {
+        try {
+            RedisBatch batch = RedisBatch.atomic();
+            for (String timerId : timerIds) {
+                batch.delJson(getAgentReqTimerKey(timerId));
+            }
+            batch.zrem(AGENT_REQ_TIMER_DEADLINES_KEY, timerIds.toArray(new String[0]));
+
+            if (!this.redisClient.execute(batch)) {
+                logger.error("Failed to delete agent request timers: {}, {}", timerIds,
+                        ExceptionUtils.getMessage(batch.getError()));
+            }
+        } catch (Exception e) {
+            logger.error(ExceptionUtils.getMessage(e));
+            logger.error(ExceptionUtils.getStackTrace(e));
+        }
+    }
+
+    /**
+     * Finds the deadlines of all persisted agent request timers.
+     *
+     * @return map of timerId to absolute expiry time in ms
+     */
+    public Map<String, Long> findAllAgentReqTimerDeadlines() {
+        Map<String, Long> deadlines = new HashMap<>();
+        try (Jedis conn = redisClient.getConnection()) {
+            for (Tuple tuple : conn.zrangeByScoreWithScores(AGENT_REQ_TIMER_DEADLINES_KEY, "-inf", "+inf")) {
+                deadlines.put(tuple.getElement(), (long) tuple.getScore());
+            }
+        } catch (Exception e) {
+            logger.error(ExceptionUtils.getMessage(e));
+            logger.error(ExceptionUtils.getStackTrace(e));
+        }
+        return deadlines;
+    }
+
+    /**
+     * Serializes the task.
+     *
+     * @param task the task
+     * @return the task's JSON, null if it could not be serialized
+     */
+    private String toJson(Task task) {
+        try {
+            return objectMapper.writeValueAsString(task);
+        } catch (JsonProcessingException e) {
+            logger.error(ExceptionUtils.getMessage(e));
+            logger.error(ExceptionUtils.getStackTrace(e));
+            return null;
+        }
+    }
+
+    /**
+     * Flushes the pending task writes so that the queries reading from Redis see them.
+     */
+    private void flushPendingWrites() {
+        if (this.taskCache.isWriteBehind()) {
+            this.taskCache.flush();
+        }
+    }
+
+    /**
+     * Re-indexes the tasks, the index sets are rebuilt from the given tasks and the ids of the deleted tasks are
+     * removed from them. The tasks written while the indexes are rebuilt keep their indexes, an id is removed only
+     * if its task does not exist in Redis.
+     *
+     * @param tasks all the tasks
+     */
+    public void rebuildIndexes(Collection<Task> tasks) {
+        logger.info("Rebuilding the indexes of {} tasks", tasks.size());
+
+        List<TaskWrite> writes = new ArrayList<>();
+        for (Task task : tasks) {
+            writes.add(new TaskWrite(Op.REINDEX, task.getId(), task.getConversationId(), null, indexKeys(task)));
+        }
+
+        for (int i = 0; i < writes.size(); i += REBUILD_BATCH_SIZE) {
+            this.write(writes.subList(i, Math.min(writes.size(), i + REBUILD_BATCH_SIZE)));
+        }
+
+        this.removeDeletedTasksFromIndexes();
+
+        logger.info("Rebuilt the indexes of {} tasks", tasks.size());
+    }
+
+    /**
+     * Re-indexes all the tasks in Redis.
+     *
+     * @return the number of tasks re-indexed
+     */
+    public int rebuildIndexes() {
+        List<Task> tasks = this.findAll();
+        this.rebuildIndexes(tasks);
+        return tasks.size();
+    }
+
+    /**
+     * Re-indexes the task from its state in Redis.
+     *
+     * @param taskId the task id
+     */
+    private void reindex(String taskId) {
+        Task task = super.find(taskId);
+        if (task != null) {
+            this.writeThrough(new TaskWrite(Op.REINDEX, taskId, task.getConversationId(), null, indexKeys(task)));
+        }
+    }
+
+    /**
+     * Writes the task write to Redis in a transaction that also moves the task between the index sets. The task's
+     * index sets are watched and read in one round trip and the transaction is sent in another; it is retried if
+     * the index sets change in between.
+     *
+     * @param write the task write
+     * @return true if the write was committed, false otherwise
+     */
+    private boolean writeThrough(TaskWrite write) {
+        return this.writeThrough(write.taskId(), write.indexKeys(), batch -> this.appendTaskWrite(batch, write));
+    }
+
+    /**
+     * Writes the task's commands to Redis in a transaction that also moves the task between the index sets, see
+     * {@link #writeThrough(TaskWrite)}.
+     *
+     * @param taskId    the task id
+     * @param indexKeys the index sets the task belongs to after the write
+     * @param commands  appends the task's commands to the transaction
+     * @return true if the write was committed, false otherwise
+     */
+    private boolean writeThrough(String taskId, Set<String> indexKeys, Consumer<RedisBatch> commands) {
+        String taskIndexesKey = getTaskIndexesKey(taskId);
+
+        try (Jedis conn = redisClient.getConnection()) {
+            boolean watching = false;
+            try {
+                for (int attempt = 0; attempt < MAX_INDEX_ATTEMPTS; attempt++) {
+                    RedisBatch reads = new RedisBatch();
+                    reads.watch(taskIndexesKey);
+                    RedisBatch.Result<Set<String>> previous = reads.smembers(taskIndexesKey);
+                    watching = true;
+                    if (!reads.execute(conn)) {
+                        throw new IllegalStateException(ExceptionUtils.getMessage(reads.getError()),
+                                reads.getError());
+                    }
+
+                    RedisBatch writes = RedisBatch.atomic();
+                    commands.accept(writes);
+                    this.appendIndexes(writes, taskId, previous.get(), indexKeys);
+
+                    // EXEC ends the watch whether the transaction is committed or aborted.
+                    boolean committed = writes.execute(conn);
+                    watching = false;
+                    if (committed) {
+                        return true;
+                    }
+                    if (!writes.isAborted()) {
+                        throw new IllegalStateException(ExceptionUtils.getMessage(writes.getError()),
+                                writes.getError());
+                    }
+                }
+            } finally {
+                if (watching) {
+                    unwatch(conn);
+                }
+            }
+            logger.error("Could not write task: {}, its indexes kept changing concurrently", taskId);
+        } catch (Exception e) {
+            logger.error(ExceptionUtils.getMessage(e));
+            logger.error(ExceptionUtils.getStackTrace(e));
+        }
+        return false;
+    }
+
+    /**
+     * Writes a batch of task writes to Redis in one round trip, after reading the index sets of the tasks in
+     * another one.
+     *
+     * @param writes the task writes
+     * @throws IllegalStateException if any of the commands failed
+     */
+    private void write(List<TaskWrite> writes) {
+        try (Jedis conn = redisClient.getConnection()) {
+            RedisBatch reads = new RedisBatch();
+            List<RedisBatch.Result<Set<String>>> previous = new ArrayList<>();
+            for (TaskWrite write : writes) {
+                previous.add(reads.smembers(getTaskIndexesKey(write.taskId())));
+            }
+            if (!reads.execute(conn)) {
+                throw new IllegalStateException(ExceptionUtils.getMessage(reads.getError()), reads.getError());
+            }
+
+            RedisBatch batch = new RedisBatch();
+            for (int i = 0; i < writes.size(); i++) {
+                TaskWrite write = writes.get(i);
+                this.appendTaskWrite(batch, write);
+                this.appendIndexes(batch, write.taskId(), previous.get(i).get(), write.indexKeys());
+            }
+
+            if (!batch.execute(conn)) {
+                throw new IllegalStateException(ExceptionUtils.getMessage(batch.getError()), batch.getError());
+            }
+        }
+    }
+
+    /**
+     * Appends the commands of a task write to a batch.
+     *
+     * @param batch the batch
+     * @param write the task write
+     */
+    private void appendTaskWrite(RedisBatch batch, TaskWrite write) {
+        String taskId = write.taskId();
+        String taskKey = getKey(taskId);
+
+        switch (write.op()) {
+            case INSERT -> {
+                // Add taskId to a set of task ids of this conversation
+                batch.sadd(getConversationKey(write.conversationId()), taskId);
+                // Add taskId to set of all task ids
+                batch.sadd(type, taskId);
+                // Save Task as a RedisJson Object
+                batch.setJson(taskKey, ".", SafeEncoder.encode(write.json()));
+            }
+            case UPDATE -> {
+                batch.sadd(type, taskId);
+                batch.setJson(taskKey, ".", SafeEncoder.encode(write.json()));
+            }
+            case DELETE -> {
+                // Delete Task Json Object in Redis
+                batch.delJson(taskKey);
+                // Remove taskId from set of all task ids
+                batch.srem(type, taskId);
+                // Remove taskId from set of task ids of this conversation
+                batch.srem(getConversationKey(write.conversationId()), taskId);
+            }
+            case REINDEX -> {
+                // Only the index sets change.
+            }
+            default -> throw new IllegalStateException("Unexpected task write: " + write.op());
+        }
+    }
+
+    /**
+     * Appends the commands that move a task from the index sets it is in to the ones it belongs to.
+     *
+     * @param batch    the batch
+     * @param taskId   the task id
+     * @param previous the index sets the task is currently in
+     * @param current  the index sets the task belongs to
+     */
+    private void appendIndexes(RedisBatch batch, String taskId, Set<String> previous, Set<String> current) {
+        if (current.equals(previous)) {
+            return;
+        }
+
+        for (String indexKey : previous) {
+            if (!current.contains(indexKey)) {
+                batch.srem(indexKey, taskId);
+            }
+        }
+        for (String indexKey : current) {
+            if (!previous.contains(indexKey)) {
+                batch.sadd(indexKey, taskId);
+            }
+        }
+
+        String taskIndexesKey = getTaskIndexesKey(taskId);
+        batch.del(taskIndexesKey);
+        if (!current.isEmpty()) {
+            batch.sadd(taskIndexesKey, current.toArray(new String[0]));
+        }
+    }
+
+    /**
+     * Removes the ids of the deleted tasks from the index sets and deletes the index sets of the deleted tasks.
+     * The tasks of the indexed ids are looked up a page at a time in one round trip.
+     */
+    private void removeDeletedTasksFromIndexes() {
+        Map<String, Set<String>> indexKeysByTaskId = new HashMap<>();
+        for (String prefix : List.of(AGENT_INDEX_PREFIX, MRD_INDEX_PREFIX, QUEUE_INDEX_PREFIX)) {
+            this.scanKeys(prefix + "*", (conn, indexKey) -> conn.smembers(indexKey).forEach(taskId ->
+                    indexKeysByTaskId.computeIfAbsent(taskId, k -> new HashSet<>()).add(indexKey)));
+        }
+        this.scanKeys(TASK_INDEXES_PREFIX + "*", (conn, key) ->
+                indexKeysByTaskId.computeIfAbsent(key.substring(TASK_INDEXES_PREFIX.length()), k -> new HashSet<>()));
+
+        List<String> taskIds = new ArrayList<>(indexKeysByTaskId.keySet());
+        int removed = 0;
+
+        try (Jedis conn = redisClient.getConnection()) {
+            for (int i = 0; i < taskIds.size(); i += REBUILD_BATCH_SIZE) {
+                List<String> page = taskIds.subList(i, Math.min(taskIds.size(), i + REBUILD_BATCH_SIZE));
+                RedisBatch reads = new RedisBatch();
+                List<RedisBatch.Result<Boolean>> exists = page.stream().map(id -> reads.exists(getKey(id))).toList();
+                if (!reads.execute(conn)) {
+                    throw new IllegalStateException(ExceptionUtils.getMessage(reads.getError()), reads.getError());
+                }
+
+                for (int j = 0; j < page.size(); j++) {
+                    String taskId = page.get(j);
+                    if (!exists.get(j).get() && this.removeDeletedTask(conn, taskId, indexKeysByTaskId.get(taskId))) {
+                        removed++;
+                    }
+                }
+            }
+        } catch (Exception e) {
+            logger.error(ExceptionUtils.getMessage(e));
+            logger.error(ExceptionUtils.getStackTrace(e));
+        }
+
+        logger.info("Removed {} deleted tasks from the indexes", removed);
+    }
+
+    /**
+     * Removes a deleted task from the index sets and deletes its own index set, in a transaction that watches the
+     * task's key: if the task is inserted in the meantime the transaction is aborted and its indexes are kept.
+     *
+     * @param conn      the connection
+     * @param taskId    the task id
+     * @param indexKeys the index sets the task was found in
+     * @return true if the task was removed from the indexes, false if it exists
+     * @throws IllegalStateException if any of the commands failed
+     */
+    private boolean removeDeletedTask(Jedis conn, String taskId, Set<String> indexKeys) {
+        String taskKey = getKey(taskId);
+        String taskIndexesKey = getTaskIndexesKey(taskId);
+
+        RedisBatch reads = new RedisBatch();
+        reads.watch(taskKey);
+        RedisBatch.Result<Boolean> exists = reads.exists(taskKey);
+        RedisBatch.Result<Set<String>> taskIndexes = reads.smembers(taskIndexesKey);
+
+        boolean watching = true;
+        try {
+            if (!reads.execute(conn)) {
+                throw new IllegalStateException(ExceptionUtils.getMessage(reads.getError()), reads.getError());
+            }
+            if (exists.get()) {
+                return false;
+            }
+
+            Set<String> keys = new HashSet<>(indexKeys);
+            keys.addAll(taskIndexes.get());
+            RedisBatch writes = RedisBatch.atomic();
+            for (String indexKey : keys) {
+                writes.srem(indexKey, taskId);
+            }
+            writes.del(taskIndexesKey);
+
+            boolean committed = writes.execute(conn);
+            watching = false;
+            if (committed) {
+                return true;
+            }
+            if (!writes.isAborted()) {
+                throw new IllegalStateException(ExceptionUtils.getMessage(writes.getError()), writes.getError());
+            }
+            return false;
+        } finally {
+            if (watching) {
+                unwatch(conn);
+            }
+        }
+    }
+
+    /**
+     * Unwatches the keys watched on the connection when their transaction is not sent. Jedis resets only the
+     * watches it tracks when a connection goes back to the pool, a WATCH sent in a batch would abort the next
+     * transaction on the connection.
+     *
+     * @param conn the connection
+     */
+    private static void unwatch(Jedis conn) {
+        RedisBatch batch = new RedisBatch();
+        batch.unwatch();
+        if (!batch.execute(conn)) {
+            logger.error("Could not unwatch the keys of an unsent transaction: {}",
+                    ExceptionUtils.getMessage(batch.getError()));
+        }
+    }
+
+    /**
+     * Runs the consumer on each key matching the pattern.
+     *
+     * @param pattern  the pattern
+     * @param consumer the consumer of the connection and the key
+     */
+    private void scanKeys(String pattern, BiConsumer<Jedis, String> consumer) {
+        try (Jedis conn = redisClient.getConnection()) {
+            String cursor = ScanParams.SCAN_POINTER_START;
+            do {
+                ScanResult<String> scanResult = conn.scan(cursor, new ScanParams().match(pattern).count(1000));
+                cursor = scanResult.getCursor();
+                scanResult.getResult().forEach(key -> consumer.accept(conn, key));
+            } while (!cursor.equals(ScanParams.SCAN_POINTER_START));
+        } catch (Exception e) {
+            logger.error(ExceptionUtils.getMessage(e));
+            logger.error(ExceptionUtils.getStackTrace(e));
+        }
+    }
+
+    /**
+     * Returns the keys of the index sets the task belongs to.
+     *
+     * @param task the task
+     * @return the index keys
+     */
+    private static Set<String> indexKeys(Task task) {
+        Set<String> result = new HashSet<>();
+        if (task.getAssignedTo() != null) {
+            result.add(getAgentIndexKey(task.getAssignedTo().getId()));
+        }
+        if (task.getActiveMedia() != null) {
+            for (TaskMedia media : task.getActiveMedia()) {
+                result.add(getMrdIndexKey(media.getMrdId()));
+                if (media.getQueue() != null) {
+                    result.add(getQueueIndexKey(media.getQueue().getId()));
+                }
+            }
+        }
+        return result;
+    }
+
+    private static String getAgentIndexKey(String agentId) {
+        return AGENT_INDEX_PREFIX + agentId;
+    }
+
+    private static String getMrdIndexKey(String mrdId) {
+        return MRD_INDEX_PREFIX + mrdId;
+    }
+
+    private static String getQueueIndexKey(String queueId) {
+        return QUEUE_INDEX_PREFIX + queueId;
+    }
+
+    private static String getTaskIndexesKey(String taskId) {
+        return TASK_INDEXES_PREFIX + taskId;
     }
 
     /**
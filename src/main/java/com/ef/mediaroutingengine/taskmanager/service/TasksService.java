@@ -57,7 +57,7 @@ public class TasksService {
      * The Task manager.
      */
     private final TaskManager taskManager;
-    private final ConversationLock conversationLock = new ConversationLock();
+    private final ConversationLock conversationLock = new ConversationLock("tasks-service");
 
     /**
      * Instantiates a new Tasks service.
@@ -107,6 +107,15 @@ public class TasksService {
         return this.tasksRepository.findAll();
     }
 
+    /**
+     * Rebuilds the Redis indexes of the tasks by agent, MRD and queue.
+     *
+     * @return the number of tasks re-indexed
+     */
+    public int rebuildIndexes() {
+        return this.tasksRepository.rebuildIndexes();
+    }
+
     /**
      * Cancel resource by direction.
      *
@@ -210,7 +219,7 @@ public class TasksService {
 
             if (media != null) {
                 media.addChannelSession(channelSession);
-                this.tasksRepository.updateActiveMedias(task.getId(), task.getActiveMedia());
+                this.tasksRepository.updateMedia(task, media);
             }
         }
     }
@@ -241,7 +250,7 @@ public class TasksService {
                 boolean isRemoved = media.removeChannelSession(channelSession.getId());
 
                 if (isRemoved) {
-                    this.tasksRepository.updateActiveMedias(task.getId(), task.getActiveMedia());
+                    this.tasksRepository.updateMedia(task, media);
 
                     if (media.getChannelSessions().isEmpty() && !media.getState().equals(TaskMediaState.ACTIVE)) {
                         this.taskManager.revokeInProcessTask(task, false);
@@ -40,7 +40,7 @@ public class TaskMediaStateService {
     private final AgentRequestTimerService agentRequestTimerService;
     private final AgentsPool agentsPool;
     private final JmsCommunicator jmsCommunicator;
-    private final ConversationLock conversationLock = new ConversationLock();
+    private final ConversationLock conversationLock = new ConversationLock("task-media-state");
 
     /**
      * Instantiates a new Task media state service.
@@ -138,8 +138,7 @@ public class TaskMediaStateService {
                 jmsCommunicator.publishTaskStateChanged(task, session, true, taskMedia.getId());
             } else {
                 jmsCommunicator.publishTaskStateChanged(task, session, false, taskMedia.getId());
-                task.removeMedia(taskMedia.getId());
-                tasksRepository.updateActiveMedias(task.getId(), task.getActiveMedia());
+                tasksRepository.removeMedia(task, taskMedia.getId());
             }
 
             return;
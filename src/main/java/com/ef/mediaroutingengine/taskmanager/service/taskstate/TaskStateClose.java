@@ -3,6 +3,7 @@ package com.ef.mediaroutingengine.taskmanager.service.taskstate;
 import com.ef.cim.objectmodel.AgentState;
 import com.ef.cim.objectmodel.Enums;
 import com.ef.cim.objectmodel.task.Task;
+import com.ef.cim.objectmodel.task.TaskMediaState;
 import com.ef.cim.objectmodel.task.TaskState;
 import com.ef.mediaroutingengine.agentstatemanager.eventlisteners.agentstate.AgentStateListener;
 import com.ef.mediaroutingengine.routing.model.Agent;
@@ -37,8 +38,7 @@ public class TaskStateClose implements TaskStateModifier {
     @Override
     public boolean updateState(Task task, TaskState state) {
         if (isRona(state)) {
-            this.handleRona(task, state);
-            return true;
+            return this.handleRona(task, state);
         }
 
         this.taskManager.closeTask(task, state);
@@ -49,7 +49,19 @@ public class TaskStateClose implements TaskStateModifier {
         return state.getReasonCode() != null && state.getReasonCode().equals(Enums.TaskStateReasonCode.RONA);
     }
 
-    private void handleRona(Task task, TaskState state) {
+    /**
+     * Handles the RONA of a reserved task. A reservation that is not persisted yet is being offered by the task
+     * router, which undoes it if the offer fails, so the request is ignored.
+     *
+     * @param task  the task
+     * @param state the state
+     * @return true if the task was rerouted
+     */
+    private boolean handleRona(Task task, TaskState state) {
+        if (task.findMediaByState(TaskMediaState.RESERVED) == null) {
+            return false;
+        }
+
         Agent agent = this.agentsPool.findBy(task.getAssignedTo());
         agent.removeReservedTask();
 
@@ -57,5 +69,6 @@ public class TaskStateClose implements TaskStateModifier {
         this.agentStateListener.propertyChange(agent, agentState, true);
 
         this.taskManager.rerouteReserved(task, state);
+        return true;
     }
 }
@@ -31,7 +31,7 @@ public class TaskStateListener {
      * The Factory.
      */
     private final TaskStateModifierFactory factory;
-    private final ConversationLock conversationLock = new ConversationLock();
+    private final ConversationLock conversationLock = new ConversationLock("task-state");
 
     /**
      * Instantiates a new Task state listener.
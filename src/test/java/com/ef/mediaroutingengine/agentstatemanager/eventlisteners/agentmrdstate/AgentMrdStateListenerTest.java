@@ -4,7 +4,6 @@ import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
-import static org.mockito.ArgumentMatchers.anyList;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.doNothing;
 import static org.mockito.Mockito.mock;
@@ -63,18 +62,19 @@ class AgentMrdStateListenerTest {
     void test_publish() throws JMSException, JsonProcessingException {
         Agent agent = getNewAgent();
 
-        AgentPresence agentPresence = mock(AgentPresence.class);
-        when(agentPresenceRepository.find(agent.getId())).thenReturn(agentPresence);
-
         listener.publish(agent, Enums.JmsEventName.AGENT_STATE_CHANGED, new ArrayList<>());
 
-        verifyNoMoreInteractions(agentPresenceRepository);
+        // The agent presence is built from the in-memory agent, not read back from Redis.
+        verifyNoInteractions(agentPresenceRepository);
 
         ArgumentCaptor<AgentStateChangedResponse> arg = ArgumentCaptor.forClass(AgentStateChangedResponse.class);
         verify(jmsCommunicator, times(1)).publish(arg.capture(),
                 eq(Enums.JmsEventName.AGENT_STATE_CHANGED));
         verifyNoMoreInteractions(jmsCommunicator);
-        assertEquals(agentPresence, arg.getValue().getAgentPresence());
+        AgentPresence agentPresence = arg.getValue().getAgentPresence();
+        assertEquals(agent.getId(), agentPresence.getAgent().getId());
+        assertEquals(agent.getState(), agentPresence.getState());
+        assertEquals(agent.getAgentMrdStates(), agentPresence.getAgentMrdStates());
         assertFalse(arg.getValue().isAgentStateChanged());
     }
 
@@ -89,7 +89,7 @@ class AgentMrdStateListenerTest {
         assertEquals(newState, agentMrdState.getState());
 
         verify(agentPresenceRepository, times(1))
-                .updateAgentMrdStateList(eq(agent.getId()), anyList());
+                .updateAgentMrdStates(agent, List.of(agentMrdState.getMrd().getId()));
         verifyNoMoreInteractions(agentPresenceRepository);
     }
 
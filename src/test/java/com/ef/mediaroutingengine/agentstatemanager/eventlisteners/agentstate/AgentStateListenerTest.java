@@ -12,7 +12,6 @@ import com.ef.cim.objectmodel.CCUser;
 import com.ef.cim.objectmodel.Enums;
 import com.ef.cim.objectmodel.KeycloakUser;
 import com.ef.cim.objectmodel.dto.AgentStateChangedResponse;
-import com.ef.mediaroutingengine.agentstatemanager.repository.AgentPresenceRepository;
 import com.ef.mediaroutingengine.global.jms.JmsCommunicator;
 import com.ef.mediaroutingengine.routing.model.Agent;
 import com.fasterxml.jackson.core.JsonProcessingException;
@@ -29,15 +28,13 @@ import org.mockito.junit.jupiter.MockitoExtension;
 class AgentStateListenerTest {
     private AgentStateListener agentStateListener;
     @Mock
-    private AgentPresenceRepository agentPresenceRepository;
-    @Mock
     private JmsCommunicator jmsCommunicator;
     @Mock
     private AgentStateDelegateFactory factory;
 
     @BeforeEach
     void setUp() {
-        agentStateListener = new AgentStateListener(agentPresenceRepository, jmsCommunicator, factory);
+        agentStateListener = new AgentStateListener(jmsCommunicator, factory);
     }
 
     @Test
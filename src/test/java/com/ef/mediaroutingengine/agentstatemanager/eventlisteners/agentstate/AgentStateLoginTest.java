@@ -78,10 +78,9 @@ class AgentStateLoginTest {
         AgentState newState = new AgentState(Enums.AgentStateName.LOGIN, null);
         AgentStateLogin spy = Mockito.spy(agentStateLogin);
 
-        AgentPresence agentPresence = mock(AgentPresence.class);
-        when(agentPresenceRepository.find(agent.getId())).thenReturn(agentPresence);
         // No need to test publish again, it is already tested.
-        doNothing().when(spy).publish(eq(agentPresence), any());
+        ArgumentCaptor<AgentPresence> published = ArgumentCaptor.forClass(AgentPresence.class);
+        doNothing().when(spy).publish(published.capture(), any());
         // calling the testing method
         spy.logoutToLogin(agent, newState);
         // Assert that agent-state is updated to new state i.e. login
@@ -90,11 +89,13 @@ class AgentStateLoginTest {
         for (AgentMrdState agentMrdState : agent.getAgentMrdStates()) {
             assertEquals(Enums.AgentMrdStateName.LOGIN, agentMrdState.getState());
         }
-        // verify agentPresence object is updated correctly
-        verify(agentPresence, times(1)).setState(agent.getState());
-        verify(agentPresence, times(1)).setAgentMrdStates(agent.getAgentMrdStates());
-        verify(agentPresence, times(1)).setAgentLoginTime(any());
-        verify(agentPresenceRepository, times(1)).updateAgentLoginTime(any(), any());
+        // verify the published agentPresence is built from the agent, without reading it from the repository
+        AgentPresence agentPresence = published.getValue();
+        assertEquals(agent.getState(), agentPresence.getState());
+        assertEquals(agent.getAgentMrdStates(), agentPresence.getAgentMrdStates());
+        assertEquals(agent.getLoginTime(), agentPresence.getAgentLoginTime());
+        verify(agentPresenceRepository, times(1)).updateAgentLoginTime(agent.getId(), agent.getLoginTime());
+        verifyNoMoreInteractions(agentPresenceRepository);
     }
 
     @Test
@@ -117,7 +118,7 @@ class AgentStateLoginTest {
         }
         // verify that agentPresenceRepository calls are made correctly
         verify(agentPresenceRepository, times(1))
-                .updateAgentState(agent.getId(), newState);
+                .updateAgentState(agent);
         verify(agentPresenceRepository, times(1))
                 .updateAgentMrdStateList(agent.getId(), agent.getAgentMrdStates());
         verifyNoMoreInteractions(agentPresenceRepository);
@@ -79,7 +79,7 @@ class AgentStateNotReadyTest {
 
         AgentStateChangedResponse res = spy.updateState(agent, newState, false);
 
-        verify(agentPresenceRepository, times(1)).updateAgentState(agent.getId(), newState);
+        verify(agentPresenceRepository, times(1)).updateAgentState(agent);
         assertTrue(res.isAgentStateChanged());
     }
 
@@ -95,7 +95,7 @@ class AgentStateNotReadyTest {
         // Assert that agent's state is updated to new state
         assertEquals(newState, agent.getState());
         // Verify that correct repository calls are made.
-        verify(this.agentPresenceRepository, times(1)).updateAgentState(agent.getId(), newState);
+        verify(this.agentPresenceRepository, times(1)).updateAgentState(agent);
         verifyNoMoreInteractions(this.agentPresenceRepository);
         // Assert return value is true.
         assertTrue(res.isAgentStateChanged());
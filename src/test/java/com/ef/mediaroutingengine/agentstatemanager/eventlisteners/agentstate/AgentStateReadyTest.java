@@ -3,8 +3,6 @@ package com.ef.mediaroutingengine.agentstatemanager.eventlisteners.agentstate;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertTrue;
-import static org.mockito.ArgumentMatchers.any;
-import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoMoreInteractions;
@@ -60,7 +58,7 @@ class AgentStateReadyTest {
         // Assert agent state is updated to new state
         assertEquals(newState, agent.getState());
         // verify the correct repository calls are made
-        verify(this.agentPresenceRepository, times(1)).updateAgentState(any(), eq(newState));
+        verify(this.agentPresenceRepository, times(1)).updateAgentState(agent);
         verifyNoMoreInteractions(this.agentPresenceRepository);
         // Assert return value is true.
         assertTrue(res.isAgentStateChanged());
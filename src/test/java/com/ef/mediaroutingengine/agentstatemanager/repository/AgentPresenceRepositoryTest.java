@@ -0,0 +1,107 @@
+package com.ef.mediaroutingengine.agentstatemanager.repository;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.ef.cim.objectmodel.AgentMrdState;
+import com.ef.cim.objectmodel.AgentPresence;
+import com.ef.cim.objectmodel.AgentState;
+import com.ef.cim.objectmodel.CCUser;
+import com.ef.cim.objectmodel.Enums;
+import com.ef.cim.objectmodel.KeycloakUser;
+import com.ef.cim.objectmodel.MediaRoutingDomain;
+import com.ef.mediaroutingengine.global.redis.AsyncRedisClient;
+import com.ef.mediaroutingengine.global.redis.RedisClient;
+import com.ef.mediaroutingengine.routing.model.Agent;
+import java.sql.Timestamp;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+@ExtendWith(MockitoExtension.class)
+class AgentPresenceRepositoryTest {
+    @Mock
+    private RedisClient redisClient;
+    @Mock
+    private AsyncRedisClient asyncRedisClient;
+    private AgentPresenceRepository repository;
+
+    @BeforeEach
+    void setUp() {
+        repository = new AgentPresenceRepository(redisClient, asyncRedisClient);
+    }
+
+    @Test
+    void test_updateAgentMrdStates_writesWholeArray_when_storedOrderIsNotKnown() {
+        Agent agent = getNewAgent("chat", "voice");
+        when(asyncRedisClient.setJson(anyString(), anyString(), any()))
+                .thenReturn(CompletableFuture.completedFuture(true));
+
+        repository.updateAgentMrdStates(agent, List.of("voice"));
+
+        verify(asyncRedisClient).setJson("agentPresence:" + agent.getId(), ".agentMrdStates",
+                agent.getAgentMrdStates());
+        verify(asyncRedisClient, never()).setJson(anyString(), anyMap());
+    }
+
+    @Test
+    void test_updateAgentMrdStates_writesOnlyTheChangedPaths_when_storedOrderIsKnown() {
+        Agent agent = getNewAgent("chat", "voice");
+        AgentPresence agentPresence = new AgentPresence(agent.toCcUser(), agent.getState(),
+                List.of(agent.getAgentMrdState("voice"), agent.getAgentMrdState("chat")));
+        when(redisClient.setJsonWithSet("agentPresence", agent.getId(), agentPresence)).thenReturn(true);
+        when(asyncRedisClient.setJson(anyString(), anyMap())).thenReturn(CompletableFuture.completedFuture(true));
+        repository.save(agent.getId(), agentPresence);
+
+        AgentMrdState chat = agent.getAgentMrdState("chat");
+        chat.setState(Enums.AgentMrdStateName.READY);
+        repository.updateAgentMrdStates(agent, List.of("chat"));
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<Map<String, Object>> values = ArgumentCaptor.forClass(Map.class);
+        verify(asyncRedisClient).setJson(eq("agentPresence:" + agent.getId()), values.capture());
+        assertEquals(Map.of(".agentMrdStates[1].state", Enums.AgentMrdStateName.READY,
+                ".agentMrdStates[1].stateChangeTime", chat.getStateChangeTime()), values.getValue());
+        verify(asyncRedisClient, never()).setJson(anyString(), anyString(), any());
+    }
+
+    @Test
+    void test_updateAgentState_writesTheStateChangeTimeOfTheAgent() {
+        Agent agent = getNewAgent("chat");
+        agent.setState(new AgentState(Enums.AgentStateName.READY, null));
+        agent.setStateChangeTime(new Timestamp(1000));
+        when(asyncRedisClient.setJson(anyString(), anyMap())).thenReturn(CompletableFuture.completedFuture(true));
+
+        repository.updateAgentState(agent);
+
+        verify(asyncRedisClient).setJson("agentPresence:" + agent.getId(),
+                Map.of(".state", agent.getState(), ".stateChangeTime", new Timestamp(1000)));
+    }
+
+    private Agent getNewAgent(String... mrdIds) {
+        KeycloakUser keycloakUser = new KeycloakUser();
+        keycloakUser.setId("agent-1");
+        CCUser ccUser = new CCUser();
+        ccUser.setKeycloakUser(keycloakUser);
+        Agent agent = new Agent(ccUser);
+        agent.setState(new AgentState(Enums.AgentStateName.READY, null));
+        for (String mrdId : mrdIds) {
+            MediaRoutingDomain mrd = new MediaRoutingDomain();
+            mrd.setId(mrdId);
+            agent.addAgentMrdState(new AgentMrdState(mrd, Enums.AgentMrdStateName.NOT_READY));
+        }
+        return agent;
+    }
+}
@@ -0,0 +1,181 @@
+package com.ef.mediaroutingengine.global.jms;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.ef.cim.objectmodel.CCUser;
+import com.ef.cim.objectmodel.ChannelSession;
+import com.ef.cim.objectmodel.Enums;
+import com.ef.cim.objectmodel.task.Task;
+import com.ef.cim.objectmodel.task.TaskMedia;
+import com.ef.mediaroutingengine.config.jmsconfig.JmsPublisherProperties;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import javax.jms.Connection;
+import javax.jms.JMSException;
+import javax.jms.MessageConsumer;
+import javax.jms.Session;
+import javax.jms.TextMessage;
+import org.apache.activemq.ActiveMQConnectionFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class ActivemqCommunicatorTest {
+    private static final String STATE_CHANGE_TOPIC = "STATE_CHANNEL";
+    private static final String CONVERSATION_TOPIC = "conversation-topic";
+
+    private Connection connection;
+    private Session consumerSession;
+    private MessageConsumer stateChangeConsumer;
+    private SimpleMeterRegistry meterRegistry;
+    private ActivemqCommunicator communicator;
+
+    @BeforeEach
+    void setUp() throws JMSException {
+        connection = new ActiveMQConnectionFactory("vm://test?broker.persistent=false&broker.useJmx=false")
+                .createConnection();
+        connection.start();
+        consumerSession = connection.createSession(false, Session.AUTO_ACKNOWLEDGE);
+        stateChangeConsumer = consumerSession.createConsumer(consumerSession.createTopic(STATE_CHANGE_TOPIC));
+        meterRegistry = new SimpleMeterRegistry();
+    }
+
+    @AfterEach
+    void tearDown() throws JMSException {
+        communicator.stop();
+        connection.close();
+    }
+
+    @Test
+    void test_publish_fromManyThreads_sharesTheSessionRing_and_countsEachEvent() throws Exception {
+        communicator = newCommunicator(2, true, false, false);
+        int threads = 8;
+        int eventsPerThread = 25;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+
+        try {
+            List<CompletableFuture<Void>> published = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                published.add(CompletableFuture.runAsync(() -> {
+                    for (int i = 0; i < eventsPerThread; i++) {
+                        try {
+                            communicator.publish("event-" + i, Enums.JmsEventName.AGENT_STATE_CHANGED);
+                        } catch (Exception e) {
+                            throw new IllegalStateException(e);
+                        }
+                    }
+                }, executor));
+            }
+            CompletableFuture.allOf(published.toArray(new CompletableFuture[0])).join();
+        } finally {
+            executor.shutdown();
+        }
+
+        for (int i = 0; i < threads * eventsPerThread; i++) {
+            assertNotNull(stateChangeConsumer.receive(5000));
+        }
+        assertNull(stateChangeConsumer.receive(100));
+        Timer timer = meterRegistry.get("jms.publish").tag("event", Enums.JmsEventName.AGENT_STATE_CHANGED.name())
+                .timer();
+        long deadline = System.currentTimeMillis() + 5000;
+        while (timer.count() < threads * eventsPerThread && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(threads * eventsPerThread, timer.count());
+    }
+
+    @Test
+    @SuppressWarnings("try")
+    void test_outbox_sendsTheEventsInOrder_fromItsPublisherThread() throws Exception {
+        communicator = newCommunicator(2, true, true, true);
+
+        for (int i = 0; i < 50; i++) {
+            try (JmsCommunicator.Batch ignored = communicator.beginBatch()) {
+                communicator.publish("changed-" + i, Enums.JmsEventName.AGENT_STATE_CHANGED);
+                communicator.publish("unchanged-" + i, Enums.JmsEventName.AGENT_STATE_UNCHANGED);
+            }
+        }
+
+        for (int i = 0; i < 50; i++) {
+            TextMessage changed = (TextMessage) stateChangeConsumer.receive(5000);
+            TextMessage unchanged = (TextMessage) stateChangeConsumer.receive(5000);
+            assertTrue(changed.getText().contains("\"changed-" + i + "\""));
+            assertTrue(unchanged.getText().contains("\"unchanged-" + i + "\""));
+        }
+    }
+
+    @Test
+    @SuppressWarnings("try")
+    void test_transactedBatch_deliversItsEvents_whenClosed() throws Exception {
+        communicator = newCommunicator(1, true, true, false);
+
+        try (JmsCommunicator.Batch ignored = communicator.beginBatch()) {
+            communicator.publish("first", Enums.JmsEventName.AGENT_STATE_CHANGED);
+            try (JmsCommunicator.Batch joined = communicator.beginBatch()) {
+                communicator.publish("second", Enums.JmsEventName.AGENT_STATE_UNCHANGED);
+            }
+            assertNull(stateChangeConsumer.receive(200));
+        }
+
+        assertEquals(Enums.JmsEventName.AGENT_STATE_CHANGED.name(), stateChangeConsumer.receive(5000).getJMSType());
+        assertEquals(Enums.JmsEventName.AGENT_STATE_UNCHANGED.name(), stateChangeConsumer.receive(5000).getJMSType());
+    }
+
+    @Test
+    @SuppressWarnings("try")
+    void test_taskOfTheEventsOfOneBatch_isSerializedOnce() throws Exception {
+        communicator = newCommunicator(1, true, false, false);
+        MessageConsumer conversationConsumer = consumerSession.createConsumer(
+                consumerSession.createTopic(CONVERSATION_TOPIC));
+        CountingTask task = new CountingTask();
+        task.setId("task-1");
+        task.setConversationId("conversation-1");
+        TaskMedia media = new TaskMedia();
+        media.setRequestSession(new ChannelSession());
+
+        try (JmsCommunicator.Batch ignored = communicator.beginBatch()) {
+            communicator.publishTaskStateChanged(task, media.getRequestSession(), false, "media-1");
+            communicator.publishAgentReserved(task, media, new CCUser());
+        }
+
+        assertEquals(1, task.idReads);
+        ObjectMapper objectMapper = new ObjectMapper();
+        JsonNode taskStateChanged = objectMapper.readTree(((TextMessage) conversationConsumer.receive(5000)).getText());
+        JsonNode agentReserved = objectMapper.readTree(((TextMessage) conversationConsumer.receive(5000)).getText());
+        assertEquals("task-1", taskStateChanged.at("/data/task/id").asText());
+        assertEquals(taskStateChanged.at("/data/task"), agentReserved.at("/data/task"));
+    }
+
+    private ActivemqCommunicator newCommunicator(int sessions, boolean asyncSend, boolean transactedBatches,
+                                                 boolean outboxEnabled) throws JMSException {
+        JmsPublisherProperties properties = new JmsPublisherProperties();
+        properties.setSessions(sessions);
+        properties.setAsyncSend(asyncSend);
+        properties.setTransactedBatches(transactedBatches);
+        properties.setOutboxEnabled(outboxEnabled);
+
+        ActivemqCommunicator activemqCommunicator = new ActivemqCommunicator(connection, properties, meterRegistry);
+        activemqCommunicator.init(STATE_CHANGE_TOPIC, CONVERSATION_TOPIC);
+        return activemqCommunicator;
+    }
+
+    private static class CountingTask extends Task {
+        private int idReads;
+
+        @Override
+        public String getId() {
+            idReads++;
+            return super.getId();
+        }
+    }
+}
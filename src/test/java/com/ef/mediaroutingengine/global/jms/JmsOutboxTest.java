@@ -0,0 +1,195 @@
+package com.ef.mediaroutingengine.global.jms;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.jms.JMSException;
+import javax.jms.MessageFormatException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class JmsOutboxTest {
+    private final List<String> sent = new CopyOnWriteArrayList<>();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private JmsOutbox outbox;
+
+    @TempDir
+    Path tempDir;
+
+    @AfterEach
+    void tearDown() {
+        if (outbox != null) {
+            outbox.close();
+        }
+    }
+
+    @Test
+    void test_failedSends_areRetried_untilTheyAreSent() throws Exception {
+        AtomicInteger failures = new AtomicInteger(3);
+        outbox = newOutbox(10, null, events -> {
+            if (failures.getAndDecrement() > 0) {
+                throw new JMSException("broker is failing over");
+            }
+            events.forEach(event -> sent.add(event.text()));
+        });
+
+        outbox.add(List.of(event("1"), event("2")));
+        outbox.add(List.of(event("3")));
+
+        awaitSent(3);
+        assertEquals(List.of("1", "2", "3"), sent);
+    }
+
+    @Test
+    void test_failedSends_areDropped_afterTheMaxAttempts_or_whenNotTransient() throws Exception {
+        AtomicInteger attempts = new AtomicInteger();
+        outbox = newOutbox(10, null, events -> {
+            String text = events.get(0).text();
+            if (text.equals("down")) {
+                attempts.incrementAndGet();
+                throw new JMSException("broker is down");
+            }
+            if (text.equals("malformed")) {
+                throw new MessageFormatException("malformed");
+            }
+            events.forEach(event -> sent.add(event.text()));
+        });
+
+        // Added one by one, entries waiting in the outbox would be sent together.
+        outbox.add(List.of(event("down")));
+        awaitDeadLetters(1);
+        assertEquals(5, attempts.get());
+
+        outbox.add(List.of(event("malformed")));
+        awaitDeadLetters(2);
+        assertEquals(6, meterRegistry.get("jms.outbox.failed.sends").counter().count());
+
+        outbox.add(List.of(event("1")));
+        awaitSent(1);
+        assertEquals(List.of("1"), sent);
+    }
+
+    @Test
+    void test_eventsThatDoNotFit_areSpilled_and_sentInOrder() throws Exception {
+        Path spillFile = tempDir.resolve("outbox.spill");
+        CountDownLatch brokerUp = new CountDownLatch(1);
+        outbox = newOutbox(2, spillFile, events -> {
+            await(brokerUp);
+            events.forEach(event -> sent.add(event.text()));
+        });
+
+        for (int i = 0; i < 10; i++) {
+            assertTrue(outbox.add(List.of(event(String.valueOf(i)))));
+        }
+        assertTrue(Files.exists(spillFile));
+
+        brokerUp.countDown();
+        awaitSent(10);
+        assertEquals(List.of("0", "1", "2", "3", "4", "5", "6", "7", "8", "9"), sent);
+        assertFalse(Files.exists(spillFile));
+        assertEquals(0, outbox.size());
+    }
+
+    @Test
+    void test_eventsThatDoNotFit_areDropped_withoutSpillFile() {
+        CountDownLatch brokerUp = new CountDownLatch(1);
+        outbox = newOutbox(1, null, events -> await(brokerUp));
+
+        List<Boolean> added = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            added.add(outbox.add(List.of(event(String.valueOf(i)))));
+        }
+        brokerUp.countDown();
+
+        assertTrue(added.contains(false));
+    }
+
+    @Test
+    void test_close_keepsTheEventsNotSentYet_inTheSpillFile() throws Exception {
+        Path spillFile = tempDir.resolve("outbox.spill");
+        CountDownLatch sending = new CountDownLatch(1);
+        outbox = newOutbox(1, spillFile, events -> {
+            sending.countDown();
+            await(new CountDownLatch(1));
+        });
+
+        // 1 is being sent, 2 is in memory, 3 and 4 are spilled.
+        outbox.add(List.of(event("1")));
+        assertTrue(sending.await(5, TimeUnit.SECONDS));
+        for (int i = 2; i <= 4; i++) {
+            assertTrue(outbox.add(List.of(event(String.valueOf(i)))));
+        }
+        outbox.close();
+
+        outbox = newOutbox(10, spillFile, events -> events.forEach(event -> sent.add(event.text())));
+        awaitSent(4);
+        assertEquals(List.of("1", "2", "3", "4"), sent);
+    }
+
+    @Test
+    void test_spillFileOfPreviousRun_isSentFirst() throws Exception {
+        Path spillFile = tempDir.resolve("outbox.spill");
+        Files.writeString(spillFile, "[{\"eventName\":\"E\",\"text\":\"old\",\"conversationEvent\":true}]\n");
+        CountDownLatch started = new CountDownLatch(1);
+        outbox = newOutbox(10, spillFile, events -> {
+            await(started);
+            events.forEach(event -> sent.add(event.text()));
+        });
+
+        outbox.add(List.of(event("new")));
+        started.countDown();
+
+        awaitSent(2);
+        assertEquals(List.of("old", "new"), sent);
+    }
+
+    private JmsOutbox newOutbox(int capacity, Path spillFile, JmsOutbox.Sender sender) {
+        try {
+            return new JmsOutbox(capacity, spillFile, sender, 100, 1, 10, 5, meterRegistry);
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private void awaitSent(int count) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (sent.size() < count && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+    }
+
+    private void awaitDeadLetters(int count) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (meterRegistry.get("jms.outbox.dead.letters").counter().count() < count
+                && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(count, meterRegistry.get("jms.outbox.dead.letters").counter().count());
+    }
+
+    private static void await(CountDownLatch latch) throws JMSException {
+        try {
+            if (!latch.await(5, TimeUnit.SECONDS)) {
+                throw new JMSException("timed out");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new JMSException("interrupted");
+        }
+    }
+
+    private static OutboxEvent event(String text) {
+        return new OutboxEvent("E", text, true, null);
+    }
+}
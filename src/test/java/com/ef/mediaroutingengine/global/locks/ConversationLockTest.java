@@ -0,0 +1,169 @@
+package com.ef.mediaroutingengine.global.locks;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Lock;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class ConversationLockTest {
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @BeforeEach
+    void setUp() {
+        Metrics.addRegistry(meterRegistry);
+    }
+
+    @AfterEach
+    void tearDown() {
+        ConversationLock.configure(ConversationLock.Mode.PER_CONVERSATION, 0, 5000);
+        Metrics.removeRegistry(meterRegistry);
+    }
+
+    @Test
+    void test_lock_excludesThreadsOfTheSameConversation_when_striped() throws InterruptedException {
+        ConversationLock.configure(ConversationLock.Mode.STRIPED, 8, 5000);
+        ConversationLock conversationLock = new ConversationLock("test");
+
+        AtomicInteger inside = new AtomicInteger();
+        AtomicBoolean overlapped = new AtomicBoolean();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        CountDownLatch done = new CountDownLatch(8);
+        for (int i = 0; i < 8; i++) {
+            executor.execute(() -> {
+                for (int j = 0; j < 1000; j++) {
+                    conversationLock.lock("conversation-1");
+                    try {
+                        if (inside.incrementAndGet() > 1) {
+                            overlapped.set(true);
+                        }
+                        inside.decrementAndGet();
+                    } finally {
+                        conversationLock.unlock("conversation-1");
+                    }
+                }
+                done.countDown();
+            });
+        }
+
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+        executor.shutdown();
+        assertFalse(overlapped.get());
+        assertEquals(8000, meterRegistry.get("conversation.lock.hold").tag("site", "test").timer().count());
+    }
+
+    @Test
+    void test_tryLock_timesOut_when_conversationIsHeldByAnotherThread() throws InterruptedException {
+        ConversationLock conversationLock = new ConversationLock("test");
+        CountDownLatch locked = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        Thread holder = new Thread(() -> {
+            conversationLock.lock("conversation-1");
+            locked.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                conversationLock.unlock("conversation-1");
+            }
+        });
+        holder.start();
+        assertTrue(locked.await(5, TimeUnit.SECONDS));
+
+        assertFalse(conversationLock.tryLock("conversation-1", 20, TimeUnit.MILLISECONDS));
+        assertEquals(1.0, meterRegistry.get("conversation.lock.timeouts").tag("site", "test").counter().count());
+
+        assertTrue(conversationLock.tryLock("conversation-2", 20, TimeUnit.MILLISECONDS));
+        conversationLock.unlock("conversation-2");
+
+        release.countDown();
+        holder.join();
+        assertTrue(conversationLock.tryLock("conversation-1", 20, TimeUnit.MILLISECONDS));
+        conversationLock.unlock("conversation-1");
+    }
+
+    @Test
+    void test_unlock_releasesOnTheTableTheLockWasAcquiredFrom() {
+        ConversationLock conversationLock = new ConversationLock("test");
+        conversationLock.lock("conversation-1");
+
+        ConversationLock.configure(ConversationLock.Mode.STRIPED, 8, 5000);
+        conversationLock.lock("conversation-1");
+        conversationLock.unlock("conversation-1");
+        conversationLock.unlock("conversation-1");
+
+        ConversationLock.configure(ConversationLock.Mode.PER_CONVERSATION, 0, 5000);
+        assertTrue(conversationLock.tryLock("conversation-1", 0, TimeUnit.MILLISECONDS));
+        conversationLock.unlock("conversation-1");
+    }
+
+    @Test
+    void test_unlock_outOfOrder_releasesEachHeldConversation() throws InterruptedException {
+        ConversationLock conversationLock = new ConversationLock("test");
+        for (int round = 0; round < 2; round++) {
+            for (int i = 0; i < 6; i++) {
+                conversationLock.lock("conversation-" + i);
+            }
+            for (int i : new int[] {2, 5, 0, 3, 1, 4}) {
+                conversationLock.unlock("conversation-" + i);
+            }
+        }
+
+        AtomicInteger lockedByOther = new AtomicInteger();
+        Thread other = new Thread(() -> {
+            ConversationLock otherLock = new ConversationLock("test");
+            for (int i = 0; i < 6; i++) {
+                if (otherLock.tryLock("conversation-" + i, 0, TimeUnit.MILLISECONDS)) {
+                    otherLock.unlock("conversation-" + i);
+                    lockedByOther.incrementAndGet();
+                }
+            }
+        });
+        other.start();
+        other.join();
+
+        assertEquals(6, lockedByOther.get());
+        assertEquals(18, meterRegistry.get("conversation.lock.hold").tag("site", "test").timer().count());
+    }
+
+    @Test
+    void test_perConversationTable_removesLockOfLastThread() {
+        PerConversationLockTable table = new PerConversationLockTable();
+
+        Lock first = table.acquire("conversation-1");
+        Lock second = table.acquire("conversation-1");
+        assertSame(first, second);
+        assertEquals(1, table.size());
+
+        table.release("conversation-1", first);
+        assertEquals(1, table.size());
+        table.release("conversation-1", second);
+        assertEquals(0, table.size());
+    }
+
+    @Test
+    void test_stripedTable_hasBoundedPowerOfTwoStripes() {
+        StripedConversationLockTable table = new StripedConversationLockTable(1000);
+        assertEquals(1024, table.size());
+
+        for (int i = 0; i < 10_000; i++) {
+            table.acquire("conversation-" + i);
+        }
+        assertEquals(1024, table.size());
+        assertSame(table.acquire("conversation-1"), table.acquire("conversation-1"));
+    }
+}
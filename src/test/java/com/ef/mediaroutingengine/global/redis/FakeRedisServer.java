@@ -0,0 +1,376 @@
+package com.ef.mediaroutingengine.global.redis;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * A single-node, in-memory Redis that speaks enough of RESP for the repositories, and counts round trips:
+ * the replies are flushed, and a round trip counted, whenever the client has no more commands in flight.
+ */
+public class FakeRedisServer implements AutoCloseable {
+    private static final ObjectMapper JSON = new ObjectMapper();
+    private static final Pattern PATH_ELEMENT = Pattern.compile("\\.(\\w+)|\\[(\\d+)]");
+
+    private final ServerSocket serverSocket;
+    private final ExecutorService executor = Executors.newCachedThreadPool(r -> {
+        Thread thread = new Thread(r, "fake-redis");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final Map<String, byte[]> values = new HashMap<>();
+    private final Map<String, Set<String>> sets = new HashMap<>();
+    private final Map<String, Long> versions = new ConcurrentHashMap<>();
+    private final AtomicInteger roundTrips = new AtomicInteger();
+    private final AtomicInteger connections = new AtomicInteger();
+
+    public FakeRedisServer() throws IOException {
+        this.serverSocket = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+        this.executor.execute(this::accept);
+    }
+
+    public int port() {
+        return this.serverSocket.getLocalPort();
+    }
+
+    public int roundTrips() {
+        return this.roundTrips.get();
+    }
+
+    public void resetRoundTrips() {
+        this.roundTrips.set(0);
+    }
+
+    public int connections() {
+        return this.connections.get();
+    }
+
+    @Override
+    public void close() throws IOException {
+        this.serverSocket.close();
+        this.executor.shutdownNow();
+    }
+
+    private void accept() {
+        while (!this.serverSocket.isClosed()) {
+            try {
+                Socket socket = this.serverSocket.accept();
+                this.connections.incrementAndGet();
+                this.executor.execute(() -> this.serve(socket));
+            } catch (IOException e) {
+                return;
+            }
+        }
+    }
+
+    private void serve(Socket socket) {
+        Map<String, Long> watched = new HashMap<>();
+        List<List<String>> queued = null;
+
+        try (socket) {
+            InputStream in = new BufferedInputStream(socket.getInputStream());
+            OutputStream out = new BufferedOutputStream(socket.getOutputStream());
+
+            List<String> command;
+            while ((command = readCommand(in)) != null) {
+                switch (command.get(0).toUpperCase()) {
+                    case "MULTI" -> {
+                        queued = new ArrayList<>();
+                        out.write(status("OK"));
+                    }
+                    case "WATCH" -> {
+                        command.subList(1, command.size()).forEach(k -> watched.put(k, this.version(k)));
+                        out.write(status("OK"));
+                    }
+                    case "UNWATCH" -> {
+                        watched.clear();
+                        out.write(status("OK"));
+                    }
+                    case "EXEC" -> {
+                        out.write(this.exec(watched, queued));
+                        watched.clear();
+                        queued = null;
+                    }
+                    default -> {
+                        if (queued != null) {
+                            queued.add(command);
+                            out.write(status("QUEUED"));
+                        } else {
+                            out.write(this.execute(command));
+                        }
+                    }
+                }
+
+                if (in.available() == 0) {
+                    // Counted before the replies are sent, so that the client never sees a stale count.
+                    this.roundTrips.incrementAndGet();
+                    out.flush();
+                }
+            }
+        } catch (IOException e) {
+            // The client disconnected.
+        }
+    }
+
+    private synchronized byte[] exec(Map<String, Long> watched, List<List<String>> queued) {
+        boolean changed = watched.entrySet().stream().anyMatch(e -> !e.getValue().equals(this.version(e.getKey())));
+        if (changed) {
+            return "*-1\r\n".getBytes(StandardCharsets.UTF_8);
+        }
+
+        ByteArrayOutputStream reply = new ByteArrayOutputStream();
+        reply.writeBytes(("*" + queued.size() + "\r\n").getBytes(StandardCharsets.UTF_8));
+        queued.forEach(command -> reply.writeBytes(this.execute(command)));
+        return reply.toByteArray();
+    }
+
+    private synchronized byte[] execute(List<String> command) {
+        String key = command.size() > 1 ? command.get(1) : null;
+        List<String> args = command.subList(Math.min(2, command.size()), command.size());
+
+        switch (command.get(0).toUpperCase()) {
+            case "PING":
+                return status("PONG");
+            case "JSON.SET":
+                if (args.get(0).equals(".")) {
+                    this.values.put(key, args.get(1).getBytes(StandardCharsets.UTF_8));
+                } else if (!this.patchJson(key, args.get(0), (parent, last) -> set(parent, last, args.get(1)))) {
+                    return error("ERR path does not exist");
+                }
+                this.touch(key);
+                return status("OK");
+            case "JSON.ARRAPPEND": {
+                long[] size = new long[1];
+                boolean appended = this.patchJson(key, args.get(0), (parent, last) -> {
+                    ArrayNode array = (ArrayNode) get(parent, last);
+                    array.add(readTree(args.get(1)));
+                    size[0] = array.size();
+                });
+                if (!appended) {
+                    return error("ERR path does not exist");
+                }
+                this.touch(key);
+                return integer(size[0]);
+            }
+            case "JSON.GET":
+                return bulk(this.values.get(key));
+            case "JSON.MGET": {
+                ByteArrayOutputStream reply = new ByteArrayOutputStream();
+                List<String> keys = command.subList(1, command.size() - 1);
+                reply.writeBytes(("*" + keys.size() + "\r\n").getBytes(StandardCharsets.UTF_8));
+                keys.forEach(k -> reply.writeBytes(bulk(this.values.get(k))));
+                return reply.toByteArray();
+            }
+            case "JSON.DEL":
+                this.touch(key);
+                if (args.isEmpty() || args.get(0).equals(".")) {
+                    return integer(this.values.remove(key) == null ? 0 : 1);
+                }
+                return integer(this.patchJson(key, args.get(0), FakeRedisServer::remove) ? 1 : 0);
+            case "SADD":
+            case "ZADD": {
+                if (this.values.containsKey(key)) {
+                    return "-WRONGTYPE Operation against a key holding the wrong kind of value\r\n"
+                            .getBytes(StandardCharsets.UTF_8);
+                }
+                List<String> members = command.get(0).equalsIgnoreCase("ZADD") ? args.subList(1, 2) : args;
+                Set<String> set = this.sets.computeIfAbsent(key, k -> ConcurrentHashMap.newKeySet());
+                this.touch(key);
+                return integer(members.stream().filter(set::add).count());
+            }
+            case "SREM":
+            case "ZREM": {
+                Set<String> set = this.sets.getOrDefault(key, Set.of());
+                long removed = args.stream().filter(m -> set.contains(m) && set.remove(m)).count();
+                if (set.isEmpty()) {
+                    this.sets.remove(key);
+                }
+                this.touch(key);
+                return integer(removed);
+            }
+            case "SMEMBERS": {
+                ByteArrayOutputStream reply = new ByteArrayOutputStream();
+                Set<String> set = this.sets.getOrDefault(key, Set.of());
+                reply.writeBytes(("*" + set.size() + "\r\n").getBytes(StandardCharsets.UTF_8));
+                set.forEach(m -> reply.writeBytes(bulk(m.getBytes(StandardCharsets.UTF_8))));
+                return reply.toByteArray();
+            }
+            case "DEL": {
+                long deleted = 0;
+                for (String k : command.subList(1, command.size())) {
+                    if (this.values.remove(k) != null || this.sets.remove(k) != null) {
+                        this.touch(k);
+                        deleted++;
+                    }
+                }
+                return integer(deleted);
+            }
+            case "SCAN": {
+                // All the matching keys are returned in one page.
+                Pattern pattern = glob(args.get(args.stream().map(String::toUpperCase).toList().indexOf("MATCH") + 1));
+                List<String> keys = new ArrayList<>();
+                this.values.keySet().stream().filter(k -> pattern.matcher(k).matches()).forEach(keys::add);
+                this.sets.keySet().stream().filter(k -> pattern.matcher(k).matches()).forEach(keys::add);
+                ByteArrayOutputStream reply = new ByteArrayOutputStream();
+                reply.writeBytes("*2\r\n".getBytes(StandardCharsets.UTF_8));
+                reply.writeBytes(bulk("0".getBytes(StandardCharsets.UTF_8)));
+                reply.writeBytes(("*" + keys.size() + "\r\n").getBytes(StandardCharsets.UTF_8));
+                keys.forEach(k -> reply.writeBytes(bulk(k.getBytes(StandardCharsets.UTF_8))));
+                return reply.toByteArray();
+            }
+            case "EXISTS":
+                return integer(this.values.containsKey(key) || this.sets.containsKey(key) ? 1 : 0);
+            default:
+                return ("-ERR unknown command '" + command.get(0) + "'\r\n").getBytes(StandardCharsets.UTF_8);
+        }
+    }
+
+    /**
+     * Applies the change to the node holding the last element of the path, a path like .activeMedia[1].state of
+     * the legacy RedisJSON syntax.
+     */
+    private boolean patchJson(String key, String path, BiConsumer<JsonNode, String> change) {
+        byte[] value = this.values.get(key);
+        Matcher matcher = PATH_ELEMENT.matcher(path);
+        List<String> elements = new ArrayList<>();
+        while (matcher.find()) {
+            elements.add(matcher.group(1) != null ? matcher.group(1) : "[" + matcher.group(2));
+        }
+        if (value == null || elements.isEmpty()) {
+            return false;
+        }
+
+        JsonNode root = readTree(new String(value, StandardCharsets.UTF_8));
+        JsonNode parent = root;
+        for (String element : elements.subList(0, elements.size() - 1)) {
+            parent = get(parent, element);
+            if (parent == null || parent.isNull()) {
+                return false;
+            }
+        }
+        change.accept(parent, elements.get(elements.size() - 1));
+        this.values.put(key, root.toString().getBytes(StandardCharsets.UTF_8));
+        return true;
+    }
+
+    private static JsonNode get(JsonNode parent, String element) {
+        return element.startsWith("[") ? parent.get(Integer.parseInt(element.substring(1))) : parent.get(element);
+    }
+
+    private static void set(JsonNode parent, String element, String json) {
+        if (element.startsWith("[")) {
+            ((ArrayNode) parent).set(Integer.parseInt(element.substring(1)), readTree(json));
+        } else {
+            ((ObjectNode) parent).set(element, readTree(json));
+        }
+    }
+
+    private static void remove(JsonNode parent, String element) {
+        if (element.startsWith("[")) {
+            ((ArrayNode) parent).remove(Integer.parseInt(element.substring(1)));
+        } else {
+            ((ObjectNode) parent).remove(element);
+        }
+    }
+
+    private static JsonNode readTree(String json) {
+        try {
+            return JSON.readTree(json);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException(e.getMessage(), e);
+        }
+    }
+
+    private long version(String key) {
+        return this.versions.getOrDefault(key, 0L);
+    }
+
+    private void touch(String key) {
+        this.versions.merge(key, 1L, Long::sum);
+    }
+
+    private static Pattern glob(String pattern) {
+        String[] parts = pattern.split("\\*", -1);
+        StringBuilder regex = new StringBuilder(Pattern.quote(parts[0]));
+        for (int i = 1; i < parts.length; i++) {
+            regex.append(".*").append(Pattern.quote(parts[i]));
+        }
+        return Pattern.compile(regex.toString());
+    }
+
+    private static List<String> readCommand(InputStream in) throws IOException {
+        String header = readLine(in);
+        if (header == null) {
+            return null;
+        }
+
+        int size = Integer.parseInt(header.substring(1));
+        List<String> command = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            int length = Integer.parseInt(readLine(in).substring(1));
+            command.add(new String(in.readNBytes(length), StandardCharsets.UTF_8));
+            in.readNBytes(2);
+        }
+        return command;
+    }
+
+    private static String readLine(InputStream in) throws IOException {
+        StringBuilder line = new StringBuilder();
+        int c;
+        while ((c = in.read()) != '\r') {
+            if (c == -1) {
+                return null;
+            }
+            line.append((char) c);
+        }
+        in.read();
+        return line.toString();
+    }
+
+    private static byte[] status(String status) {
+        return ("+" + status + "\r\n").getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static byte[] error(String message) {
+        return ("-" + message + "\r\n").getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static byte[] integer(long value) {
+        return (":" + value + "\r\n").getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static byte[] bulk(byte[] value) {
+        if (value == null) {
+            return "$-1\r\n".getBytes(StandardCharsets.UTF_8);
+        }
+        ByteArrayOutputStream reply = new ByteArrayOutputStream();
+        reply.writeBytes(("$" + value.length + "\r\n").getBytes(StandardCharsets.UTF_8));
+        reply.writeBytes(value);
+        reply.writeBytes("\r\n".getBytes(StandardCharsets.UTF_8));
+        return reply.toByteArray();
+    }
+}
@@ -0,0 +1,103 @@
+package com.ef.mediaroutingengine.global.redis;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import io.lettuce.core.RedisCommandExecutionException;
+import io.lettuce.core.RedisURI;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class MultiplexedAsyncRedisClientTest {
+    private FakeRedisServer server;
+    private MultiplexedAsyncRedisClient asyncRedisClient;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = new FakeRedisServer();
+        asyncRedisClient = new MultiplexedAsyncRedisClient(RedisURI.create("127.0.0.1", server.port()),
+                Duration.ofSeconds(5));
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        asyncRedisClient.close();
+        server.close();
+    }
+
+    @Test
+    void test_commandsOfAllThreads_shareOneConnection() throws Exception {
+        int threads = 16;
+        int commandsPerThread = 50;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        List<CompletableFuture<Long>> added = new ArrayList<>();
+
+        try {
+            List<CompletableFuture<List<CompletableFuture<Long>>>> sent = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                int thread = t;
+                sent.add(CompletableFuture.supplyAsync(() -> {
+                    List<CompletableFuture<Long>> stages = new ArrayList<>();
+                    for (int i = 0; i < commandsPerThread; i++) {
+                        stages.add(asyncRedisClient.setAdd("set", thread + "-" + i).toCompletableFuture());
+                    }
+                    return stages;
+                }, executor));
+            }
+            for (CompletableFuture<List<CompletableFuture<Long>>> stages : sent) {
+                added.addAll(stages.get());
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        CompletableFuture.allOf(added.toArray(new CompletableFuture[0])).join();
+        assertTrue(added.stream().allMatch(stage -> stage.join() == 1L));
+        assertEquals(threads * commandsPerThread, asyncRedisClient.setMembers("set").toCompletableFuture().join()
+                .size());
+        assertEquals(1, server.connections());
+    }
+
+    @Test
+    void test_jsonCommands() {
+        Map<String, Object> values = new LinkedHashMap<>();
+        values.put(".", Map.of("k", "1"));
+        values.put(".k", "1");
+
+        assertTrue(asyncRedisClient.setJson("json:1", values).toCompletableFuture().join());
+        assertTrue(asyncRedisClient.setJson("json:2", ".", Map.of("k", "2")).toCompletableFuture().join());
+
+        assertEquals(Map.of("k", "1"), asyncRedisClient.getJson("json:1", ".", Map.class).toCompletableFuture()
+                .join());
+        assertNull(asyncRedisClient.getJson("missing", ".", Map.class).toCompletableFuture().join());
+        assertEquals(List.of(Map.of("k", "1"), Map.of("k", "2")),
+                asyncRedisClient.multiGetJson(Map.class, "json:1", "missing", "json:2").toCompletableFuture().join());
+
+        assertEquals(1L, asyncRedisClient.delJson("json:1").toCompletableFuture().join());
+        assertFalse(asyncRedisClient.exists("json:1").toCompletableFuture().join());
+    }
+
+    @Test
+    void test_failedCommand_completesItsStageExceptionally() {
+        asyncRedisClient.setJson("json", ".", Map.of("k", "v")).toCompletableFuture().join();
+
+        CompletionException e = assertThrows(CompletionException.class,
+                () -> asyncRedisClient.setAdd("json", "a").toCompletableFuture().join());
+        assertTrue(e.getCause() instanceof RedisCommandExecutionException);
+        assertTrue(asyncRedisClient.exists("json").toCompletableFuture().join());
+    }
+}
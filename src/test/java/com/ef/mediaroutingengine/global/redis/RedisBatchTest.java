@@ -0,0 +1,176 @@
+package com.ef.mediaroutingengine.global.redis;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.ef.cim.objectmodel.AgentState;
+import com.ef.cim.objectmodel.ChannelSession;
+import com.ef.cim.objectmodel.Enums;
+import com.ef.cim.objectmodel.task.Task;
+import com.ef.cim.objectmodel.task.TaskAgent;
+import com.ef.cim.objectmodel.task.TaskMedia;
+import com.ef.cim.objectmodel.task.TaskMediaState;
+import com.ef.cim.objectmodel.task.TaskQueue;
+import com.ef.cim.objectmodel.task.TaskState;
+import com.ef.cim.objectmodel.task.TaskType;
+import com.ef.mediaroutingengine.agentstatemanager.repository.AgentPresenceRepository;
+import com.ef.mediaroutingengine.config.TaskCacheProperties;
+import com.ef.mediaroutingengine.routing.model.Agent;
+import com.ef.mediaroutingengine.routing.model.AgentReqTimerEntity;
+import com.ef.mediaroutingengine.taskmanager.repository.TasksRepository;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisPool;
+import redis.clients.jedis.JedisPoolConfig;
+
+class RedisBatchTest {
+    // Round trips of the routed task in test_routedTask_roundTrips, the same writes took 23 before batching.
+    private static final int ROUTED_TASK_ROUND_TRIPS = 9;
+
+    private FakeRedisServer server;
+    private JedisPool jedisPool;
+    private RedisClient redisClient;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = new FakeRedisServer();
+        jedisPool = new JedisPool(new JedisPoolConfig(), "127.0.0.1", server.port());
+        redisClient = new RedisClientImpl(jedisPool);
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        jedisPool.close();
+        server.close();
+    }
+
+    @Test
+    void test_execute_sendsAllCommandsInOneRoundTrip() {
+        redisClient.setAdd("set", "a");
+        server.resetRoundTrips();
+
+        RedisBatch batch = new RedisBatch();
+        RedisBatch.Result<Long> added = batch.sadd("set", "b", "c");
+        RedisBatch.Result<Boolean> set = batch.setJson("json", ".", Map.of("k", "v"));
+        RedisBatch.Result<Map> json = batch.getJson("json", ".", Map.class);
+        RedisBatch.Result<Map> missing = batch.getJson("missing", ".", Map.class);
+        RedisBatch.Result<Set<String>> members = batch.smembers("set");
+        RedisBatch.Result<Long> deleted = batch.delJson("json");
+
+        assertTrue(redisClient.execute(batch));
+        assertEquals(1, server.roundTrips());
+
+        assertEquals(2L, added.get());
+        assertTrue(set.get());
+        assertEquals(Map.of("k", "v"), json.get());
+        assertNull(missing.get());
+        assertEquals(Set.of("a", "b", "c"), members.get());
+        assertEquals(1L, deleted.get());
+    }
+
+    @Test
+    void test_execute_atomic_isOneRoundTrip_and_reportsPerCommandResults() {
+        redisClient.setJson("json", Map.of("k", "v"));
+        server.resetRoundTrips();
+
+        RedisBatch batch = RedisBatch.atomic();
+        RedisBatch.Result<Long> added = batch.sadd("set", "a");
+        RedisBatch.Result<Long> wrongType = batch.sadd("json", "a");
+
+        assertFalse(redisClient.execute(batch));
+        assertEquals(1, server.roundTrips());
+
+        assertEquals(1L, added.get());
+        assertFalse(wrongType.isSuccessful());
+        assertTrue(wrongType.getError().getMessage().startsWith("WRONGTYPE"));
+        assertFalse(batch.isAborted());
+    }
+
+    @Test
+    void test_execute_atomic_isAborted_when_watchedKeyChanges() {
+        try (Jedis conn = redisClient.getConnection()) {
+            RedisBatch reads = new RedisBatch();
+            reads.watch("set");
+            reads.smembers("set");
+            assertTrue(reads.execute(conn));
+
+            redisClient.setAdd("set", "changed");
+
+            RedisBatch writes = RedisBatch.atomic();
+            RedisBatch.Result<Long> added = writes.sadd("set", "a");
+
+            assertFalse(writes.execute(conn));
+            assertTrue(writes.isAborted());
+            assertFalse(added.isSuccessful());
+        }
+        assertEquals(Set.of("changed"), redisClient.setMembers("set"));
+    }
+
+    @Test
+    void test_multiGetJson_decodesEachReply_and_skipsMissingAndMalformedDocuments() {
+        redisClient.setJson("json:1", Map.of("k", "1"));
+        redisClient.setJson("json:2", Map.of("k", "2"));
+        redisClient.setJson("json:3", "not an object");
+        server.resetRoundTrips();
+
+        List<Map> decoded = new ArrayList<>();
+        int count = redisClient.multiGetJson(Map.class, decoded::add, "json:1", "missing", "json:3", "json:2");
+
+        assertEquals(1, server.roundTrips());
+        assertEquals(2, count);
+        assertEquals(List.of(Map.of("k", "1"), Map.of("k", "2")), decoded);
+        assertEquals(decoded, redisClient.multiGetJson(Map.class, "json:1", "missing", "json:3", "json:2"));
+    }
+
+    @Test
+    void test_routedTask_roundTrips() {
+        TasksRepository tasksRepository = new TasksRepository(redisClient, new TaskCacheProperties());
+        AgentPresenceRepository agentPresenceRepository = new AgentPresenceRepository(redisClient,
+                new PooledAsyncRedisClient(redisClient));
+        Task task = task();
+        String timerId = task.getAgentRequestTtlTimerId();
+        Agent agent = mock(Agent.class);
+        when(agent.getId()).thenReturn("agent-1");
+        when(agent.getState()).thenReturn(new AgentState(Enums.AgentStateName.READY, null));
+        server.resetRoundTrips();
+
+        // The Redis writes of a task that is queued, reserved for an agent, answered and closed.
+        tasksRepository.insert(task);
+        tasksRepository.saveAgentReqTimerEntity(timerId, new AgentReqTimerEntity(task.getId(), "media-1", "queue-1"),
+                System.currentTimeMillis() + 30_000);
+        task.setAssignedTo(new TaskAgent("agent-1", "Agent"));
+        tasksRepository.update(task);
+        agentPresenceRepository.updateAgentState(agent);
+        tasksRepository.deleteAgentReqTimerEntity(timerId);
+        tasksRepository.delete(task);
+
+        assertEquals(ROUTED_TASK_ROUND_TRIPS, server.roundTrips());
+
+        assertTrue(redisClient.setMembers("taskAgent:agent-1").isEmpty());
+        assertTrue(redisClient.setMembers("taskQueue:queue-1").isEmpty());
+        assertFalse(redisClient.exists("task:" + task.getId()));
+    }
+
+    private Task task() {
+        ChannelSession session = new ChannelSession();
+        session.setConversationId("conversation-1");
+        TaskMedia media = new TaskMedia("chat", "task-1", new TaskQueue("queue-1", "Queue"), new TaskType(), 1,
+                TaskMediaState.QUEUED, session, List.of(session));
+
+        List<TaskMedia> activeMedia = new ArrayList<>();
+        activeMedia.add(media);
+        return new Task("task-1", "conversation-1", new TaskState(Enums.TaskStateName.ACTIVE, null), null,
+                "timer-1", activeMedia);
+    }
+}
@@ -0,0 +1,137 @@
+package com.ef.mediaroutingengine.global.resilience;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.Test;
+
+class EndpointGuardTest {
+    private static final String URI = "http://agent-manager/agent/assign-task";
+
+    private final AtomicLong now = new AtomicLong();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    void test_circuitOpens_atTheFailureRate_and_closesAfterTheTrialCalls() {
+        CircuitBreaker circuitBreaker = new CircuitBreaker(50, 10, 4, 1000, 2, now::get);
+
+        for (boolean success : new boolean[] {true, false, true}) {
+            assertTrue(circuitBreaker.tryAcquire());
+            circuitBreaker.onResult(success);
+        }
+        assertEquals(CircuitBreaker.State.CLOSED, circuitBreaker.getState());
+        circuitBreaker.tryAcquire();
+        circuitBreaker.onResult(false);
+        assertEquals(CircuitBreaker.State.OPEN, circuitBreaker.getState());
+        assertFalse(circuitBreaker.tryAcquire());
+
+        now.addAndGet(TimeUnit.MILLISECONDS.toNanos(1000));
+        assertTrue(circuitBreaker.tryAcquire());
+        assertTrue(circuitBreaker.tryAcquire());
+        assertFalse(circuitBreaker.tryAcquire());
+        assertEquals(CircuitBreaker.State.HALF_OPEN, circuitBreaker.getState());
+        circuitBreaker.onResult(true);
+        circuitBreaker.onResult(true);
+        assertEquals(CircuitBreaker.State.CLOSED, circuitBreaker.getState());
+    }
+
+    @Test
+    void test_failedTrialCall_reopensTheCircuit() {
+        CircuitBreaker circuitBreaker = new CircuitBreaker(50, 2, 2, 1000, 1, now::get);
+        circuitBreaker.tryAcquire();
+        circuitBreaker.onResult(false);
+        circuitBreaker.tryAcquire();
+        circuitBreaker.onResult(false);
+
+        now.addAndGet(TimeUnit.MILLISECONDS.toNanos(1000));
+        assertTrue(circuitBreaker.tryAcquire());
+        circuitBreaker.onResult(false);
+
+        assertEquals(CircuitBreaker.State.OPEN, circuitBreaker.getState());
+        assertFalse(circuitBreaker.tryAcquire());
+    }
+
+    @Test
+    void test_openCircuit_failsFast_and_isPublished() {
+        EndpointGuard guard = new EndpointGuard(URI, new CircuitBreaker(50, 2, 2, 60000, 1, now::get),
+                new AdaptiveConcurrencyLimit(10, 1, 10, 1000), meterRegistry);
+
+        guard.onFailure(guard.acquire());
+        guard.onFailure(guard.acquire());
+
+        assertThrows(CallNotPermittedException.class, guard::acquire);
+        assertEquals(CircuitBreaker.State.OPEN.ordinal(),
+                meterRegistry.get("external.service.circuit.state").tag("uri", URI).gauge().value());
+        assertEquals(1, meterRegistry.get("external.service.calls.rejected").tag("reason", "circuit_open")
+                .counter().count());
+        assertEquals(2, meterRegistry.get("external.service.calls").tag("outcome", "failure").timer().count());
+        assertEquals(0, meterRegistry.get("external.service.calls.in.flight").gauge().value());
+    }
+
+    @Test
+    void test_exemptCall_isSent_whileTheCircuitIsOpen_and_theLimitIsReached() {
+        AdaptiveConcurrencyLimit concurrencyLimit = new AdaptiveConcurrencyLimit(1, 1, 1, 1000);
+        EndpointGuard guard = new EndpointGuard(URI, new CircuitBreaker(50, 2, 2, 60000, 1, now::get),
+                concurrencyLimit, meterRegistry);
+        guard.onFailure(guard.acquire());
+        guard.onFailure(guard.acquire());
+        long inFlight = guard.acquireExempt();
+
+        long exempt = guard.acquireExempt();
+        assertEquals(2, concurrencyLimit.getInFlight());
+        guard.onExemptResult(true, exempt);
+        guard.onExemptResult(true, inFlight);
+
+        assertEquals(CircuitBreaker.State.OPEN, guard.getState());
+        assertEquals(0, concurrencyLimit.getInFlight());
+        assertEquals(2, meterRegistry.get("external.service.calls").tag("outcome", "success").timer().count());
+    }
+
+    @Test
+    void test_exemptCalls_doNotChangeTheCircuit() {
+        EndpointGuard guard = new EndpointGuard(URI, new CircuitBreaker(50, 2, 2, 1000, 1, now::get),
+                new AdaptiveConcurrencyLimit(10, 1, 10, 1000), meterRegistry);
+        guard.onExemptResult(false, guard.acquireExempt());
+        guard.onExemptResult(false, guard.acquireExempt());
+        assertEquals(CircuitBreaker.State.CLOSED, guard.getState());
+
+        guard.onFailure(guard.acquire());
+        guard.onFailure(guard.acquire());
+        now.addAndGet(TimeUnit.MILLISECONDS.toNanos(1000));
+        long trial = guard.acquire();
+
+        guard.onExemptResult(true, guard.acquireExempt());
+        assertEquals(CircuitBreaker.State.HALF_OPEN, guard.getState());
+        guard.onExemptResult(false, guard.acquireExempt());
+        assertEquals(CircuitBreaker.State.HALF_OPEN, guard.getState());
+
+        guard.onSuccess(trial);
+        assertEquals(CircuitBreaker.State.CLOSED, guard.getState());
+    }
+
+    @Test
+    void test_concurrencyLimit_growsWithFastCalls_and_shrinksOnFailures() {
+        AdaptiveConcurrencyLimit concurrencyLimit = new AdaptiveConcurrencyLimit(2, 1, 4, 1000);
+        EndpointGuard guard = new EndpointGuard(URI, new CircuitBreaker(100, 100, 100, 1000, 1),
+                concurrencyLimit, meterRegistry);
+
+        long first = guard.acquire();
+        long second = guard.acquire();
+        assertThrows(CallNotPermittedException.class, guard::acquire);
+        guard.onSuccess(first);
+        guard.onSuccess(second);
+        assertEquals(3, concurrencyLimit.getLimit());
+
+        for (int i = 0; i < 10; i++) {
+            guard.onFailure(guard.acquire());
+        }
+        assertEquals(1, concurrencyLimit.getLimit());
+        assertEquals(1, meterRegistry.get("external.service.calls.rejected").tag("reason", "concurrency_limit")
+                .counter().count());
+    }
+}
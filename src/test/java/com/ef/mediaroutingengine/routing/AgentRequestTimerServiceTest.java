@@ -0,0 +1,122 @@
+package com.ef.mediaroutingengine.routing;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.longThat;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.ef.cim.objectmodel.task.Task;
+import com.ef.cim.objectmodel.task.TaskMedia;
+import com.ef.mediaroutingengine.global.jms.JmsCommunicator;
+import com.ef.mediaroutingengine.global.timer.TimingWheel;
+import com.ef.mediaroutingengine.routing.model.AgentReqTimerEntity;
+import com.ef.mediaroutingengine.routing.pool.PrecisionQueuesPool;
+import com.ef.mediaroutingengine.taskmanager.repository.TasksRepository;
+import java.util.Collections;
+import java.util.List;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Answers;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+@ExtendWith(MockitoExtension.class)
+class AgentRequestTimerServiceTest {
+    @Mock
+    private StepTimerService stepTimerService;
+    @Mock
+    private JmsCommunicator jmsCommunicator;
+    @Mock
+    private TasksRepository tasksRepository;
+    @Mock
+    private PrecisionQueuesPool precisionQueuesPool;
+    @Mock
+    private Task task;
+    @Mock(answer = Answers.RETURNS_DEEP_STUBS)
+    private TaskMedia media;
+
+    private TimingWheel timingWheel;
+    private AgentRequestTimerService agentRequestTimerService;
+
+    @BeforeEach
+    void setUp() {
+        this.timingWheel = new TimingWheel("agent-request-timer-test", 10, 64, 1);
+        this.agentRequestTimerService = new AgentRequestTimerService(stepTimerService, jmsCommunicator,
+                tasksRepository, precisionQueuesPool, timingWheel);
+    }
+
+    @AfterEach
+    void tearDown() {
+        this.timingWheel.stop();
+    }
+
+    @Test
+    void test_rearm_schedulesTimerInMemoryOnly() {
+        when(task.getAgentRequestTtlTimerId()).thenReturn("timer-1");
+        when(task.getConversationId()).thenReturn("conversation-1");
+
+        this.agentRequestTimerService.rearm(task, System.currentTimeMillis() + 60_000);
+
+        assertTrue(this.agentRequestTimerService.isRunning("timer-1"));
+        assertEquals(1, this.timingWheel.pending());
+        verify(tasksRepository, never()).saveAgentReqTimerEntity(any(), any(), any(Long.class));
+    }
+
+    @Test
+    void test_rearmOnStartup_expiresPassedDeadlineImmediately() {
+        when(task.getAgentRequestTtlTimerId()).thenReturn("timer-1");
+        when(task.getConversationId()).thenReturn("conversation-1");
+
+        this.agentRequestTimerService.rearmOnStartup(task, media, "queue-1", System.currentTimeMillis() - 1000);
+
+        verify(tasksRepository, timeout(1000)).getAgentReqTimerEntity("timer-1");
+        verify(tasksRepository, never()).saveAgentReqTimerEntity(any(), any(), any(Long.class));
+    }
+
+    @Test
+    void test_rearmOnStartup_startsTimerFromTheMedia_when_noDeadlineWasPersisted() {
+        long enqueueTime = System.currentTimeMillis() - 10_000;
+        when(task.getAgentRequestTtlTimerId()).thenReturn("timer-1");
+        when(task.getConversationId()).thenReturn("conversation-1");
+        when(media.getEnqueueTime()).thenReturn(enqueueTime);
+        when(media.getRequestSession().getChannel().getChannelConfig().getRoutingPolicy().getAgentRequestTtl())
+                .thenReturn(30);
+
+        this.agentRequestTimerService.rearmOnStartup(task, media, "queue-1", null);
+
+        assertTrue(this.agentRequestTimerService.isRunning("timer-1"));
+        verify(tasksRepository).saveAgentReqTimerEntity(eq("timer-1"), any(AgentReqTimerEntity.class),
+                longThat(deadline -> Math.abs(deadline - (enqueueTime + 30_000)) < 1000));
+    }
+
+    @Test
+    void test_stop_cancelsTimerAndDeletesPersistedDeadline() {
+        when(task.getAgentRequestTtlTimerId()).thenReturn("timer-1");
+        when(task.getConversationId()).thenReturn("conversation-1");
+        this.agentRequestTimerService.rearm(task, System.currentTimeMillis() + 60_000);
+
+        this.agentRequestTimerService.stop("timer-1");
+
+        assertFalse(this.agentRequestTimerService.isRunning("timer-1"));
+        assertEquals(0, this.timingWheel.pending());
+        verify(tasksRepository).deleteAgentReqTimerEntity("timer-1");
+    }
+
+    @Test
+    void test_discard_deletesDeadlinesInOneCall_when_notEmpty() {
+        this.agentRequestTimerService.discard(Collections.emptyList());
+        verify(tasksRepository, never()).deleteAgentReqTimerEntities(any());
+
+        List<String> timerIds = List.of("timer-1", "timer-2");
+        this.agentRequestTimerService.discard(timerIds);
+        verify(tasksRepository).deleteAgentReqTimerEntities(timerIds);
+    }
+}
@@ -0,0 +1,127 @@
+package com.ef.mediaroutingengine.routing;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.ef.mediaroutingengine.routing.model.QueueEventName;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.beans.PropertyChangeEvent;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+
+class RoutingMailboxTest {
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final List<Runnable> scheduled = new ArrayList<>();
+    private final List<String> handled = new ArrayList<>();
+
+    @Test
+    void test_post_coalescesPendingWakeups() {
+        RoutingMailbox mailbox = new RoutingMailbox("queue-1", evt -> handled.add(evt.getPropertyName()),
+                scheduled::add, null, 0, 10, meterRegistry);
+
+        mailbox.post(event(QueueEventName.AGENT_AVAILABLE));
+        mailbox.post(event(QueueEventName.STEP_TIMEOUT));
+        mailbox.post(event(QueueEventName.REQUEST_ACCEPTED));
+
+        assertEquals(1, mailbox.size());
+        assertEquals(1, scheduled.size());
+        scheduled.get(0).run();
+
+        assertEquals(List.of(QueueEventName.AGENT_AVAILABLE), handled);
+        assertEquals(2.0, meterRegistry.get("routing.mailbox.coalesced").counter().count());
+        assertEquals(1, meterRegistry.get("routing.mailbox.lag").timer().count());
+    }
+
+    @Test
+    void test_post_keepsEveryNewRequest_and_dropsWakeupWhenFull() {
+        RoutingMailbox mailbox = new RoutingMailbox("queue-1", evt -> handled.add(evt.getPropertyName()),
+                scheduled::add, null, 0, 2, meterRegistry);
+
+        mailbox.post(event(QueueEventName.NEW_REQUEST));
+        mailbox.post(event(QueueEventName.NEW_REQUEST));
+        mailbox.post(event(QueueEventName.AGENT_AVAILABLE));
+        scheduled.get(0).run();
+
+        assertEquals(List.of(QueueEventName.NEW_REQUEST, QueueEventName.NEW_REQUEST), handled);
+
+        mailbox.post(event(QueueEventName.AGENT_AVAILABLE));
+        scheduled.get(1).run();
+        assertEquals(QueueEventName.AGENT_AVAILABLE, handled.get(2));
+    }
+
+    @Test
+    void test_post_collapsesWakeupStormWithinMaxLatency() throws InterruptedException {
+        ScheduledExecutorService ticker = Executors.newSingleThreadScheduledExecutor();
+        List<String> wakeups = Collections.synchronizedList(new ArrayList<>());
+        RoutingMailbox mailbox = new RoutingMailbox("queue-1", evt -> wakeups.add(evt.getPropertyName()),
+                Runnable::run, ticker, 50, 10, meterRegistry);
+
+        for (int i = 0; i < 100; i++) {
+            mailbox.post(event(i % 2 == 0 ? QueueEventName.AGENT_AVAILABLE : QueueEventName.REQUEST_ACCEPTED));
+        }
+        assertTrue(wakeups.isEmpty());
+
+        ticker.shutdown();
+        assertTrue(ticker.awaitTermination(5, TimeUnit.SECONDS));
+        assertEquals(List.of(QueueEventName.AGENT_AVAILABLE), wakeups);
+        assertEquals(99.0, meterRegistry.get("routing.mailbox.coalesced").counter().count());
+    }
+
+    @Test
+    void test_run_neverHandlesEventsOfOneMailboxConcurrently() throws InterruptedException {
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        AtomicInteger inFlight = new AtomicInteger();
+        AtomicBoolean overlapped = new AtomicBoolean();
+        List<String> newRequests = Collections.synchronizedList(new ArrayList<>());
+
+        RoutingMailbox mailbox = new RoutingMailbox("queue-1", evt -> {
+            if (inFlight.incrementAndGet() > 1) {
+                overlapped.set(true);
+            }
+            if (QueueEventName.NEW_REQUEST.equals(evt.getPropertyName())) {
+                newRequests.add((String) evt.getNewValue());
+            }
+            inFlight.decrementAndGet();
+        }, executor, null, 0, 10_000, meterRegistry);
+
+        int noOfPosters = 8;
+        int postsPerPoster = 500;
+        CountDownLatch done = new CountDownLatch(noOfPosters);
+        for (int i = 0; i < noOfPosters; i++) {
+            int poster = i;
+            new Thread(() -> {
+                for (int j = 0; j < postsPerPoster; j++) {
+                    mailbox.post(new PropertyChangeEvent(this, QueueEventName.NEW_REQUEST, null, poster + "-" + j));
+                    mailbox.post(event(QueueEventName.AGENT_AVAILABLE));
+                }
+                done.countDown();
+            }).start();
+        }
+
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (mailbox.size() > 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+
+        assertFalse(overlapped.get());
+        assertEquals(noOfPosters * postsPerPoster, newRequests.size());
+    }
+
+    private PropertyChangeEvent event(String name) {
+        return new PropertyChangeEvent(this, name, null, null);
+    }
+}
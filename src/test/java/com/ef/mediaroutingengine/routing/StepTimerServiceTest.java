@@ -0,0 +1,85 @@
+package com.ef.mediaroutingengine.routing;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.ef.mediaroutingengine.global.timer.TimingWheel;
+import com.ef.mediaroutingengine.routing.model.PrecisionQueue;
+import com.ef.mediaroutingengine.routing.model.QueueTask;
+import com.ef.mediaroutingengine.routing.model.Step;
+import com.ef.mediaroutingengine.taskmanager.model.TaskStep;
+import java.beans.PropertyChangeEvent;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class StepTimerServiceTest {
+    private TimingWheel timingWheel;
+    private StepTimerService stepTimerService;
+
+    @BeforeEach
+    void setUp() {
+        this.timingWheel = new TimingWheel("step-timer-test", 10, 64, 2);
+        this.stepTimerService = new StepTimerService(this.timingWheel);
+    }
+
+    @AfterEach
+    void tearDown() {
+        this.timingWheel.stop();
+    }
+
+    @Test
+    void test_startNext_doesNotCreateThreadPerTimer() {
+        PrecisionQueue queue = mock(PrecisionQueue.class);
+        when(queue.getNextStep(anyInt())).thenReturn(new TaskStep(stepWithTimeout(3600), false));
+
+        ThreadMXBean threadMxBean = ManagementFactory.getThreadMXBean();
+        int threadsBefore = threadMxBean.getThreadCount();
+
+        int noOfTimers = 100_000;
+        for (int i = 0; i < noOfTimers; i++) {
+            this.stepTimerService.startNext(queueTask("task-" + i), queue, 0);
+        }
+
+        assertEquals(noOfTimers, this.timingWheel.pending());
+        assertTrue(threadMxBean.getThreadCount() - threadsBefore <= 2);
+
+        for (int i = 0; i < noOfTimers; i++) {
+            this.stepTimerService.stop("task-" + i);
+        }
+        assertEquals(0, this.timingWheel.pending());
+    }
+
+    @Test
+    void test_stepTimeout_notifiesTaskRouter() {
+        TaskRouter taskRouter = mock(TaskRouter.class);
+        PrecisionQueue queue = mock(PrecisionQueue.class);
+        Step step = stepWithTimeout(0);
+
+        when(queue.getNextStep(0)).thenReturn(new TaskStep(step, false));
+        when(queue.getStepIndex(step)).thenReturn(0);
+        when(queue.getTaskRouter()).thenReturn(taskRouter);
+
+        this.stepTimerService.startNext(queueTask("task-1"), queue, 0);
+
+        verify(taskRouter, timeout(2000)).propertyChange(any(PropertyChangeEvent.class));
+    }
+
+    private Step stepWithTimeout(int timeout) {
+        Step step = new Step();
+        step.setTimeout(timeout);
+        return step;
+    }
+
+    private QueueTask queueTask(String taskId) {
+        return new QueueTask("conversation-1", taskId, "media-1", "queue-1", 1, System.currentTimeMillis());
+    }
+}
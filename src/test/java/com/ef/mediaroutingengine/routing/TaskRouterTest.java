@@ -0,0 +1,314 @@
+package com.ef.mediaroutingengine.routing;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.ef.cim.objectmodel.AgentState;
+import com.ef.cim.objectmodel.AssociatedRoutingAttribute;
+import com.ef.cim.objectmodel.CCUser;
+import com.ef.cim.objectmodel.Enums;
+import com.ef.cim.objectmodel.KeycloakUser;
+import com.ef.cim.objectmodel.MediaRoutingDomain;
+import com.ef.cim.objectmodel.PrecisionQueueEntity;
+import com.ef.cim.objectmodel.RoutingAttribute;
+import com.ef.cim.objectmodel.task.Task;
+import com.ef.cim.objectmodel.task.TaskMedia;
+import com.ef.cim.objectmodel.task.TaskMediaState;
+import com.ef.cim.objectmodel.task.TaskType;
+import com.ef.mediaroutingengine.config.RoutingProperties;
+import com.ef.mediaroutingengine.global.locks.ConversationLock;
+import com.ef.mediaroutingengine.global.jms.JmsCommunicator;
+import com.ef.mediaroutingengine.routing.model.Agent;
+import com.ef.mediaroutingengine.routing.model.Expression;
+import com.ef.mediaroutingengine.routing.model.PrecisionQueue;
+import com.ef.mediaroutingengine.routing.model.QueueEventName;
+import com.ef.mediaroutingengine.routing.model.QueueTask;
+import com.ef.mediaroutingengine.routing.model.Step;
+import com.ef.mediaroutingengine.routing.model.Term;
+import com.ef.mediaroutingengine.routing.pool.AgentsPool;
+import com.ef.mediaroutingengine.routing.utility.RestRequest;
+import com.ef.mediaroutingengine.taskmanager.model.TaskStep;
+import com.ef.mediaroutingengine.taskmanager.repository.TasksRepository;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.beans.PropertyChangeEvent;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class TaskRouterTest {
+    private static final String MRD_ID = "chat";
+
+    private final List<Runnable> offers = new ArrayList<>();
+    private final TasksRepository tasksRepository = mock(TasksRepository.class);
+    private final RestRequest restRequest = mock(RestRequest.class);
+    private final StepTimerService stepTimerService = mock(StepTimerService.class);
+    private final JmsCommunicator jmsCommunicator = mock(JmsCommunicator.class);
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private PrecisionQueue precisionQueue;
+    private Agent agent;
+    private QueueTask queueTask;
+
+    @AfterEach
+    void tearDown() {
+        ConversationLock.configure(ConversationLock.Mode.PER_CONVERSATION, 0, 5000);
+    }
+
+    @BeforeEach
+    void setUp() {
+        RoutingProperties routingProperties = new RoutingProperties();
+        routingProperties.setWakeupMaxLatencyMs(0);
+        RoutingMailboxFactory mailboxFactory = new RoutingMailboxFactory(Runnable::run, null, routingProperties,
+                meterRegistry);
+        TaskRouter taskRouter = new TaskRouter(mock(AgentsPool.class), jmsCommunicator, restRequest,
+                stepTimerService, tasksRepository, offers::add, mailboxFactory, routingProperties, meterRegistry);
+
+        MediaRoutingDomain mrd = new MediaRoutingDomain(MRD_ID, "CHAT", "chat", null, 5);
+        PrecisionQueueEntity entity = new PrecisionQueueEntity();
+        entity.setId("queue-1");
+        entity.setMrd(mrd);
+        precisionQueue = new PrecisionQueue(entity, taskRouter);
+
+        Step step = step("english");
+        precisionQueue.addStep(step);
+
+        agent = readyAgent("agent-1", mrd);
+        step.evaluateAssociatedAgentOnInsert(agent);
+
+        queueTask = queueTask("1", step);
+        precisionQueue.enqueue(queueTask);
+    }
+
+    @Test
+    void test_propertyChange_reservesAgentsForTasksBehindHead_until_agentsAreExhausted() {
+        Step first = precisionQueue.getStepAt(0);
+        Step second = step("sales");
+        precisionQueue.addStep(second);
+
+        Agent agent2 = readyAgent("agent-2", precisionQueue.getMrd());
+        second.evaluateAssociatedAgentOnInsert(agent2);
+
+        // The only agent of the first step goes to task-2, task-3 can not be matched and must not block task-4.
+        precisionQueue.removeTask("task-1");
+        QueueTask task2 = queueTask("2", first);
+        QueueTask task3 = queueTask("3", first);
+        QueueTask task4 = queueTask("4", second);
+        QueueTask task5 = queueTask("5", second);
+        precisionQueue.enqueue(task2);
+        precisionQueue.enqueue(task3);
+        precisionQueue.enqueue(task4);
+        precisionQueue.enqueue(task5);
+
+        precisionQueue.getTaskRouter().propertyChange(event());
+
+        assertEquals("task-2", agent.getReservedTask().getTaskId());
+        assertEquals("task-4", agent2.getReservedTask().getTaskId());
+        assertEquals(List.of(task3, task5), precisionQueue.getTasks());
+        assertEquals(2, offers.size());
+
+        DistributionSummary summary = meterRegistry.get("routing.reservations.per.wakeup").summary();
+        assertEquals(1, summary.count());
+        assertEquals(2.0, summary.totalAmount());
+    }
+
+    @Test
+    void test_propertyChange_reservesAgentInMemory_and_offersAsynchronously() {
+        Task task = task();
+        when(tasksRepository.find("task-1")).thenReturn(task);
+        when(restRequest.postAssignTask(any(), any(), any(), any(), anyBoolean())).thenReturn(true);
+
+        precisionQueue.getTaskRouter().propertyChange(event());
+
+        assertEquals("task-1", agent.getReservedTask().getTaskId());
+        assertTrue(precisionQueue.isEmpty());
+        verify(tasksRepository, never()).find(anyString());
+        assertEquals(1, offers.size());
+
+        offers.get(0).run();
+
+        verify(tasksRepository).reserve(eq(task), eq("media-1"), any());
+        verify(stepTimerService).stop("task-1");
+        assertEquals("task-1", agent.getReservedTask().getTaskId());
+    }
+
+    @Test
+    void test_offer_unreservesAgent_and_requeuesTaskAtHead_when_offerFails() {
+        Task task = task();
+        when(tasksRepository.find("task-1")).thenReturn(task);
+        when(restRequest.postAssignTask(any(), any(), any(), any(), anyBoolean())).thenReturn(false);
+
+        precisionQueue.getTaskRouter().propertyChange(event());
+        precisionQueue.enqueue(new QueueTask("conversation-2", "task-2", "media-2", "queue-1", 1, 0L));
+        offers.get(0).run();
+
+        assertNull(agent.getReservedTask());
+        assertEquals(queueTask, precisionQueue.peek());
+        verify(tasksRepository, never()).reserve(any(), any(), any());
+    }
+
+    @Test
+    void test_offer_dropsTask_when_itIsClosedWhileTheOfferFails() {
+        Task task = task();
+        when(tasksRepository.find("task-1")).thenReturn(task, (Task) null);
+        when(restRequest.postAssignTask(any(), any(), any(), any(), anyBoolean())).thenReturn(false);
+
+        precisionQueue.getTaskRouter().propertyChange(event());
+        offers.get(0).run();
+
+        assertNull(agent.getReservedTask());
+        assertTrue(precisionQueue.isEmpty());
+    }
+
+    @Test
+    void test_offer_requeuesTask_and_wakesQueue_when_conversationIsBusy() throws InterruptedException {
+        Task task = task();
+        when(tasksRepository.find("task-1")).thenReturn(task);
+        ConversationLock.configure(ConversationLock.Mode.PER_CONVERSATION, 0, 10);
+
+        CountDownLatch locked = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Thread holder = new Thread(() -> {
+            ConversationLock lock = new ConversationLock();
+            lock.lock("conversation-1");
+            locked.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                lock.unlock("conversation-1");
+            }
+        });
+        holder.start();
+        locked.await();
+
+        try {
+            precisionQueue.getTaskRouter().propertyChange(event());
+            offers.get(0).run();
+        } finally {
+            release.countDown();
+            holder.join();
+        }
+
+        // The wake-up routed the task again to the agent it was unreserved from.
+        assertEquals(2, offers.size());
+        assertEquals("task-1", agent.getReservedTask().getTaskId());
+        assertTrue(precisionQueue.isEmpty());
+        verify(restRequest, never()).postAssignTask(any(), any(), any(), any(), anyBoolean());
+    }
+
+    @Test
+    void test_offer_requeuesTask_without_offering_when_reservationIsClearedMeanwhile() {
+        Task task = task();
+        when(tasksRepository.find("task-1")).thenReturn(task);
+
+        precisionQueue.getTaskRouter().propertyChange(event());
+        agent.clearAllTasks();
+        offers.get(0).run();
+
+        assertNull(agent.getReservedTask());
+        assertEquals(queueTask, precisionQueue.peek());
+        verify(restRequest, never()).postAssignTask(any(), any(), any(), any(), anyBoolean());
+        verify(tasksRepository, never()).reserve(any(), any(), any());
+    }
+
+    @Test
+    void test_offer_dropsReservation_without_offering_when_mediaIsNoLongerQueued() {
+        Task task = task();
+        TaskMedia media = task.findMediaBy("media-1");
+        when(media.getState()).thenReturn(TaskMediaState.RESERVED);
+        when(tasksRepository.find("task-1")).thenReturn(task);
+
+        precisionQueue.getTaskRouter().propertyChange(event());
+        offers.get(0).run();
+
+        assertNull(agent.getReservedTask());
+        assertTrue(precisionQueue.isEmpty());
+        verify(restRequest, never()).postAssignTask(any(), any(), any(), any(), anyBoolean());
+        verify(tasksRepository, never()).reserve(any(), any(), any());
+    }
+
+    @Test
+    void test_offer_dropsReservation_when_taskNoLongerExists() {
+        precisionQueue.getTaskRouter().propertyChange(event());
+        offers.get(0).run();
+
+        assertNull(agent.getReservedTask());
+        assertTrue(precisionQueue.isEmpty());
+        verify(restRequest, never()).postAssignTask(any(), any(), any(), any(), anyBoolean());
+        verify(jmsCommunicator, never()).publishAgentReserved(any(), any(), any());
+    }
+
+    private PropertyChangeEvent event() {
+        return new PropertyChangeEvent(this, QueueEventName.AGENT_AVAILABLE, null, null);
+    }
+
+    private Task task() {
+        TaskMedia media = mock(TaskMedia.class);
+        when(media.getId()).thenReturn("media-1");
+        when(media.getType()).thenReturn(new TaskType());
+        when(media.getState()).thenReturn(TaskMediaState.QUEUED);
+
+        Task task = mock(Task.class);
+        when(task.getId()).thenReturn("task-1");
+        when(task.findMediaBy(eq("media-1"))).thenReturn(media);
+        return task;
+    }
+
+    private QueueTask queueTask(String id, Step step) {
+        QueueTask result = new QueueTask("conversation-" + id, "task-" + id, "media-" + id, "queue-1", 1, 0L);
+        result.setCurrentStep(new TaskStep(step, true));
+        return result;
+    }
+
+    private Step step(String routingAttributeId) {
+        Term term = new Term();
+        term.setRoutingAttribute(routingAttribute(routingAttributeId));
+        term.setRelationalOperator(">=");
+        term.setValue(1);
+
+        Expression expression = new Expression();
+        expression.setTerms(List.of(term));
+
+        Step step = new Step();
+        step.setExpressions(List.of(expression));
+        return step;
+    }
+
+    private Agent readyAgent(String id, MediaRoutingDomain mrd) {
+        KeycloakUser keycloakUser = new KeycloakUser();
+        keycloakUser.setId(id);
+
+        CCUser ccUser = new CCUser();
+        ccUser.setKeycloakUser(keycloakUser);
+        ccUser.setAssociatedRoutingAttributes(List.of(
+                new AssociatedRoutingAttribute(routingAttribute("english"), 5),
+                new AssociatedRoutingAttribute(routingAttribute("sales"), 5)));
+
+        Agent result = new Agent(ccUser, List.of(mrd));
+        result.setState(new AgentState(Enums.AgentStateName.READY, null));
+        result.getAgentMrdState(MRD_ID).setState(Enums.AgentMrdStateName.READY);
+        result.refreshAvailability(MRD_ID);
+        return result;
+    }
+
+    private RoutingAttribute routingAttribute(String id) {
+        RoutingAttribute routingAttribute = new RoutingAttribute();
+        routingAttribute.setId(id);
+        return routingAttribute;
+    }
+}
@@ -0,0 +1,172 @@
+package com.ef.mediaroutingengine.routing.model;
+
+import com.ef.cim.objectmodel.AgentState;
+import com.ef.cim.objectmodel.CCUser;
+import com.ef.cim.objectmodel.Enums;
+import com.ef.cim.objectmodel.KeycloakUser;
+import com.ef.cim.objectmodel.MediaRoutingDomain;
+import com.ef.cim.objectmodel.task.TaskType;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.ThreadParams;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Compares the throughput of routers contending for a small agent pool, each reserving an agent and releasing
+ * it again, between the compare-and-set reservation slot of {@link Agent} and the monitor based slot it
+ * replaced. An attempt on an agent reserved by another router fails, the {@code reserved} and {@code busy}
+ * counters of the results tell the completed reservations from the failed attempts.
+ *
+ * <p>Run with {@code mvn test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=com.ef.mediaroutingengine.routing.model.AgentReservationBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(8)
+public class AgentReservationBenchmark {
+    private static final String CHAT = "chat";
+
+    @Param("4")
+    private int agents;
+
+    private Agent[] lockFreeAgents;
+    private MonitorSlot[] monitorSlots;
+
+    @Setup
+    public void setUp() {
+        this.lockFreeAgents = new Agent[this.agents];
+        this.monitorSlots = new MonitorSlot[this.agents];
+        for (int i = 0; i < this.agents; i++) {
+            this.lockFreeAgents[i] = readyAgent("agent-" + i);
+            this.monitorSlots[i] = new MonitorSlot(readyAgent("monitor-agent-" + i));
+        }
+    }
+
+    @Benchmark
+    public boolean lockFree(Router router) {
+        Agent candidate = this.lockFreeAgents[router.nextCandidate(this.agents)];
+        long epoch = candidate.tryReserve(router.task);
+        if (epoch == Agent.NO_RESERVATION) {
+            router.busy++;
+            return false;
+        }
+        candidate.removeReservedTask(epoch);
+        router.reserved++;
+        return true;
+    }
+
+    @Benchmark
+    public boolean monitor(Router router) {
+        MonitorSlot candidate = this.monitorSlots[router.nextCandidate(this.agents)];
+        if (!candidate.reserveTask(router.task)) {
+            router.busy++;
+            return false;
+        }
+        candidate.removeReservedTask();
+        router.reserved++;
+        return true;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(AgentReservationBenchmark.class.getSimpleName()).build()).run();
+    }
+
+    private static Agent readyAgent(String id) {
+        KeycloakUser keycloakUser = new KeycloakUser();
+        keycloakUser.setId(id);
+        CCUser ccUser = new CCUser();
+        ccUser.setKeycloakUser(keycloakUser);
+
+        Agent agent = new Agent(ccUser, List.of(new MediaRoutingDomain(CHAT, "CHAT", "chat", null, 5)));
+        agent.setState(new AgentState(Enums.AgentStateName.READY, null));
+        agent.getAgentMrdState(CHAT).setState(Enums.AgentMrdStateName.READY);
+        return agent;
+    }
+
+    /**
+     * A router thread, it walks the agent pool from its own offset. Its public fields are reported as counters.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class Router {
+        /**
+         * Attempts that reserved and released an agent.
+         */
+        public long reserved;
+        /**
+         * Attempts that found the agent reserved by another router.
+         */
+        public long busy;
+
+        private AgentTask task;
+        private int next;
+
+        @Setup(Level.Iteration)
+        public void resetCounters() {
+            this.reserved = 0;
+            this.busy = 0;
+        }
+
+        @Setup
+        public void setUp(ThreadParams threadParams) {
+            int index = threadParams.getThreadIndex();
+            this.task = new AgentTask("task-" + index, "media-" + index, "conversation-" + index, CHAT,
+                    new TaskType(), null);
+            this.next = index;
+        }
+
+        int nextCandidate(int agents) {
+            return Math.floorMod(this.next++, agents);
+        }
+    }
+
+    /**
+     * The monitor based reservation slot the compare-and-set one replaced, kept as the baseline.
+     */
+    private static class MonitorSlot {
+        private final Agent agent;
+        private AgentTask reservedTask;
+
+        MonitorSlot(Agent agent) {
+            this.agent = agent;
+        }
+
+        boolean reserveTask(AgentTask agentTask) {
+            synchronized (this.agent) {
+                if (this.reservedTask == null) {
+                    this.reservedTask = agentTask;
+                    this.agent.refreshAvailability();
+                    return true;
+                }
+                return false;
+            }
+        }
+
+        void removeReservedTask() {
+            synchronized (this.agent) {
+                this.reservedTask = null;
+                this.agent.refreshAvailability();
+            }
+        }
+    }
+}
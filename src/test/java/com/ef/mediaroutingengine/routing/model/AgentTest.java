@@ -0,0 +1,234 @@
+package com.ef.mediaroutingengine.routing.model;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.ef.cim.objectmodel.AgentPresence;
+import com.ef.cim.objectmodel.AgentState;
+import com.ef.cim.objectmodel.CCUser;
+import com.ef.cim.objectmodel.Enums;
+import com.ef.cim.objectmodel.KeycloakUser;
+import com.ef.cim.objectmodel.MediaRoutingDomain;
+import com.ef.cim.objectmodel.task.Task;
+import com.ef.cim.objectmodel.task.TaskMedia;
+import com.ef.cim.objectmodel.task.TaskType;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class AgentTest {
+    private static final String CHAT = "chat";
+    private static final String VOICE = "voice";
+
+    private Agent agent;
+
+    @BeforeEach
+    void setUp() {
+        KeycloakUser keycloakUser = new KeycloakUser();
+        keycloakUser.setId("agent-1");
+        CCUser ccUser = new CCUser();
+        ccUser.setKeycloakUser(keycloakUser);
+
+        agent = new Agent(ccUser, List.of(new MediaRoutingDomain(CHAT, "CHAT", "chat", null, 5),
+                new MediaRoutingDomain(VOICE, "VOICE", "voice", null, 1)));
+        agent.setState(new AgentState(Enums.AgentStateName.READY, null));
+        agent.getAgentMrdState(CHAT).setState(Enums.AgentMrdStateName.READY);
+    }
+
+    @Test
+    void test_getNoOfActiveQueueTasks_countsQueueTasksAndNamedAgentTransfersPerMrd() {
+        agent.addActiveTask(task("1", "c1"), media("1", CHAT, Enums.TaskTypeMode.QUEUE,
+                Enums.TaskTypeDirection.INBOUND));
+        agent.addActiveTask(task("2", "c2"), media("2", CHAT, Enums.TaskTypeMode.AGENT,
+                Enums.TaskTypeDirection.DIRECT_TRANSFER));
+        agent.addActiveTask(task("3", "c3"), media("3", CHAT, Enums.TaskTypeMode.AGENT,
+                Enums.TaskTypeDirection.INBOUND));
+        agent.addActiveTask(task("4", "c4"), media("4", VOICE, Enums.TaskTypeMode.QUEUE,
+                Enums.TaskTypeDirection.INBOUND));
+        // Adding the same task media again is a no-op.
+        agent.addActiveTask(task("1", "c1"), media("1", CHAT, Enums.TaskTypeMode.QUEUE,
+                Enums.TaskTypeDirection.INBOUND));
+
+        assertEquals(2, agent.getNoOfActiveQueueTasks(CHAT));
+        assertEquals(1, agent.getNoOfActiveQueueTasks(VOICE));
+
+        agent.removeTask("task-1", CHAT);
+        agent.removeTask("task-3", CHAT);
+        assertEquals(1, agent.getNoOfActiveQueueTasks(CHAT));
+
+        agent.clearAllTasks();
+        assertEquals(0, agent.getNoOfActiveQueueTasks(CHAT));
+        assertEquals(0, agent.getNoOfActiveQueueTasks(VOICE));
+    }
+
+    @Test
+    void test_conversationIndex_followsActiveTasks() {
+        agent.addActiveTask(task("1", "c1"), media("1", CHAT, Enums.TaskTypeMode.QUEUE,
+                Enums.TaskTypeDirection.INBOUND));
+        agent.addActiveTask(task("2", "c1"), media("2", VOICE, Enums.TaskTypeMode.QUEUE,
+                Enums.TaskTypeDirection.INBOUND));
+
+        assertFalse(agent.isAvailableForReservation(CHAT, "c1"));
+        assertTrue(agent.isAvailableForReservation(CHAT, "c2"));
+        assertEquals("task-1", agent.getTaskByConversationId("c1").getTaskId());
+
+        agent.removeTask("task-1", CHAT);
+        assertFalse(agent.isAvailableForReservation(CHAT, "c1"));
+        assertEquals("task-2", agent.getTaskByConversationId("c1").getTaskId());
+
+        agent.removeTask("task-2", VOICE);
+        assertTrue(agent.isAvailableForReservation(CHAT, "c1"));
+        assertNull(agent.getTaskByConversationId("c1"));
+    }
+
+    @Test
+    void test_getTaskByConversationId_returnsReservedTask() {
+        AgentTask reserved = new AgentTask("task-1", "media-1", "c1", CHAT, new TaskType(), null);
+        agent.reserveTask(reserved);
+
+        assertEquals(reserved, agent.getTaskByConversationId("c1"));
+        assertNull(agent.getTaskByConversationId("c2"));
+
+        agent.clearAllTasks();
+        assertNull(agent.getTaskByConversationId("c1"));
+    }
+
+    @Test
+    void test_toAgentPresence_carriesTheStoredFields() {
+        Timestamp loginTime = new Timestamp(1000);
+        agent.setLoginTime(loginTime);
+        agent.setTopics(List.of("topic-1"));
+
+        AgentPresence agentPresence = agent.toAgentPresence();
+
+        assertEquals(agent.getState(), agentPresence.getState());
+        assertEquals(agent.getStateChangeTime(), agentPresence.getStateChangeTime());
+        assertEquals(loginTime, agentPresence.getAgentLoginTime());
+        assertEquals(List.of("topic-1"), agentPresence.getTopics());
+    }
+
+    @Test
+    void test_removeReservedTask_ignoresStaleEpoch() {
+        long first = agent.tryReserve(new AgentTask("task-1", "media-1", "c1", CHAT, new TaskType(), null));
+        assertNotEquals(Agent.NO_RESERVATION, first);
+        assertEquals(Agent.NO_RESERVATION, agent.tryReserve(
+                new AgentTask("task-2", "media-2", "c2", CHAT, new TaskType(), null)));
+
+        agent.removeReservedTask();
+        long second = agent.tryReserve(new AgentTask("task-2", "media-2", "c2", CHAT, new TaskType(), null));
+
+        assertFalse(agent.removeReservedTask(first));
+        assertEquals("task-2", agent.getReservedTask().getTaskId());
+        assertTrue(agent.removeReservedTask(second));
+        assertNull(agent.getReservedTask());
+    }
+
+    @Test
+    void test_tryReserve_neverDoubleReservesUnderContention() throws InterruptedException {
+        List<Agent> agents = agents(4);
+        AtomicInteger[] holders = new AtomicInteger[agents.size()];
+        for (int i = 0; i < holders.length; i++) {
+            holders[i] = new AtomicInteger();
+        }
+        AtomicInteger reservations = new AtomicInteger();
+        AtomicBoolean doubleReserved = new AtomicBoolean();
+        AtomicBoolean staleRelease = new AtomicBoolean();
+
+        runRouters(16, 20_000, (router, attempt) -> {
+            int index = (router + attempt) % agents.size();
+            Agent candidate = agents.get(index);
+            long epoch = candidate.tryReserve(agentTask(router, attempt));
+            if (epoch == Agent.NO_RESERVATION) {
+                return;
+            }
+            if (holders[index].incrementAndGet() != 1) {
+                doubleReserved.set(true);
+            }
+            reservations.incrementAndGet();
+            holders[index].decrementAndGet();
+            if (!candidate.removeReservedTask(epoch)) {
+                staleRelease.set(true);
+            }
+        });
+
+        assertFalse(doubleReserved.get());
+        assertFalse(staleRelease.get());
+        assertTrue(reservations.get() > 0);
+        agents.forEach(a -> assertNull(a.getReservedTask()));
+    }
+
+    /**
+     * Runs the attempts of concurrent routers.
+     */
+    private void runRouters(int routers, int attempts, BiConsumer<Integer, Integer> attempt)
+            throws InterruptedException {
+        CountDownLatch start = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(routers);
+        for (int i = 0; i < routers; i++) {
+            int router = i;
+            new Thread(() -> {
+                try {
+                    start.await();
+                    for (int j = 0; j < attempts; j++) {
+                        attempt.accept(router, j);
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    done.countDown();
+                }
+            }).start();
+        }
+
+        start.countDown();
+        assertTrue(done.await(60, TimeUnit.SECONDS));
+    }
+
+    private List<Agent> agents(int count) {
+        List<Agent> result = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            KeycloakUser keycloakUser = new KeycloakUser();
+            keycloakUser.setId("agent-" + i);
+            CCUser ccUser = new CCUser();
+            ccUser.setKeycloakUser(keycloakUser);
+
+            Agent pooled = new Agent(ccUser, List.of(new MediaRoutingDomain(CHAT, "CHAT", "chat", null, 5)));
+            pooled.setState(new AgentState(Enums.AgentStateName.READY, null));
+            pooled.getAgentMrdState(CHAT).setState(Enums.AgentMrdStateName.READY);
+            result.add(pooled);
+        }
+        return result;
+    }
+
+    private AgentTask agentTask(int router, int attempt) {
+        return new AgentTask("task-" + router + "-" + attempt, "media", "c" + router, CHAT, new TaskType(), null);
+    }
+
+    private Task task(String id, String conversationId) {
+        Task task = mock(Task.class);
+        when(task.getId()).thenReturn("task-" + id);
+        when(task.getConversationId()).thenReturn(conversationId);
+        return task;
+    }
+
+    private TaskMedia media(String id, String mrdId, Enums.TaskTypeMode mode, Enums.TaskTypeDirection direction) {
+        TaskMedia media = mock(TaskMedia.class);
+        when(media.getId()).thenReturn("media-" + id);
+        when(media.getMrdId()).thenReturn(mrdId);
+        when(media.getType()).thenReturn(new TaskType(direction, mode, new HashMap<>()));
+        return media;
+    }
+}
@@ -0,0 +1,114 @@
+package com.ef.mediaroutingengine.routing.model;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import com.ef.cim.objectmodel.AgentMrdState;
+import com.ef.cim.objectmodel.AgentState;
+import com.ef.cim.objectmodel.AssociatedRoutingAttribute;
+import com.ef.cim.objectmodel.CCUser;
+import com.ef.cim.objectmodel.Enums;
+import com.ef.cim.objectmodel.KeycloakUser;
+import com.ef.cim.objectmodel.MediaRoutingDomain;
+import com.ef.cim.objectmodel.RoutingAttribute;
+import java.sql.Timestamp;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class StepTest {
+    private static final String MRD_ID = "chat";
+
+    private final MediaRoutingDomain mrd = new MediaRoutingDomain(MRD_ID, "CHAT", "chat", null, 5);
+    private Step step;
+
+    @BeforeEach
+    void setUp() {
+        Term term = new Term();
+        term.setRoutingAttribute(routingAttribute());
+        term.setRelationalOperator(">=");
+        term.setValue(1);
+
+        Expression expression = new Expression();
+        expression.setTerms(List.of(term));
+
+        step = new Step();
+        step.setExpressions(List.of(expression));
+    }
+
+    @Test
+    void test_findAvailableAgent_returnsLongestReadyAgent() {
+        Agent agent1 = readyAgent("1", 3000L);
+        Agent agent2 = readyAgent("2", 1000L);
+        Agent agent3 = readyAgent("3", 2000L);
+        step.evaluateAssociatedAgentOnInsert(agent1);
+        step.evaluateAssociatedAgentOnInsert(agent2);
+        step.evaluateAssociatedAgentOnInsert(agent3);
+
+        assertEquals(agent2, step.findAvailableAgent(MRD_ID, "conversation"));
+
+        agent2.setNonInterruptible(true);
+        assertEquals(agent3, step.findAvailableAgent(MRD_ID, "conversation"));
+
+        setMrdState(agent3, Enums.AgentMrdStateName.NOT_READY, 4000L);
+        assertEquals(agent1, step.findAvailableAgent(MRD_ID, "conversation"));
+
+        agent2.setNonInterruptible(false);
+        assertEquals(agent2, step.findAvailableAgent(MRD_ID, "conversation"));
+    }
+
+    @Test
+    void test_findAvailableAgent_ignoresAgentsThatAreNotAssociated() {
+        Agent agent1 = readyAgent("1", 1000L);
+        Agent agent2 = readyAgent("2", 2000L);
+        step.evaluateAssociatedAgentOnInsert(agent1);
+        step.evaluateAssociatedAgentOnInsert(agent2);
+
+        step.removeAssociatedAgent("1");
+        assertEquals(agent2, step.findAvailableAgent(MRD_ID, "conversation"));
+
+        step.clearAssociatedAgents();
+        assertNull(step.findAvailableAgent(MRD_ID, "conversation"));
+
+        step.evaluateAssociatedAgentOnInsert(agent1);
+        assertEquals(agent1, step.findAvailableAgent(MRD_ID, "conversation"));
+    }
+
+    @Test
+    void test_findAvailableAgent_returnsNull_when_agentIsNotReady() {
+        Agent agent = readyAgent("1", 1000L);
+        step.evaluateAssociatedAgentOnInsert(agent);
+
+        agent.setState(new AgentState(Enums.AgentStateName.NOT_READY, null));
+        assertNull(step.findAvailableAgent(MRD_ID, "conversation"));
+        assertNull(step.findAvailableAgent("voice", "conversation"));
+    }
+
+    private Agent readyAgent(String id, long readySince) {
+        KeycloakUser keycloakUser = new KeycloakUser();
+        keycloakUser.setId(id);
+
+        RoutingAttribute routingAttribute = routingAttribute();
+        CCUser ccUser = new CCUser();
+        ccUser.setKeycloakUser(keycloakUser);
+        ccUser.setAssociatedRoutingAttributes(List.of(new AssociatedRoutingAttribute(routingAttribute, 5)));
+
+        Agent agent = new Agent(ccUser, List.of(mrd));
+        agent.setState(new AgentState(Enums.AgentStateName.READY, null));
+        setMrdState(agent, Enums.AgentMrdStateName.READY, readySince);
+        return agent;
+    }
+
+    private void setMrdState(Agent agent, Enums.AgentMrdStateName state, long stateChangeTime) {
+        AgentMrdState agentMrdState = agent.getAgentMrdState(MRD_ID);
+        agentMrdState.setState(state);
+        agentMrdState.setStateChangeTime(new Timestamp(stateChangeTime));
+        agent.refreshAvailability(MRD_ID);
+    }
+
+    private RoutingAttribute routingAttribute() {
+        RoutingAttribute routingAttribute = new RoutingAttribute();
+        routingAttribute.setId("english");
+        return routingAttribute;
+    }
+}
@@ -0,0 +1,80 @@
+package com.ef.mediaroutingengine.routing.pool;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.ef.cim.objectmodel.AssociatedRoutingAttribute;
+import com.ef.cim.objectmodel.RoutingAttribute;
+import com.ef.mediaroutingengine.routing.model.Agent;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class AgentsPoolTest {
+    private AgentsPool pool;
+
+    @BeforeEach
+    void setUp() {
+        pool = new AgentsPool();
+    }
+
+    @Test
+    void test_findAllByRoutingAttribute_returnsAgentsInValueRange() {
+        Agent agent1 = agent("1", Map.of("english", 3));
+        Agent agent2 = agent("2", Map.of("english", 5));
+        Agent agent3 = agent("3", Map.of("english", 8, "sales", 1));
+        pool.insert(agent1);
+        pool.insert(agent2);
+        pool.insert(agent3);
+
+        assertEquals(Set.of(agent2, agent3), pool.findAllByRoutingAttribute("english", ">=", 5));
+        assertEquals(Set.of(agent3), pool.findAllByRoutingAttribute("english", ">", 5));
+        assertEquals(Set.of(agent1), pool.findAllByRoutingAttribute("english", "<", 5));
+        assertEquals(Set.of(agent1, agent2), pool.findAllByRoutingAttribute("english", "<=", 5));
+        assertEquals(Set.of(agent2), pool.findAllByRoutingAttribute("english", "==", 5));
+        assertEquals(Set.of(agent1, agent3), pool.findAllByRoutingAttribute("english", "!=", 5));
+        assertTrue(pool.findAllByRoutingAttribute("french", ">=", 0).isEmpty());
+        assertTrue(pool.findAllByRoutingAttribute("english", "=", 5).isEmpty());
+    }
+
+    @Test
+    void test_reindex_returnsChangedRoutingAttributes_and_updatesIndex() {
+        Map<String, AssociatedRoutingAttribute> attributes = attributes(Map.of("english", 3, "sales", 1));
+        Agent agent = mock(Agent.class);
+        when(agent.getId()).thenReturn("1");
+        when(agent.getAssociatedRoutingAttributes()).thenReturn(attributes);
+        pool.insert(agent);
+
+        attributes.clear();
+        attributes.putAll(attributes(Map.of("english", 7, "support", 2)));
+
+        assertEquals(Set.of("english", "sales", "support"), pool.reindex(agent));
+        assertTrue(pool.findAllByRoutingAttribute("sales", "==", 1).isEmpty());
+        assertEquals(Set.of(agent), pool.findAllByRoutingAttribute("english", ">", 5));
+        assertTrue(pool.reindex(agent).isEmpty());
+
+        pool.deleteById("1");
+        assertTrue(pool.findAllByRoutingAttribute("english", ">", 5).isEmpty());
+    }
+
+    private Agent agent(String id, Map<String, Integer> values) {
+        Agent agent = mock(Agent.class);
+        when(agent.getId()).thenReturn(id);
+        when(agent.getAssociatedRoutingAttributes()).thenReturn(attributes(values));
+        return agent;
+    }
+
+    private Map<String, AssociatedRoutingAttribute> attributes(Map<String, Integer> values) {
+        Map<String, AssociatedRoutingAttribute> attributes = new HashMap<>();
+        values.forEach((id, value) -> {
+            RoutingAttribute routingAttribute = new RoutingAttribute();
+            routingAttribute.setId(id);
+            attributes.put(id, new AssociatedRoutingAttribute(routingAttribute, value));
+        });
+        return attributes;
+    }
+}
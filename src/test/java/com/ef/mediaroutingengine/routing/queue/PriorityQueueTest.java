@@ -0,0 +1,84 @@
+package com.ef.mediaroutingengine.routing.queue;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.ef.mediaroutingengine.routing.model.QueueTask;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class PriorityQueueTest {
+    private PriorityQueue queue;
+
+    @BeforeEach
+    void setUp() {
+        queue = new PriorityQueue();
+    }
+
+    @Test
+    void test_dequeue_returnsHigherPriorityFirst_and_fifoWithinPriority() {
+        queue.enqueue(task("1", 1));
+        queue.enqueue(task("2", 5));
+        queue.enqueue(task("3", 5));
+        queue.enqueue(task("4", 11));
+
+        assertEquals("4", queue.dequeue(false).getTaskId());
+        assertEquals("4", queue.dequeue(true).getTaskId());
+        assertEquals("2", queue.dequeue(true).getTaskId());
+        assertEquals("3", queue.dequeue(true).getTaskId());
+        assertEquals("1", queue.dequeue(true).getTaskId());
+        assertNull(queue.dequeue(true));
+        assertEquals(0, queue.size());
+    }
+
+    @Test
+    void test_enqueue_rejectsTaskAlreadyInQueue() {
+        assertTrue(queue.enqueue(task("1", 1)));
+        assertFalse(queue.enqueue(task("1", 3)));
+        assertTrue(queue.exists("1"));
+        assertEquals(1, queue.size());
+
+        queue.remove("1");
+        assertFalse(queue.exists("1"));
+        assertEquals(-1, queue.getPosition("1"));
+    }
+
+    @Test
+    void test_getPosition_matchesDequeueOrder_underRandomOperations() {
+        Random random = new Random(7);
+        List<QueueTask> reference = new ArrayList<>();
+        Comparator<QueueTask> order = Comparator.comparingInt(QueueTask::getPriority).reversed();
+
+        for (int i = 0; i < 5000; i++) {
+            int operation = random.nextInt(10);
+            if (operation < 6 || reference.isEmpty()) {
+                QueueTask task = task(String.valueOf(i), 1 + random.nextInt(11));
+                queue.enqueue(task);
+                reference.add(task);
+                reference.sort(order);
+            } else if (operation < 8) {
+                QueueTask task = reference.remove(random.nextInt(reference.size()));
+                queue.remove(task.getTaskId());
+            } else {
+                assertEquals(reference.remove(0), queue.dequeue(true));
+            }
+
+            assertEquals(reference.size(), queue.size());
+            if (!reference.isEmpty()) {
+                int index = random.nextInt(reference.size());
+                assertEquals(index + 1, queue.getPosition(reference.get(index).getTaskId()));
+            }
+        }
+        assertEquals(reference, queue.getAll());
+    }
+
+    private QueueTask task(String taskId, int priority) {
+        return new QueueTask("conversation", taskId, "media-" + taskId, "queue", priority, 0L);
+    }
+}
@@ -36,6 +36,7 @@ import com.ef.mediaroutingengine.routing.repository.AgentsRepository;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
 import org.assertj.core.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
@@ -124,7 +125,9 @@ class AgentsServiceImplTest {
             doNothing().when(spy).validateAndSetRoutingAttributes(ccUser);
 
             Agent agent = mock(Agent.class);
+            Set<String> changedRoutingAttributeIds = Set.of("routing-attribute-1");
             when(agentsPool.findBy(id)).thenReturn(agent);
+            when(agentsPool.reindex(agent)).thenReturn(changedRoutingAttributeIds);
             when(agent.getAgentMrdState(mrdId)).thenReturn(getAgentMrdState(Enums.AgentMrdStateName.BUSY));
             when(mrdPool.getType(mrdId)).thenReturn(getMrdType());
 
@@ -135,7 +138,7 @@ class AgentsServiceImplTest {
             assertEquals(id, ccUserCaptor.getValue().getId());
 
             verify(agentPresenceRepository, times(1)).updateCcUser(ccUser);
-            verify(precisionQueuesPool, times(1)).evaluateOnUpdateForAll(agent);
+            verify(precisionQueuesPool, times(1)).evaluateOnUpdateForAll(agent, changedRoutingAttributeIds);
             verify(repository, times(1)).save(ccUser);
         }
     }
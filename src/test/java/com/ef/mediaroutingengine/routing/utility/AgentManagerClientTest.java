@@ -0,0 +1,146 @@
+package com.ef.mediaroutingengine.routing.utility;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.ef.mediaroutingengine.config.CircuitBreakerProperties;
+import com.ef.mediaroutingengine.config.ExternalServiceConfig;
+import com.ef.mediaroutingengine.global.commons.Constants;
+import com.ef.mediaroutingengine.global.resilience.EndpointGuards;
+import com.ef.mediaroutingengine.routing.dto.AssignTaskRequest;
+import com.ef.mediaroutingengine.routing.dto.RevokeTaskRequest;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.SocketTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.MDC;
+
+class AgentManagerClientTest {
+    private final AtomicInteger status = new AtomicInteger(200);
+    private final AtomicReference<CountDownLatch> release = new AtomicReference<>(new CountDownLatch(0));
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger maxInFlight = new AtomicInteger();
+    private final AtomicInteger revokes = new AtomicInteger();
+    private final AtomicReference<String> lastBody = new AtomicReference<>();
+    private final AtomicReference<String> lastCorrelationId = new AtomicReference<>();
+
+    private HttpServer server;
+    private AgentManagerClient client;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.createContext("/agent/assign-task", exchange -> {
+            maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+            try {
+                lastBody.set(new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8));
+                lastCorrelationId.set(exchange.getRequestHeaders().getFirst(Constants.MDC_CORRELATION_ID));
+                release.get().await(5, TimeUnit.SECONDS);
+                exchange.sendResponseHeaders(status.get(), -1);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                inFlight.decrementAndGet();
+                exchange.close();
+            }
+        });
+        server.createContext("/agent/revoke-task", exchange -> {
+            revokes.incrementAndGet();
+            exchange.sendResponseHeaders(status.get(), -1);
+            exchange.close();
+        });
+        server.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        client.close();
+        server.stop(0);
+        MDC.clear();
+    }
+
+    @Test
+    void test_postAssignTask_sendsTheRequest_and_completesWithTheOutcome() {
+        client = newClient(4, 5000);
+        MDC.put(Constants.MDC_CORRELATION_ID, "correlation-1");
+
+        assertTrue(client.postAssignTask(new AssignTaskRequest("task-1", "conversation-1", null, null)).join());
+        assertTrue(lastBody.get().contains("\"taskId\":\"task-1\""));
+        assertEquals("correlation-1", lastCorrelationId.get());
+
+        status.set(500);
+        assertFalse(client.postAssignTask(new AssignTaskRequest("task-2", "conversation-1", null, null)).join());
+    }
+
+    @Test
+    void test_slowResponse_failsTheCall_afterTheReadTimeout() {
+        client = newClient(4, 200);
+        release.set(new CountDownLatch(1));
+
+        CompletableFuture<Boolean> assigned = client.postAssignTask(new AssignTaskRequest());
+
+        CompletionException e = assertThrows(CompletionException.class, assigned::join);
+        assertTrue(e.getCause() instanceof SocketTimeoutException);
+        release.get().countDown();
+    }
+
+    @Test
+    void test_callsInFlight_areBounded() throws InterruptedException {
+        client = newClient(2, 5000);
+        release.set(new CountDownLatch(1));
+
+        List<CompletableFuture<Boolean>> calls = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            calls.add(client.postAssignTask(new AssignTaskRequest()));
+        }
+        long deadline = System.currentTimeMillis() + 5000;
+        while (inFlight.get() < 2 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        Thread.sleep(100);
+        release.get().countDown();
+
+        calls.forEach(call -> assertTrue(call.join()));
+        assertEquals(2, maxInFlight.get());
+    }
+
+    @Test
+    void test_postRevokeTask_isSent_whileTheCircuitIsOpen() {
+        client = newClient(4, 5000);
+        status.set(500);
+
+        // Enough failed calls to open the circuit of the Revoke-Task API.
+        for (int i = 0; i < new CircuitBreakerProperties().getMinimumCalls(); i++) {
+            assertFalse(client.postRevokeTask(new RevokeTaskRequest()).join());
+        }
+        assertFalse(client.postRevokeTask(new RevokeTaskRequest()).join());
+
+        assertEquals(new CircuitBreakerProperties().getMinimumCalls() + 1, revokes.get());
+    }
+
+    private AgentManagerClient newClient(int maxInFlightRequests, long readTimeoutMs) {
+        ExternalServiceConfig config = new ExternalServiceConfig();
+        config.setAgentManagerBaseUri("http://127.0.0.1:" + server.getAddress().getPort());
+        config.setMaxInFlightRequests(maxInFlightRequests);
+        config.setAssignTaskReadTimeoutMs(readTimeoutMs);
+        return new AgentManagerClient(config, new EndpointGuards(new CircuitBreakerProperties(),
+                new SimpleMeterRegistry()));
+    }
+}
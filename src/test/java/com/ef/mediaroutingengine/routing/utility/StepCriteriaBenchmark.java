@@ -0,0 +1,153 @@
+package com.ef.mediaroutingengine.routing.utility;
+
+import com.ef.cim.objectmodel.AssociatedRoutingAttribute;
+import com.ef.cim.objectmodel.CCUser;
+import com.ef.cim.objectmodel.KeycloakUser;
+import com.ef.cim.objectmodel.RoutingAttribute;
+import com.ef.mediaroutingengine.routing.model.Agent;
+import com.ef.mediaroutingengine.routing.model.Expression;
+import com.ef.mediaroutingengine.routing.model.Step;
+import com.ef.mediaroutingengine.routing.model.Term;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Compares one association pass of agents to steps, as on a configuration change, between the compiled step
+ * criteria and the string + SpEL criteria they replaced. The compiled pass includes compiling each step once.
+ *
+ * <p>Run with {@code mvn test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=com.ef.mediaroutingengine.routing.utility.StepCriteriaBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class StepCriteriaBenchmark {
+    private static final String[] RELATIONAL_OPERATORS = {"==", "!=", ">", ">=", "<", "<="};
+    private static final String[] LOGICAL_OPERATORS = {"AND", "OR"};
+    private static final int NO_OF_ATTRIBUTES = 10;
+
+    @Param("1000")
+    private int agents;
+
+    @Param("10")
+    private int steps;
+
+    private final Random random = new Random(42);
+    private List<Agent> agentList;
+    private List<Step> stepList;
+
+    @Setup
+    public void setUp() {
+        this.agentList = new ArrayList<>();
+        for (int i = 0; i < this.agents; i++) {
+            this.agentList.add(this.randomAgent(i));
+        }
+        this.stepList = new ArrayList<>();
+        for (int i = 0; i < this.steps; i++) {
+            this.stepList.add(this.randomStep());
+        }
+    }
+
+    @Benchmark
+    public int compiled() {
+        int matches = 0;
+        for (Step step : this.stepList) {
+            Predicate<Agent> criteria = StepCriteriaCompiler.compile(step);
+            for (Agent agent : this.agentList) {
+                if (criteria.test(agent)) {
+                    matches++;
+                }
+            }
+        }
+        return matches;
+    }
+
+    @Benchmark
+    public int stringAndSpel() {
+        int matches = 0;
+        for (Step step : this.stepList) {
+            for (Agent agent : this.agentList) {
+                if (StringStepCriteria.evaluate(agent, step)) {
+                    matches++;
+                }
+            }
+        }
+        return matches;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(StepCriteriaBenchmark.class.getSimpleName()).build()).run();
+    }
+
+    private Agent randomAgent(int id) {
+        List<AssociatedRoutingAttribute> attributes = new ArrayList<>();
+        for (int i = 0; i < NO_OF_ATTRIBUTES; i++) {
+            if (this.random.nextInt(4) > 0) {
+                attributes.add(new AssociatedRoutingAttribute(routingAttribute("attr" + i), this.random.nextInt(10)));
+            }
+        }
+
+        KeycloakUser keycloakUser = new KeycloakUser();
+        keycloakUser.setId("agent-" + id);
+        CCUser ccUser = new CCUser();
+        ccUser.setKeycloakUser(keycloakUser);
+        ccUser.setAssociatedRoutingAttributes(attributes);
+        return new Agent(ccUser);
+    }
+
+    private Step randomStep() {
+        List<Expression> expressions = new ArrayList<>();
+        int noOfExpressions = 1 + this.random.nextInt(3);
+        for (int i = 0; i < noOfExpressions; i++) {
+            List<Term> terms = new ArrayList<>();
+            int noOfTerms = 1 + this.random.nextInt(4);
+            for (int j = 0; j < noOfTerms; j++) {
+                Term term = new Term();
+                term.setPreTermLogicalOperator(j == 0 ? null : this.randomOf(LOGICAL_OPERATORS));
+                term.setRoutingAttribute(routingAttribute("attr" + this.random.nextInt(NO_OF_ATTRIBUTES)));
+                term.setRelationalOperator(this.randomOf(RELATIONAL_OPERATORS));
+                term.setValue(this.random.nextInt(10));
+                terms.add(term);
+            }
+
+            Expression expression = new Expression();
+            expression.setPreExpressionCondition(i == 0 ? null : this.randomOf(LOGICAL_OPERATORS));
+            expression.setTerms(terms);
+            expressions.add(expression);
+        }
+
+        Step step = new Step();
+        step.setExpressions(expressions);
+        return step;
+    }
+
+    private String randomOf(String[] values) {
+        return values[this.random.nextInt(values.length)];
+    }
+
+    private static RoutingAttribute routingAttribute(String id) {
+        RoutingAttribute routingAttribute = new RoutingAttribute();
+        routingAttribute.setId(id);
+        return routingAttribute;
+    }
+}
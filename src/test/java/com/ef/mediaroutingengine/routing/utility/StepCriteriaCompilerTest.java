@@ -0,0 +1,139 @@
+package com.ef.mediaroutingengine.routing.utility;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.ef.cim.objectmodel.AssociatedRoutingAttribute;
+import com.ef.cim.objectmodel.RoutingAttribute;
+import com.ef.mediaroutingengine.routing.model.Agent;
+import com.ef.mediaroutingengine.routing.model.Expression;
+import com.ef.mediaroutingengine.routing.model.Step;
+import com.ef.mediaroutingengine.routing.model.Term;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.function.Predicate;
+import org.junit.jupiter.api.Test;
+
+class StepCriteriaCompilerTest {
+    private static final String[] RELATIONAL_OPERATORS = {"==", "!=", ">", ">=", "<", "<="};
+    private static final String[] LOGICAL_OPERATORS = {"AND", "OR", "and", "or"};
+    private static final int NO_OF_ATTRIBUTES = 6;
+
+    private final Random random = new Random(42);
+
+    @Test
+    void test_compile_andBindsTighterThanOr() {
+        // a == 1 OR a == 2 AND b == 3
+        Step step = step(expression(null, term(null, "a", "==", 1), term("OR", "a", "==", 2),
+                term("AND", "b", "==", 3)));
+        Predicate<Agent> criteria = StepCriteriaCompiler.compile(step);
+
+        assertTrue(criteria.test(agent(Map.of("a", 1, "b", 0))));
+        assertFalse(criteria.test(agent(Map.of("a", 2, "b", 0))));
+        assertTrue(criteria.test(agent(Map.of("a", 2, "b", 3))));
+    }
+
+    @Test
+    void test_compile_returnsFalse_when_attributeIsNotAssociated() {
+        Step step = step(expression(null, term(null, "a", "<", 5), term("OR", "b", ">=", 0)));
+        Predicate<Agent> criteria = StepCriteriaCompiler.compile(step);
+
+        assertFalse(criteria.test(agent(Map.of("c", 1))));
+        assertTrue(criteria.test(agent(Map.of("b", 1))));
+    }
+
+    @Test
+    void test_compile_matchesNoAgent_when_criteriaIsMalformed() {
+        Agent agent = agent(Map.of("a", 1));
+
+        assertFalse(StepCriteriaCompiler.compile(new Step()).test(agent));
+        assertFalse(StepCriteriaCompiler.compile(step(expression("AND", term(null, "a", "==", 1)))).test(agent));
+        assertFalse(StepCriteriaCompiler.compile(step(expression(null, term(null, "a", "=", 1)))).test(agent));
+        assertFalse(StepCriteriaCompiler.compile(step(expression(null, term(null, "a", "==", 1),
+                term(null, "a", "==", 1)))).test(agent));
+    }
+
+    @Test
+    void test_compile_hasSameResultsAsStringCriteria() {
+        for (int i = 0; i < 2000; i++) {
+            Step step = randomStep();
+            Agent agent = randomAgent();
+
+            assertEquals(StringStepCriteria.evaluate(agent, step), StepCriteriaCompiler.compile(step).test(agent),
+                    StringStepCriteria.build(agent, step));
+        }
+    }
+
+    private Step randomStep() {
+        int noOfExpressions = 1 + random.nextInt(3);
+        Expression[] expressions = new Expression[noOfExpressions];
+        for (int i = 0; i < noOfExpressions; i++) {
+            int noOfTerms = 1 + random.nextInt(4);
+            Term[] terms = new Term[noOfTerms];
+            for (int j = 0; j < noOfTerms; j++) {
+                terms[j] = term(j == 0 ? null : randomOf(LOGICAL_OPERATORS), "attr" + random.nextInt(NO_OF_ATTRIBUTES),
+                        randomOf(RELATIONAL_OPERATORS), random.nextInt(10) - 2);
+            }
+            expressions[i] = expression(i == 0 ? null : randomOf(LOGICAL_OPERATORS), terms);
+        }
+        return step(expressions);
+    }
+
+    private Agent randomAgent() {
+        Map<String, Integer> values = new HashMap<>();
+        for (int i = 0; i < NO_OF_ATTRIBUTES; i++) {
+            if (random.nextInt(4) > 0) {
+                values.put("attr" + i, random.nextInt(10) - 2);
+            }
+        }
+        return agent(values);
+    }
+
+    private String randomOf(String[] values) {
+        return values[random.nextInt(values.length)];
+    }
+
+    private Agent agent(Map<String, Integer> values) {
+        Map<String, AssociatedRoutingAttribute> attributes = new HashMap<>();
+        values.forEach((id, value) -> attributes.put(id, new AssociatedRoutingAttribute(routingAttribute(id), value)));
+
+        Agent agent = mock(Agent.class);
+        when(agent.findAssociatedRoutingAttributeById(anyString()))
+                .thenAnswer(invocation -> attributes.get(invocation.<String>getArgument(0)));
+        return agent;
+    }
+
+    private Step step(Expression... expressions) {
+        Step step = new Step();
+        step.setExpressions(List.of(expressions));
+        return step;
+    }
+
+    private Expression expression(String preExpressionCondition, Term... terms) {
+        Expression expression = new Expression();
+        expression.setPreExpressionCondition(preExpressionCondition);
+        expression.setTerms(List.of(terms));
+        return expression;
+    }
+
+    private Term term(String preTermLogicalOperator, String attributeId, String relationalOperator, int value) {
+        Term term = new Term();
+        term.setPreTermLogicalOperator(preTermLogicalOperator);
+        term.setRoutingAttribute(routingAttribute(attributeId));
+        term.setRelationalOperator(relationalOperator);
+        term.setValue(value);
+        return term;
+    }
+
+    private RoutingAttribute routingAttribute(String id) {
+        RoutingAttribute routingAttribute = new RoutingAttribute();
+        routingAttribute.setId(id);
+        return routingAttribute;
+    }
+}
@@ -0,0 +1,58 @@
+package com.ef.mediaroutingengine.routing.utility;
+
+import com.ef.cim.objectmodel.AssociatedRoutingAttribute;
+import com.ef.mediaroutingengine.routing.model.Agent;
+import com.ef.mediaroutingengine.routing.model.Expression;
+import com.ef.mediaroutingengine.routing.model.Step;
+import com.ef.mediaroutingengine.routing.model.Term;
+import org.springframework.expression.ExpressionParser;
+import org.springframework.expression.spel.standard.SpelExpressionParser;
+
+/**
+ * The string + SpEL evaluation of the step criteria that {@link StepCriteriaCompiler} replaced, kept as the
+ * reference semantics of the compiled criteria and as the baseline of {@link StepCriteriaBenchmark}.
+ */
+final class StringStepCriteria {
+    private static final ExpressionParser parser = new SpelExpressionParser();
+
+    private StringStepCriteria() {
+    }
+
+    static boolean evaluate(Agent agent, Step step) {
+        try {
+            Boolean result = (Boolean) parser.parseExpression(build(agent, step)).getValue();
+            return result != null && result;
+        } catch (Exception e) {
+            return false;
+        }
+    }
+
+    static String build(Agent agent, Step step) {
+        StringBuilder result = new StringBuilder();
+        for (Expression expression : step.getExpressions()) {
+            if (expression.getPreExpressionCondition() != null) {
+                result.append(toSpel(expression.getPreExpressionCondition()));
+            }
+            result.append("(");
+            for (Term term : expression.getTerms()) {
+                if (term.getPreTermLogicalOperator() != null) {
+                    result.append(toSpel(term.getPreTermLogicalOperator()));
+                }
+                AssociatedRoutingAttribute attribute = agent
+                        .findAssociatedRoutingAttributeById(term.getRoutingAttribute().getId());
+                result.append(attribute == null ? "false"
+                        : attribute.getValue() + term.getRelationalOperator() + term.getValue());
+            }
+            result.append(")");
+        }
+        return result.toString();
+    }
+
+    private static String toSpel(String operator) {
+        return switch (operator) {
+            case "AND", "and" -> "&&";
+            case "OR", "or" -> "||";
+            default -> null;
+        };
+    }
+}
@@ -0,0 +1,87 @@
+package com.ef.mediaroutingengine.taskmanager.repository;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.ef.mediaroutingengine.taskmanager.repository.TaskCache.Op;
+import com.ef.mediaroutingengine.taskmanager.repository.TaskCache.TaskWrite;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+class TaskCacheTest {
+    private static final long NEVER = 3_600_000L;
+
+    private final List<List<TaskWrite>> batches = new ArrayList<>();
+    private final AtomicBoolean failing = new AtomicBoolean();
+    private final TaskCache taskCache = new TaskCache(batch -> {
+        if (failing.get()) {
+            throw new IllegalStateException("Redis is down");
+        }
+        batches.add(List.copyOf(batch));
+    }, TaskCache.Mode.WRITE_BEHIND, NEVER, 2);
+
+    @AfterEach
+    void tearDown() {
+        failing.set(false);
+        taskCache.close();
+    }
+
+    @Test
+    void test_flush_coalescesWritesOfTheSameTask() {
+        taskCache.writeBehind(new TaskWrite(Op.INSERT, "task-1", "conversation-1", "{\"v\":1}", Set.of()));
+        taskCache.writeBehind(new TaskWrite(Op.UPDATE, "task-1", "conversation-1", "{\"v\":2}",
+                Set.of("taskMrd:chat")));
+        taskCache.writeBehind(new TaskWrite(Op.UPDATE, "task-1", "conversation-1", "{\"v\":3}",
+                Set.of("taskMrd:chat", "taskAgent:agent-1")));
+
+        assertEquals("{\"v\":3}", taskCache.get("task-1").json());
+        assertTrue(batches.isEmpty());
+
+        taskCache.flush();
+
+        // The coalesced write moves the task to the indexes of its latest state.
+        assertEquals(List.of(List.of(new TaskWrite(Op.INSERT, "task-1", "conversation-1", "{\"v\":3}",
+                Set.of("taskMrd:chat", "taskAgent:agent-1")))), batches);
+        assertEquals(0, taskCache.pendingWrites());
+    }
+
+    @Test
+    void test_flush_keepsDeletedTaskHiddenUntilTheDeleteIsFlushed() {
+        taskCache.writeBehind(new TaskWrite(Op.UPDATE, "task-1", "conversation-1", "{}", Set.of()));
+        taskCache.writeBehind(new TaskWrite(Op.DELETE, "task-1", "conversation-1", null, Set.of()));
+
+        assertTrue(taskCache.get("task-1").isDeleted());
+
+        taskCache.flush();
+
+        assertEquals(Op.DELETE, batches.get(0).get(0).op());
+        assertNull(taskCache.get("task-1"));
+    }
+
+    @Test
+    void test_flush_retriesFailedWrites_and_splitsBatches() {
+        taskCache.writeBehind(new TaskWrite(Op.INSERT, "task-1", "conversation-1", "{\"v\":1}", Set.of()));
+        taskCache.writeBehind(new TaskWrite(Op.INSERT, "task-2", "conversation-2", "{}", Set.of()));
+        taskCache.writeBehind(new TaskWrite(Op.INSERT, "task-3", "conversation-3", "{}", Set.of()));
+
+        failing.set(true);
+        taskCache.flush();
+        assertEquals(3, taskCache.pendingWrites());
+
+        // A write made while Redis was down is coalesced with the failed one.
+        taskCache.writeBehind(new TaskWrite(Op.UPDATE, "task-1", "conversation-1", "{\"v\":2}", Set.of()));
+        failing.set(false);
+        taskCache.flush();
+
+        assertEquals(2, batches.size());
+        assertEquals(3, batches.stream().mapToInt(List::size).sum());
+        assertTrue(batches.stream().flatMap(List::stream)
+                .anyMatch(w -> w.equals(new TaskWrite(Op.INSERT, "task-1", "conversation-1", "{\"v\":2}", Set.of()))));
+        assertEquals(0, taskCache.pendingWrites());
+    }
+}
@@ -0,0 +1,221 @@
+package com.ef.mediaroutingengine.taskmanager.repository;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.ef.cim.objectmodel.ChannelSession;
+import com.ef.cim.objectmodel.Enums;
+import com.ef.cim.objectmodel.task.Task;
+import com.ef.cim.objectmodel.task.TaskAgent;
+import com.ef.cim.objectmodel.task.TaskMedia;
+import com.ef.cim.objectmodel.task.TaskMediaState;
+import com.ef.cim.objectmodel.task.TaskQueue;
+import com.ef.cim.objectmodel.task.TaskState;
+import com.ef.cim.objectmodel.task.TaskType;
+import com.ef.mediaroutingengine.config.TaskCacheProperties;
+import com.ef.mediaroutingengine.global.redis.FakeRedisServer;
+import com.ef.mediaroutingengine.global.redis.RedisClient;
+import com.ef.mediaroutingengine.global.redis.RedisClientImpl;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisPool;
+import redis.clients.jedis.JedisPoolConfig;
+import redis.clients.jedis.Transaction;
+
+class TasksRepositoryTest {
+    private FakeRedisServer server;
+    private JedisPool jedisPool;
+    private RedisClient redisClient;
+    private TasksRepository tasksRepository;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = new FakeRedisServer();
+        jedisPool = new JedisPool(new JedisPoolConfig(), "127.0.0.1", server.port());
+        redisClient = new RedisClientImpl(jedisPool);
+        tasksRepository = new TasksRepository(redisClient, new TaskCacheProperties());
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        tasksRepository.close();
+        jedisPool.close();
+        server.close();
+    }
+
+    @Test
+    void test_writes_moveTheTaskBetweenTheIndexSets() {
+        Task task = task("task-1", "queue-1");
+
+        tasksRepository.insert(task);
+        assertEquals(List.of("task-1"), ids(tasksRepository.findAllByQueueId("queue-1")));
+        assertEquals(List.of("task-1"), ids(tasksRepository.findAllByMrdId("chat")));
+        assertTrue(tasksRepository.findAllByAgent("agent-1").isEmpty());
+
+        task.setAssignedTo(new TaskAgent("agent-1", "Agent"));
+        task.getActiveMedia().get(0).setQueue(new TaskQueue("queue-2", "Queue"));
+        tasksRepository.update(task);
+        assertEquals(List.of("task-1"), ids(tasksRepository.findAllByAgent("agent-1")));
+        assertEquals(List.of("task-1"), ids(tasksRepository.findAllByQueueId("queue-2")));
+        assertTrue(tasksRepository.findAllByQueueId("queue-1").isEmpty());
+        assertEquals(Set.of("taskAgent:agent-1", "taskMrd:chat", "taskQueue:queue-2"),
+                redisClient.setMembers("taskIndexes:task-1"));
+
+        tasksRepository.delete(task);
+        assertTrue(tasksRepository.findAllByAgent("agent-1").isEmpty());
+        assertTrue(tasksRepository.findAllByQueueId("queue-2").isEmpty());
+        assertTrue(tasksRepository.findAllByMrdId("chat").isEmpty());
+        assertFalse(redisClient.exists("taskIndexes:task-1"));
+    }
+
+    @Test
+    void test_rebuildIndexes_removesDeletedTasks_and_keepsTasksInsertedAfterTheSnapshot() {
+        tasksRepository.insert(task("task-1", "queue-1"));
+        tasksRepository.insert(task("task-2", "queue-1"));
+        List<Task> snapshot = tasksRepository.findAll();
+
+        // task-2 is deleted without its indexes and task-3 is inserted after the snapshot is taken.
+        try (Jedis conn = redisClient.getConnection()) {
+            conn.del("task:task-2");
+        }
+        tasksRepository.insert(task("task-3", "queue-1"));
+
+        tasksRepository.rebuildIndexes(snapshot);
+
+        assertEquals(Set.of("task-1", "task-3"), redisClient.setMembers("taskQueue:queue-1"));
+        assertEquals(Set.of("task-1", "task-3"), redisClient.setMembers("taskMrd:chat"));
+        assertFalse(redisClient.exists("taskIndexes:task-2"));
+        assertEquals(Set.of("taskMrd:chat", "taskQueue:queue-1"), redisClient.setMembers("taskIndexes:task-3"));
+    }
+
+    @Test
+    void test_reserve_writesTheAssignee_and_theStateOfTheMediaAtItsIndex() {
+        Task task = task("task-1", "queue-1");
+        TaskMedia voice = media("voice", "task-1", "queue-1");
+        task.addMedia(voice);
+        tasksRepository.insert(task);
+
+        assertTrue(tasksRepository.reserve(task, voice.getId(), new TaskAgent("agent-1", "Agent")));
+
+        Task stored = stored("task-1");
+        assertEquals("agent-1", stored.getAssignedTo().getId());
+        assertEquals(List.of(TaskMediaState.QUEUED, TaskMediaState.RESERVED), states(stored));
+        assertEquals(List.of("task-1"), ids(tasksRepository.findAllByAgent("agent-1")));
+    }
+
+    @Test
+    void test_mediaPatches_resolveTheMediaByItsCurrentIndex() {
+        Task task = task("task-1", "queue-1");
+        TaskMedia chat = task.getActiveMedia().get(0);
+        tasksRepository.insert(task);
+
+        TaskMedia voice = media("voice", "task-1", "queue-1");
+        assertTrue(tasksRepository.appendMedia(task, voice));
+        assertEquals(List.of(chat.getId(), voice.getId()), mediaIds(stored("task-1")));
+        assertEquals(Set.of("taskMrd:chat", "taskMrd:voice", "taskQueue:queue-1"),
+                redisClient.setMembers("taskIndexes:task-1"));
+
+        // Once chat is removed voice moves to .activeMedia[0].
+        assertTrue(tasksRepository.removeMedia(task, chat.getId()));
+        assertTrue(tasksRepository.setMediaState(task, voice.getId(), TaskMediaState.RESERVED));
+        voice.setPriority(5);
+        assertTrue(tasksRepository.updateMedia(task, voice));
+
+        Task stored = stored("task-1");
+        assertEquals(List.of(voice.getId()), mediaIds(stored));
+        assertEquals(TaskMediaState.RESERVED, stored.getActiveMedia().get(0).getState());
+        assertEquals(5, stored.getActiveMedia().get(0).getPriority());
+        assertTrue(tasksRepository.findAllByMrdId("chat").isEmpty());
+    }
+
+    @Test
+    void test_activateMedia_removesTheClosedMedias_and_writesTheActivatedMedia() {
+        Task task = task("task-1", "queue-1");
+        TaskMedia voice = media("voice", "task-1", "queue-1");
+        TaskMedia video = media("video", "task-1", "queue-1");
+        TaskMedia email = media("email", "task-1", "queue-1");
+        task.addMedia(voice);
+        task.addMedia(video);
+        task.addMedia(email);
+        tasksRepository.insert(task);
+
+        task.getActiveMedia().get(0).setState(TaskMediaState.CLOSED);
+        video.setState(TaskMediaState.CLOSED);
+        email.setState(TaskMediaState.ACTIVE);
+        assertTrue(tasksRepository.activateMedia(task, email));
+
+        Task stored = stored("task-1");
+        assertEquals(List.of(voice.getId(), email.getId()), mediaIds(stored));
+        assertEquals(List.of(TaskMediaState.QUEUED, TaskMediaState.ACTIVE), states(stored));
+        assertEquals(List.of(voice, email), task.getActiveMedia());
+    }
+
+    @Test
+    void test_failedWrite_doesNotLeaveItsWatch_onThePooledConnection() {
+        JedisPoolConfig config = new JedisPoolConfig();
+        config.setMaxTotal(1);
+        try (JedisPool singleConnection = new JedisPool(config, "127.0.0.1", server.port())) {
+            TasksRepository repository = new TasksRepository(new RedisClientImpl(singleConnection),
+                    new TaskCacheProperties());
+            Task task = task("task-1", "queue-1");
+            repository.insert(task);
+
+            // The assignee can not be serialized, the write fails after the task's index set is watched.
+            TaskAgent agent = new TaskAgent("agent-1", "Agent") {
+                @Override
+                public String getName() {
+                    throw new IllegalStateException("not serializable");
+                }
+            };
+            assertFalse(repository.reserve(task, task.getActiveMedia().get(0).getId(), agent));
+
+            try (Jedis other = new Jedis("127.0.0.1", server.port())) {
+                other.sadd("taskIndexes:task-1", "taskMrd:voice");
+            }
+            try (Jedis conn = singleConnection.getResource()) {
+                Transaction transaction = conn.multi();
+                transaction.sadd("key", "value");
+                assertNotNull(transaction.exec());
+            }
+            repository.close();
+        }
+    }
+
+    private Task stored(String id) {
+        return redisClient.getJson("task:" + id, Task.class);
+    }
+
+    private static List<String> mediaIds(Task task) {
+        return task.getActiveMedia().stream().map(TaskMedia::getId).toList();
+    }
+
+    private static List<TaskMediaState> states(Task task) {
+        return task.getActiveMedia().stream().map(TaskMedia::getState).toList();
+    }
+
+    private static List<String> ids(List<Task> tasks) {
+        return tasks.stream().map(Task::getId).toList();
+    }
+
+    private static Task task(String id, String queueId) {
+        List<TaskMedia> activeMedia = new ArrayList<>();
+        activeMedia.add(media("chat", id, queueId));
+        return new Task(id, "conversation-1", new TaskState(Enums.TaskStateName.ACTIVE, null), null, null,
+                activeMedia);
+    }
+
+    private static TaskMedia media(String mrdId, String taskId, String queueId) {
+        ChannelSession session = new ChannelSession();
+        session.setConversationId("conversation-1");
+        return new TaskMedia(mrdId, taskId, new TaskQueue(queueId, "Queue"), new TaskType(), 1,
+                TaskMediaState.QUEUED, session, List.of(session));
+    }
+}